@@ -3,6 +3,7 @@ package com.wiflish.luban.framework.common.api.oauth2.dto;
 import lombok.Data;
 
 import java.io.Serializable;
+import java.time.LocalDateTime;
 import java.util.List;
 
 /**
@@ -29,5 +30,11 @@ public class OAuth2AccessTokenCheckRespDTO implements Serializable {
      * 授权范围的数组
      */
     private List<String> scopes;
+    /**
+     * 过期时间
+     *
+     * 用于限制本地缓存访问令牌的时间，允许为空
+     */
+    private LocalDateTime expiresTime;
 
 }
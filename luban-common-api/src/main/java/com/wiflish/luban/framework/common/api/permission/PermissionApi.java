@@ -1,6 +1,7 @@
 package com.wiflish.luban.framework.common.api.permission;
 
 import com.wiflish.luban.framework.common.api.permission.dto.DeptDataPermissionRespDTO;
+import com.wiflish.luban.framework.common.api.permission.dto.UserPermissionRespDTO;
 
 import java.util.Collection;
 import java.util.Set;
@@ -46,4 +47,16 @@ public interface PermissionApi {
      */
     DeptDataPermissionRespDTO getDeptDataPermission(Long userId);
 
+    /**
+     * 获得用户拥有的全部权限、角色，用于本地编译成位图进行鉴权
+     *
+     * 默认返回 null，表示不支持，此时仍然调用 {@link #hasAnyPermissions(Long, String...)}、{@link #hasAnyRoles(Long, String...)}
+     *
+     * @param userId 用户编号
+     * @return 用户的权限
+     */
+    default UserPermissionRespDTO getUserPermission(Long userId) {
+        return null;
+    }
+
 }
@@ -0,0 +1,41 @@
+package com.wiflish.luban.framework.common.api.permission.dto;
+
+import lombok.Data;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * 用户的权限 Response DTO
+ *
+ * @author wiflish
+ */
+@Data
+public class UserPermissionRespDTO {
+
+    /**
+     * 是否超级管理员，拥有所有权限
+     */
+    private Boolean superAdmin;
+    /**
+     * 拥有的权限标识数组
+     */
+    private Set<String> permissions;
+    /**
+     * 拥有的角色标识数组
+     */
+    private Set<String> roles;
+    /**
+     * 权限版本号
+     *
+     * 用户的角色、角色的菜单变更时递增，用于判断本地缓存是否过期。允许为空
+     */
+    private Long version;
+
+    public UserPermissionRespDTO() {
+        this.superAdmin = false;
+        this.permissions = new HashSet<>();
+        this.roles = new HashSet<>();
+    }
+
+}
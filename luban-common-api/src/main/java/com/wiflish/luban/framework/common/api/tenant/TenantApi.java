@@ -23,4 +23,17 @@ public interface TenantApi {
      */
     void validateTenant(Long id);
 
+    /**
+     * 获得租户的独立数据源
+     *
+     * 大租户可以使用独立的数据源（或者独立的 schema，配置成独立的数据源即可），返回 dynamic-datasource 中配置的数据源名；
+     * 共享数据源的租户，返回 null
+     *
+     * @param id 租户编号
+     * @return 数据源名
+     */
+    default String getTenantDataSource(Long id) {
+        return null;
+    }
+
 }
@@ -1,29 +1,205 @@
 package com.wiflish.luban.framework.common.util.cache;
 
 import com.alibaba.ttl.threadpool.TtlExecutors;
+import com.google.common.cache.Cache;
 import com.google.common.cache.CacheBuilder;
 import com.google.common.cache.CacheLoader;
 import com.google.common.cache.LoadingCache;
+import com.wiflish.luban.framework.common.util.context.ContextThreadLocals;
+import lombok.extern.slf4j.Slf4j;
 
 import java.time.Duration;
-import java.util.concurrent.Executor;
-import java.util.concurrent.Executors;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
 
 /**
  * Cache 工具类
  *
+ * 所有异步刷新的缓存，共享一个有界的刷新线程池，通过以下配置项（JVM 参数、或者 Spring 的 EnvironmentPostProcessor）设置：
+ * 1. {@link #REFRESH_THREADS_KEY}：线程数，默认为 CPU 核数，最少 2 个
+ * 2. {@link #REFRESH_QUEUE_CAPACITY_KEY}：队列大小，默认 1000
+ * 3. {@link #REFRESH_VIRTUAL_KEY}：是否使用虚拟线程，默认 false
+ *
+ * 线程池满时拒绝刷新，缓存继续返回旧值，等待下次刷新，而不是无限创建线程。
+ * 刷新任务默认通过 {@link ContextThreadLocals#wrapCleared(Runnable)} 在清空的上下文中执行：租户编号、字典等缓存的 Key 被所有请求共享，
+ * 不能使用触发刷新的请求的租户、登录用户、数据权限等上下文。需要上下文的刷新，使用 {@link #executeRefreshWithContext(Runnable)}
+ *
  * @author wiflish
  */
+@Slf4j
 public class CacheUtils {
 
+    public static final String REFRESH_THREADS_KEY = "luban.framework.cache.refresh-threads";
+    public static final String REFRESH_QUEUE_CAPACITY_KEY = "luban.framework.cache.refresh-queue-capacity";
+    public static final String REFRESH_VIRTUAL_KEY = "luban.framework.cache.refresh-virtual";
+
+    private static final String THREAD_NAME_PREFIX = "luban-cache-refresh-";
+
+    private static volatile int refreshThreads = Integer.getInteger(REFRESH_THREADS_KEY,
+            Math.max(2, Runtime.getRuntime().availableProcessors()));
+    private static volatile int refreshQueueCapacity = Integer.getInteger(REFRESH_QUEUE_CAPACITY_KEY, 1000);
+    private static volatile boolean refreshVirtual = Boolean.getBoolean(REFRESH_VIRTUAL_KEY);
+
+    /**
+     * 刷新线程池，首次创建缓存时初始化
+     */
+    private static volatile ExecutorService refreshExecutor;
+
+    /**
+     * 有名字的缓存，用于注册 Metrics 指标
+     */
+    private static final Map<String, Cache<?, ?>> CACHES = new ConcurrentHashMap<>();
+    /**
+     * 缓存的注册监听器，为空时表示没有监听
+     */
+    private static volatile BiConsumer<String, Cache<?, ?>> cacheListener;
+
+    /**
+     * 设置刷新线程池的参数，需要在首次创建缓存之前设置
+     *
+     * @param threads 线程数
+     * @param queueCapacity 队列大小
+     * @param virtual 是否使用虚拟线程
+     */
+    public static synchronized void setRefreshExecutorConfig(int threads, int queueCapacity, boolean virtual) {
+        if (refreshExecutor != null) {
+            log.warn("[setRefreshExecutorConfig][刷新线程池已经创建，参数需要在首次创建缓存之前设置]");
+            return;
+        }
+        refreshThreads = threads;
+        refreshQueueCapacity = queueCapacity;
+        refreshVirtual = virtual;
+    }
+
+    public static int getRefreshThreads() {
+        return refreshThreads;
+    }
+
+    public static int getRefreshQueueCapacity() {
+        return refreshQueueCapacity;
+    }
+
+    public static boolean isRefreshVirtual() {
+        return refreshVirtual;
+    }
+
+    /**
+     * 设置缓存的注册监听器，例如说注册 Metrics 指标
+     *
+     * 设置时，会回放已创建的缓存
+     *
+     * @param listener 监听器
+     */
+    public static synchronized void setCacheListener(BiConsumer<String, Cache<?, ?>> listener) {
+        cacheListener = listener;
+        if (listener != null) {
+            CACHES.forEach(listener);
+        }
+    }
+
+    public static Map<String, Cache<?, ?>> getCaches() {
+        return CACHES;
+    }
+
     public static <K, V> LoadingCache<K, V> buildAsyncReloadingCache(Duration duration, CacheLoader<K, V> loader) {
-        Executor executor = Executors.newCachedThreadPool(  // TODO 芋艿：可能要思考下，未来要不要做成可配置
-                TtlExecutors.getDefaultDisableInheritableThreadFactory()); // TTL 保证 ThreadLocal 可以透传
-        return CacheBuilder.newBuilder()
+        return buildAsyncReloadingCache(null, duration, loader);
+    }
+
+    /**
+     * 构建异步刷新的缓存
+     *
+     * @param name 缓存名，非空时记录统计信息，并通知 {@link #cacheListener} 注册 Metrics 指标
+     * @param duration 刷新时间
+     * @param loader 加载器
+     * @return 缓存
+     */
+    public static <K, V> LoadingCache<K, V> buildAsyncReloadingCache(String name, Duration duration,
+                                                                     CacheLoader<K, V> loader) {
+        CacheBuilder<Object, Object> builder = CacheBuilder.newBuilder()
                 // 只阻塞当前数据加载线程，其他线程返回旧值
-                .refreshAfterWrite(duration)
-                // 通过 asyncReloading 实现全异步加载，包括 refreshAfterWrite 被阻塞的加载线程
-                .build(CacheLoader.asyncReloading(loader, executor));
+                .refreshAfterWrite(duration);
+        if (name != null) {
+            builder.recordStats();
+        }
+        // 通过 asyncReloading 实现全异步加载，包括 refreshAfterWrite 被阻塞的加载线程
+        LoadingCache<K, V> cache = builder.build(CacheLoader.asyncReloading(loader, CacheUtils::executeRefresh));
+        if (name != null) {
+            registerCache(name, cache);
+        }
+        return cache;
+    }
+
+    private static synchronized void registerCache(String name, Cache<?, ?> cache) {
+        if (CACHES.putIfAbsent(name, cache) != null) {
+            log.warn("[registerCache][缓存({}) 重复创建，只有首个会注册 Metrics 指标]", name);
+            return;
+        }
+        if (cacheListener != null) {
+            cacheListener.accept(name, cache);
+        }
+    }
+
+    /**
+     * 提交刷新任务，在清空的上下文中执行，两种后端都生效
+     *
+     * 除了本类构建的缓存，其它需要异步刷新、且和上下文无关的缓存也使用它，共享同一个有界的线程池
+     *
+     * @param task 刷新任务
+     * @throws java.util.concurrent.RejectedExecutionException 线程池满时，调用方应该放弃本次刷新，继续使用旧值
+     */
+    public static void executeRefresh(Runnable task) {
+        getRefreshExecutor().execute(ContextThreadLocals.wrapCleared(task));
+    }
+
+    /**
+     * 提交刷新任务，通过 {@link ContextThreadLocals#wrap(Runnable)} 携带触发刷新的线程的上下文（租户等），两种后端都生效
+     *
+     * 用于 Key 依赖上下文的刷新，例如说多租户 Redis 缓存的提前刷新，需要租户编号拼接 Key
+     *
+     * @param task 刷新任务
+     * @throws java.util.concurrent.RejectedExecutionException 线程池满时，调用方应该放弃本次刷新，继续使用旧值
+     */
+    public static void executeRefreshWithContext(Runnable task) {
+        getRefreshExecutor().execute(ContextThreadLocals.wrap(task));
+    }
+
+    private static ExecutorService getRefreshExecutor() {
+        if (refreshExecutor == null) {
+            synchronized (CacheUtils.class) {
+                if (refreshExecutor == null) {
+                    refreshExecutor = buildRefreshExecutor();
+                }
+            }
+        }
+        return refreshExecutor;
+    }
+
+    private static ExecutorService buildRefreshExecutor() {
+        ThreadFactory threadFactory;
+        if (refreshVirtual) {
+            threadFactory = Thread.ofVirtual().name(THREAD_NAME_PREFIX, 1).factory();
+        } else {
+            AtomicInteger index = new AtomicInteger();
+            threadFactory = runnable -> {
+                Thread thread = new Thread(runnable, THREAD_NAME_PREFIX + index.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            };
+        }
+        // 使用 AbortPolicy 拒绝策略：拒绝时 Guava 会结束本次刷新，继续返回旧值；不能使用 DiscardPolicy，否则刷新的 Future 永远不会完成
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(refreshThreads, refreshThreads,
+                60L, TimeUnit.SECONDS, new LinkedBlockingQueue<>(refreshQueueCapacity),
+                TtlExecutors.getDisableInheritableThreadFactory(threadFactory), // 禁止创建线程时继承上下文，由 executeRefresh 显式清空或传递
+                new ThreadPoolExecutor.AbortPolicy());
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
     }
 
 }
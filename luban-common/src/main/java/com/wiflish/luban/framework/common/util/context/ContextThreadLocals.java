@@ -0,0 +1,204 @@
+package com.wiflish.luban.framework.common.util.context;
+
+import com.alibaba.ttl.TransmittableThreadLocal;
+import com.alibaba.ttl.TtlCallable;
+import com.alibaba.ttl.TtlRunnable;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Supplier;
+
+/**
+ * 上下文 ThreadLocal 的工厂，统一 TenantContextHolder、DataPermissionContextHolder、Security Context 等上下文的传递方式
+ *
+ * 支持两种后端，通过 {@link #BACKEND_KEY} 配置项选择：
+ * 1. {@link Backend#TTL}：默认，基于 TransmittableThreadLocal，创建子线程、提交到线程池时自动传递上下文
+ * 2. {@link Backend#THREAD_LOCAL}：基于原生 ThreadLocal，只在 {@link #wrap(Runnable)} 显式交接任务时传递上下文，
+ *    适合大量短生命周期的虚拟线程，避免 TTL 在每次创建线程、交接任务时复制和恢复所有 TransmittableThreadLocal
+ *
+ * 注意，后端需要在上下文 Holder 类加载之前确定，所以一般通过 JVM 参数、或者 Spring 的 EnvironmentPostProcessor 设置。
+ *
+ * @author wiflish
+ */
+@Slf4j
+public class ContextThreadLocals {
+
+    /**
+     * 后端的配置项
+     */
+    public static final String BACKEND_KEY = "luban.framework.context.backend";
+
+    private static volatile Backend backend = Backend.of(System.getProperty(BACKEND_KEY));
+
+    /**
+     * 已创建的原生 ThreadLocal，用于 {@link Backend#THREAD_LOCAL} 后端交接任务时的传递
+     */
+    private static final List<ThreadLocal<Object>> THREAD_LOCALS = new CopyOnWriteArrayList<>();
+
+    public static Backend getBackend() {
+        return backend;
+    }
+
+    /**
+     * 设置后端，只对之后创建的 ThreadLocal 生效
+     *
+     * @param backend 后端
+     */
+    public static void setBackend(Backend backend) {
+        if (ContextThreadLocals.backend != backend && !THREAD_LOCALS.isEmpty()) {
+            log.warn("[setBackend][上下文的后端({}) 需要在上下文 Holder 类加载之前设置，已创建的 ThreadLocal 不会切换]", backend);
+        }
+        ContextThreadLocals.backend = backend;
+    }
+
+    /**
+     * 创建上下文 ThreadLocal
+     *
+     * @return ThreadLocal
+     */
+    public static <T> ThreadLocal<T> create() {
+        if (backend == Backend.TTL) {
+            return new TransmittableThreadLocal<>();
+        }
+        return register(new ThreadLocal<>());
+    }
+
+    /**
+     * 创建带有初始值的上下文 ThreadLocal
+     *
+     * @param supplier 初始值
+     * @return ThreadLocal
+     */
+    public static <T> ThreadLocal<T> withInitial(Supplier<? extends T> supplier) {
+        if (backend == Backend.TTL) {
+            return TransmittableThreadLocal.withInitial(supplier);
+        }
+        return register(ThreadLocal.withInitial(supplier));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> ThreadLocal<T> register(ThreadLocal<T> threadLocal) {
+        THREAD_LOCALS.add((ThreadLocal<Object>) threadLocal);
+        return threadLocal;
+    }
+
+    /**
+     * 包装任务，使其执行时携带当前线程的上下文，执行后恢复执行线程原有的上下文
+     *
+     * @param task 任务
+     * @return 包装后的任务
+     */
+    public static Runnable wrap(Runnable task) {
+        if (backend == Backend.TTL) {
+            return TtlRunnable.get(task);
+        }
+        Object[] captured = capture();
+        return () -> {
+            Object[] backup = replay(captured);
+            try {
+                task.run();
+            } finally {
+                replay(backup);
+            }
+        };
+    }
+
+    /**
+     * 包装任务，使其执行时携带当前线程的上下文，执行后恢复执行线程原有的上下文
+     *
+     * @param task 任务
+     * @return 包装后的任务
+     */
+    public static <V> Callable<V> wrap(Callable<V> task) {
+        if (backend == Backend.TTL) {
+            return TtlCallable.get(task);
+        }
+        Object[] captured = capture();
+        return () -> {
+            Object[] backup = replay(captured);
+            try {
+                return task.call();
+            } finally {
+                replay(backup);
+            }
+        };
+    }
+
+    /**
+     * 包装任务，使其执行时不携带任何上下文，执行后恢复执行线程原有的上下文
+     *
+     * 适合框架内部的后台任务，例如说共享 Key 的缓存刷新，避免使用触发线程的租户、数据权限等上下文
+     *
+     * @param task 任务
+     * @return 包装后的任务
+     */
+    public static Runnable wrapCleared(Runnable task) {
+        if (backend == Backend.TTL) {
+            return () -> TransmittableThreadLocal.Transmitter.runSupplierWithClear(() -> {
+                task.run();
+                return null;
+            });
+        }
+        return () -> {
+            Object[] backup = replay(new Object[THREAD_LOCALS.size()]);
+            try {
+                task.run();
+            } finally {
+                replay(backup);
+            }
+        };
+    }
+
+    private static Object[] capture() {
+        Object[] values = new Object[THREAD_LOCALS.size()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = THREAD_LOCALS.get(i).get();
+        }
+        return values;
+    }
+
+    /**
+     * 设置上下文
+     *
+     * @param values 上下文
+     * @return 设置前的上下文
+     */
+    private static Object[] replay(Object[] values) {
+        Object[] backup = capture();
+        // 只处理 capture 时已创建的 ThreadLocal，THREAD_LOCALS 只增不减，下标保持不变
+        for (int i = 0; i < values.length; i++) {
+            if (values[i] != null) {
+                THREAD_LOCALS.get(i).set(values[i]);
+            } else {
+                THREAD_LOCALS.get(i).remove();
+            }
+        }
+        return backup;
+    }
+
+    /**
+     * 上下文的后端
+     */
+    public enum Backend {
+
+        /**
+         * TransmittableThreadLocal
+         */
+        TTL,
+        /**
+         * 原生 ThreadLocal
+         */
+        THREAD_LOCAL;
+
+        public static Backend of(String name) {
+            if (name == null || name.isEmpty()) {
+                return TTL;
+            }
+            return valueOf(name.trim().toUpperCase().replace('-', '_'));
+        }
+
+    }
+
+}
@@ -0,0 +1,136 @@
+package com.wiflish.luban.framework.common.util.cache;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import com.wiflish.luban.framework.common.util.context.ContextThreadLocals;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * {@link CacheUtils} 的单元测试
+ *
+ * @author wiflish
+ */
+public class CacheUtilsTest {
+
+    @AfterEach
+    public void tearDown() {
+        CacheUtils.setCacheListener(null);
+    }
+
+    @Test
+    public void testBuildAsyncReloadingCache_listener() {
+        // 准备参数
+        LoadingCache<String, String> before = CacheUtils.buildAsyncReloadingCache("test.before",
+                Duration.ofMinutes(1), CacheLoader.from(key -> key));
+        Map<String, Cache<?, ?>> caches = new HashMap<>();
+
+        // 调用：设置监听器，回放已创建的缓存
+        CacheUtils.setCacheListener(caches::put);
+        LoadingCache<String, String> after = CacheUtils.buildAsyncReloadingCache("test.after",
+                Duration.ofMinutes(1), CacheLoader.from(key -> key));
+        // 断言
+        assertSame(before, caches.get("test.before"));
+        assertSame(after, caches.get("test.after"));
+        // 断言：记录统计信息
+        after.getUnchecked("a");
+        after.getUnchecked("a");
+        assertEquals(1, after.stats().hitCount());
+        assertEquals(1, after.stats().loadSuccessCount());
+    }
+
+    @Test
+    public void testBuildAsyncReloadingCache_refresh() throws Exception {
+        // 准备参数
+        AtomicReference<String> threadName = new AtomicReference<>();
+        LoadingCache<String, String> cache = CacheUtils.buildAsyncReloadingCache(Duration.ofMillis(1),
+                new CacheLoader<String, String>() {
+
+                    @Override
+                    public String load(String key) {
+                        threadName.set(Thread.currentThread().getName());
+                        return key;
+                    }
+
+                });
+        cache.getUnchecked("a");
+
+        // 调用：触发异步刷新
+        Thread.sleep(10);
+        cache.getUnchecked("a");
+        // 断言：在共享的刷新线程池中刷新
+        for (int i = 0; i < 100 && !threadName.get().startsWith("luban-cache-refresh-"); i++) {
+            Thread.sleep(10);
+        }
+        assertTrue(threadName.get().startsWith("luban-cache-refresh-"));
+    }
+
+    @Test
+    public void testBuildAsyncReloadingCache_context() throws Exception {
+        // 准备参数
+        ThreadLocal<String> context = ContextThreadLocals.create();
+        AtomicInteger loadCount = new AtomicInteger();
+        AtomicReference<String> loadContext = new AtomicReference<>();
+        LoadingCache<String, String> cache = CacheUtils.buildAsyncReloadingCache(Duration.ofMillis(1),
+                new CacheLoader<String, String>() {
+
+                    @Override
+                    public String load(String key) {
+                        loadContext.set(context.get());
+                        loadCount.incrementAndGet();
+                        return key;
+                    }
+
+                });
+        cache.getUnchecked("a");
+
+        // 调用：在有上下文的线程中，触发异步刷新
+        Thread.sleep(10);
+        context.set("tenant-1");
+        try {
+            cache.getUnchecked("a");
+        } finally {
+            context.remove();
+        }
+        // 断言：刷新时不携带触发线程的上下文
+        for (int i = 0; i < 100 && loadCount.get() < 2; i++) {
+            Thread.sleep(10);
+        }
+        assertEquals(2, loadCount.get());
+        assertNull(loadContext.get());
+    }
+
+    @Test
+    public void testExecuteRefreshWithContext() throws Exception {
+        // 准备参数
+        ThreadLocal<String> context = ContextThreadLocals.create();
+        CountDownLatch latch = new CountDownLatch(1);
+        AtomicReference<String> refreshContext = new AtomicReference<>();
+
+        // 调用：在有上下文的线程中，提交刷新
+        context.set("tenant-1");
+        try {
+            CacheUtils.executeRefreshWithContext(() -> {
+                refreshContext.set(context.get());
+                latch.countDown();
+            });
+        } finally {
+            context.remove();
+        }
+        // 断言：刷新时携带触发线程的上下文
+        assertTrue(latch.await(1, TimeUnit.SECONDS));
+        assertEquals("tenant-1", refreshContext.get());
+    }
+
+}
@@ -0,0 +1,99 @@
+package com.wiflish.luban.framework.common.util.context;
+
+import com.alibaba.ttl.TransmittableThreadLocal;
+import com.wiflish.luban.framework.common.util.context.ContextThreadLocals.Backend;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * {@link ContextThreadLocals} 的单元测试
+ */
+public class ContextThreadLocalsTest {
+
+    @AfterEach
+    public void tearDown() {
+        ContextThreadLocals.setBackend(Backend.TTL);
+    }
+
+    @Test
+    public void testCreate_ttl() {
+        // 调用
+        ThreadLocal<Long> threadLocal = ContextThreadLocals.create();
+        // 断言
+        assertInstanceOf(TransmittableThreadLocal.class, threadLocal);
+    }
+
+    @Test
+    public void testWrap_threadLocal() throws Exception {
+        // 准备参数
+        ContextThreadLocals.setBackend(Backend.THREAD_LOCAL);
+        ThreadLocal<Long> threadLocal = ContextThreadLocals.create();
+        assertFalse(threadLocal instanceof TransmittableThreadLocal);
+        ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+        try {
+            // 调用：未包装，不传递
+            threadLocal.set(1L);
+            AtomicReference<Long> result = new AtomicReference<>(-1L);
+            executor.submit(() -> result.set(threadLocal.get())).get();
+            // 断言
+            assertNull(result.get());
+
+            // 调用：包装，传递
+            executor.submit(ContextThreadLocals.wrap(() -> result.set(threadLocal.get()))).get();
+            // 断言
+            assertEquals(1L, result.get());
+
+            // 调用：Callable 包装，执行后恢复原有的上下文
+            Callable<Long> task = ContextThreadLocals.wrap(threadLocal::get);
+            threadLocal.set(2L);
+            assertEquals(1L, task.call());
+            // 断言
+            assertEquals(2L, threadLocal.get());
+        } finally {
+            threadLocal.remove();
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testWrapCleared_ttl() {
+        assertWrapCleared(ContextThreadLocals.create());
+    }
+
+    @Test
+    public void testWrapCleared_threadLocal() {
+        ContextThreadLocals.setBackend(Backend.THREAD_LOCAL);
+        assertWrapCleared(ContextThreadLocals.create());
+    }
+
+    private static void assertWrapCleared(ThreadLocal<Long> threadLocal) {
+        // 准备参数
+        AtomicReference<Long> result = new AtomicReference<>(-1L);
+        Runnable task = ContextThreadLocals.wrapCleared(() -> result.set(threadLocal.get()));
+        threadLocal.set(1L);
+        try {
+            // 调用
+            task.run();
+            // 断言：执行时不携带上下文，执行后恢复
+            assertNull(result.get());
+            assertEquals(1L, threadLocal.get());
+        } finally {
+            threadLocal.remove();
+        }
+    }
+
+    @Test
+    public void testBackendOf() {
+        assertEquals(Backend.TTL, Backend.of(null));
+        assertEquals(Backend.THREAD_LOCAL, Backend.of("thread-local"));
+        assertEquals(Backend.TTL, Backend.of("ttl"));
+    }
+
+}
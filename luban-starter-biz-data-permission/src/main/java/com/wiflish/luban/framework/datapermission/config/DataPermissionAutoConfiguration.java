@@ -1,25 +1,53 @@
 package com.wiflish.luban.framework.datapermission.config;
 
 import com.baomidou.mybatisplus.extension.plugins.MybatisPlusInterceptor;
+import com.baomidou.mybatisplus.extension.plugins.inner.TenantLineInnerInterceptor;
 import com.wiflish.luban.framework.datapermission.core.aop.DataPermissionAnnotationAdvisor;
 import com.wiflish.luban.framework.datapermission.core.db.DataPermissionDatabaseInterceptor;
+import com.wiflish.luban.framework.datapermission.core.db.DataPermissionRewriteCache;
+import com.wiflish.luban.framework.datapermission.core.db.DataPermissionRewriteCacheMetricsBinder;
+import com.wiflish.luban.framework.datapermission.core.db.DataPermissionRewriteRecorder;
+import com.wiflish.luban.framework.datapermission.core.db.DataPermissionRewriteSampleEndpoint;
+import com.wiflish.luban.framework.datapermission.core.db.MappedStatementTableIndex;
+import com.wiflish.luban.framework.datapermission.core.db.TenantDataPermissionDatabaseInterceptor;
 import com.wiflish.luban.framework.datapermission.core.rule.DataPermissionRule;
 import com.wiflish.luban.framework.datapermission.core.rule.DataPermissionRuleFactory;
 import com.wiflish.luban.framework.datapermission.core.rule.DataPermissionRuleFactoryImpl;
 import com.wiflish.luban.framework.mybatis.core.util.MyBatisUtils;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.SmartInitializingSingleton;
 import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
 
+import java.util.Collections;
 import java.util.List;
+import java.util.Set;
 
 /**
  * 数据权限的自动配置类
  *
  * @author wiflish
  */
-@AutoConfiguration
+@AutoConfiguration(afterName = "com.wiflish.luban.framework.tenant.config.TenantAutoConfiguration") // 保证 TenantLineInnerInterceptor 先创建，用于合并
+@EnableConfigurationProperties(DataPermissionProperties.class)
 public class DataPermissionAutoConfiguration {
 
+    /**
+     * 多租户忽略表的配置项，对应 TenantProperties 的 ignoreTables 属性
+     */
+    private static final String TENANT_IGNORE_TABLES = "luban.framework.tenant.ignore-tables";
+
     @Bean
     public DataPermissionRuleFactory dataPermissionRuleFactory(List<DataPermissionRule> rules) {
         return new DataPermissionRuleFactoryImpl(rules);
@@ -27,18 +55,93 @@ public class DataPermissionAutoConfiguration {
 
     @Bean
     public DataPermissionDatabaseInterceptor dataPermissionDatabaseInterceptor(MybatisPlusInterceptor interceptor,
-                                                                               DataPermissionRuleFactory ruleFactory) {
-        // 创建 DataPermissionDatabaseInterceptor 拦截器
+                                                                               DataPermissionRuleFactory ruleFactory,
+                                                                               DataPermissionProperties properties,
+                                                                               ObjectProvider<TenantLineInnerInterceptor> tenantLineInnerInterceptorProvider,
+                                                                               ObjectProvider<MeterRegistry> meterRegistryProvider) {
+        // 情况一：合并多租户的拦截器，替换掉 TenantLineInnerInterceptor，保证 SQL 只解析一次
+        TenantLineInnerInterceptor tenantLineInnerInterceptor = Boolean.TRUE.equals(properties.getTenantLineCombine())
+                ? tenantLineInnerInterceptorProvider.getIfAvailable() : null;
+        if (tenantLineInnerInterceptor != null) {
+            DataPermissionDatabaseInterceptor inner = new TenantDataPermissionDatabaseInterceptor(ruleFactory,
+                    tenantLineInnerInterceptor.getTenantLineHandler());
+            initInterceptor(inner, properties, meterRegistryProvider);
+            MyBatisUtils.replaceInterceptor(interceptor, tenantLineInnerInterceptor, inner);
+            return inner;
+        }
+
+        // 情况二：创建 DataPermissionDatabaseInterceptor 拦截器
         DataPermissionDatabaseInterceptor inner = new DataPermissionDatabaseInterceptor(ruleFactory);
+        initInterceptor(inner, properties, meterRegistryProvider);
         // 添加到 interceptor 中
         // 需要加在首个，主要是为了在分页插件前面。这个是 MyBatis Plus 的规定
         MyBatisUtils.addInterceptor(interceptor, inner, 0);
         return inner;
     }
 
+    private static void initInterceptor(DataPermissionDatabaseInterceptor inner, DataPermissionProperties properties,
+                                        ObjectProvider<MeterRegistry> meterRegistryProvider) {
+        // 重写后的 SQL 缓存
+        if (properties.getRewriteCacheSize() > 0) {
+            inner.setRewriteCache(new DataPermissionRewriteCache(properties.getRewriteCacheSize()));
+        }
+        // SQL 重写的记录器
+        if (Boolean.TRUE.equals(properties.getMetricsEnable()) || properties.getDebugSampleSize() > 0) {
+            MeterRegistry registry = Boolean.TRUE.equals(properties.getMetricsEnable())
+                    ? meterRegistryProvider.getIfAvailable(() -> Metrics.globalRegistry) : null;
+            inner.setRewriteRecorder(new DataPermissionRewriteRecorder(registry, properties.getDebugSampleSize()));
+        }
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "luban.framework.data-permission", value = "metrics-enable", matchIfMissing = true)
+    public DataPermissionRewriteCacheMetricsBinder dataPermissionRewriteCacheMetricsBinder(
+            DataPermissionDatabaseInterceptor interceptor) {
+        return new DataPermissionRewriteCacheMetricsBinder(interceptor);
+    }
+
+    /**
+     * 启动时，构建 MappedStatement 的表索引
+     *
+     * 使用 SmartInitializingSingleton 的原因是，此时 Mapper 都已经创建，MyBatis Plus 注入的 MappedStatement 也已经注册
+     */
+    @Bean
+    @ConditionalOnProperty(prefix = "luban.framework.data-permission", value = "table-index-enable", matchIfMissing = true)
+    public SmartInitializingSingleton mappedStatementTableIndexInitializer(DataPermissionDatabaseInterceptor interceptor,
+                                                                         DataPermissionRuleFactory ruleFactory,
+                                                                         ObjectProvider<SqlSessionFactory> sqlSessionFactories,
+                                                                         Environment environment) {
+        return () -> {
+            // 多租户的忽略表，读取 TenantProperties 的 ignore-tables 静态配置
+            Set<String> tenantIgnoreTables = interceptor instanceof TenantDataPermissionDatabaseInterceptor
+                    ? Binder.get(environment).bind(TENANT_IGNORE_TABLES, Bindable.setOf(String.class))
+                            .orElse(Collections.emptySet()) : null;
+            MappedStatementTableIndex tableIndex = new MappedStatementTableIndex();
+            tableIndex.build(sqlSessionFactories.stream().map(SqlSessionFactory::getConfiguration).toList(),
+                    ruleFactory.getDataPermissionRules(), tenantIgnoreTables);
+            interceptor.setTableIndex(tableIndex);
+        };
+    }
+
     @Bean
     public DataPermissionAnnotationAdvisor dataPermissionAnnotationAdvisor() {
         return new DataPermissionAnnotationAdvisor();
     }
 
+    /**
+     * 调试模式下，通过 Actuator 端点查看 SQL 重写的样本
+     */
+    @Configuration(proxyBeanMethods = false)
+    @ConditionalOnClass(name = "org.springframework.boot.actuate.endpoint.annotation.Endpoint")
+    @ConditionalOnExpression("${luban.framework.data-permission.debug-sample-size:0} > 0")
+    static class DataPermissionRewriteSampleConfiguration {
+
+        @Bean
+        public DataPermissionRewriteSampleEndpoint dataPermissionRewriteSampleEndpoint(
+                DataPermissionDatabaseInterceptor interceptor) {
+            return new DataPermissionRewriteSampleEndpoint(interceptor);
+        }
+
+    }
+
 }
@@ -0,0 +1,82 @@
+package com.wiflish.luban.framework.datapermission.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * 数据权限配置
+ *
+ * @author wiflish
+ */
+@ConfigurationProperties(prefix = "luban.framework.data-permission")
+@Data
+public class DataPermissionProperties {
+
+    /**
+     * {@link #rewriteCacheSize} 默认值
+     */
+    private static final Long REWRITE_CACHE_SIZE_DEFAULT = 1024L;
+    /**
+     * {@link #deptCacheSize} 默认值
+     */
+    private static final Long DEPT_CACHE_SIZE_DEFAULT = 10000L;
+    /**
+     * {@link #deptCacheTtl} 默认值
+     */
+    private static final Duration DEPT_CACHE_TTL_DEFAULT = Duration.ofMinutes(1);
+
+    /**
+     * 重写后 SQL 的缓存数量
+     *
+     * 设置为 0 时，表示不开启缓存，每次都进行 SQL 的解析与重写
+     *
+     * 开启 {@link #tenantLineCombine} 时，拼接多租户条件的 SQL 按照「租户 + 忽略状态」分别缓存，缓存数量需要考虑租户数
+     */
+    private Long rewriteCacheSize = REWRITE_CACHE_SIZE_DEFAULT;
+
+    /**
+     * 是否合并多租户的拦截器
+     *
+     * 开启时，多租户的 TenantLineInnerInterceptor 和数据权限的拦截器合并成一个，SQL 只解析一次
+     */
+    private Boolean tenantLineCombine = true;
+
+    /**
+     * 是否在启动时，构建 MappedStatement 的表索引
+     *
+     * 开启时，不涉及数据权限、多租户表的静态 SQL，从第一次执行起就无需 SQL 解析
+     */
+    private Boolean tableIndexEnable = true;
+
+    /**
+     * 是否记录 SQL 重写的 Metrics 指标
+     *
+     * 包括解析耗时、重写耗时、拼接的条件数量、IN 条件的大小、跳过的次数
+     */
+    private Boolean metricsEnable = true;
+    /**
+     * 调试模式下，记录原始 SQL 和重写后 SQL 的样本数量
+     *
+     * 设置为 0 时，表示不开启调试模式。样本通过 /actuator/dataPermissionSamples 端点查看，需要暴露该端点
+     */
+    private Integer debugSampleSize = 0;
+
+    /**
+     * 部门数据权限的缓存的开关
+     *
+     * 未开启时，每个请求都通过 PermissionApi 获取；开启后，角色、部门、数据范围变更时，
+     * 需要通过 DeptDataPermissionRefreshProducer 广播失效各节点的缓存，否则最多读取到 {@link #deptCacheTtl} 的过期数据
+     */
+    private Boolean deptCacheEnable = false;
+    /**
+     * 部门数据权限的缓存数量，按照「租户 + 用户」缓存
+     */
+    private Long deptCacheSize = DEPT_CACHE_SIZE_DEFAULT;
+    /**
+     * 部门数据权限的缓存时间，即未收到刷新广播时，最多读取到过期数据的时间
+     */
+    private Duration deptCacheTtl = DEPT_CACHE_TTL_DEFAULT;
+
+}
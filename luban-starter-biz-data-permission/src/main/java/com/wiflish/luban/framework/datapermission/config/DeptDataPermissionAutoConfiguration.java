@@ -1,13 +1,21 @@
 package com.wiflish.luban.framework.datapermission.config;
 
+import com.wiflish.luban.framework.datapermission.core.rule.dept.DeptDataPermissionCache;
+import com.wiflish.luban.framework.datapermission.core.rule.dept.DeptDataPermissionRefreshConsumer;
+import com.wiflish.luban.framework.datapermission.core.rule.dept.DeptDataPermissionRefreshProducer;
 import com.wiflish.luban.framework.datapermission.core.rule.dept.DeptDataPermissionRule;
 import com.wiflish.luban.framework.datapermission.core.rule.dept.DeptDataPermissionRuleCustomizer;
+import com.wiflish.luban.framework.mq.redis.core.RedisMQTemplate;
 import com.wiflish.luban.framework.security.core.LoginUser;
 import com.wiflish.luban.framework.common.api.permission.PermissionApi;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.boot.autoconfigure.AutoConfiguration;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
 
 import java.util.List;
 
@@ -16,19 +24,48 @@ import java.util.List;
  *
  * @author wiflish
  */
-@AutoConfiguration
+@AutoConfiguration(beforeName = "com.wiflish.luban.framework.mq.redis.config.RedisMQConsumerAutoConfiguration") // 需要保证 DeptDataPermissionRefreshConsumer 先创建，才能创建 RedisMessageListenerContainer
 @ConditionalOnClass(LoginUser.class)
 @ConditionalOnBean(value = {PermissionApi.class, DeptDataPermissionRuleCustomizer.class})
+@EnableConfigurationProperties(DataPermissionProperties.class)
 public class DeptDataPermissionAutoConfiguration {
 
     @Bean
     public DeptDataPermissionRule deptDataPermissionRule(PermissionApi permissionApi,
-                                                         List<DeptDataPermissionRuleCustomizer> customizers) {
+                                                         List<DeptDataPermissionRuleCustomizer> customizers,
+                                                         ObjectProvider<DeptDataPermissionCache> deptDataPermissionCache) {
         // 创建 DeptDataPermissionRule 对象
         DeptDataPermissionRule rule = new DeptDataPermissionRule(permissionApi);
+        rule.setDeptDataPermissionCache(deptDataPermissionCache.getIfAvailable());
         // 补全表配置
         customizers.forEach(customizer -> customizer.customize(rule));
         return rule;
     }
 
+    @Bean
+    @ConditionalOnProperty(prefix = "luban.framework.data-permission", value = "dept-cache-enable")
+    public DeptDataPermissionCache deptDataPermissionCache(DataPermissionProperties properties) {
+        return new DeptDataPermissionCache(properties.getDeptCacheSize(), properties.getDeptCacheTtl());
+    }
+
+    /**
+     * 基于 Redis Pub/Sub 广播刷新 {@link DeptDataPermissionCache} 的配置
+     */
+    @Configuration(proxyBeanMethods = false)
+    @ConditionalOnClass(name = "com.wiflish.luban.framework.mq.redis.core.RedisMQTemplate")
+    @ConditionalOnProperty(prefix = "luban.framework.data-permission", value = "dept-cache-enable")
+    public static class DeptDataPermissionRefreshConfiguration {
+
+        @Bean
+        public DeptDataPermissionRefreshProducer deptDataPermissionRefreshProducer(RedisMQTemplate redisMQTemplate) {
+            return new DeptDataPermissionRefreshProducer(redisMQTemplate);
+        }
+
+        @Bean
+        public DeptDataPermissionRefreshConsumer deptDataPermissionRefreshConsumer(DeptDataPermissionCache deptDataPermissionCache) {
+            return new DeptDataPermissionRefreshConsumer(deptDataPermissionCache);
+        }
+
+    }
+
 }
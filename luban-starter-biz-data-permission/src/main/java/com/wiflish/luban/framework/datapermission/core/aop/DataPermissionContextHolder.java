@@ -1,6 +1,6 @@
 package com.wiflish.luban.framework.datapermission.core.aop;
 
-import com.alibaba.ttl.TransmittableThreadLocal;
+import com.wiflish.luban.framework.common.util.context.ContextThreadLocals;
 import com.wiflish.luban.framework.datapermission.core.annotation.DataPermission;
 
 import java.util.LinkedList;
@@ -17,7 +17,7 @@ public class DataPermissionContextHolder {
      * 使用 List 的原因，可能存在方法的嵌套调用
      */
     private static final ThreadLocal<LinkedList<DataPermission>> DATA_PERMISSIONS =
-            TransmittableThreadLocal.withInitial(LinkedList::new);
+            ContextThreadLocals.withInitial(LinkedList::new);
 
     /**
      * 获得当前的 DataPermission 注解
@@ -6,11 +6,13 @@ import com.baomidou.mybatisplus.core.toolkit.PluginUtils;
 import com.baomidou.mybatisplus.extension.parser.JsqlParserSupport;
 import com.baomidou.mybatisplus.extension.plugins.inner.InnerInterceptor;
 import com.wiflish.luban.framework.common.util.collection.SetUtils;
+import com.wiflish.luban.framework.datapermission.core.db.DataPermissionRewriteCache.RuleCall;
 import com.wiflish.luban.framework.datapermission.core.rule.DataPermissionRule;
 import com.wiflish.luban.framework.datapermission.core.rule.DataPermissionRuleFactory;
 import com.wiflish.luban.framework.mybatis.core.util.MyBatisUtils;
 import lombok.Getter;
 import lombok.RequiredArgsConstructor;
+import lombok.Setter;
 import net.sf.jsqlparser.expression.*;
 import net.sf.jsqlparser.expression.operators.conditional.AndExpression;
 import net.sf.jsqlparser.expression.operators.conditional.OrExpression;
@@ -18,6 +20,7 @@ import net.sf.jsqlparser.expression.operators.relational.ExistsExpression;
 import net.sf.jsqlparser.expression.operators.relational.ExpressionList;
 import net.sf.jsqlparser.expression.operators.relational.InExpression;
 import net.sf.jsqlparser.schema.Table;
+import net.sf.jsqlparser.statement.Statement;
 import net.sf.jsqlparser.statement.delete.Delete;
 import net.sf.jsqlparser.statement.select.*;
 import net.sf.jsqlparser.statement.update.Update;
@@ -50,26 +53,38 @@ public class DataPermissionDatabaseInterceptor extends JsqlParserSupport impleme
     @Getter
     private final MappedStatementCache mappedStatementCache = new MappedStatementCache();
 
+    /**
+     * 重写后的 SQL 缓存，为空时表示不开启
+     */
+    @Getter
+    @Setter
+    private DataPermissionRewriteCache rewriteCache;
+
+    /**
+     * 启动时构建的 MappedStatement 表索引，为空时表示不开启
+     */
+    @Getter
+    @Setter
+    private MappedStatementTableIndex tableIndex;
+
+    /**
+     * SQL 重写的记录器，为空时表示不开启
+     */
+    @Getter
+    @Setter
+    private DataPermissionRewriteRecorder rewriteRecorder;
+
     @Override // SELECT 场景
     public void beforeQuery(Executor executor, MappedStatement ms, Object parameter, RowBounds rowBounds, ResultHandler resultHandler, BoundSql boundSql) {
         // 获得 Mapper 对应的数据权限的规则
         List<DataPermissionRule> rules = ruleFactory.getDataPermissionRule(ms.getId());
-        if (mappedStatementCache.noRewritable(ms, rules)) { // 如果无需重写，则跳过
+        if (noRewritable(ms, rules)) { // 如果无需重写，则跳过
+            recordSkip(ms, "no_rewritable");
             return;
         }
 
         PluginUtils.MPBoundSql mpBs = PluginUtils.mpBoundSql(boundSql);
-        try {
-            // 初始化上下文
-            ContextHolder.init(rules);
-            // 处理 SQL
-            mpBs.sql(parserSingle(mpBs.sql(), null));
-        } finally {
-            // 添加是否需要重写的缓存
-            addMappedStatementCache(ms);
-            // 清空上下文
-            ContextHolder.clear();
-        }
+        mpBs.sql(rewriteSql(ms, rules, mpBs.sql(), false));
     }
 
     @Override // 只处理 UPDATE / DELETE 场景，不处理 INSERT 场景（因为 INSERT 不需要数据权限)
@@ -80,22 +95,113 @@ public class DataPermissionDatabaseInterceptor extends JsqlParserSupport impleme
         if (sct == SqlCommandType.UPDATE || sct == SqlCommandType.DELETE) {
             // 获得 Mapper 对应的数据权限的规则
             List<DataPermissionRule> rules = ruleFactory.getDataPermissionRule(ms.getId());
-            if (mappedStatementCache.noRewritable(ms, rules)) { // 如果无需重写，则跳过
+            if (noRewritable(ms, rules)) { // 如果无需重写，则跳过
+                recordSkip(ms, "no_rewritable");
                 return;
             }
 
             PluginUtils.MPBoundSql mpBs = mpSh.mPBoundSql();
-            try {
-                // 初始化上下文
-                ContextHolder.init(rules);
-                // 处理 SQL
-                mpBs.sql(parserMulti(mpBs.sql(), null));
-            } finally {
-                // 添加是否需要重写的缓存
-                addMappedStatementCache(ms);
-                // 清空上下文
-                ContextHolder.clear();
+            mpBs.sql(rewriteSql(ms, rules, mpBs.sql(), true));
+        }
+    }
+
+    /**
+     * 判断是否无需重写
+     *
+     * 优先使用启动时构建的 {@link MappedStatementTableIndex}，再使用执行后记录的 {@link MappedStatementCache}
+     *
+     * @param ms MappedStatement
+     * @param rules 数据权限规则数组
+     * @return 是否无需重写
+     */
+    protected boolean noRewritable(MappedStatement ms, List<DataPermissionRule> rules) {
+        return (tableIndex != null && tableIndex.noRewritable(ms.getId()))
+                || mappedStatementCache.noRewritable(ms, rules);
+    }
+
+    /**
+     * 记录跳过 SQL 解析。只在确实没有解析 SQL 时调用，例如说多租户仍需解析时，不算跳过
+     *
+     * @param ms MappedStatement
+     * @param reason 原因
+     */
+    protected void recordSkip(MappedStatement ms, String reason) {
+        if (rewriteRecorder != null) {
+            rewriteRecorder.recordSkip(ms.getId(), reason);
+        }
+    }
+
+    /**
+     * 重写 SQL，拼接数据权限的条件
+     *
+     * @param ms MappedStatement
+     * @param rules 数据权限规则数组
+     * @param sql 原始 SQL
+     * @param multi 是否为多条 SQL，UPDATE / DELETE 场景
+     * @return 重写后的 SQL
+     */
+    private String rewriteSql(MappedStatement ms, List<DataPermissionRule> rules, String sql, boolean multi) {
+        // 优先，从重写缓存中获取，避免 SQL 解析
+        if (rewriteCache != null) {
+            String rewriteSql = rewriteCache.get(sql, rules, multi, null);
+            if (rewriteSql != null) {
+                recordSkip(ms, "cache_hit");
+                return rewriteSql;
+            }
+        }
+        return parseSql(ms, rules, sql, multi, null, rewriteCache, null);
+    }
+
+    /**
+     * 解析并重写 SQL
+     *
+     * @param ms MappedStatement
+     * @param rules 数据权限规则数组
+     * @param sql 原始 SQL
+     * @param multi 是否为多条 SQL
+     * @param obj 透传给 processSelect 等方法的参数
+     * @param rewriteCache 重写后的 SQL 缓存，为空时不添加
+     * @param cacheContext 重写后的 SQL 缓存的上下文。不为空时，即使数据权限未重写，也添加缓存
+     * @return 重写后的 SQL
+     */
+    protected String parseSql(MappedStatement ms, List<DataPermissionRule> rules, String sql, boolean multi,
+                              Object obj, DataPermissionRewriteCache rewriteCache, Object cacheContext) {
+        long startTime = System.nanoTime();
+        try {
+            // 初始化上下文
+            ContextHolder.init(rules);
+            // 处理 SQL
+            String rewriteSql = multi ? parserMulti(sql, obj) : parserSingle(sql, obj);
+            // 添加重写后 SQL 的缓存
+            if (rewriteCache != null && (ContextHolder.getRewrite() || cacheContext != null)) {
+                rewriteCache.put(sql, rules, multi, cacheContext, ContextHolder.getRuleCalls(), rewriteSql);
+            }
+            // 记录 SQL 重写。其中，解析耗时 = 总耗时 - 重写耗时
+            if (rewriteRecorder != null) {
+                long processNanos = ContextHolder.getProcessNanos();
+                rewriteRecorder.recordRewrite(ms.getId(), sql, rewriteSql,
+                        System.nanoTime() - startTime - processNanos, processNanos, ContextHolder.getRuleCalls());
             }
+            return rewriteSql;
+        } finally {
+            // 添加是否需要重写的缓存
+            addMappedStatementCache(ms);
+            // 清空上下文
+            ContextHolder.clear();
+        }
+    }
+
+    @Override
+    protected String processParser(Statement statement, int index, String sql, Object obj) {
+        if (rewriteRecorder == null) {
+            return super.processParser(statement, index, sql, obj);
+        }
+        // 记录重写耗时，包括拼接条件、输出 SQL
+        long startTime = System.nanoTime();
+        try {
+            return super.processParser(statement, index, sql, obj);
+        } finally {
+            ContextHolder.addProcessNanos(System.nanoTime() - startTime);
         }
     }
 
@@ -507,6 +613,10 @@ public class DataPermissionDatabaseInterceptor extends JsqlParserSupport impleme
 
             // 单条规则的条件
             Expression oneExpress = rule.getExpression(tableName, table.getAlias());
+            // 记录规则的调用，用于重写后 SQL 的缓存、SQL 重写的记录
+            if (rewriteCache != null || rewriteRecorder != null) {
+                ContextHolder.addRuleCall(new RuleCall(rule, tableName, table.getAlias(), oneExpress));
+            }
             if (oneExpress == null){
                 continue;
             }
@@ -523,7 +633,7 @@ public class DataPermissionDatabaseInterceptor extends JsqlParserSupport impleme
      *
      * @param ms MappedStatement
      */
-    private void addMappedStatementCache(MappedStatement ms) {
+    protected void addMappedStatementCache(MappedStatement ms) {
         if (ContextHolder.getRewrite()) {
             return;
         }
@@ -546,15 +656,43 @@ public class DataPermissionDatabaseInterceptor extends JsqlParserSupport impleme
          * SQL 是否进行重写
          */
         private static final ThreadLocal<Boolean> REWRITE = ThreadLocal.withInitial(() -> Boolean.FALSE);
+        /**
+         * SQL 重写过程中，规则的调用记录
+         */
+        private static final ThreadLocal<List<RuleCall>> RULE_CALLS = ThreadLocal.withInitial(ArrayList::new);
+        /**
+         * SQL 重写的耗时，单位：纳秒
+         */
+        private static final ThreadLocal<Long> PROCESS_NANOS = ThreadLocal.withInitial(() -> 0L);
 
         public static void init(List<DataPermissionRule> rules) {
             RULES.set(rules);
             REWRITE.set(false);
+            RULE_CALLS.remove();
+            PROCESS_NANOS.remove();
         }
 
         public static void clear() {
             RULES.remove();
             REWRITE.remove();
+            RULE_CALLS.remove();
+            PROCESS_NANOS.remove();
+        }
+
+        public static void addRuleCall(RuleCall ruleCall) {
+            RULE_CALLS.get().add(ruleCall);
+        }
+
+        public static List<RuleCall> getRuleCalls() {
+            return RULE_CALLS.get();
+        }
+
+        public static void addProcessNanos(long nanos) {
+            PROCESS_NANOS.set(PROCESS_NANOS.get() + nanos);
+        }
+
+        public static long getProcessNanos() {
+            return PROCESS_NANOS.get();
         }
 
         public static boolean getRewrite() {
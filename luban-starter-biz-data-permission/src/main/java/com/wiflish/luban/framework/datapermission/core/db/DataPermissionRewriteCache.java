@@ -0,0 +1,184 @@
+package com.wiflish.luban.framework.datapermission.core.db;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.wiflish.luban.framework.datapermission.core.rule.DataPermissionRule;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import net.sf.jsqlparser.expression.Alias;
+import net.sf.jsqlparser.expression.Expression;
+
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+import static com.wiflish.luban.framework.common.util.collection.CollectionUtils.convertList;
+
+/**
+ * 数据权限重写后的 SQL 缓存
+ *
+ * 以「原始 SQL + 生效的规则数组 + 上下文」作为 Key，缓存 SQL 重写的结果，避免热点 SQL 每次都进行 JSqlParser 的解析与重写。
+ *
+ * 由于 {@link DataPermissionRule#getExpression(String, Alias)} 生成的条件，和当前登录用户等上下文相关，
+ * 所以缓存分成两部分：
+ * 1. 重写计划：SQL 重写过程中，按顺序调用了哪些规则的哪些 (表名, 别名)。在 SQL 和规则不变的情况下，它是固定的
+ * 2. 重写结果：按照重写计划，重新调用规则生成条件，以所有条件的指纹作为 Key，缓存重写后的 SQL
+ *
+ * 使用 {@link TenantDataPermissionDatabaseInterceptor} 合并多租户时，多租户的条件和规则无关，而是和当前租户、忽略状态相关，
+ * 所以由 StatementTenantLineHandler#getStatementKey() 作为上下文，加入 Key 中。命中率等指标，通过 {@link DataPermissionRewriteCacheMetricsBinder} 注册
+ *
+ * @author wiflish
+ */
+public class DataPermissionRewriteCache {
+
+    /**
+     * 重写计划的缓存
+     */
+    private final Cache<PlanKey, List<RuleCall>> plans;
+    /**
+     * 重写结果的缓存
+     */
+    private final Cache<SqlKey, String> sqls;
+
+    /**
+     * 命中次数
+     */
+    private final LongAdder hitCount = new LongAdder();
+    /**
+     * 未命中次数
+     */
+    private final LongAdder missCount = new LongAdder();
+
+    public DataPermissionRewriteCache(long maximumSize) {
+        this.plans = CacheBuilder.newBuilder().maximumSize(maximumSize).recordStats().build();
+        this.sqls = CacheBuilder.newBuilder().maximumSize(maximumSize).recordStats().build();
+    }
+
+    /**
+     * 获得重写后的 SQL
+     *
+     * @param sql 原始 SQL
+     * @param rules 生效的规则数组
+     * @param multi 是否为多条 SQL，对应 UPDATE / DELETE 场景
+     * @param context 规则之外，影响重写结果的上下文，例如说多租户的条件。允许为空
+     * @return 重写后的 SQL；如果未命中，则返回 null
+     */
+    public String get(String sql, List<DataPermissionRule> rules, boolean multi, Object context) {
+        PlanKey planKey = new PlanKey(sql, rules, multi, context);
+        List<RuleCall> calls = plans.getIfPresent(planKey);
+        String rewriteSql = calls != null ? sqls.getIfPresent(new SqlKey(planKey, buildFingerprint(calls, false))) : null;
+        if (rewriteSql != null) {
+            hitCount.increment();
+        } else {
+            missCount.increment();
+        }
+        return rewriteSql;
+    }
+
+    /**
+     * 添加重写后的 SQL
+     *
+     * @param sql 原始 SQL
+     * @param rules 生效的规则数组
+     * @param multi 是否为多条 SQL
+     * @param context 规则之外，影响重写结果的上下文，允许为空
+     * @param calls 重写过程中的规则调用
+     * @param rewriteSql 重写后的 SQL
+     */
+    public void put(String sql, List<DataPermissionRule> rules, boolean multi, Object context,
+                    List<RuleCall> calls, String rewriteSql) {
+        PlanKey planKey = new PlanKey(sql, rules, multi, context);
+        // 重写计划中，无需保留生成的条件
+        plans.put(planKey, convertList(calls, call -> new RuleCall(call.getRule(),
+                call.getTableName(), call.getTableAlias(), null)));
+        sqls.put(new SqlKey(planKey, buildFingerprint(calls, true)), rewriteSql);
+    }
+
+    public long getHitCount() {
+        return hitCount.sum();
+    }
+
+    public long getMissCount() {
+        return missCount.sum();
+    }
+
+    /**
+     * 获得淘汰次数，包括重写计划和重写结果
+     *
+     * @return 淘汰次数
+     */
+    public long getEvictionCount() {
+        return plans.stats().evictionCount() + sqls.stats().evictionCount();
+    }
+
+    /**
+     * 获得缓存的 SQL 数量
+     *
+     * @return 数量
+     */
+    public long size() {
+        return sqls.size();
+    }
+
+    /**
+     * 清空缓存
+     */
+    public void clear() {
+        plans.invalidateAll();
+        sqls.invalidateAll();
+    }
+
+    /**
+     * 拼接所有条件的指纹
+     *
+     * @param calls 规则调用数组
+     * @param recorded 是否使用记录的条件。如果否，则按照重写计划，重新调用规则生成条件
+     * @return 指纹
+     */
+    private static String buildFingerprint(List<RuleCall> calls, boolean recorded) {
+        StringBuilder fingerprint = new StringBuilder();
+        for (RuleCall call : calls) {
+            Expression expression = recorded ? call.getExpression()
+                    : call.getRule().getExpression(call.getTableName(), call.getTableAlias());
+            fingerprint.append(expression).append(';');
+        }
+        return fingerprint.toString();
+    }
+
+    /**
+     * SQL 重写过程中，一次 {@link DataPermissionRule#getExpression(String, Alias)} 的调用
+     */
+    @Data
+    @AllArgsConstructor
+    public static class RuleCall {
+
+        private DataPermissionRule rule;
+        private String tableName;
+        private Alias tableAlias;
+        /**
+         * 调用生成的条件，仅在记录时使用，不参与缓存
+         */
+        private Expression expression;
+
+    }
+
+    @Data
+    @AllArgsConstructor
+    private static class PlanKey {
+
+        private String sql;
+        private List<DataPermissionRule> rules;
+        private boolean multi;
+        private Object context;
+
+    }
+
+    @Data
+    @AllArgsConstructor
+    private static class SqlKey {
+
+        private PlanKey planKey;
+        private String fingerprint;
+
+    }
+
+}
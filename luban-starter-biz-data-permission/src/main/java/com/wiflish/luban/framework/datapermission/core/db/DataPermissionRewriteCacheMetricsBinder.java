@@ -0,0 +1,45 @@
+package com.wiflish.luban.framework.datapermission.core.db;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * {@link DataPermissionRewriteCache} 的 Metrics 注册器
+ *
+ * 注册重写后 SQL 缓存的命中、未命中、淘汰次数和大小。未开启缓存时，不注册
+ *
+ * @author wiflish
+ */
+@RequiredArgsConstructor
+public class DataPermissionRewriteCacheMetricsBinder implements MeterBinder {
+
+    private static final String METRIC_PREFIX = "luban.data.permission.rewrite.cache.";
+
+    private final DataPermissionDatabaseInterceptor interceptor;
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        DataPermissionRewriteCache rewriteCache = interceptor.getRewriteCache();
+        if (rewriteCache == null) {
+            return;
+        }
+        FunctionCounter.builder(METRIC_PREFIX + "gets", rewriteCache, DataPermissionRewriteCache::getHitCount)
+                .description("重写后 SQL 缓存的读取次数")
+                .tag("result", "hit")
+                .register(registry);
+        FunctionCounter.builder(METRIC_PREFIX + "gets", rewriteCache, DataPermissionRewriteCache::getMissCount)
+                .description("重写后 SQL 缓存的读取次数")
+                .tag("result", "miss")
+                .register(registry);
+        FunctionCounter.builder(METRIC_PREFIX + "evictions", rewriteCache, DataPermissionRewriteCache::getEvictionCount)
+                .description("重写后 SQL 缓存的淘汰次数")
+                .register(registry);
+        Gauge.builder(METRIC_PREFIX + "size", rewriteCache, DataPermissionRewriteCache::size)
+                .description("重写后 SQL 缓存的数量")
+                .register(registry);
+    }
+
+}
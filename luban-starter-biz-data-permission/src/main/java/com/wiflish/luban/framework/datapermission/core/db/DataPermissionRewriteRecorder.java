@@ -0,0 +1,199 @@
+package com.wiflish.luban.framework.datapermission.core.db;
+
+import cn.hutool.core.util.StrUtil;
+import com.wiflish.luban.framework.datapermission.core.db.DataPermissionRewriteCache.RuleCall;
+import com.wiflish.luban.framework.datapermission.core.rule.DataPermissionRule;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import net.sf.jsqlparser.expression.ExpressionVisitorAdapter;
+import net.sf.jsqlparser.expression.operators.relational.ExpressionList;
+import net.sf.jsqlparser.expression.operators.relational.InExpression;
+
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * 数据权限 SQL 重写的记录器
+ *
+ * 1. 基于 Micrometer，按照 MappedStatement 编号、规则，记录解析耗时、重写耗时、拼接的条件数量、IN 条件的大小、跳过的次数
+ * 2. 开启调试模式时，使用有界的环形缓冲区，记录原始 SQL 和重写后 SQL 的样本，用于排查重写后的 SQL。
+ *    样本通过 {@link DataPermissionRewriteSampleEndpoint} 查看
+ *
+ * @author wiflish
+ */
+public class DataPermissionRewriteRecorder {
+
+    private static final String METRIC_PREFIX = "luban.data.permission.";
+
+    private static final String TAG_STATEMENT = "statement";
+    private static final String TAG_RULE = "rule";
+
+    /**
+     * Metrics 注册表，为空时不记录 Metrics 指标
+     */
+    private final MeterRegistry registry;
+
+    /**
+     * 已注册的 Meter，避免每条 SQL 都通过 builder 注册
+     *
+     * key：Metrics 名 + 标签值
+     */
+    private final Map<List<String>, Meter> meters = new ConcurrentHashMap<>();
+
+    /**
+     * SQL 样本的数量，为 0 时不开启调试模式
+     */
+    private final int sampleSize;
+    /**
+     * SQL 样本的环形缓冲区，最新的在队首
+     */
+    private final Deque<Sample> samples;
+
+    public DataPermissionRewriteRecorder(MeterRegistry registry, int sampleSize) {
+        this.registry = registry;
+        this.sampleSize = sampleSize;
+        this.samples = new ArrayDeque<>(Math.max(sampleSize, 1));
+    }
+
+    /**
+     * 记录跳过 SQL 重写，包括无需重写、命中重写后的 SQL 缓存
+     *
+     * @param mappedStatementId MappedStatement 编号
+     * @param reason 原因
+     */
+    public void recordSkip(String mappedStatementId, String reason) {
+        if (registry == null) {
+            return;
+        }
+        getMeter(Arrays.asList("skip", mappedStatementId, reason), () -> Counter.builder(METRIC_PREFIX + "skip")
+                .description("跳过数据权限 SQL 重写的次数")
+                .tags(TAG_STATEMENT, mappedStatementId, "reason", reason)
+                .register(registry), Counter.class).increment();
+    }
+
+    /**
+     * 记录 SQL 重写
+     *
+     * @param mappedStatementId MappedStatement 编号
+     * @param sql 原始 SQL
+     * @param rewriteSql 重写后的 SQL
+     * @param parseNanos 解析耗时
+     * @param rewriteNanos 重写耗时，包括拼接条件、输出 SQL
+     * @param calls 规则的调用
+     */
+    public void recordRewrite(String mappedStatementId, String sql, String rewriteSql,
+                              long parseNanos, long rewriteNanos, List<RuleCall> calls) {
+        // 记录 SQL 样本
+        if (sampleSize > 0) {
+            addSample(new Sample(mappedStatementId, sql, rewriteSql, parseNanos + rewriteNanos, LocalDateTime.now()));
+        }
+        if (registry == null) {
+            return;
+        }
+        getMeter(Arrays.asList("parse", mappedStatementId), () -> Timer.builder(METRIC_PREFIX + "parse")
+                .description("数据权限 SQL 解析的耗时")
+                .tag(TAG_STATEMENT, mappedStatementId)
+                .register(registry), Timer.class).record(parseNanos, TimeUnit.NANOSECONDS);
+        getMeter(Arrays.asList("rewrite", mappedStatementId), () -> Timer.builder(METRIC_PREFIX + "rewrite")
+                .description("数据权限 SQL 重写的耗时")
+                .tag(TAG_STATEMENT, mappedStatementId)
+                .register(registry), Timer.class).record(rewriteNanos, TimeUnit.NANOSECONDS);
+        // 按照规则，记录拼接的条件
+        for (RuleCall call : calls) {
+            if (call.getExpression() == null) {
+                continue;
+            }
+            String rule = getRuleName(call.getRule());
+            getMeter(Arrays.asList("predicates", mappedStatementId, rule),
+                    () -> Counter.builder(METRIC_PREFIX + "predicates")
+                            .description("数据权限拼接的条件数量")
+                            .tags(TAG_STATEMENT, mappedStatementId, TAG_RULE, rule)
+                            .register(registry), Counter.class).increment();
+            DistributionSummary inSize = getMeter(Arrays.asList("in.size", mappedStatementId, rule),
+                    () -> DistributionSummary.builder(METRIC_PREFIX + "in.size")
+                            .description("数据权限拼接的 IN 条件的大小")
+                            .tags(TAG_STATEMENT, mappedStatementId, TAG_RULE, rule)
+                            .register(registry), DistributionSummary.class);
+            call.getExpression().accept(new ExpressionVisitorAdapter() {
+
+                @Override
+                public void visit(InExpression expression) {
+                    if (expression.getRightItemsList() instanceof ExpressionList) {
+                        inSize.record(((ExpressionList) expression.getRightItemsList()).getExpressions().size());
+                    }
+                    super.visit(expression);
+                }
+
+            });
+        }
+    }
+
+    private <T extends Meter> T getMeter(List<String> key, Supplier<T> register, Class<T> type) {
+        return type.cast(meters.computeIfAbsent(key, k -> register.get()));
+    }
+
+    private synchronized void addSample(Sample sample) {
+        if (samples.size() >= sampleSize) {
+            samples.pollLast();
+        }
+        samples.offerFirst(sample);
+    }
+
+    /**
+     * 获得 SQL 样本，最新的在前
+     *
+     * @return SQL 样本
+     */
+    public synchronized List<Sample> getSamples() {
+        return sampleSize > 0 ? new ArrayList<>(samples) : Collections.emptyList();
+    }
+
+    private static String getRuleName(DataPermissionRule rule) {
+        return StrUtil.blankToDefault(rule.getClass().getSimpleName(), rule.getClass().getName());
+    }
+
+    /**
+     * SQL 样本
+     */
+    @Data
+    @AllArgsConstructor
+    public static class Sample {
+
+        /**
+         * MappedStatement 编号
+         */
+        private String mappedStatementId;
+        /**
+         * 原始 SQL
+         */
+        private String sql;
+        /**
+         * 重写后的 SQL
+         */
+        private String rewriteSql;
+        /**
+         * 耗时，单位：纳秒
+         */
+        private long costNanos;
+        /**
+         * 记录时间
+         */
+        private LocalDateTime createTime;
+
+    }
+
+}
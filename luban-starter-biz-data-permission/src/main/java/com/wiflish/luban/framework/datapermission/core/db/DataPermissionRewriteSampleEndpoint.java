@@ -0,0 +1,31 @@
+package com.wiflish.luban.framework.datapermission.core.db;
+
+import com.wiflish.luban.framework.datapermission.core.db.DataPermissionRewriteRecorder.Sample;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 数据权限 SQL 重写样本的 Actuator 端点，用于排查重写后的 SQL
+ *
+ * 访问 /actuator/dataPermissionSamples，返回最近的原始 SQL 和重写后 SQL，最新的在前。
+ * 需要开启调试模式（luban.framework.data-permission.debug-sample-size 大于 0），并且暴露该端点
+ *
+ * @author wiflish
+ */
+@Endpoint(id = "dataPermissionSamples")
+@RequiredArgsConstructor
+public class DataPermissionRewriteSampleEndpoint {
+
+    private final DataPermissionDatabaseInterceptor interceptor;
+
+    @ReadOperation
+    public List<Sample> samples() {
+        DataPermissionRewriteRecorder recorder = interceptor.getRewriteRecorder();
+        return recorder != null ? recorder.getSamples() : Collections.emptyList();
+    }
+
+}
@@ -0,0 +1,171 @@
+package com.wiflish.luban.framework.datapermission.core.db;
+
+import cn.hutool.core.util.StrUtil;
+import com.wiflish.luban.framework.datapermission.core.rule.DataPermissionRule;
+import com.wiflish.luban.framework.mybatis.core.util.MyBatisUtils;
+import lombok.extern.slf4j.Slf4j;
+import net.sf.jsqlparser.JSQLParserException;
+import net.sf.jsqlparser.parser.CCJSqlParserUtil;
+import net.sf.jsqlparser.schema.Table;
+import net.sf.jsqlparser.statement.Statement;
+import net.sf.jsqlparser.util.TablesNamesFinder;
+import org.apache.ibatis.builder.StaticSqlSource;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.SqlSource;
+import org.apache.ibatis.scripting.defaults.RawSqlSource;
+import org.apache.ibatis.session.Configuration;
+
+import java.util.*;
+
+/**
+ * {@link MappedStatement} 涉及的表的索引
+ *
+ * 启动时，静态分析 MyBatis Configuration 中注册的所有 MappedStatement，记录每个 MappedStatement 涉及的表，
+ * 预先计算出不可能匹配任一 {@link DataPermissionRule} 数据权限规则、多租户表的 MappedStatement，
+ * 使它们从第一次执行起，就无需 SQL 解析。
+ *
+ * 注意，只分析静态 SQL（{@link RawSqlSource}、{@link StaticSqlSource}），动态 SQL 的表可能随参数变化，不进行分析，
+ * 仍然由 {@link DataPermissionDatabaseInterceptor.MappedStatementCache} 在第一次执行后记录。
+ *
+ * @author wiflish
+ */
+@Slf4j
+public class MappedStatementTableIndex {
+
+    /**
+     * MappedStatement 涉及的表
+     *
+     * key：{@link MappedStatement#getId()} 编号
+     * value：表名
+     */
+    private volatile Map<String, Set<String>> mappedStatementTables = Collections.emptyMap();
+    /**
+     * 无需数据权限重写的 MappedStatement 编号
+     */
+    private volatile Set<String> noRewritableIds = Collections.emptySet();
+    /**
+     * 无需多租户重写的 MappedStatement 编号
+     */
+    private volatile Set<String> noTenantLineIds = Collections.emptySet();
+
+    /**
+     * 构建索引
+     *
+     * @param configurations MyBatis Configuration 数组
+     * @param rules 所有数据权限规则
+     * @param tenantIgnoreTables 配置的多租户忽略表；如果未开启多租户，则为空
+     */
+    public void build(Collection<Configuration> configurations, List<DataPermissionRule> rules,
+                      Set<String> tenantIgnoreTables) {
+        // 所有数据权限规则的表名
+        Set<String> ruleTableNames = new HashSet<>();
+        rules.forEach(rule -> ruleTableNames.addAll(rule.getTableNames()));
+        // 多租户的忽略表。只使用静态配置，不使用 TenantLineHandler#ignoreTable 方法，因为它还和当前上下文相关（例如说忽略租户、独立数据源），
+        // 而索引的结果是永久的。和 TenantDatabaseInterceptor 一致，同时添加小写、大写
+        Set<String> ignoreTables = new HashSet<>();
+        if (tenantIgnoreTables != null) {
+            tenantIgnoreTables.forEach(table -> {
+                ignoreTables.add(table.toLowerCase());
+                ignoreTables.add(table.toUpperCase());
+            });
+        }
+
+        Map<String, Set<String>> mappedStatementTables = new HashMap<>();
+        Set<String> noRewritableIds = new HashSet<>();
+        Set<String> noTenantLineIds = new HashSet<>();
+        for (Configuration configuration : configurations) {
+            for (String id : new ArrayList<>(configuration.getMappedStatementNames())) {
+                // 忽略 MyBatis 为短编号注册的别名
+                if (!StrUtil.contains(id, '.') || mappedStatementTables.containsKey(id)) {
+                    continue;
+                }
+                Set<String> tableNames = parseTableNames(configuration.getMappedStatement(id, false));
+                if (tableNames == null) {
+                    continue;
+                }
+                mappedStatementTables.put(id, tableNames);
+                if (tableNames.stream().noneMatch(tableName -> ruleTableNames.contains(
+                        MyBatisUtils.getTableName(new Table(tableName))))) {
+                    noRewritableIds.add(id);
+                }
+                if (tenantIgnoreTables != null && ignoreTables.containsAll(tableNames)) {
+                    noTenantLineIds.add(id);
+                }
+            }
+        }
+
+        this.mappedStatementTables = mappedStatementTables;
+        this.noRewritableIds = noRewritableIds;
+        this.noTenantLineIds = noTenantLineIds;
+        log.info("[build][分析 MappedStatement({}) 个，无需数据权限重写({}) 个，无需多租户重写({}) 个]",
+                mappedStatementTables.size(), noRewritableIds.size(), noTenantLineIds.size());
+    }
+
+    /**
+     * 判断是否无需数据权限重写
+     *
+     * @param mappedStatementId MappedStatement 编号
+     * @return 是否无需重写。未分析的 MappedStatement，返回 false
+     */
+    public boolean noRewritable(String mappedStatementId) {
+        return noRewritableIds.contains(mappedStatementId);
+    }
+
+    /**
+     * 判断是否无需多租户重写
+     *
+     * @param mappedStatementId MappedStatement 编号
+     * @return 是否无需重写。未分析的 MappedStatement，返回 false
+     */
+    public boolean noTenantLine(String mappedStatementId) {
+        return noTenantLineIds.contains(mappedStatementId);
+    }
+
+    /**
+     * 获得 MappedStatement 涉及的表
+     *
+     * @param mappedStatementId MappedStatement 编号
+     * @return 表名；未分析的 MappedStatement，返回 null
+     */
+    public Set<String> getTableNames(String mappedStatementId) {
+        return mappedStatementTables.get(mappedStatementId);
+    }
+
+    /**
+     * 静态分析 MappedStatement 涉及的表
+     *
+     * @param ms MappedStatement
+     * @return 表名，不包括 schema；如果不是静态 SQL 或解析失败，则返回 null
+     */
+    static Set<String> parseTableNames(MappedStatement ms) {
+        SqlSource sqlSource = ms.getSqlSource();
+        if (!(sqlSource instanceof RawSqlSource || sqlSource instanceof StaticSqlSource)) {
+            return null;
+        }
+        try {
+            return parseTableNames(sqlSource.getBoundSql(null).getSql());
+        } catch (Exception ex) {
+            log.debug("[parseTableNames][MappedStatement({}) 解析失败]", ms.getId(), ex);
+            return null;
+        }
+    }
+
+    /**
+     * 解析 SQL 涉及的表
+     *
+     * @param sql SQL
+     * @return 表名，不包括 schema
+     * @throws JSQLParserException SQL 解析失败
+     */
+    static Set<String> parseTableNames(String sql) throws JSQLParserException {
+        Set<String> tableNames = new HashSet<>();
+        for (Statement statement : CCJSqlParserUtil.parseStatements(sql).getStatements()) {
+            for (String tableName : new TablesNamesFinder().getTableList(statement)) {
+                // 去除 schema，和 Table#getName() 保持一致
+                tableNames.add(tableName.substring(tableName.lastIndexOf('.') + 1));
+            }
+        }
+        return tableNames;
+    }
+
+}
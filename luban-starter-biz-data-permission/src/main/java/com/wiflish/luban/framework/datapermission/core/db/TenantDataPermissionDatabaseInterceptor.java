@@ -0,0 +1,202 @@
+package com.wiflish.luban.framework.datapermission.core.db;
+
+import com.baomidou.mybatisplus.core.plugins.InterceptorIgnoreHelper;
+import com.baomidou.mybatisplus.core.toolkit.PluginUtils;
+import com.baomidou.mybatisplus.extension.plugins.handler.TenantLineHandler;
+import com.baomidou.mybatisplus.extension.plugins.inner.TenantLineInnerInterceptor;
+import com.wiflish.luban.framework.datapermission.core.rule.DataPermissionRule;
+import com.wiflish.luban.framework.datapermission.core.rule.DataPermissionRuleFactory;
+import com.wiflish.luban.framework.mybatis.core.handler.StatementTenantLineHandler;
+import lombok.Getter;
+import net.sf.jsqlparser.statement.delete.Delete;
+import net.sf.jsqlparser.statement.insert.Insert;
+import net.sf.jsqlparser.statement.select.Select;
+import net.sf.jsqlparser.statement.update.Update;
+import org.apache.ibatis.executor.Executor;
+import org.apache.ibatis.executor.statement.StatementHandler;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.SqlCommandType;
+import org.apache.ibatis.session.ResultHandler;
+import org.apache.ibatis.session.RowBounds;
+
+import java.sql.Connection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 多租户 + 数据权限的合并拦截器
+ *
+ * 原先 {@link TenantLineInnerInterceptor} 和 {@link DataPermissionDatabaseInterceptor} 各自解析、输出一次 SQL，
+ * 导致多租户的 SQL 需要经过两次 JSqlParser 的解析。合并后，SQL 只解析一次，在同一个 AST 上，
+ * 先拼接多租户的条件，再拼接数据权限的条件，最后只输出一次 SQL。
+ *
+ * 注意，忽略多租户的 SQL，走 {@link DataPermissionDatabaseInterceptor} 原有的逻辑；
+ * 而拼接多租户条件的 SQL，由于多租户的条件和当前租户、忽略状态相关，所以使用 {@link StatementTenantLineHandler#getStatementKey()}
+ * 作为重写后的 SQL 缓存的上下文。tenantLineHandler 不是 {@link StatementTenantLineHandler}、或者 Key 为空时，不使用缓存。
+ *
+ * @author wiflish
+ */
+public class TenantDataPermissionDatabaseInterceptor extends DataPermissionDatabaseInterceptor {
+
+    /**
+     * 标记需要拼接多租户条件，通过 parserSingle / parserMulti 的 obj 参数透传
+     */
+    private static final Object TENANT_LINE = new Object();
+
+    private final DataPermissionRuleFactory ruleFactory;
+
+    private final TenantLineProcessor tenantLineProcessor;
+
+    @Getter
+    private final TenantLineHandler tenantLineHandler;
+
+    public TenantDataPermissionDatabaseInterceptor(DataPermissionRuleFactory ruleFactory,
+                                                   TenantLineHandler tenantLineHandler) {
+        super(ruleFactory);
+        this.ruleFactory = ruleFactory;
+        this.tenantLineProcessor = new TenantLineProcessor(tenantLineHandler);
+        this.tenantLineHandler = tenantLineHandler;
+    }
+
+    @Override // SELECT 场景
+    public void beforeQuery(Executor executor, MappedStatement ms, Object parameter, RowBounds rowBounds, ResultHandler resultHandler, BoundSql boundSql) {
+        // 如果忽略多租户，则只处理数据权限
+        if (noTenantLine(ms)) {
+            super.beforeQuery(executor, ms, parameter, rowBounds, resultHandler, boundSql);
+            return;
+        }
+
+        PluginUtils.MPBoundSql mpBs = PluginUtils.mpBoundSql(boundSql);
+        StatementTenantLineHandler.runInStatement(tenantLineHandler,
+                () -> mpBs.sql(rewriteSql(ms, getDataPermissionRules(ms), mpBs.sql(), false)));
+    }
+
+    @Override // INSERT / UPDATE / DELETE 场景，其中 INSERT 只需要多租户
+    public void beforePrepare(StatementHandler sh, Connection connection, Integer transactionTimeout) {
+        PluginUtils.MPStatementHandler mpSh = PluginUtils.mpStatementHandler(sh);
+        MappedStatement ms = mpSh.mappedStatement();
+        SqlCommandType sct = ms.getSqlCommandType();
+        if (sct != SqlCommandType.INSERT && sct != SqlCommandType.UPDATE && sct != SqlCommandType.DELETE) {
+            return;
+        }
+        // 如果忽略多租户，则只处理数据权限
+        if (noTenantLine(ms)) {
+            super.beforePrepare(sh, connection, transactionTimeout);
+            return;
+        }
+
+        List<DataPermissionRule> rules = sct == SqlCommandType.INSERT ? Collections.emptyList()
+                : getDataPermissionRules(ms);
+        PluginUtils.MPBoundSql mpBs = mpSh.mPBoundSql();
+        StatementTenantLineHandler.runInStatement(tenantLineHandler,
+                () -> mpBs.sql(rewriteSql(ms, rules, mpBs.sql(), true)));
+    }
+
+    /**
+     * 判断是否无需拼接多租户的条件
+     *
+     * @param ms MappedStatement
+     * @return 是否无需拼接
+     */
+    private boolean noTenantLine(MappedStatement ms) {
+        return InterceptorIgnoreHelper.willIgnoreTenantLine(ms.getId())
+                || (getTableIndex() != null && getTableIndex().noTenantLine(ms.getId()));
+    }
+
+    /**
+     * 获得 MappedStatement 需要拼接的数据权限规则
+     *
+     * @param ms MappedStatement
+     * @return 规则数组；如果无需重写，则返回空数组
+     */
+    private List<DataPermissionRule> getDataPermissionRules(MappedStatement ms) {
+        List<DataPermissionRule> rules = ruleFactory.getDataPermissionRule(ms.getId());
+        return noRewritable(ms, rules) ? Collections.emptyList() : rules;
+    }
+
+    /**
+     * 重写 SQL，一次解析，拼接多租户 + 数据权限的条件
+     *
+     * @param ms MappedStatement
+     * @param rules 数据权限规则数组
+     * @param sql 原始 SQL
+     * @param multi 是否为多条 SQL
+     * @return 重写后的 SQL
+     */
+    private String rewriteSql(MappedStatement ms, List<DataPermissionRule> rules, String sql, boolean multi) {
+        // 在 beginStatement 之后获取，Key 包含当前租户、忽略状态
+        Object statementKey = getRewriteCache() != null
+                && tenantLineHandler instanceof StatementTenantLineHandler statementHandler
+                ? statementHandler.getStatementKey() : null;
+        if (statementKey == null) {
+            return parseSql(ms, rules, sql, multi, TENANT_LINE, null, null);
+        }
+        // 优先，从重写缓存中获取，避免 SQL 解析
+        String rewriteSql = getRewriteCache().get(sql, rules, multi, statementKey);
+        if (rewriteSql != null) {
+            recordSkip(ms, "cache_hit");
+            return rewriteSql;
+        }
+        return parseSql(ms, rules, sql, multi, TENANT_LINE, getRewriteCache(), statementKey);
+    }
+
+    @Override
+    protected void processSelect(Select select, int index, String sql, Object obj) {
+        if (obj == TENANT_LINE) {
+            tenantLineProcessor.processSelect(select, index, sql);
+        }
+        super.processSelect(select, index, sql, obj);
+    }
+
+    @Override
+    protected void processInsert(Insert insert, int index, String sql, Object obj) {
+        if (obj == TENANT_LINE) {
+            tenantLineProcessor.processInsert(insert, index, sql);
+        }
+    }
+
+    @Override
+    protected void processUpdate(Update update, int index, String sql, Object obj) {
+        if (obj == TENANT_LINE) {
+            tenantLineProcessor.processUpdate(update, index, sql);
+        }
+        super.processUpdate(update, index, sql, obj);
+    }
+
+    @Override
+    protected void processDelete(Delete delete, int index, String sql, Object obj) {
+        if (obj == TENANT_LINE) {
+            tenantLineProcessor.processDelete(delete, index, sql);
+        }
+        super.processDelete(delete, index, sql, obj);
+    }
+
+    /**
+     * 复用 {@link TenantLineInnerInterceptor} 拼接多租户条件的逻辑，只处理 AST，不进行 SQL 的解析与输出
+     */
+    private static class TenantLineProcessor extends TenantLineInnerInterceptor {
+
+        TenantLineProcessor(TenantLineHandler tenantLineHandler) {
+            super(tenantLineHandler);
+        }
+
+        void processSelect(Select select, int index, String sql) {
+            super.processSelect(select, index, sql, null);
+        }
+
+        void processInsert(Insert insert, int index, String sql) {
+            super.processInsert(insert, index, sql, null);
+        }
+
+        void processUpdate(Update update, int index, String sql) {
+            super.processUpdate(update, index, sql, null);
+        }
+
+        void processDelete(Delete delete, int index, String sql) {
+            super.processDelete(delete, index, sql, null);
+        }
+
+    }
+
+}
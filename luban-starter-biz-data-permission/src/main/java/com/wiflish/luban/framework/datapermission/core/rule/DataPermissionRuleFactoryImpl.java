@@ -7,8 +7,9 @@ import com.wiflish.luban.framework.datapermission.core.aop.DataPermissionContext
 import lombok.RequiredArgsConstructor;
 
 import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
 
 /**
  * 默认的 DataPermissionRuleFactoryImpl 实现类
@@ -19,17 +20,32 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 public class DataPermissionRuleFactoryImpl implements DataPermissionRuleFactory {
 
+    /**
+     * {@link #dataPermissionRulesCache} 的最大数量，避免异常情况下无限增长
+     */
+    private static final int DATA_PERMISSION_RULES_CACHE_MAX_SIZE = 1024;
+
     /**
      * 数据权限规则数组
      */
     private final List<DataPermissionRule> rules;
 
+    /**
+     * 基于 {@link DataPermission} 注解的规则数组的缓存
+     *
+     * key：DataPermission 注解。注解由 DataPermissionAnnotationInterceptor 按方法缓存，实例是固定的，所以基于 identity 比较
+     * value：生效的规则数组，不可变
+     *
+     * 采用 copy-on-write 的方式更新，保证读取时无锁、无对象分配
+     */
+    private volatile Map<DataPermission, List<DataPermissionRule>> dataPermissionRulesCache = new IdentityHashMap<>();
+
     @Override
     public List<DataPermissionRule> getDataPermissionRules() {
         return rules;
     }
 
-    @Override // mappedStatementId 参数，暂时没有用。以后，可以基于 mappedStatementId + DataPermission 进行缓存
+    @Override // mappedStatementId 参数，暂时没有用。规则只和 DataPermission 注解相关，所以基于 DataPermission 进行缓存
     public List<DataPermissionRule> getDataPermissionRule(String mappedStatementId) {
         // 1. 无数据权限
         if (CollUtil.isEmpty(rules)) {
@@ -40,23 +56,44 @@ public class DataPermissionRuleFactoryImpl implements DataPermissionRuleFactory
         if (dataPermission == null) {
             return rules;
         }
-        // 3. 已配置，但禁用
+        // 3. 已配置，从缓存中获取
+        List<DataPermissionRule> result = dataPermissionRulesCache.get(dataPermission);
+        if (result != null) {
+            return result;
+        }
+        result = buildDataPermissionRule(dataPermission);
+        addDataPermissionRulesCache(dataPermission, result);
+        return result;
+    }
+
+    private List<DataPermissionRule> buildDataPermissionRule(DataPermission dataPermission) {
+        // 3.1 已配置，但禁用
         if (!dataPermission.enable()) {
             return Collections.emptyList();
         }
 
-        // 4. 已配置，只选择部分规则
+        // 3.2 已配置，只选择部分规则
         if (ArrayUtil.isNotEmpty(dataPermission.includeRules())) {
             return rules.stream().filter(rule -> ArrayUtil.contains(dataPermission.includeRules(), rule.getClass()))
-                    .collect(Collectors.toList()); // 一般规则不会太多，所以不采用 HashSet 查询
+                    .toList(); // 一般规则不会太多，所以不采用 HashSet 查询
         }
-        // 5. 已配置，只排除部分规则
+        // 3.3 已配置，只排除部分规则
         if (ArrayUtil.isNotEmpty(dataPermission.excludeRules())) {
             return rules.stream().filter(rule -> !ArrayUtil.contains(dataPermission.excludeRules(), rule.getClass()))
-                    .collect(Collectors.toList()); // 一般规则不会太多，所以不采用 HashSet 查询
+                    .toList(); // 一般规则不会太多，所以不采用 HashSet 查询
         }
-        // 6. 已配置，全部规则
+        // 3.4 已配置，全部规则
         return rules;
     }
 
+    private synchronized void addDataPermissionRulesCache(DataPermission dataPermission,
+                                                          List<DataPermissionRule> result) {
+        if (dataPermissionRulesCache.size() >= DATA_PERMISSION_RULES_CACHE_MAX_SIZE) {
+            return;
+        }
+        Map<DataPermission, List<DataPermissionRule>> newCache = new IdentityHashMap<>(dataPermissionRulesCache);
+        newCache.put(dataPermission, result);
+        dataPermissionRulesCache = newCache;
+    }
+
 }
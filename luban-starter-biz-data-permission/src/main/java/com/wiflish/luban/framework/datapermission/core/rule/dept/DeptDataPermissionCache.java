@@ -0,0 +1,107 @@
+package com.wiflish.luban.framework.datapermission.core.rule.dept;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.wiflish.luban.framework.common.api.permission.dto.DeptDataPermissionRespDTO;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * 部门数据权限的本地缓存
+ *
+ * LoginUser 每次请求都会重新创建，其 Context 只能避免同一请求内的重复获取。
+ * 该缓存以「租户编号 + 用户编号」作为 Key，跨请求缓存 {@link DeptDataPermissionRespDTO}，
+ * 写入超过 expireAfterWrite 时间后失效，从而保证读取到过期数据的时间是有界的。
+ *
+ * 角色、部门、数据范围变更时，通过 {@link DeptDataPermissionRefreshMessage} 广播，主动失效各节点的缓存。
+ *
+ * @author wiflish
+ */
+public class DeptDataPermissionCache {
+
+    private final Cache<CacheKey, DeptDataPermissionRespDTO> cache;
+
+    /**
+     * 失效的次数
+     *
+     * 加载期间如果发生失效，则不写入缓存，避免缓存加载到的旧数据
+     */
+    private final AtomicLong invalidateCount = new AtomicLong();
+
+    public DeptDataPermissionCache(long maximumSize, Duration expireAfterWrite) {
+        this.cache = CacheBuilder.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireAfterWrite)
+                .build();
+    }
+
+    /**
+     * 获得用户的部门数据权限
+     *
+     * @param tenantId 租户编号，允许为空
+     * @param userId 用户编号
+     * @return 部门数据权限；如果未缓存，则返回 null
+     */
+    public DeptDataPermissionRespDTO get(Long tenantId, Long userId) {
+        return cache.getIfPresent(new CacheKey(tenantId, userId));
+    }
+
+    /**
+     * 获得用户的部门数据权限，如果未缓存则加载
+     *
+     * @param tenantId 租户编号，允许为空
+     * @param userId 用户编号
+     * @param loader 部门数据权限的加载器
+     * @return 部门数据权限；如果加载器返回 null，则返回 null，并且不缓存
+     */
+    public DeptDataPermissionRespDTO get(Long tenantId, Long userId, Supplier<DeptDataPermissionRespDTO> loader) {
+        CacheKey key = new CacheKey(tenantId, userId);
+        DeptDataPermissionRespDTO deptDataPermission = cache.getIfPresent(key);
+        if (deptDataPermission != null) {
+            return deptDataPermission;
+        }
+        long count = invalidateCount.get();
+        deptDataPermission = loader.get();
+        if (deptDataPermission != null && count == invalidateCount.get()) {
+            cache.put(key, deptDataPermission);
+        }
+        return deptDataPermission;
+    }
+
+    /**
+     * 失效缓存
+     *
+     * @param tenantId 租户编号。为空时，不限制租户
+     * @param userId 用户编号。为空时，失效租户下的所有用户
+     */
+    public void invalidate(Long tenantId, Long userId) {
+        invalidateCount.incrementAndGet();
+        // 情况一：全部失效
+        if (tenantId == null && userId == null) {
+            cache.invalidateAll();
+            return;
+        }
+        // 情况二：按照租户、用户失效
+        cache.asMap().keySet().removeIf(key -> (tenantId == null || Objects.equals(tenantId, key.getTenantId()))
+                && (userId == null || Objects.equals(userId, key.getUserId())));
+    }
+
+    public long size() {
+        return cache.size();
+    }
+
+    @Data
+    @AllArgsConstructor
+    private static class CacheKey {
+
+        private Long tenantId;
+        private Long userId;
+
+    }
+
+}
@@ -0,0 +1,24 @@
+package com.wiflish.luban.framework.datapermission.core.rule.dept;
+
+import com.wiflish.luban.framework.mq.redis.core.pubsub.AbstractRedisChannelMessageListener;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * {@link DeptDataPermissionRefreshMessage} 广播消息的消费者，失效本地的 {@link DeptDataPermissionCache}
+ *
+ * @author wiflish
+ */
+@RequiredArgsConstructor
+@Slf4j
+public class DeptDataPermissionRefreshConsumer extends AbstractRedisChannelMessageListener<DeptDataPermissionRefreshMessage> {
+
+    private final DeptDataPermissionCache deptDataPermissionCache;
+
+    @Override
+    public void onMessage(DeptDataPermissionRefreshMessage message) {
+        log.info("[onMessage][租户({}) 用户({}) 刷新部门数据权限]", message.getTenantId(), message.getUserId());
+        deptDataPermissionCache.invalidate(message.getTenantId(), message.getUserId());
+    }
+
+}
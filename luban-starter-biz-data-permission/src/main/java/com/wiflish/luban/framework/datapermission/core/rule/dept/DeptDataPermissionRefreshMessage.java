@@ -0,0 +1,29 @@
+package com.wiflish.luban.framework.datapermission.core.rule.dept;
+
+import com.wiflish.luban.framework.mq.redis.core.pubsub.AbstractRedisChannelMessage;
+import lombok.Data;
+
+/**
+ * 部门数据权限刷新的广播消息
+ *
+ * 在角色、部门、数据范围变更时发送，用于失效各节点的 {@link DeptDataPermissionCache}
+ *
+ * @author wiflish
+ */
+@Data
+public class DeptDataPermissionRefreshMessage extends AbstractRedisChannelMessage {
+
+    /**
+     * 租户编号
+     *
+     * 为空时，表示不限制租户
+     */
+    private Long tenantId;
+    /**
+     * 用户编号
+     *
+     * 为空时，表示租户下的所有用户
+     */
+    private Long userId;
+
+}
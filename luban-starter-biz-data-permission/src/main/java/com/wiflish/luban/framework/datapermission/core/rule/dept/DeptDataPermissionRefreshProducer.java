@@ -0,0 +1,44 @@
+package com.wiflish.luban.framework.datapermission.core.rule.dept;
+
+import com.wiflish.luban.framework.mq.redis.core.RedisMQTemplate;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * {@link DeptDataPermissionRefreshMessage} 广播消息的生产者
+ *
+ * 业务在角色、部门、数据范围变更后，调用该类广播刷新，使各节点的 {@link DeptDataPermissionCache} 失效
+ *
+ * @author wiflish
+ */
+@RequiredArgsConstructor
+public class DeptDataPermissionRefreshProducer {
+
+    private final RedisMQTemplate redisMQTemplate;
+
+    /**
+     * 刷新指定用户的部门数据权限
+     *
+     * @param tenantId 租户编号
+     * @param userId 用户编号
+     */
+    public void sendRefreshMessage(Long tenantId, Long userId) {
+        redisMQTemplate.send(new DeptDataPermissionRefreshMessage().setTenantId(tenantId).setUserId(userId));
+    }
+
+    /**
+     * 刷新指定租户下所有用户的部门数据权限，例如说部门、角色的数据范围变更
+     *
+     * @param tenantId 租户编号
+     */
+    public void sendRefreshMessage(Long tenantId) {
+        sendRefreshMessage(tenantId, null);
+    }
+
+    /**
+     * 刷新所有用户的部门数据权限
+     */
+    public void sendRefreshMessage() {
+        sendRefreshMessage(null, null);
+    }
+
+}
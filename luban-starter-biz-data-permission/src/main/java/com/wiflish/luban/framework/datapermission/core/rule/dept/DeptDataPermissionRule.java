@@ -5,7 +5,6 @@ import cn.hutool.core.util.ObjectUtil;
 import cn.hutool.core.util.StrUtil;
 import com.baomidou.mybatisplus.core.metadata.TableInfoHelper;
 import com.wiflish.luban.framework.common.enums.UserTypeEnum;
-import com.wiflish.luban.framework.common.util.collection.CollectionUtils;
 import com.wiflish.luban.framework.common.util.json.JsonUtils;
 import com.wiflish.luban.framework.datapermission.core.rule.DataPermissionRule;
 import com.wiflish.luban.framework.mybatis.core.dataobject.BaseDO;
@@ -14,13 +13,12 @@ import com.wiflish.luban.framework.security.core.LoginUser;
 import com.wiflish.luban.framework.security.core.util.SecurityFrameworkUtils;
 import com.wiflish.luban.framework.common.api.permission.PermissionApi;
 import com.wiflish.luban.framework.common.api.permission.dto.DeptDataPermissionRespDTO;
-import lombok.AllArgsConstructor;
+import lombok.RequiredArgsConstructor;
+import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
 import net.sf.jsqlparser.expression.*;
 import net.sf.jsqlparser.expression.operators.conditional.OrExpression;
 import net.sf.jsqlparser.expression.operators.relational.EqualsTo;
-import net.sf.jsqlparser.expression.operators.relational.ExpressionList;
-import net.sf.jsqlparser.expression.operators.relational.InExpression;
 
 import java.util.HashMap;
 import java.util.HashSet;
@@ -44,7 +42,7 @@ import java.util.Set;
  *
  * @author wiflish
  */
-@AllArgsConstructor
+@RequiredArgsConstructor
 @Slf4j
 public class DeptDataPermissionRule implements DataPermissionRule {
 
@@ -60,6 +58,12 @@ public class DeptDataPermissionRule implements DataPermissionRule {
 
     private final PermissionApi permissionApi;
 
+    /**
+     * 部门数据权限的跨请求缓存，为空时不开启
+     */
+    @Setter
+    private DeptDataPermissionCache deptDataPermissionCache;
+
     /**
      * 基于部门的表字段配置
      * 一般情况下，每个表的部门编号字段是 dept_id，通过该配置自定义。
@@ -68,6 +72,14 @@ public class DeptDataPermissionRule implements DataPermissionRule {
      * value：字段名
      */
     private final Map<String, String> deptColumns = new HashMap<>();
+    /**
+     * 基于部门的表条件生成策略
+     * 未配置的表，使用 {@link DeptExpressionStrategy#IN} 策略
+     *
+     * key：表名
+     * value：策略
+     */
+    private final Map<String, DeptExpressionStrategy> deptStrategies = new HashMap<>();
     /**
      * 基于用户的表字段配置
      * 一般情况下，每个表的部门编号字段是 dept_id，通过该配置自定义。
@@ -102,7 +114,7 @@ public class DeptDataPermissionRule implements DataPermissionRule {
         DeptDataPermissionRespDTO deptDataPermission = loginUser.getContext(CONTEXT_KEY, DeptDataPermissionRespDTO.class);
         // 从上下文中拿不到，则调用逻辑进行获取
         if (deptDataPermission == null) {
-            deptDataPermission = permissionApi.getDeptDataPermission(loginUser.getId());
+            deptDataPermission = getDeptDataPermission(loginUser);
             if (deptDataPermission == null) {
                 log.error("[getExpression][LoginUser({}) 获取数据权限为 null]", JsonUtils.toJsonString(loginUser));
                 throw new NullPointerException(String.format("LoginUser(%d) Table(%s/%s) 未返回数据权限",
@@ -124,7 +136,7 @@ public class DeptDataPermissionRule implements DataPermissionRule {
         }
 
         // 情况三，拼接 Dept 和 User 的条件，最后组合
-        Expression deptExpression = buildDeptExpression(tableName,tableAlias, deptDataPermission.getDeptIds());
+        Expression deptExpression = buildDeptExpression(tableName, tableAlias, deptDataPermission.getDeptIds(), loginUser.getId());
         Expression userExpression = buildUserExpression(tableName, tableAlias, deptDataPermission.getSelf(), loginUser.getId());
         if (deptExpression == null && userExpression == null) {
             // TODO 芋艿：获得不到条件的时候，暂时不抛出异常，而是不返回数据
@@ -144,7 +156,22 @@ public class DeptDataPermissionRule implements DataPermissionRule {
         return new Parenthesis(new OrExpression(deptExpression, userExpression));
     }
 
-    private Expression buildDeptExpression(String tableName, Alias tableAlias, Set<Long> deptIds) {
+    /**
+     * 获得用户的部门数据权限，优先从 {@link #deptDataPermissionCache} 缓存中获取
+     *
+     * @param loginUser 登录用户
+     * @return 部门数据权限
+     */
+    private DeptDataPermissionRespDTO getDeptDataPermission(LoginUser loginUser) {
+        if (deptDataPermissionCache == null) {
+            return permissionApi.getDeptDataPermission(loginUser.getId());
+        }
+        // 为 null 时不缓存，保证每次都会抛出异常
+        return deptDataPermissionCache.get(loginUser.getTenantId(), loginUser.getId(),
+                () -> permissionApi.getDeptDataPermission(loginUser.getId()));
+    }
+
+    private Expression buildDeptExpression(String tableName, Alias tableAlias, Set<Long> deptIds, Long userId) {
         // 如果不存在配置，则无需作为条件
         String columnName = deptColumns.get(tableName);
         if (StrUtil.isEmpty(columnName)) {
@@ -155,8 +182,8 @@ public class DeptDataPermissionRule implements DataPermissionRule {
             return null;
         }
         // 拼接条件
-        return new InExpression(MyBatisUtils.buildColumn(tableName, tableAlias, columnName),
-                new ExpressionList(CollectionUtils.convertList(deptIds, LongValue::new)));
+        DeptExpressionStrategy strategy = deptStrategies.getOrDefault(tableName, DeptExpressionStrategy.IN);
+        return strategy.buildExpression(MyBatisUtils.buildColumn(tableName, tableAlias, columnName), deptIds, userId);
     }
 
     private Expression buildUserExpression(String tableName, Alias tableAlias, Boolean self, Long userId) {
@@ -188,6 +215,16 @@ public class DeptDataPermissionRule implements DataPermissionRule {
         TABLE_NAMES.add(tableName);
     }
 
+    public void addDeptColumn(Class<? extends BaseDO> entityClass, String columnName, DeptExpressionStrategy strategy) {
+        String tableName = TableInfoHelper.getTableInfo(entityClass).getTableName();
+        addDeptColumn(tableName, columnName, strategy);
+    }
+
+    public void addDeptColumn(String tableName, String columnName, DeptExpressionStrategy strategy) {
+        addDeptColumn(tableName, columnName);
+        deptStrategies.put(tableName, strategy);
+    }
+
     public void addUserColumn(Class<? extends BaseDO> entityClass) {
         addUserColumn(entityClass, USER_COLUMN_NAME);
     }
@@ -12,6 +12,7 @@ public interface DeptDataPermissionRuleCustomizer {
      * 自定义该权限规则
      * 1. 调用 {@link DeptDataPermissionRule#addDeptColumn(Class, String)} 方法，配置基于 dept_id 的过滤规则
      * 2. 调用 {@link DeptDataPermissionRule#addUserColumn(Class, String)} 方法，配置基于 user_id 的过滤规则
+     * 3. 调用 {@link DeptDataPermissionRule#addDeptColumn(Class, String, DeptExpressionStrategy)} 方法，配置部门条件的生成策略
      *
      * @param rule 权限规则
      */
@@ -0,0 +1,35 @@
+package com.wiflish.luban.framework.datapermission.core.rule.dept;
+
+import net.sf.jsqlparser.expression.Expression;
+import net.sf.jsqlparser.schema.Column;
+
+import java.util.Set;
+
+/**
+ * {@link DeptDataPermissionRule} 中，部门条件的生成策略
+ *
+ * 默认使用 {@link InDeptExpressionStrategy}，即 WHERE dept_id IN (1, 2, 3)。
+ * 当用户可查看的部门较多时，会生成很长且几乎不重复的 SQL，导致数据库的执行计划缓存、SQL 重写缓存失效，
+ * 此时可以通过 {@link DeptDataPermissionRule#addDeptColumn(String, String, DeptExpressionStrategy)} 按表配置其它策略。
+ *
+ * @author wiflish
+ */
+@FunctionalInterface
+public interface DeptExpressionStrategy {
+
+    /**
+     * 默认策略，IN 部门编号列表
+     */
+    DeptExpressionStrategy IN = new InDeptExpressionStrategy();
+
+    /**
+     * 生成部门的过滤条件
+     *
+     * @param column 部门字段
+     * @param deptIds 可查看的部门编号集合，非空
+     * @param userId 用户编号
+     * @return 过滤条件
+     */
+    Expression buildExpression(Column column, Set<Long> deptIds, Long userId);
+
+}
@@ -0,0 +1,26 @@
+package com.wiflish.luban.framework.datapermission.core.rule.dept;
+
+import com.wiflish.luban.framework.common.util.collection.CollectionUtils;
+import net.sf.jsqlparser.expression.Expression;
+import net.sf.jsqlparser.expression.LongValue;
+import net.sf.jsqlparser.expression.operators.relational.ExpressionList;
+import net.sf.jsqlparser.expression.operators.relational.InExpression;
+import net.sf.jsqlparser.schema.Column;
+
+import java.util.Set;
+
+/**
+ * 基于 IN 部门编号列表的 {@link DeptExpressionStrategy} 实现类
+ *
+ * 最终过滤条件是 WHERE dept_id IN (1, 2, 3)，适合部门数量较少的场景
+ *
+ * @author wiflish
+ */
+public class InDeptExpressionStrategy implements DeptExpressionStrategy {
+
+    @Override
+    public Expression buildExpression(Column column, Set<Long> deptIds, Long userId) {
+        return new InExpression(column, new ExpressionList(CollectionUtils.convertList(deptIds, LongValue::new)));
+    }
+
+}
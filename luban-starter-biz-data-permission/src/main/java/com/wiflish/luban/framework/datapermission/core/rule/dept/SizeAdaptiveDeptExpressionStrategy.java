@@ -0,0 +1,39 @@
+package com.wiflish.luban.framework.datapermission.core.rule.dept;
+
+import lombok.AllArgsConstructor;
+import net.sf.jsqlparser.expression.Expression;
+import net.sf.jsqlparser.schema.Column;
+
+import java.util.Set;
+
+/**
+ * 按照部门数量，自适应选择的 {@link DeptExpressionStrategy} 实现类
+ *
+ * 部门数量不超过 threshold 时，使用 smallStrategy；否则，使用 largeStrategy
+ * 例如说，10 个部门以内使用 {@link InDeptExpressionStrategy}，超过后使用 {@link SubQueryDeptExpressionStrategy}
+ *
+ * @author wiflish
+ */
+@AllArgsConstructor
+public class SizeAdaptiveDeptExpressionStrategy implements DeptExpressionStrategy {
+
+    /**
+     * 部门数量的阈值
+     */
+    private final int threshold;
+    /**
+     * 部门数量较少时的策略
+     */
+    private final DeptExpressionStrategy smallStrategy;
+    /**
+     * 部门数量较多时的策略
+     */
+    private final DeptExpressionStrategy largeStrategy;
+
+    @Override
+    public Expression buildExpression(Column column, Set<Long> deptIds, Long userId) {
+        DeptExpressionStrategy strategy = deptIds.size() <= threshold ? smallStrategy : largeStrategy;
+        return strategy.buildExpression(column, deptIds, userId);
+    }
+
+}
@@ -0,0 +1,59 @@
+package com.wiflish.luban.framework.datapermission.core.rule.dept;
+
+import lombok.AllArgsConstructor;
+import net.sf.jsqlparser.expression.Expression;
+import net.sf.jsqlparser.expression.LongValue;
+import net.sf.jsqlparser.expression.operators.relational.EqualsTo;
+import net.sf.jsqlparser.expression.operators.relational.InExpression;
+import net.sf.jsqlparser.schema.Column;
+import net.sf.jsqlparser.schema.Table;
+import net.sf.jsqlparser.statement.select.PlainSelect;
+import net.sf.jsqlparser.statement.select.SelectExpressionItem;
+import net.sf.jsqlparser.statement.select.SubSelect;
+
+import java.util.Set;
+
+/**
+ * 基于子查询的 {@link DeptExpressionStrategy} 实现类
+ *
+ * 最终过滤条件是 WHERE dept_id IN (SELECT dept_id FROM scope_table WHERE user_id = ?)。
+ * 其中，scope_table 是「用户 - 可查看部门」的物化表（或者部门闭包表的视图），需要业务在角色、部门、数据范围变更时维护。
+ *
+ * 为什么不使用 deptIds 参数？子查询的目的，是让 SQL 的长度和部门数量无关，所以只能按用户编号查询物化表。
+ * 两者等价的前提是：物化表中某个用户的部门，和 PermissionApi 返回的 deptIds 一致，即物化表和数据范围使用同一份数据维护。
+ * 两者不一致时（例如说物化表延迟更新），以物化表为准。deptIds 只用于 {@link SizeAdaptiveDeptExpressionStrategy} 选择策略。
+ *
+ * 生成的 SQL 和 IN 策略一样，按用户不同（用户编号作为常量拼接），但长度固定，适合部门数量较多的场景。
+ * 注意，如果开启多租户，多租户的条件在数据权限之前拼接，不会处理这里添加的子查询，即 scope_table 不会拼接 tenant_id 条件。
+ * 由于用户编号全局唯一，按用户编号查询已经限定在该用户的租户内，无需额外处理。
+ *
+ * @author wiflish
+ */
+@AllArgsConstructor
+public class SubQueryDeptExpressionStrategy implements DeptExpressionStrategy {
+
+    /**
+     * 物化表的表名
+     */
+    private final String scopeTableName;
+    /**
+     * 物化表的用户编号字段
+     */
+    private final String scopeUserColumnName;
+    /**
+     * 物化表的部门编号字段
+     */
+    private final String scopeDeptColumnName;
+
+    @Override
+    public Expression buildExpression(Column column, Set<Long> deptIds, Long userId) {
+        PlainSelect plainSelect = new PlainSelect();
+        plainSelect.addSelectItems(new SelectExpressionItem(new Column(scopeDeptColumnName)));
+        plainSelect.setFromItem(new Table(scopeTableName));
+        plainSelect.setWhere(new EqualsTo(new Column(scopeUserColumnName), new LongValue(userId)));
+        SubSelect subSelect = new SubSelect();
+        subSelect.setSelectBody(plainSelect);
+        return new InExpression(column, subSelect);
+    }
+
+}
@@ -123,6 +123,38 @@ public class DataPermissionDatabaseInterceptorTest extends BaseMockitoUnitTest {
         }
     }
 
+    @Test // 存在规则，且开启重写缓存
+    public void testBeforeQuery_withRewriteCache() {
+        try (MockedStatic<PluginUtils> pluginUtilsMock = mockStatic(PluginUtils.class)) {
+            // 准备参数
+            MappedStatement mappedStatement = mock(MappedStatement.class);
+            BoundSql boundSql = mock(BoundSql.class);
+            // mock 方法(数据权限)
+            when(ruleFactory.getDataPermissionRule(same(mappedStatement.getId())))
+                    .thenReturn(singletonList(new DeptDataPermissionRule()));
+            // mock 方法(MPBoundSql)
+            PluginUtils.MPBoundSql mpBs = mock(PluginUtils.MPBoundSql.class);
+            pluginUtilsMock.when(() -> PluginUtils.mpBoundSql(same(boundSql))).thenReturn(mpBs);
+            // mock 方法(SQL)
+            String sql = "select * from t_user where id = 1";
+            when(mpBs.sql()).thenReturn(sql);
+            // 开启重写缓存
+            DataPermissionRewriteCache rewriteCache = new DataPermissionRewriteCache(16);
+            interceptor.setRewriteCache(rewriteCache);
+
+            // 调用，两次
+            interceptor.beforeQuery(null, mappedStatement, null, null, null, boundSql);
+            interceptor.beforeQuery(null, mappedStatement, null, null, null, boundSql);
+            // 断言
+            verify(mpBs, times(2)).sql(
+                    eq("SELECT * FROM t_user WHERE id = 1 AND t_user.dept_id = 100"));
+            // 断言缓存
+            assertEquals(1, rewriteCache.getHitCount());
+            assertEquals(1, rewriteCache.getMissCount());
+            assertEquals(1, rewriteCache.size());
+        }
+    }
+
     @Test
     public void testAddNoRewritable() {
         // 准备参数
@@ -0,0 +1,99 @@
+package com.wiflish.luban.framework.datapermission.core.db;
+
+import com.wiflish.luban.framework.datapermission.core.db.DataPermissionRewriteCache.RuleCall;
+import com.wiflish.luban.framework.datapermission.core.rule.DataPermissionRule;
+import com.wiflish.luban.framework.test.core.ut.BaseMockitoUnitTest;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import net.sf.jsqlparser.expression.Alias;
+import net.sf.jsqlparser.expression.Expression;
+import net.sf.jsqlparser.expression.LongValue;
+import net.sf.jsqlparser.expression.operators.relational.EqualsTo;
+import net.sf.jsqlparser.schema.Column;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static java.util.Collections.singletonList;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * {@link DataPermissionRewriteCache} 的单元测试
+ *
+ * @author wiflish
+ */
+public class DataPermissionRewriteCacheTest extends BaseMockitoUnitTest {
+
+    private final DataPermissionRewriteCache rewriteCache = new DataPermissionRewriteCache(16);
+
+    @Test
+    public void testGet_fingerprintChanged() {
+        // 准备参数
+        UserDataPermissionRule rule = new UserDataPermissionRule();
+        List<DataPermissionRule> rules = singletonList(rule);
+        String sql = "select * from t_user";
+        // mock 数据
+        rule.userId.set(1L);
+        RuleCall call = new RuleCall(rule, "t_user", null, rule.getExpression("t_user", null));
+        rewriteCache.put(sql, rules, false, null, singletonList(call), "SELECT * FROM t_user WHERE t_user.user_id = 1");
+
+        // 场景一，条件一致，命中
+        assertEquals("SELECT * FROM t_user WHERE t_user.user_id = 1", rewriteCache.get(sql, rules, false, null));
+        // 场景二，条件变化，未命中
+        rule.userId.set(2L);
+        assertNull(rewriteCache.get(sql, rules, false, null));
+        // 场景三，SQL 类型不同，未命中
+        rule.userId.set(1L);
+        assertNull(rewriteCache.get(sql, rules, true, null));
+        // 场景四，上下文不同（例如说租户不同），未命中
+        assertNull(rewriteCache.get(sql, rules, false, 2L));
+        // 断言统计
+        assertEquals(1, rewriteCache.getHitCount());
+        assertEquals(3, rewriteCache.getMissCount());
+    }
+
+    @Test
+    public void testMetricsBinder() {
+        // 准备参数
+        UserDataPermissionRule rule = new UserDataPermissionRule();
+        List<DataPermissionRule> rules = singletonList(rule);
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        // mock 方法
+        DataPermissionDatabaseInterceptor interceptor = mock(DataPermissionDatabaseInterceptor.class);
+        when(interceptor.getRewriteCache()).thenReturn(rewriteCache);
+        // mock 数据
+        RuleCall call = new RuleCall(rule, "t_user", null, rule.getExpression("t_user", null));
+        rewriteCache.put("select * from t_user", rules, false, null, singletonList(call), "SELECT 1");
+
+        // 调用
+        new DataPermissionRewriteCacheMetricsBinder(interceptor).bindTo(registry);
+        rewriteCache.get("select * from t_user", rules, false, null);
+        rewriteCache.get("select * from t_role", rules, false, null);
+        // 断言
+        assertEquals(1, registry.get("luban.data.permission.rewrite.cache.gets").tag("result", "hit")
+                .functionCounter().count());
+        assertEquals(1, registry.get("luban.data.permission.rewrite.cache.gets").tag("result", "miss")
+                .functionCounter().count());
+        assertEquals(1, registry.get("luban.data.permission.rewrite.cache.size").gauge().value());
+    }
+
+    private static class UserDataPermissionRule implements DataPermissionRule {
+
+        private final AtomicLong userId = new AtomicLong();
+
+        @Override
+        public Set<String> getTableNames() {
+            return Set.of("t_user");
+        }
+
+        @Override
+        public Expression getExpression(String tableName, Alias tableAlias) {
+            return new EqualsTo(new Column(tableName + ".user_id"), new LongValue(userId.get()));
+        }
+
+    }
+
+}
@@ -0,0 +1,56 @@
+package com.wiflish.luban.framework.datapermission.core.db;
+
+import com.wiflish.luban.framework.datapermission.core.db.DataPermissionRewriteCache.RuleCall;
+import com.wiflish.luban.framework.datapermission.core.rule.DataPermissionRule;
+import com.wiflish.luban.framework.test.core.ut.BaseMockitoUnitTest;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import net.sf.jsqlparser.expression.LongValue;
+import net.sf.jsqlparser.expression.operators.relational.ExpressionList;
+import net.sf.jsqlparser.expression.operators.relational.InExpression;
+import net.sf.jsqlparser.schema.Column;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+
+/**
+ * {@link DataPermissionRewriteRecorder} 的单元测试
+ *
+ * @author wiflish
+ */
+public class DataPermissionRewriteRecorderTest extends BaseMockitoUnitTest {
+
+    @Test
+    public void testRecordRewrite() {
+        // 准备参数
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        DataPermissionRewriteRecorder recorder = new DataPermissionRewriteRecorder(registry, 2);
+        DataPermissionRule rule = mock(DataPermissionRule.class);
+        InExpression expression = new InExpression(new Column("dept_id"),
+                new ExpressionList(new LongValue(1L), new LongValue(2L), new LongValue(3L)));
+        List<RuleCall> calls = Arrays.asList(new RuleCall(rule, "t_user", null, expression),
+                new RuleCall(rule, "t_role", null, null));
+
+        // 调用，3 次
+        for (int i = 0; i < 3; i++) {
+            recorder.recordRewrite("UserMapper.selectList", "select " + i, "SELECT " + i, 100, 200, calls);
+        }
+        recorder.recordSkip("UserMapper.selectList", "no_rewritable");
+        // 断言：Metrics
+        assertEquals(3, registry.get("luban.data.permission.parse").timer().count());
+        assertEquals(3, registry.get("luban.data.permission.rewrite").timer().count());
+        assertEquals(3, registry.get("luban.data.permission.predicates").counter().count());
+        assertEquals(3, registry.get("luban.data.permission.in.size").summary().max());
+        assertEquals(1, registry.get("luban.data.permission.skip").tag("reason", "no_rewritable").counter().count());
+        // 断言：样本，最多 2 个，最新的在前
+        List<DataPermissionRewriteRecorder.Sample> samples = recorder.getSamples();
+        assertEquals(2, samples.size());
+        assertEquals("SELECT 2", samples.get(0).getRewriteSql());
+        assertEquals("select 1", samples.get(1).getSql());
+        assertEquals(300, samples.get(0).getCostNanos());
+    }
+
+}
@@ -0,0 +1,100 @@
+package com.wiflish.luban.framework.datapermission.core.db;
+
+import com.wiflish.luban.framework.datapermission.core.rule.DataPermissionRule;
+import com.wiflish.luban.framework.test.core.ut.BaseMockitoUnitTest;
+import net.sf.jsqlparser.expression.Alias;
+import net.sf.jsqlparser.expression.Expression;
+import org.apache.ibatis.builder.StaticSqlSource;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.SqlCommandType;
+import org.apache.ibatis.mapping.SqlSource;
+import org.apache.ibatis.scripting.xmltags.DynamicSqlSource;
+import org.apache.ibatis.scripting.xmltags.StaticTextSqlNode;
+import org.apache.ibatis.session.Configuration;
+import org.junit.jupiter.api.Test;
+
+import java.util.Set;
+
+import static com.wiflish.luban.framework.common.util.collection.SetUtils.asSet;
+import static java.util.Collections.singletonList;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * {@link MappedStatementTableIndex} 的单元测试
+ *
+ * @author wiflish
+ */
+public class MappedStatementTableIndexTest extends BaseMockitoUnitTest {
+
+    private final DataPermissionRule rule = new DataPermissionRule() {
+
+        @Override
+        public Set<String> getTableNames() {
+            return asSet("t_user");
+        }
+
+        @Override
+        public Expression getExpression(String tableName, Alias tableAlias) {
+            return null;
+        }
+
+    };
+
+    @Test
+    public void testBuild() {
+        // 准备参数
+        Configuration configuration = new Configuration();
+        addMappedStatement(configuration, "UserMapper.selectById",
+                new StaticSqlSource(configuration, "select * from t_user where id = ?"));
+        addMappedStatement(configuration, "UserMapper.selectJoin",
+                new StaticSqlSource(configuration, "select r.* from t_role r join `t_user` u on u.role_id = r.id"));
+        addMappedStatement(configuration, "RoleMapper.selectById",
+                new StaticSqlSource(configuration, "select * from db.t_role where id = ?"));
+        addMappedStatement(configuration, "DictMapper.selectList",
+                new StaticSqlSource(configuration, "select * from t_dict"));
+        addMappedStatement(configuration, "DictMapper.selectUpper",
+                new StaticSqlSource(configuration, "SELECT * FROM T_DICT"));
+        addMappedStatement(configuration, "DictMapper.selectDynamic",
+                new DynamicSqlSource(configuration, new StaticTextSqlNode("select * from t_dict")));
+
+        // 调用
+        MappedStatementTableIndex tableIndex = new MappedStatementTableIndex();
+        tableIndex.build(singletonList(configuration), singletonList(rule), asSet("t_dict"));
+        // 断言：表
+        assertEquals(asSet("t_user"), tableIndex.getTableNames("UserMapper.selectById"));
+        assertEquals(asSet("t_role", "`t_user`"), tableIndex.getTableNames("UserMapper.selectJoin"));
+        assertEquals(asSet("t_role"), tableIndex.getTableNames("RoleMapper.selectById"));
+        assertNull(tableIndex.getTableNames("DictMapper.selectDynamic"));
+        // 断言：数据权限
+        assertFalse(tableIndex.noRewritable("UserMapper.selectById"));
+        assertFalse(tableIndex.noRewritable("UserMapper.selectJoin"));
+        assertTrue(tableIndex.noRewritable("RoleMapper.selectById"));
+        assertTrue(tableIndex.noRewritable("DictMapper.selectList"));
+        assertFalse(tableIndex.noRewritable("DictMapper.selectDynamic"));
+        // 断言：多租户
+        assertFalse(tableIndex.noTenantLine("UserMapper.selectById"));
+        assertTrue(tableIndex.noTenantLine("DictMapper.selectList"));
+        assertTrue(tableIndex.noTenantLine("DictMapper.selectUpper"));
+        assertFalse(tableIndex.noTenantLine("DictMapper.selectDynamic"));
+    }
+
+    @Test
+    public void testBuild_tenantDisabled() {
+        // 准备参数
+        Configuration configuration = new Configuration();
+        addMappedStatement(configuration, "DictMapper.selectList",
+                new StaticSqlSource(configuration, "select * from t_dict"));
+
+        // 调用
+        MappedStatementTableIndex tableIndex = new MappedStatementTableIndex();
+        tableIndex.build(singletonList(configuration), singletonList(rule), null);
+        // 断言
+        assertTrue(tableIndex.noRewritable("DictMapper.selectList"));
+        assertFalse(tableIndex.noTenantLine("DictMapper.selectList"));
+    }
+
+    private static void addMappedStatement(Configuration configuration, String id, SqlSource sqlSource) {
+        configuration.addMappedStatement(new MappedStatement.Builder(configuration, id, sqlSource, SqlCommandType.SELECT).build());
+    }
+
+}
@@ -0,0 +1,219 @@
+package com.wiflish.luban.framework.datapermission.core.db;
+
+import com.baomidou.mybatisplus.core.toolkit.PluginUtils;
+import com.baomidou.mybatisplus.extension.plugins.handler.TenantLineHandler;
+import com.baomidou.mybatisplus.extension.plugins.inner.TenantLineInnerInterceptor;
+import com.wiflish.luban.framework.datapermission.core.rule.DataPermissionRule;
+import com.wiflish.luban.framework.datapermission.core.rule.DataPermissionRuleFactory;
+import com.wiflish.luban.framework.mybatis.core.handler.StatementTenantLineHandler;
+import com.wiflish.luban.framework.mybatis.core.util.MyBatisUtils;
+import com.wiflish.luban.framework.test.core.ut.BaseMockitoUnitTest;
+import net.sf.jsqlparser.expression.Alias;
+import net.sf.jsqlparser.expression.Expression;
+import net.sf.jsqlparser.expression.LongValue;
+import net.sf.jsqlparser.expression.operators.relational.ExpressionList;
+import net.sf.jsqlparser.expression.operators.relational.InExpression;
+import net.sf.jsqlparser.schema.Column;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockedStatic;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.wiflish.luban.framework.common.util.collection.SetUtils.asSet;
+import static java.util.Collections.singletonList;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.*;
+
+/**
+ * {@link TenantDataPermissionDatabaseInterceptor} 的单元测试
+ *
+ * 主要验证：合并后一次解析的结果，和 {@link TenantLineInnerInterceptor}、{@link DataPermissionDatabaseInterceptor} 先后两次解析的结果一致
+ *
+ * @author wiflish
+ */
+public class TenantDataPermissionDatabaseInterceptorTest extends BaseMockitoUnitTest {
+
+    @Mock
+    private DataPermissionRuleFactory ruleFactory;
+
+    private final TenantLineHandler tenantLineHandler = () -> new LongValue(1L);
+
+    private final List<DataPermissionRule> rules = singletonList(new DataPermissionRule() {
+
+        @Override
+        public Set<String> getTableNames() {
+            return asSet("t_user");
+        }
+
+        @Override
+        public Expression getExpression(String tableName, Alias tableAlias) {
+            Column column = MyBatisUtils.buildColumn(tableName, tableAlias, "dept_id");
+            return new InExpression(column, new ExpressionList(new LongValue(10L), new LongValue(20L)));
+        }
+
+    });
+
+    @BeforeEach
+    public void setUp() {
+        DataPermissionDatabaseInterceptor.ContextHolder.clear();
+    }
+
+    @Test
+    public void testBeforeQuery_sameAsSequential() {
+        assertSameAsSequential("select * from t_user where id = ?");
+        // join
+        assertSameAsSequential("select u.* from t_user u left join t_role r on u.role_id = r.id where u.id = ?");
+        assertSameAsSequential("select u.* from t_user u inner join t_role r on u.role_id = r.id where u.id = ? or u.name = ?");
+        assertSameAsSequential("select u.* from t_user u, t_role r where u.role_id = r.id");
+        // 子查询
+        assertSameAsSequential("select * from t_role r where r.id in (select u.role_id from t_user u where u.id = ?)");
+        assertSameAsSequential("select * from (select * from t_user where id > ?) u");
+        assertSameAsSequential("select (select count(1) from t_user u where u.role_id = r.id) from t_role r");
+        // 无数据权限的表
+        assertSameAsSequential("select * from t_role where id = ?");
+    }
+
+    @Test
+    public void testBeforeQuery_ignoreTable() {
+        try (MockedStatic<PluginUtils> pluginUtilsMock = mockStatic(PluginUtils.class)) {
+            // 准备参数
+            TenantDataPermissionDatabaseInterceptor interceptor = new TenantDataPermissionDatabaseInterceptor(ruleFactory,
+                    new TenantLineHandler() {
+
+                        @Override
+                        public Expression getTenantId() {
+                            return new LongValue(1L);
+                        }
+
+                        @Override
+                        public boolean ignoreTable(String tableName) {
+                            return true;
+                        }
+
+                    });
+            // mock 方法
+            String sql = "select * from t_user where id = ?";
+            PluginUtils.MPBoundSql mpBs = mockMPBoundSql(pluginUtilsMock, sql);
+
+            // 调用
+            String rewriteSql = beforeQuery(interceptor, mpBs);
+            // 断言
+            assertEquals("SELECT * FROM t_user WHERE id = ? AND t_user.dept_id IN (10, 20)", rewriteSql);
+        }
+    }
+
+    @Test
+    public void testBeforeQuery_noRewritableNotSkipped() {
+        try (MockedStatic<PluginUtils> pluginUtilsMock = mockStatic(PluginUtils.class)) {
+            // 准备参数
+            TenantDataPermissionDatabaseInterceptor interceptor = new TenantDataPermissionDatabaseInterceptor(ruleFactory,
+                    tenantLineHandler);
+            MappedStatementTableIndex tableIndex = mock(MappedStatementTableIndex.class);
+            DataPermissionRewriteRecorder rewriteRecorder = mock(DataPermissionRewriteRecorder.class);
+            interceptor.setTableIndex(tableIndex);
+            interceptor.setRewriteRecorder(rewriteRecorder);
+            // mock 方法：无需数据权限，但是需要多租户
+            String sql = "select * from t_user where id = ?";
+            PluginUtils.MPBoundSql mpBs = mockMPBoundSql(pluginUtilsMock, sql);
+            when(tableIndex.noRewritable(anyString())).thenReturn(true);
+
+            // 调用
+            String rewriteSql = beforeQuery(interceptor, mpBs);
+            // 断言：只拼接多租户条件，并且 SQL 仍然解析，不记录为跳过
+            assertEquals("SELECT * FROM t_user WHERE id = ? AND tenant_id = 1", rewriteSql);
+            verify(rewriteRecorder, never()).recordSkip(anyString(), anyString());
+            verify(rewriteRecorder).recordRewrite(anyString(), eq(sql), eq(rewriteSql), anyLong(), anyLong(), anyList());
+        }
+    }
+
+    @Test
+    public void testBeforeQuery_withRewriteCache() {
+        try (MockedStatic<PluginUtils> pluginUtilsMock = mockStatic(PluginUtils.class)) {
+            // 准备参数：Key 为当前租户的 StatementTenantLineHandler
+            AtomicLong tenantId = new AtomicLong(1L);
+            TenantDataPermissionDatabaseInterceptor interceptor = new TenantDataPermissionDatabaseInterceptor(ruleFactory,
+                    new StatementTenantLineHandler() {
+
+                        @Override
+                        public Expression getTenantId() {
+                            return new LongValue(tenantId.get());
+                        }
+
+                        @Override
+                        public void beginStatement() {
+                        }
+
+                        @Override
+                        public void endStatement() {
+                        }
+
+                        @Override
+                        public Object getStatementKey() {
+                            return tenantId.get();
+                        }
+
+                    });
+            DataPermissionRewriteCache rewriteCache = new DataPermissionRewriteCache(16);
+            interceptor.setRewriteCache(rewriteCache);
+            // mock 方法
+            String sql = "select * from t_user where id = ?";
+
+            // 调用：租户 1，2 次
+            assertEquals("SELECT * FROM t_user WHERE id = ? AND tenant_id = 1 AND t_user.dept_id IN (10, 20)",
+                    beforeQuery(interceptor, mockMPBoundSql(pluginUtilsMock, sql)));
+            assertEquals("SELECT * FROM t_user WHERE id = ? AND tenant_id = 1 AND t_user.dept_id IN (10, 20)",
+                    beforeQuery(interceptor, mockMPBoundSql(pluginUtilsMock, sql)));
+            // 断言：第 2 次命中缓存
+            assertEquals(1, rewriteCache.getHitCount());
+
+            // 调用：租户 2
+            tenantId.set(2L);
+            // 断言：未命中，拼接租户 2 的条件
+            assertEquals("SELECT * FROM t_user WHERE id = ? AND tenant_id = 2 AND t_user.dept_id IN (10, 20)",
+                    beforeQuery(interceptor, mockMPBoundSql(pluginUtilsMock, sql)));
+            assertEquals(1, rewriteCache.getHitCount());
+            assertEquals(2, rewriteCache.size());
+        }
+    }
+
+    private void assertSameAsSequential(String sql) {
+        // 两次解析：先多租户，再数据权限
+        String tenantSql = new TenantLineInnerInterceptor(tenantLineHandler).parserSingle(sql, null);
+        DataPermissionDatabaseInterceptor.ContextHolder.init(rules);
+        String expected = new DataPermissionDatabaseInterceptor(ruleFactory).parserSingle(tenantSql, null);
+        DataPermissionDatabaseInterceptor.ContextHolder.clear();
+
+        // 一次解析
+        try (MockedStatic<PluginUtils> pluginUtilsMock = mockStatic(PluginUtils.class)) {
+            TenantDataPermissionDatabaseInterceptor interceptor = new TenantDataPermissionDatabaseInterceptor(ruleFactory,
+                    tenantLineHandler);
+            PluginUtils.MPBoundSql mpBs = mockMPBoundSql(pluginUtilsMock, sql);
+            assertEquals(expected, beforeQuery(interceptor, mpBs));
+        }
+    }
+
+    private PluginUtils.MPBoundSql mockMPBoundSql(MockedStatic<PluginUtils> pluginUtilsMock, String sql) {
+        PluginUtils.MPBoundSql mpBs = mock(PluginUtils.MPBoundSql.class);
+        pluginUtilsMock.when(() -> PluginUtils.mpBoundSql(any())).thenReturn(mpBs);
+        when(mpBs.sql()).thenReturn(sql);
+        when(ruleFactory.getDataPermissionRule(anyString())).thenReturn(rules);
+        return mpBs;
+    }
+
+    private static String beforeQuery(TenantDataPermissionDatabaseInterceptor interceptor, PluginUtils.MPBoundSql mpBs) {
+        MappedStatement mappedStatement = mock(MappedStatement.class);
+        when(mappedStatement.getId()).thenReturn("com.wiflish.UserMapper.selectList");
+        interceptor.beforeQuery(null, mappedStatement, null, null, null, mock(BoundSql.class));
+        ArgumentCaptor<String> sqlCaptor = ArgumentCaptor.forClass(String.class);
+        verify(mpBs).sql(sqlCaptor.capture());
+        return sqlCaptor.getValue();
+    }
+
+}
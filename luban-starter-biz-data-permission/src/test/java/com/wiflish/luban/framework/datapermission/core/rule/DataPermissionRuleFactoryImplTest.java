@@ -102,6 +102,21 @@ class DataPermissionRuleFactoryImplTest extends BaseMockitoUnitTest {
         assertSame(rules, result);
     }
 
+    @Test
+    public void testGetDataPermissionRule_cache() {
+        // 准备参数
+        String mappedStatementId = randomString();
+        // mock 方法
+        DataPermissionContextHolder.add(AnnotationUtils.findAnnotation(TestClass04.class, DataPermission.class));
+
+        // 调用
+        List<DataPermissionRule> result01 = dataPermissionRuleFactory.getDataPermissionRule(mappedStatementId);
+        List<DataPermissionRule> result02 = dataPermissionRuleFactory.getDataPermissionRule(mappedStatementId);
+        // 断言
+        assertSame(result01, result02);
+        assertThrows(UnsupportedOperationException.class, () -> result01.add(new DataPermissionRule02()));
+    }
+
     @DataPermission(enable = false)
     static class TestClass03 {}
 
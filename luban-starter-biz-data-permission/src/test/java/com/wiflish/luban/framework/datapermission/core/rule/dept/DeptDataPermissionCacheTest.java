@@ -0,0 +1,63 @@
+package com.wiflish.luban.framework.datapermission.core.rule.dept;
+
+import com.wiflish.luban.framework.common.api.permission.dto.DeptDataPermissionRespDTO;
+import com.wiflish.luban.framework.test.core.ut.BaseMockitoUnitTest;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * {@link DeptDataPermissionCache} 的单元测试
+ *
+ * @author wiflish
+ */
+public class DeptDataPermissionCacheTest extends BaseMockitoUnitTest {
+
+    private final DeptDataPermissionCache deptDataPermissionCache = new DeptDataPermissionCache(100, Duration.ofMinutes(1));
+
+    @Test
+    public void testGet() {
+        // 准备参数
+        AtomicInteger loadCount = new AtomicInteger();
+        DeptDataPermissionRespDTO deptDataPermission = new DeptDataPermissionRespDTO().setAll(true);
+        Supplier<DeptDataPermissionRespDTO> loader = () -> {
+            loadCount.incrementAndGet();
+            return deptDataPermission;
+        };
+
+        // 调用，2 次
+        assertSame(deptDataPermission, deptDataPermissionCache.get(1L, 100L, loader));
+        assertSame(deptDataPermission, deptDataPermissionCache.get(1L, 100L, loader));
+        // 断言：只加载 1 次
+        assertEquals(1, loadCount.get());
+    }
+
+    @Test
+    public void testGet_null() {
+        // 调用
+        assertNull(deptDataPermissionCache.get(1L, 100L, () -> null));
+        // 断言：不缓存
+        assertEquals(0, deptDataPermissionCache.size());
+    }
+
+    @Test
+    public void testGet_invalidateDuringLoad() {
+        // 准备参数：加载期间，角色变更，广播失效
+        DeptDataPermissionRespDTO staleDeptDataPermission = new DeptDataPermissionRespDTO().setAll(true);
+        Supplier<DeptDataPermissionRespDTO> loader = () -> {
+            deptDataPermissionCache.invalidate(1L, 100L);
+            return staleDeptDataPermission;
+        };
+
+        // 调用
+        assertSame(staleDeptDataPermission, deptDataPermissionCache.get(1L, 100L, loader));
+        // 断言：加载到的旧数据不写入缓存
+        assertNull(deptDataPermissionCache.get(1L, 100L));
+        assertEquals(0, deptDataPermissionCache.size());
+    }
+
+}
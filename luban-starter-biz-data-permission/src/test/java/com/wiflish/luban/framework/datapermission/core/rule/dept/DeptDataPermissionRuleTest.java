@@ -17,6 +17,7 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockedStatic;
 
+import java.time.Duration;
 import java.util.Map;
 
 import static com.wiflish.luban.framework.test.core.util.RandomUtils.randomPojo;
@@ -24,8 +25,7 @@ import static com.wiflish.luban.framework.test.core.util.RandomUtils.randomStrin
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.ArgumentMatchers.same;
-import static org.mockito.Mockito.mockStatic;
-import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.*;
 
 /**
  * {@link DeptDataPermissionRule} 的单元测试
@@ -234,4 +234,40 @@ class DeptDataPermissionRuleTest extends BaseMockitoUnitTest {
         }
     }
 
+    @Test // 跨请求缓存部门数据权限
+    public void testGetExpression_deptDataPermissionCache() {
+        try (MockedStatic<SecurityFrameworkUtils> securityFrameworkUtilsMock
+                     = mockStatic(SecurityFrameworkUtils.class)) {
+            // 准备参数
+            String tableName = "t_user";
+            Alias tableAlias = new Alias("u");
+            DeptDataPermissionCache cache = new DeptDataPermissionCache(16, Duration.ofMinutes(1));
+            rule.setDeptDataPermissionCache(cache);
+            // mock 方法（DeptDataPermissionRespDTO）
+            DeptDataPermissionRespDTO deptDataPermission = new DeptDataPermissionRespDTO().setAll(true);
+            when(permissionApi.getDeptDataPermission(same(1L))).thenReturn(deptDataPermission);
+
+            // 调用，两次请求，LoginUser 不同
+            for (int i = 0; i < 2; i++) {
+                LoginUser loginUser = randomPojo(LoginUser.class, o -> o.setId(1L).setTenantId(2L)
+                        .setUserType(UserTypeEnum.ADMIN.getValue()));
+                securityFrameworkUtilsMock.when(SecurityFrameworkUtils::getLoginUser).thenReturn(loginUser);
+                assertNull(rule.getExpression(tableName, tableAlias));
+                assertSame(deptDataPermission, loginUser.getContext(DeptDataPermissionRule.CONTEXT_KEY, DeptDataPermissionRespDTO.class));
+            }
+            // 断言，只获取一次
+            verify(permissionApi, times(1)).getDeptDataPermission(eq(1L));
+            assertSame(deptDataPermission, cache.get(2L, 1L));
+
+            // 调用，失效租户的缓存后，再次请求
+            cache.invalidate(2L, null);
+            LoginUser loginUser = randomPojo(LoginUser.class, o -> o.setId(1L).setTenantId(2L)
+                    .setUserType(UserTypeEnum.ADMIN.getValue()));
+            securityFrameworkUtilsMock.when(SecurityFrameworkUtils::getLoginUser).thenReturn(loginUser);
+            rule.getExpression(tableName, tableAlias);
+            // 断言，重新获取
+            verify(permissionApi, times(2)).getDeptDataPermission(eq(1L));
+        }
+    }
+
 }
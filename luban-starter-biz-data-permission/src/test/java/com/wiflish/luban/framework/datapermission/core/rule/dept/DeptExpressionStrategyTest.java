@@ -0,0 +1,100 @@
+package com.wiflish.luban.framework.datapermission.core.rule.dept;
+
+import net.sf.jsqlparser.expression.Expression;
+import net.sf.jsqlparser.schema.Column;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * {@link DeptExpressionStrategy} 的单元测试
+ *
+ * 基于 H2 内存数据库，校验各个策略生成的条件，查询结果一致
+ *
+ * @author wiflish
+ */
+public class DeptExpressionStrategyTest {
+
+    private static final Long USER_ID = 1L;
+    private static final Set<Long> DEPT_IDS = Set.of(10L, 20L, 30L);
+
+    private Connection connection;
+
+    @BeforeEach
+    public void setUp() throws SQLException {
+        connection = DriverManager.getConnection("jdbc:h2:mem:dept_expression_strategy;MODE=MySQL");
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE t_order (id BIGINT PRIMARY KEY, dept_id BIGINT)");
+            statement.execute("INSERT INTO t_order VALUES (1, 10), (2, 20), (3, 30), (4, 40), (5, 50)");
+            statement.execute("CREATE TABLE t_user_dept_scope (user_id BIGINT, dept_id BIGINT)");
+            statement.execute("INSERT INTO t_user_dept_scope VALUES (1, 10), (1, 20), (1, 30), (2, 40)");
+        }
+    }
+
+    @AfterEach
+    public void tearDown() throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("DROP ALL OBJECTS");
+        }
+        connection.close();
+    }
+
+    @Test
+    public void testIn() throws SQLException {
+        // 调用
+        Expression expression = DeptExpressionStrategy.IN.buildExpression(
+                new Column("t_order.dept_id"), DEPT_IDS, USER_ID);
+        // 断言
+        assertEquals(List.of(1L, 2L, 3L), selectOrderIds(expression));
+    }
+
+    @Test
+    public void testSubQuery() throws SQLException {
+        // 准备参数
+        DeptExpressionStrategy strategy = new SubQueryDeptExpressionStrategy("t_user_dept_scope", "user_id", "dept_id");
+
+        // 调用
+        Expression expression = strategy.buildExpression(new Column("t_order.dept_id"), DEPT_IDS, USER_ID);
+        // 断言
+        assertEquals("t_order.dept_id IN (SELECT dept_id FROM t_user_dept_scope WHERE user_id = 1)",
+                expression.toString());
+        assertEquals(List.of(1L, 2L, 3L), selectOrderIds(expression));
+    }
+
+    @Test
+    public void testSizeAdaptive() {
+        // 准备参数
+        DeptExpressionStrategy strategy = new SizeAdaptiveDeptExpressionStrategy(2, DeptExpressionStrategy.IN,
+                new SubQueryDeptExpressionStrategy("t_user_dept_scope", "user_id", "dept_id"));
+
+        // 场景一，不超过阈值
+        assertEquals("t_order.dept_id IN (10)",
+                strategy.buildExpression(new Column("t_order.dept_id"), Set.of(10L), USER_ID).toString());
+        // 场景二，超过阈值
+        assertEquals("t_order.dept_id IN (SELECT dept_id FROM t_user_dept_scope WHERE user_id = 1)",
+                strategy.buildExpression(new Column("t_order.dept_id"), DEPT_IDS, USER_ID).toString());
+    }
+
+    private List<Long> selectOrderIds(Expression where) throws SQLException {
+        List<Long> ids = new ArrayList<>();
+        try (Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery("SELECT id FROM t_order WHERE " + where + " ORDER BY id")) {
+            while (resultSet.next()) {
+                ids.add(resultSet.getLong(1));
+            }
+        }
+        return ids;
+    }
+
+}
@@ -4,23 +4,40 @@ import com.baomidou.mybatisplus.extension.plugins.MybatisPlusInterceptor;
 import com.baomidou.mybatisplus.extension.plugins.inner.TenantLineInnerInterceptor;
 import com.wiflish.luban.framework.common.enums.WebFilterOrderEnum;
 import com.wiflish.luban.framework.mybatis.core.util.MyBatisUtils;
+import com.wiflish.luban.framework.redis.config.CacheAutoConfiguration;
 import com.wiflish.luban.framework.redis.config.CacheProperties;
+import com.wiflish.luban.framework.redis.core.RedisCacheGenerationDAO;
+import com.wiflish.luban.framework.redis.core.RedisCacheInvalidator;
+import com.wiflish.luban.framework.redis.core.RedisHotKeyDetector;
+import com.wiflish.luban.framework.redis.core.RedisKeyHashTags;
+import com.wiflish.luban.framework.tenant.core.context.TenantContextHolder;
 import com.wiflish.luban.framework.tenant.core.aop.TenantIgnoreAspect;
+import com.wiflish.luban.framework.tenant.core.db.TenantDataSourceAdvisor;
 import com.wiflish.luban.framework.tenant.core.db.TenantDatabaseInterceptor;
+import com.wiflish.luban.framework.tenant.core.db.TenantStatementLineInnerInterceptor;
 import com.wiflish.luban.framework.tenant.core.job.TenantJobAspect;
+import com.wiflish.luban.framework.tenant.core.job.TenantJobExecutor;
+import com.wiflish.luban.framework.tenant.core.metrics.TenantMetricsMyBatisInterceptor;
+import com.wiflish.luban.framework.tenant.core.metrics.TenantMetricsRecorder;
 import com.wiflish.luban.framework.tenant.core.mq.rabbitmq.TenantRabbitMQInitializer;
 import com.wiflish.luban.framework.tenant.core.mq.redis.TenantRedisMessageInterceptor;
 import com.wiflish.luban.framework.tenant.core.mq.rocketmq.TenantRocketMQInitializer;
+import com.wiflish.luban.framework.tenant.core.redis.TenantCacheGenerationRedisDAO;
 import com.wiflish.luban.framework.tenant.core.redis.TenantRedisCacheManager;
 import com.wiflish.luban.framework.tenant.core.security.TenantSecurityWebFilter;
 import com.wiflish.luban.framework.tenant.core.service.TenantFrameworkService;
 import com.wiflish.luban.framework.tenant.core.service.TenantFrameworkServiceImpl;
 import com.wiflish.luban.framework.tenant.core.web.TenantContextWebFilter;
+import com.wiflish.luban.framework.tenant.core.web.TenantServerRequestObservationConvention;
 import com.wiflish.luban.framework.web.config.WebProperties;
 import com.wiflish.luban.framework.web.core.handler.GlobalExceptionHandler;
 import com.wiflish.luban.framework.common.api.tenant.TenantApi;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.boot.autoconfigure.AutoConfiguration;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.boot.web.servlet.FilterRegistrationBean;
@@ -28,14 +45,14 @@ import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Primary;
 import org.springframework.data.redis.cache.BatchStrategies;
 import org.springframework.data.redis.cache.RedisCacheConfiguration;
-import org.springframework.data.redis.cache.RedisCacheManager;
 import org.springframework.data.redis.cache.RedisCacheWriter;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
 
 import java.util.Objects;
 
-@AutoConfiguration
+@AutoConfiguration(after = CacheAutoConfiguration.class) // 在 CacheAutoConfiguration 之后，判断 RedisCacheInvalidator 是否已经创建
 @ConditionalOnProperty(prefix = "luban.framework.tenant", value = "enable", matchIfMissing = true) // 允许使用 luban.framework.tenant.enable=false 禁用多租户
 @EnableConfigurationProperties(TenantProperties.class)
 public class TenantAutoConfiguration {
@@ -56,14 +73,25 @@ public class TenantAutoConfiguration {
 
     @Bean
     public TenantLineInnerInterceptor tenantLineInnerInterceptor(TenantProperties properties,
-                                                                 MybatisPlusInterceptor interceptor) {
-        TenantLineInnerInterceptor inner = new TenantLineInnerInterceptor(new TenantDatabaseInterceptor(properties));
+                                                                 MybatisPlusInterceptor interceptor,
+                                                                 TenantFrameworkService tenantFrameworkService) {
+        TenantDatabaseInterceptor tenantDatabaseInterceptor = new TenantDatabaseInterceptor(properties);
+        if (Boolean.TRUE.equals(properties.getDataSourceRouteEnable())) {
+            tenantDatabaseInterceptor.setTenantFrameworkService(tenantFrameworkService);
+        }
+        TenantLineInnerInterceptor inner = new TenantStatementLineInnerInterceptor(tenantDatabaseInterceptor);
         // 添加到 interceptor 中
         // 需要加在首个，主要是为了在分页插件前面。这个是 MyBatis Plus 的规定
         MyBatisUtils.addInterceptor(interceptor, inner, 0);
         return inner;
     }
 
+    @Bean
+    @ConditionalOnProperty(prefix = "luban.framework.tenant", value = "data-source-route-enable")
+    public TenantDataSourceAdvisor tenantDataSourceAdvisor(TenantFrameworkService tenantFrameworkService) {
+        return new TenantDataSourceAdvisor(tenantFrameworkService);
+    }
+
     // ========== WEB ==========
 
     @Bean
@@ -91,8 +119,11 @@ public class TenantAutoConfiguration {
     // ========== MQ ==========
 
     @Bean
-    public TenantRedisMessageInterceptor tenantRedisMessageInterceptor() {
-        return new TenantRedisMessageInterceptor();
+    public TenantRedisMessageInterceptor tenantRedisMessageInterceptor(
+            ObjectProvider<TenantMetricsRecorder> tenantMetricsRecorderProvider) {
+        TenantRedisMessageInterceptor interceptor = new TenantRedisMessageInterceptor();
+        interceptor.setTenantMetricsRecorder(tenantMetricsRecorderProvider.getIfAvailable());
+        return interceptor;
     }
 
     @Bean
@@ -110,23 +141,95 @@ public class TenantAutoConfiguration {
     // ========== Job ==========
 
     @Bean
-    public TenantJobAspect tenantJobAspect(TenantFrameworkService tenantFrameworkService) {
-        return new TenantJobAspect(tenantFrameworkService);
+    public TenantJobExecutor tenantJobExecutor(TenantProperties properties,
+                                               ObjectProvider<MeterRegistry> meterRegistryProvider) {
+        return new TenantJobExecutor(properties.getJobParallelism(), properties.getJobTimeout(),
+                meterRegistryProvider.getIfAvailable(() -> Metrics.globalRegistry));
+    }
+
+    @Bean
+    public TenantJobAspect tenantJobAspect(TenantFrameworkService tenantFrameworkService,
+                                           TenantJobExecutor tenantJobExecutor) {
+        return new TenantJobAspect(tenantFrameworkService, tenantJobExecutor);
     }
 
     // ========== Redis ==========
 
+    @Bean
+    @ConditionalOnProperty(prefix = "luban.framework.tenant", value = "redis-hash-tag-enable")
+    @SuppressWarnings("InstantiationOfUtilityClass")
+    public RedisKeyHashTags tenantRedisKeyHashTags() {
+        RedisKeyHashTags.init(() -> TenantContextHolder.isIgnore() ? null : TenantContextHolder.getTenantId());
+        return new RedisKeyHashTags();
+    }
+
+    @Bean
+    public TenantCacheGenerationRedisDAO tenantCacheGenerationRedisDAO(RedisTemplate<String, Object> redisTemplate,
+                                                                       TenantProperties properties) {
+        RedisConnectionFactory connectionFactory = Objects.requireNonNull(redisTemplate.getConnectionFactory());
+        return new TenantCacheGenerationRedisDAO(new StringRedisTemplate(connectionFactory),
+                properties.getCacheGenerationTtl());
+    }
+
+    /**
+     * 多租户缓存代数的失效广播器
+     *
+     * 多租户缓存总是使用代数，并且代数有本地缓存；其它节点清空租户缓存后，需要广播消息，让本节点失效代数的本地缓存，
+     * 否则最多 cacheGenerationTtl 内仍然读写旧代数的 Key。CacheAutoConfiguration 未创建广播器时，在这里创建
+     */
+    @Bean
+    @ConditionalOnMissingBean(RedisCacheInvalidator.class)
+    public RedisCacheInvalidator tenantRedisCacheInvalidator(RedisTemplate<String, Object> redisTemplate,
+                                                             CacheProperties cacheProperties) {
+        RedisConnectionFactory connectionFactory = Objects.requireNonNull(redisTemplate.getConnectionFactory());
+        return new RedisCacheInvalidator(connectionFactory, cacheProperties.getLocalInvalidationChannel());
+    }
+
     @Bean
     @Primary // 引入租户时，tenantRedisCacheManager 为主 Bean
-    public RedisCacheManager tenantRedisCacheManager(RedisTemplate<String, Object> redisTemplate,
-                                                     RedisCacheConfiguration redisCacheConfiguration,
-                                                     CacheProperties cacheProperties) {
+    public TenantRedisCacheManager tenantRedisCacheManager(RedisTemplate<String, Object> redisTemplate,
+                                                           RedisCacheConfiguration redisCacheConfiguration,
+                                                           CacheProperties cacheProperties,
+                                                           TenantCacheGenerationRedisDAO tenantCacheGenerationRedisDAO,
+                                                           ObjectProvider<TenantMetricsRecorder> tenantMetricsRecorderProvider,
+                                                           ObjectProvider<RedisCacheInvalidator> cacheInvalidatorProvider,
+                                                           ObjectProvider<RedisCacheGenerationDAO> cacheGenerationDAOProvider,
+                                                           ObjectProvider<RedisHotKeyDetector> hotKeyDetectorProvider) {
         // 创建 RedisCacheWriter 对象
         RedisConnectionFactory connectionFactory = Objects.requireNonNull(redisTemplate.getConnectionFactory());
         RedisCacheWriter cacheWriter = RedisCacheWriter.nonLockingRedisCacheWriter(connectionFactory,
                 BatchStrategies.scan(cacheProperties.getRedisScanBatchSize()));
         // 创建 TenantRedisCacheManager 对象
-        return new TenantRedisCacheManager(cacheWriter, redisCacheConfiguration);
+        TenantRedisCacheManager cacheManager = new TenantRedisCacheManager(cacheWriter, redisCacheConfiguration,
+                tenantCacheGenerationRedisDAO);
+        cacheManager.setTenantMetricsRecorder(tenantMetricsRecorderProvider.getIfAvailable());
+        CacheAutoConfiguration.configureCacheManager(cacheManager, connectionFactory, cacheProperties,
+                cacheInvalidatorProvider.getIfAvailable(), cacheGenerationDAOProvider.getIfAvailable(),
+                hotKeyDetectorProvider.getIfAvailable());
+        return cacheManager;
+    }
+
+    // ========== Metrics ==========
+
+    @Bean
+    @ConditionalOnProperty(prefix = "luban.framework.tenant", value = "metrics-enable")
+    public TenantMetricsRecorder tenantMetricsRecorder(TenantProperties properties,
+                                                       ObjectProvider<MeterRegistry> meterRegistryProvider) {
+        return new TenantMetricsRecorder(meterRegistryProvider.getIfAvailable(() -> Metrics.globalRegistry),
+                properties.getMetricsMaxTenants(), properties.getMetricsReadmitInterval());
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "luban.framework.tenant", value = "metrics-enable")
+    public TenantMetricsMyBatisInterceptor tenantMetricsMyBatisInterceptor(TenantMetricsRecorder tenantMetricsRecorder) {
+        return new TenantMetricsMyBatisInterceptor(tenantMetricsRecorder);
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "luban.framework.tenant", value = "metrics-enable")
+    public TenantServerRequestObservationConvention tenantServerRequestObservationConvention(
+            TenantMetricsRecorder tenantMetricsRecorder) {
+        return new TenantServerRequestObservationConvention(tenantMetricsRecorder);
     }
 
 }
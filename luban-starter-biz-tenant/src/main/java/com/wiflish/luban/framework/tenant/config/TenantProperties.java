@@ -1,8 +1,12 @@
 package com.wiflish.luban.framework.tenant.config;
 
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
 import lombok.Data;
 import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.validation.annotation.Validated;
 
+import java.time.Duration;
 import java.util.Collections;
 import java.util.Set;
 
@@ -13,6 +17,7 @@ import java.util.Set;
  */
 @ConfigurationProperties(prefix = "luban.framework.tenant")
 @Data
+@Validated
 public class TenantProperties {
 
     /**
@@ -39,4 +44,63 @@ public class TenantProperties {
      */
     private Set<String> ignoreTables = Collections.emptySet();
 
+    /**
+     * 多租户 Job 并行执行的线程数，不能小于 1
+     */
+    @NotNull(message = "多租户 Job 的线程数不能为空")
+    @Min(value = 1, message = "多租户 Job 的线程数不能小于 1")
+    private Integer jobParallelism = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * 多租户 Job 在每个租户的执行时间预算，超时后中断
+     *
+     * 为 0 时，不限制
+     */
+    private Duration jobTimeout = Duration.ZERO;
+
+    /**
+     * 多租户缓存代数的本地缓存时间
+     *
+     * 其它节点清空租户缓存后，通过 RedisCacheInvalidator 广播失效，立即可见；广播失败时，最多经过该时间后可见。
+     * 为 0 时，不使用本地缓存，每次都读取 Redis
+     */
+    private Duration cacheGenerationTtl = Duration.ofSeconds(5);
+
+    /**
+     * 是否开启 Redis Cluster 的 hash tag
+     *
+     * 开启后，多租户缓存的 Redis Key 中的租户编号包装成 {tenantId}，同一个租户的 Key 落在同一个 slot
+     * 注意，开启或关闭时，已有的缓存会全部失效
+     *
+     * 幂等、分布式锁的 Key 默认不变，需要按方法开启：@Idempotent(hashTag = true)、@Lock4j(keyBuilderStrategy = HashTagLockKeyBuilder.class)
+     */
+    private Boolean redisHashTagEnable = false;
+
+    /**
+     * 是否开启多租户的 Metrics 指标
+     *
+     * 开启后，HTTP、MyBatis、缓存、MQ 的 Metrics 指标，会添加 tenant 标签
+     */
+    private Boolean metricsEnable = false;
+
+    /**
+     * 多租户 Metrics 指标中，拥有独立 tenant 标签值的租户数量上限
+     *
+     * 超过后，其它租户的 tenant 标签值统一为 overflow，避免标签的基数过大
+     */
+    private Integer metricsMaxTenants = 100;
+
+    /**
+     * 多租户 Metrics 指标中，按照访问频率重新选择拥有独立 tenant 标签值的租户的间隔
+     */
+    private Duration metricsReadmitInterval = Duration.ofMinutes(1);
+
+    /**
+     * 是否开启多租户的数据源路由
+     *
+     * 开启后，配置了独立数据源的租户（{@link com.wiflish.luban.framework.common.api.tenant.TenantApi#getTenantDataSource(Long)}），
+     * 切换到该数据源，并且不再拼接 tenant_id 条件
+     */
+    private Boolean dataSourceRouteEnable = false;
+
 }
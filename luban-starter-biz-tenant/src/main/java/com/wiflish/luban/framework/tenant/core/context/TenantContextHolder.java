@@ -1,7 +1,7 @@
 package com.wiflish.luban.framework.tenant.core.context;
 
-import com.alibaba.ttl.TransmittableThreadLocal;
 import com.wiflish.luban.framework.common.enums.DocumentEnum;
+import com.wiflish.luban.framework.common.util.context.ContextThreadLocals;
 
 /**
  * 多租户上下文 Holder
@@ -13,12 +13,12 @@ public class TenantContextHolder {
     /**
      * 当前租户编号
      */
-    private static final ThreadLocal<Long> TENANT_ID = new TransmittableThreadLocal<>();
+    private static final ThreadLocal<Long> TENANT_ID = ContextThreadLocals.create();
 
     /**
      * 是否忽略租户
      */
-    private static final ThreadLocal<Boolean> IGNORE = new TransmittableThreadLocal<>();
+    private static final ThreadLocal<Boolean> IGNORE = ContextThreadLocals.create();
 
     /**
      * 获得租户编号
@@ -0,0 +1,49 @@
+package com.wiflish.luban.framework.tenant.core.db;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.wiflish.luban.framework.tenant.core.service.TenantFrameworkService;
+import org.aopalliance.aop.Advice;
+import org.springframework.aop.ClassFilter;
+import org.springframework.aop.Pointcut;
+import org.springframework.aop.support.AbstractPointcutAdvisor;
+import org.springframework.aop.support.ComposablePointcut;
+import org.springframework.aop.support.annotation.AnnotationMatchingPointcut;
+import org.springframework.core.Ordered;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * 多租户的数据源路由 Advisor
+ *
+ * 拦截 Mapper 和 {@link Transactional} 方法，使用 {@link TenantDataSourceInterceptor} 切换租户的数据源：
+ * 1. 拦截 {@link Transactional} 方法：事务开启时就会获取连接，所以必须在事务开启之前切换
+ * 2. 拦截 Mapper 方法：没有事务时，在执行 SQL 之前切换
+ *
+ * 顺序在 dynamic-datasource 的 @DS 切面之后，这样可以感知到 @DS 指定的数据源；在事务切面之前，这样事务使用租户的数据源
+ *
+ * @author wiflish
+ */
+public class TenantDataSourceAdvisor extends AbstractPointcutAdvisor {
+
+    private final Advice advice;
+
+    private final Pointcut pointcut;
+
+    public TenantDataSourceAdvisor(TenantFrameworkService tenantFrameworkService) {
+        this.advice = new TenantDataSourceInterceptor(tenantFrameworkService);
+        this.pointcut = new ComposablePointcut(new AnnotationMatchingPointcut(Transactional.class, true))
+                .union(AnnotationMatchingPointcut.forMethodAnnotation(Transactional.class))
+                .union(new ComposablePointcut((ClassFilter) BaseMapper.class::isAssignableFrom));
+        setOrder(Ordered.HIGHEST_PRECEDENCE + 1);
+    }
+
+    @Override
+    public Pointcut getPointcut() {
+        return pointcut;
+    }
+
+    @Override
+    public Advice getAdvice() {
+        return advice;
+    }
+
+}
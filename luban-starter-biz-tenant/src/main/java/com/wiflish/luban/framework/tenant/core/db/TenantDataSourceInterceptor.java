@@ -0,0 +1,53 @@
+package com.wiflish.luban.framework.tenant.core.db;
+
+import cn.hutool.core.util.StrUtil;
+import com.baomidou.dynamic.datasource.toolkit.DynamicDataSourceContextHolder;
+import com.wiflish.luban.framework.tenant.core.context.TenantContextHolder;
+import com.wiflish.luban.framework.tenant.core.service.TenantFrameworkService;
+import lombok.RequiredArgsConstructor;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+
+/**
+ * 多租户的数据源路由拦截器
+ *
+ * 当前租户配置了独立数据源时，基于 dynamic-datasource 的 {@link DynamicDataSourceContextHolder}，切换到该租户的数据源
+ *
+ * 注意，已经通过 @DS 等注解指定数据源时，不进行切换，保持原有的数据源
+ *
+ * @author wiflish
+ */
+@RequiredArgsConstructor
+public class TenantDataSourceInterceptor implements MethodInterceptor {
+
+    private final TenantFrameworkService tenantFrameworkService;
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        String dataSource = getDataSource();
+        if (dataSource == null) {
+            return invocation.proceed();
+        }
+        DynamicDataSourceContextHolder.push(dataSource);
+        try {
+            return invocation.proceed();
+        } finally {
+            DynamicDataSourceContextHolder.poll();
+        }
+    }
+
+    private String getDataSource() {
+        // 情况一，已经指定数据源
+        if (StrUtil.isNotEmpty(DynamicDataSourceContextHolder.peek())) {
+            return null;
+        }
+        // 情况二，忽略多租户，或者没有租户
+        Long tenantId = TenantContextHolder.isIgnore() ? null : TenantContextHolder.getTenantId();
+        if (tenantId == null) {
+            return null;
+        }
+        // 情况三，租户配置了独立数据源
+        return tenantFrameworkService.getDataSource(tenantId);
+    }
+
+}
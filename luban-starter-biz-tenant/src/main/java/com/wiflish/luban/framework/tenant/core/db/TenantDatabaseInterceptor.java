@@ -1,9 +1,13 @@
 package com.wiflish.luban.framework.tenant.core.db;
 
 import cn.hutool.core.collection.CollUtil;
-import com.baomidou.mybatisplus.extension.plugins.handler.TenantLineHandler;
+import cn.hutool.core.util.StrUtil;
+import com.baomidou.dynamic.datasource.toolkit.DynamicDataSourceContextHolder;
+import com.wiflish.luban.framework.mybatis.core.handler.StatementTenantLineHandler;
 import com.wiflish.luban.framework.tenant.config.TenantProperties;
 import com.wiflish.luban.framework.tenant.core.context.TenantContextHolder;
+import com.wiflish.luban.framework.tenant.core.service.TenantFrameworkService;
+import lombok.Setter;
 import net.sf.jsqlparser.expression.Expression;
 import net.sf.jsqlparser.expression.LongValue;
 
@@ -13,12 +17,33 @@ import java.util.Set;
 /**
  * 基于 MyBatis Plus 多租户的功能，实现 DB 层面的多租户的功能
  *
+ * 租户使用独立数据源时，只有当前数据源是该租户的数据源，才不拼接 tenant_id 条件。
+ * 例如说，通过 @DS("master") 显式指定共享数据源时，仍然需要拼接。该判断和表无关，每条 SQL 只计算一次
+ *
  * @author wiflish
  */
-public class TenantDatabaseInterceptor implements TenantLineHandler {
+public class TenantDatabaseInterceptor implements StatementTenantLineHandler {
+
+    /**
+     * 忽略所有表时的 {@link #getStatementKey()}，此时拼接的租户条件和租户无关
+     */
+    private static final String IGNORE_STATEMENT_KEY = "ignore";
 
     private final Set<String> ignoreTables = new HashSet<>();
 
+    /**
+     * 当前 SQL 是否在租户的独立数据源上执行，由 {@link #beginStatement()} 计算
+     */
+    private final ThreadLocal<Boolean> dedicatedDataSource = new ThreadLocal<>();
+
+    /**
+     * 多租户 Framework Service，用于判断租户是否使用独立数据源
+     *
+     * 为空时，表示不开启数据源路由
+     */
+    @Setter
+    private TenantFrameworkService tenantFrameworkService;
+
     public TenantDatabaseInterceptor(TenantProperties properties) {
         // 不同 DB 下，大小写的习惯不同，所以需要都添加进去
         properties.getIgnoreTables().forEach(table -> {
@@ -37,7 +62,48 @@ public class TenantDatabaseInterceptor implements TenantLineHandler {
     @Override
     public boolean ignoreTable(String tableName) {
         return TenantContextHolder.isIgnore() // 情况一，全局忽略多租户
-            || CollUtil.contains(ignoreTables, tableName); // 情况二，忽略多租户的表
+            || CollUtil.contains(ignoreTables, tableName) // 情况二，忽略多租户的表
+            || isDedicatedDataSource(); // 情况三，租户使用独立数据源，数据源中只有该租户的数据
+    }
+
+    @Override
+    public void beginStatement() {
+        if (tenantFrameworkService != null) {
+            dedicatedDataSource.set(computeDedicatedDataSource());
+        }
+    }
+
+    @Override
+    public void endStatement() {
+        dedicatedDataSource.remove();
+    }
+
+    @Override
+    public Object getStatementKey() {
+        // 情况一、三：忽略所有表
+        if (TenantContextHolder.isIgnore() || isDedicatedDataSource()) {
+            return IGNORE_STATEMENT_KEY;
+        }
+        // 情况二：忽略的表是固定的，所以只和租户编号相关
+        return TenantContextHolder.getTenantId();
+    }
+
+    private boolean isDedicatedDataSource() {
+        if (tenantFrameworkService == null) {
+            return false;
+        }
+        Boolean dedicated = dedicatedDataSource.get();
+        // 未通过拦截器调用时，例如说直接调用 ignoreTable 方法，则实时计算
+        return dedicated != null ? dedicated : computeDedicatedDataSource();
+    }
+
+    private boolean computeDedicatedDataSource() {
+        Long tenantId = TenantContextHolder.getTenantId();
+        if (tenantId == null) {
+            return false;
+        }
+        String current = DynamicDataSourceContextHolder.peek();
+        return StrUtil.isNotEmpty(current) && current.equals(tenantFrameworkService.getDataSource(tenantId));
     }
 
 }
@@ -0,0 +1,42 @@
+package com.wiflish.luban.framework.tenant.core.db;
+
+import com.baomidou.mybatisplus.extension.plugins.handler.TenantLineHandler;
+import com.baomidou.mybatisplus.extension.plugins.inner.TenantLineInnerInterceptor;
+import com.wiflish.luban.framework.mybatis.core.handler.StatementTenantLineHandler;
+import org.apache.ibatis.executor.Executor;
+import org.apache.ibatis.executor.statement.StatementHandler;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.session.ResultHandler;
+import org.apache.ibatis.session.RowBounds;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * 支持 {@link StatementTenantLineHandler} 的 {@link TenantLineInnerInterceptor}
+ *
+ * 在每条 SQL 解析前后，调用 {@link StatementTenantLineHandler#beginStatement()}、{@link StatementTenantLineHandler#endStatement()}
+ *
+ * @author wiflish
+ */
+public class TenantStatementLineInnerInterceptor extends TenantLineInnerInterceptor {
+
+    public TenantStatementLineInnerInterceptor(TenantLineHandler tenantLineHandler) {
+        super(tenantLineHandler);
+    }
+
+    @Override // SELECT 场景
+    public void beforeQuery(Executor executor, MappedStatement ms, Object parameter, RowBounds rowBounds, ResultHandler resultHandler, BoundSql boundSql)
+            throws SQLException {
+        StatementTenantLineHandler.runInStatement(getTenantLineHandler(),
+                () -> super.beforeQuery(executor, ms, parameter, rowBounds, resultHandler, boundSql));
+    }
+
+    @Override // INSERT / UPDATE / DELETE 场景
+    public void beforePrepare(StatementHandler sh, Connection connection, Integer transactionTimeout) {
+        StatementTenantLineHandler.runInStatement(getTenantLineHandler(),
+                () -> super.beforePrepare(sh, connection, transactionTimeout));
+    }
+
+}
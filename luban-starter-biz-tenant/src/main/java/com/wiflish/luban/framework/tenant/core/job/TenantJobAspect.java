@@ -1,25 +1,30 @@
 package com.wiflish.luban.framework.tenant.core.job;
 
 import cn.hutool.core.collection.CollUtil;
-import cn.hutool.core.exceptions.ExceptionUtil;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.wiflish.luban.framework.common.util.json.JsonUtils;
+import com.wiflish.luban.framework.quartz.core.context.JobContextHolder;
 import com.wiflish.luban.framework.tenant.core.service.TenantFrameworkService;
-import com.wiflish.luban.framework.tenant.core.util.TenantUtils;
 import lombok.RequiredArgsConstructor;
+import lombok.SneakyThrows;
 import lombok.extern.slf4j.Slf4j;
 import org.aspectj.lang.ProceedingJoinPoint;
 import org.aspectj.lang.annotation.Around;
 import org.aspectj.lang.annotation.Aspect;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * 多租户 JobHandler AOP
- * 任务执行时，会按照租户逐个执行 Job 的逻辑
+ * 任务执行时，会通过 {@link TenantJobExecutor} 按照租户并行执行 Job 的逻辑
  *
- * 注意，需要保证 JobHandler 的幂等性。因为 Job 因为某个租户执行失败重试时，之前执行成功的租户也会再次执行。
+ * 任一租户执行失败时，Job 整体失败，由 JobHandlerInvoker 进行重试。重试时，只执行上次失败的租户。
+ * 注意，仍然需要保证 JobHandler 的幂等性，例如说租户超时被中断时，可能已经执行了部分逻辑。
  *
  * @author wiflish
  */
@@ -30,27 +35,64 @@ public class TenantJobAspect {
 
     private final TenantFrameworkService tenantFrameworkService;
 
+    private final TenantJobExecutor tenantJobExecutor;
+
+    /**
+     * 待重试的租户编号的过期时间
+     *
+     * JobHandlerInvoker 在重试间隔后立即重试，正常不会超过该时间；Quartz 未重试（misfire、Job 被删除、节点重启）时，由过期移除
+     */
+    private static final Duration RETRY_TENANT_IDS_TTL = Duration.ofHours(1);
+    /**
+     * 待重试的租户编号的最大数量
+     */
+    private static final long RETRY_TENANT_IDS_MAXIMUM_SIZE = 1000L;
+
+    /**
+     * 待重试的租户编号
+     *
+     * key：Job 名字 + 触发编号
+     * value：上次执行失败的租户编号
+     */
+    private final Cache<String, List<Long>> retryTenantIds = CacheBuilder.newBuilder()
+            .expireAfterWrite(RETRY_TENANT_IDS_TTL)
+            .maximumSize(RETRY_TENANT_IDS_MAXIMUM_SIZE)
+            .build();
+
     @Around("@annotation(tenantJob)")
     public String around(ProceedingJoinPoint joinPoint, TenantJob tenantJob) {
-        // 获得租户列表
-        List<Long> tenantIds = tenantFrameworkService.getTenantIds();
+        // 获得租户列表：重试时，只执行上次失败的租户
+        String jobName = joinPoint.getSignature().getDeclaringType().getSimpleName();
+        String fireInstanceId = JobContextHolder.getFireInstanceId();
+        String retryKey = fireInstanceId != null ? jobName + ":" + fireInstanceId : null;
+        List<Long> tenantIds = retryKey != null ? retryTenantIds.asMap().remove(retryKey) : null;
+        if (tenantIds == null) {
+            tenantIds = tenantFrameworkService.getTenantIds();
+        }
         if (CollUtil.isEmpty(tenantIds)) {
             return null;
         }
 
-        // 逐个租户，执行 Job
-        Map<Long, String> results = new ConcurrentHashMap<>();
-        tenantIds.parallelStream().forEach(tenantId -> {
-            // TODO 芋艿：先通过 parallel 实现并行；1）多个租户，是一条执行日志；2）异常的情况
-            TenantUtils.execute(tenantId, () -> {
-                try {
-                    joinPoint.proceed();
-                } catch (Throwable e) {
-                    results.put(tenantId, ExceptionUtil.getRootCauseMessage(e));
-                }
-            });
-        });
-        return JsonUtils.toJsonString(results);
+        // 按照租户，并行执行 Job
+        List<TenantJobResult> results = tenantJobExecutor.execute(jobName, tenantIds, () -> proceed(joinPoint));
+        Map<Long, String> failures = new LinkedHashMap<>();
+        results.stream().filter(result -> !result.isSuccess())
+                .forEach(result -> failures.put(result.getTenantId(), result.getMessage()));
+        if (failures.isEmpty()) {
+            return JsonUtils.toJsonString(failures);
+        }
+
+        // 存在失败的租户，记录下来用于重试，并抛出异常使 Job 失败
+        log.error("[around][Job({}) 租户执行失败({}/{})：{}]", jobName, failures.size(), results.size(), failures);
+        if (retryKey != null && JobContextHolder.hasRemainingRetry()) {
+            retryTenantIds.put(retryKey, new ArrayList<>(failures.keySet()));
+        }
+        throw new IllegalStateException(JsonUtils.toJsonString(failures));
+    }
+
+    @SneakyThrows
+    private static Object proceed(ProceedingJoinPoint joinPoint) {
+        return joinPoint.proceed();
     }
 
 }
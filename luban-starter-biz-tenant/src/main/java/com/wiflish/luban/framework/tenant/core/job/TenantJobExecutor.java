@@ -0,0 +1,190 @@
+package com.wiflish.luban.framework.tenant.core.job;
+
+import cn.hutool.core.exceptions.ExceptionUtil;
+import cn.hutool.core.lang.Assert;
+import cn.hutool.core.thread.ThreadUtil;
+import com.wiflish.luban.framework.common.util.context.ContextThreadLocals;
+import com.wiflish.luban.framework.tenant.core.util.TenantUtils;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 多租户 Job 的执行器，按照租户分片并行执行
+ *
+ * 相比 parallelStream 使用公共的 ForkJoinPool，该执行器：
+ * 1. 使用独立的线程池，并行度可配置，慢租户不会影响 JVM 中其它的并行流
+ * 2. 每个租户有独立的时间预算，从该租户开始执行时计时，超时后中断，不再阻塞 Job 的完成
+ * 3. 返回每个租户的 {@link TenantJobResult} 执行结果，用于只重试失败的租户
+ * 4. 基于 Micrometer，记录每个租户的执行耗时、Job 剩余待执行的租户数
+ * 5. 通过 {@link ContextThreadLocals#wrap(Callable)} 传递 Job 线程的上下文，TTL、原生 ThreadLocal 两种后端都生效
+ *
+ * 注意，中断依赖 Job 逻辑响应 {@link InterruptedException}，不响应中断的逻辑在超时后仍然会占用线程直到结束。
+ *
+ * @author wiflish
+ */
+@Slf4j
+public class TenantJobExecutor {
+
+    private static final String METRIC_PREFIX = "luban.tenant.job.";
+
+    private static final String TAG_JOB = "job";
+
+    private final ExecutorService executor;
+    private final ScheduledExecutorService timeoutScheduler;
+
+    /**
+     * 每个租户的时间预算，单位：毫秒。为 0 时，不限制
+     */
+    private final long timeoutMillis;
+
+    /**
+     * Metrics 注册表，为空时不记录 Metrics 指标
+     */
+    private final MeterRegistry registry;
+    /**
+     * 每个 Job 剩余待执行的租户数
+     */
+    private final Map<String, AtomicInteger> pendingCounts = new ConcurrentHashMap<>();
+    /**
+     * 每个 Job、执行状态的耗时 Timer，避免每个租户都通过 builder 注册
+     *
+     * key：Job 名字 + 执行状态
+     */
+    private final Map<String, Timer> executeTimers = new ConcurrentHashMap<>();
+
+    public TenantJobExecutor(int parallelism, Duration timeout, MeterRegistry registry) {
+        Assert.isTrue(parallelism >= 1, "多租户 Job 的线程数({}) 不能小于 1", parallelism);
+        this.executor = Executors.newFixedThreadPool(parallelism, ThreadUtil.newNamedThreadFactory("tenant-job-", true));
+        this.timeoutScheduler = Executors.newSingleThreadScheduledExecutor(ThreadUtil.newNamedThreadFactory("tenant-job-timeout-", true));
+        this.timeoutMillis = timeout.toMillis();
+        this.registry = registry;
+    }
+
+    /**
+     * 按照租户，并行执行 Job 的逻辑，并等待所有租户执行完成
+     *
+     * @param jobName Job 名字
+     * @param tenantIds 租户编号数组
+     * @param job Job 的逻辑
+     * @return 每个租户的执行结果，和 tenantIds 的顺序一致
+     */
+    public List<TenantJobResult> execute(String jobName, Collection<Long> tenantIds, Callable<?> job) {
+        AtomicInteger pendingCount = getPendingCount(jobName);
+        pendingCount.addAndGet(tenantIds.size());
+        // 提交每个租户的任务
+        List<TenantTask> tasks = new ArrayList<>(tenantIds.size());
+        for (Long tenantId : tenantIds) {
+            TenantTask task = new TenantTask(tenantId, job);
+            tasks.add(task);
+            executor.execute(task);
+        }
+
+        // 等待每个租户的结果
+        List<TenantJobResult> results = new ArrayList<>(tasks.size());
+        try {
+            for (TenantTask task : tasks) {
+                TenantJobResult result = task.await();
+                results.add(result);
+                pendingCount.decrementAndGet();
+                record(jobName, result);
+            }
+        } catch (InterruptedException ex) {
+            // 调用线程被中断，取消剩余的租户
+            Thread.currentThread().interrupt();
+            tasks.forEach(task -> task.future.cancel(true));
+            pendingCount.addAndGet(results.size() - tasks.size());
+            throw new IllegalStateException("多租户 Job(" + jobName + ") 执行被中断", ex);
+        }
+        return results;
+    }
+
+    private AtomicInteger getPendingCount(String jobName) {
+        return pendingCounts.computeIfAbsent(jobName, key -> {
+            AtomicInteger pendingCount = new AtomicInteger();
+            if (registry != null) {
+                registry.gauge(METRIC_PREFIX + "pending", Tags.of(TAG_JOB, key), pendingCount);
+            }
+            return pendingCount;
+        });
+    }
+
+    private void record(String jobName, TenantJobResult result) {
+        if (registry == null) {
+            return;
+        }
+        String status = result.getStatus().name().toLowerCase();
+        executeTimers.computeIfAbsent(jobName + ":" + status, key -> Timer.builder(METRIC_PREFIX + "execute")
+                .description("多租户 Job 在单个租户的执行耗时")
+                .tags(TAG_JOB, jobName, "status", status)
+                .register(registry)).record(result.getCostMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 关闭线程池，由 Spring 在销毁 Bean 时调用
+     */
+    public void shutdown() {
+        executor.shutdownNow();
+        timeoutScheduler.shutdownNow();
+    }
+
+    /**
+     * 单个租户的任务
+     */
+    private class TenantTask implements Runnable {
+
+        private final Long tenantId;
+        private final FutureTask<Object> future;
+
+        private volatile long startNanos;
+        private volatile long endNanos;
+
+        private TenantTask(Long tenantId, Callable<?> job) {
+            this.tenantId = tenantId;
+            // 在 Job 线程中创建，通过 ContextThreadLocals 携带 Job 线程的上下文（Security、数据权限等），再设置租户
+            this.future = new FutureTask<>(ContextThreadLocals.wrap(() -> TenantUtils.execute(tenantId, job)));
+        }
+
+        @Override
+        public void run() {
+            startNanos = System.nanoTime();
+            // 时间预算从开始执行时计时，超时后取消并中断
+            ScheduledFuture<?> timeout = timeoutMillis > 0
+                    ? timeoutScheduler.schedule(() -> future.cancel(true), timeoutMillis, TimeUnit.MILLISECONDS) : null;
+            try {
+                future.run();
+            } finally {
+                endNanos = System.nanoTime();
+                if (timeout != null) {
+                    timeout.cancel(false);
+                }
+            }
+        }
+
+        private TenantJobResult await() throws InterruptedException {
+            TenantJobResult result = new TenantJobResult().setTenantId(tenantId);
+            try {
+                future.get();
+                result.setStatus(TenantJobResult.Status.SUCCESS);
+            } catch (CancellationException ex) {
+                result.setStatus(TenantJobResult.Status.TIMEOUT).setMessage("执行超过 " + timeoutMillis + " 毫秒");
+            } catch (ExecutionException ex) {
+                result.setStatus(TenantJobResult.Status.FAILURE).setMessage(ExceptionUtil.getRootCauseMessage(ex.getCause()));
+            }
+            // 超时的任务可能仍在执行，以当前时间计算
+            long end = endNanos > 0 ? endNanos : System.nanoTime();
+            return result.setCostMillis(TimeUnit.NANOSECONDS.toMillis(end - startNanos));
+        }
+
+    }
+
+}
@@ -0,0 +1,45 @@
+package com.wiflish.luban.framework.tenant.core.job;
+
+import lombok.Data;
+
+/**
+ * 多租户 Job 在单个租户的执行结果
+ *
+ * @author wiflish
+ */
+@Data
+public class TenantJobResult {
+
+    /**
+     * 租户编号
+     */
+    private Long tenantId;
+    /**
+     * 执行状态
+     */
+    private Status status;
+    /**
+     * 执行时长，单位：毫秒
+     */
+    private Long costMillis;
+    /**
+     * 失败时的异常信息
+     */
+    private String message;
+
+    public boolean isSuccess() {
+        return status == Status.SUCCESS;
+    }
+
+    /**
+     * 执行状态
+     */
+    public enum Status {
+
+        SUCCESS,
+        FAILURE,
+        TIMEOUT
+
+    }
+
+}
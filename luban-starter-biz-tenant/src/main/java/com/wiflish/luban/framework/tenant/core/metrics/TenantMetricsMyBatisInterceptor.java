@@ -0,0 +1,50 @@
+package com.wiflish.luban.framework.tenant.core.metrics;
+
+import lombok.RequiredArgsConstructor;
+import org.apache.ibatis.cache.CacheKey;
+import org.apache.ibatis.executor.Executor;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.plugin.Interceptor;
+import org.apache.ibatis.plugin.Intercepts;
+import org.apache.ibatis.plugin.Invocation;
+import org.apache.ibatis.plugin.Signature;
+import org.apache.ibatis.session.ResultHandler;
+import org.apache.ibatis.session.RowBounds;
+
+/**
+ * 多租户的 MyBatis Metrics 拦截器
+ *
+ * 按照租户、语句类型，记录 MyBatis 语句的执行耗时。
+ * 不按照 MappedStatement 编号记录，避免和租户组合后，标签的基数过大
+ *
+ * @author wiflish
+ */
+@Intercepts({
+        @Signature(type = Executor.class, method = "update", args = {MappedStatement.class, Object.class}),
+        @Signature(type = Executor.class, method = "query",
+                args = {MappedStatement.class, Object.class, RowBounds.class, ResultHandler.class}),
+        @Signature(type = Executor.class, method = "query",
+                args = {MappedStatement.class, Object.class, RowBounds.class, ResultHandler.class, CacheKey.class, BoundSql.class})
+})
+@RequiredArgsConstructor
+public class TenantMetricsMyBatisInterceptor implements Interceptor {
+
+    private final TenantMetricsRecorder tenantMetricsRecorder;
+
+    @Override
+    public Object intercept(Invocation invocation) throws Throwable {
+        MappedStatement ms = (MappedStatement) invocation.getArgs()[0];
+        long startTime = System.nanoTime();
+        boolean success = false;
+        try {
+            Object result = invocation.proceed();
+            success = true;
+            return result;
+        } finally {
+            tenantMetricsRecorder.recordStatement(ms.getSqlCommandType().name(),
+                    System.nanoTime() - startTime, success);
+        }
+    }
+
+}
@@ -0,0 +1,290 @@
+package com.wiflish.luban.framework.tenant.core.metrics;
+
+import com.wiflish.luban.framework.tenant.core.context.TenantContextHolder;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * 多租户的 Metrics 记录器
+ *
+ * 1. 给 HTTP、MyBatis、缓存、MQ 等 Metrics 指标，添加 tenant 标签，用于定位"吵闹的邻居"
+ * 2. 限制 tenant 标签的基数：最多 {@link #maxTenants} 个租户拥有独立的标签值，其它租户统一使用 {@link #TAG_OVERFLOW}，
+ * 避免数千个租户撑爆 Prometheus 的时间序列
+ *
+ * 拥有独立标签值的租户，按照访问频率选出：
+ * 1. 使用 Space-Saving 算法，在有界的内存中统计访问频率最高的租户，容量为 {@link #maxTenants} 的 {@link #COUNTER_CAPACITY_FACTOR} 倍
+ * 2. 每隔 {@link #readmitInterval}，重新选出访问频率最高的 {@link #maxTenants} 个租户，并将计数减半，让近期的访问占更大的权重。
+ * 落选租户的 Meter 从 {@link MeterRegistry} 中移除
+ * 3. 两次选择之间，名额未满时，新的租户先到先得
+ *
+ * @author wiflish
+ */
+public class TenantMetricsRecorder {
+
+    private static final String METRIC_PREFIX = "luban.tenant.";
+
+    public static final String TAG_TENANT = "tenant";
+
+    /**
+     * 没有租户时的标签值，例如说忽略租户
+     */
+    public static final String TAG_NONE = "none";
+    /**
+     * 超过租户数量上限时的标签值
+     */
+    public static final String TAG_OVERFLOW = "overflow";
+
+    /**
+     * 默认的重新选择间隔
+     */
+    public static final Duration DEFAULT_READMIT_INTERVAL = Duration.ofMinutes(1);
+
+    /**
+     * 访问频率统计的容量，相对 {@link #maxTenants} 的倍数。倍数越大，选出的租户越准确
+     */
+    private static final int COUNTER_CAPACITY_FACTOR = 4;
+
+    private final MeterRegistry registry;
+
+    /**
+     * 拥有独立标签值的租户数量上限
+     */
+    private final int maxTenants;
+    /**
+     * 重新选择拥有独立标签值的租户的间隔
+     */
+    private final Duration readmitInterval;
+
+    /**
+     * 租户的访问频率，最多 {@link #maxTenants} * {@link #COUNTER_CAPACITY_FACTOR} 个租户
+     */
+    private volatile Map<Long, LongAdder> counters = new ConcurrentHashMap<>();
+    /**
+     * 淘汰、替换 {@link #counters} 的锁。获取失败时，放弃本次统计，避免热路径上的等待
+     */
+    private final ReentrantLock counterLock = new ReentrantLock();
+    /**
+     * 下一次重新选择的时间，单位：纳秒
+     */
+    private final AtomicLong nextReadmitNanos;
+
+    /**
+     * 拥有独立标签值的租户编号
+     */
+    private volatile Set<Long> admittedTenantIds = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Meter 的缓存，key 为指标名 + tenant 标签值 + 其它标签值
+     */
+    private final Map<List<String>, Meter> meters = new ConcurrentHashMap<>();
+
+    public TenantMetricsRecorder(MeterRegistry registry, int maxTenants) {
+        this(registry, maxTenants, DEFAULT_READMIT_INTERVAL);
+    }
+
+    public TenantMetricsRecorder(MeterRegistry registry, int maxTenants, Duration readmitInterval) {
+        this.registry = registry;
+        this.maxTenants = maxTenants;
+        this.readmitInterval = readmitInterval;
+        this.nextReadmitNanos = new AtomicLong(System.nanoTime() + readmitInterval.toNanos());
+    }
+
+    /**
+     * 获得当前租户的标签值
+     *
+     * @return 标签值
+     */
+    public String getTenantTag() {
+        return getTenantTag(TenantContextHolder.isIgnore() ? null : TenantContextHolder.getTenantId());
+    }
+
+    /**
+     * 获得指定租户的标签值
+     *
+     * @param tenantId 租户编号，需要是校验通过的租户，避免伪造的租户编号占用名额
+     * @return 标签值
+     */
+    public String getTenantTag(Long tenantId) {
+        if (tenantId == null) {
+            return TAG_NONE;
+        }
+        count(tenantId);
+        readmitIfNecessary();
+        Set<Long> admitted = admittedTenantIds;
+        if (admitted.contains(tenantId)) {
+            return tenantId.toString();
+        }
+        if (admitted.size() >= maxTenants) {
+            return TAG_OVERFLOW;
+        }
+        // 名额未满，先到先得
+        synchronized (this) {
+            admitted = admittedTenantIds;
+            if (admitted.size() < maxTenants) {
+                admitted.add(tenantId);
+                return tenantId.toString();
+            }
+        }
+        return TAG_OVERFLOW;
+    }
+
+    /**
+     * 记录 MyBatis 语句的执行
+     *
+     * @param command 语句类型，例如说 SELECT、UPDATE
+     * @param nanos 耗时，单位：纳秒
+     * @param success 是否成功
+     */
+    public void recordStatement(String command, long nanos, boolean success) {
+        String tenantTag = getTenantTag();
+        String successTag = String.valueOf(success);
+        getMeter(Arrays.asList("mybatis.statement", tenantTag, command, successTag),
+                () -> Timer.builder(METRIC_PREFIX + "mybatis.statement")
+                        .description("多租户 MyBatis 语句的执行耗时")
+                        .tags(TAG_TENANT, tenantTag, "command", command, "success", successTag)
+                        .register(registry), Timer.class).record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * 记录缓存的读取
+     *
+     * @param cacheName 缓存名
+     * @param hit 是否命中
+     */
+    public void recordCacheGet(String cacheName, boolean hit) {
+        String tenantTag = getTenantTag();
+        String result = hit ? "hit" : "miss";
+        getMeter(Arrays.asList("cache.gets", tenantTag, cacheName, result),
+                () -> Counter.builder(METRIC_PREFIX + "cache.gets")
+                        .description("多租户缓存的读取次数")
+                        .tags(TAG_TENANT, tenantTag, "cache", cacheName, "result", result)
+                        .register(registry), Counter.class).increment();
+    }
+
+    /**
+     * 记录 MQ 消息的消费
+     *
+     * @param messageType 消息类型
+     * @param nanos 耗时，单位：纳秒
+     */
+    public void recordMessageConsume(String messageType, long nanos) {
+        String tenantTag = getTenantTag();
+        getMeter(Arrays.asList("mq.consume", tenantTag, messageType),
+                () -> Timer.builder(METRIC_PREFIX + "mq.consume")
+                        .description("多租户 MQ 消息的消费耗时")
+                        .tags(TAG_TENANT, tenantTag, "message", messageType)
+                        .register(registry), Timer.class).record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * 重新选择拥有独立标签值的租户
+     */
+    void readmit() {
+        Set<Long> admitted = ConcurrentHashMap.newKeySet();
+        counterLock.lock();
+        try {
+            // 1. 选出访问频率最高的 maxTenants 个租户
+            Map<Long, LongAdder> current = counters;
+            current.entrySet().stream()
+                    .sorted(Comparator.comparingLong((Map.Entry<Long, LongAdder> entry) -> entry.getValue().sum()).reversed())
+                    .limit(maxTenants)
+                    .forEach(entry -> admitted.add(entry.getKey()));
+            // 2. 计数减半，让近期的访问占更大的权重
+            Map<Long, LongAdder> decayed = new ConcurrentHashMap<>();
+            current.forEach((tenantId, counter) -> {
+                long half = counter.sum() / 2;
+                if (half > 0) {
+                    LongAdder decayedCounter = new LongAdder();
+                    decayedCounter.add(half);
+                    decayed.put(tenantId, decayedCounter);
+                }
+            });
+            counters = decayed;
+        } finally {
+            counterLock.unlock();
+        }
+        synchronized (this) {
+            admittedTenantIds = admitted;
+        }
+        // 3. 移除落选租户的 Meter，避免时间序列只增不减
+        meters.entrySet().removeIf(entry -> {
+            String tenantTag = entry.getKey().get(1);
+            if (TAG_NONE.equals(tenantTag) || TAG_OVERFLOW.equals(tenantTag)
+                    || admitted.contains(Long.valueOf(tenantTag))) {
+                return false;
+            }
+            registry.remove(entry.getValue());
+            return true;
+        });
+    }
+
+    /**
+     * Space-Saving 算法：已统计的租户，计数加 1；否则，替换计数最小的租户，继承它的计数
+     */
+    private void count(Long tenantId) {
+        LongAdder counter = counters.get(tenantId);
+        if (counter != null) {
+            counter.increment();
+            return;
+        }
+        if (!counterLock.tryLock()) {
+            return;
+        }
+        try {
+            Map<Long, LongAdder> current = counters;
+            counter = current.get(tenantId);
+            if (counter != null) {
+                counter.increment();
+                return;
+            }
+            LongAdder newCounter = new LongAdder();
+            newCounter.increment();
+            if (current.size() >= maxTenants * COUNTER_CAPACITY_FACTOR) {
+                Map.Entry<Long, LongAdder> min = null;
+                long minCount = Long.MAX_VALUE;
+                for (Map.Entry<Long, LongAdder> entry : current.entrySet()) {
+                    long count = entry.getValue().sum();
+                    if (count < minCount) {
+                        min = entry;
+                        minCount = count;
+                    }
+                }
+                if (min != null) {
+                    current.remove(min.getKey());
+                    newCounter.add(minCount);
+                }
+            }
+            current.put(tenantId, newCounter);
+        } finally {
+            counterLock.unlock();
+        }
+    }
+
+    private void readmitIfNecessary() {
+        long next = nextReadmitNanos.get();
+        long now = System.nanoTime();
+        if (now - next >= 0 && nextReadmitNanos.compareAndSet(next, now + readmitInterval.toNanos())) {
+            readmit();
+        }
+    }
+
+    private <T extends Meter> T getMeter(List<String> key, Supplier<T> register, Class<T> type) {
+        return type.cast(meters.computeIfAbsent(key, k -> register.get()));
+    }
+
+}
@@ -4,6 +4,8 @@ import cn.hutool.core.util.StrUtil;
 import com.wiflish.luban.framework.mq.redis.core.interceptor.RedisMessageInterceptor;
 import com.wiflish.luban.framework.mq.redis.core.message.AbstractRedisMessage;
 import com.wiflish.luban.framework.tenant.core.context.TenantContextHolder;
+import com.wiflish.luban.framework.tenant.core.metrics.TenantMetricsRecorder;
+import lombok.Setter;
 
 import static com.wiflish.luban.framework.web.core.util.WebFrameworkUtils.HEADER_TENANT_ID;
 
@@ -12,11 +14,23 @@ import static com.wiflish.luban.framework.web.core.util.WebFrameworkUtils.HEADER
  *
  * 1. Producer 发送消息时，将 {@link TenantContextHolder} 租户编号，添加到消息的 Header 中
  * 2. Consumer 消费消息时，将消息的 Header 的租户编号，添加到 {@link TenantContextHolder} 中
+ * 3. Consumer 消费消息时，如果开启多租户的 Metrics，按照租户记录消费耗时
  *
  * @author wiflish
  */
 public class TenantRedisMessageInterceptor implements RedisMessageInterceptor {
 
+    /**
+     * 消费消息的开始时间，单位：纳秒
+     */
+    private static final ThreadLocal<Long> CONSUME_START_TIME = new ThreadLocal<>();
+
+    /**
+     * 多租户的 Metrics 记录器，为空时不记录
+     */
+    @Setter
+    private TenantMetricsRecorder tenantMetricsRecorder;
+
     @Override
     public void sendMessageBefore(AbstractRedisMessage message) {
         Long tenantId = TenantContextHolder.getTenantId();
@@ -31,10 +45,19 @@ public class TenantRedisMessageInterceptor implements RedisMessageInterceptor {
         if (StrUtil.isNotEmpty(tenantIdStr)) {
             TenantContextHolder.setTenantId(Long.valueOf(tenantIdStr));
         }
+        if (tenantMetricsRecorder != null) {
+            CONSUME_START_TIME.set(System.nanoTime());
+        }
     }
 
     @Override
     public void consumeMessageAfter(AbstractRedisMessage message) {
+        Long startTime = CONSUME_START_TIME.get();
+        if (startTime != null) {
+            CONSUME_START_TIME.remove();
+            tenantMetricsRecorder.recordMessageConsume(message.getClass().getSimpleName(),
+                    System.nanoTime() - startTime);
+        }
         // 注意，Consumer 是一个逻辑的入口，所以不考虑原本上下文就存在租户编号的情况
         TenantContextHolder.clear();
     }
@@ -0,0 +1,130 @@
+package com.wiflish.luban.framework.tenant.core.redis;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.wiflish.luban.framework.redis.core.RedisKeyHashTags;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * 租户缓存代数的 Redis DAO
+ *
+ * 每个租户的缓存 Key 中，会带上该租户的代数。清空租户的缓存时，只需要递增代数，旧代数的 Key 不再被访问，依赖过期时间自然淘汰，无需 SCAN 整个 Keyspace
+ *
+ * 1. 租户级别的代数，对应 field 为 {@link #ALL_CACHES}，递增后清空该租户的所有缓存
+ * 2. 缓存级别的代数，对应 field 为缓存名，递增后清空该租户的指定缓存
+ *
+ * 两者都只增不减，所以它们的和也是单调递增的，可以直接作为 Key 中的代数
+ *
+ * 注意，代数依赖旧 Key 的过期时间淘汰，永不过期的缓存不要递增代数，而是 SCAN 删除，见 {@link TenantRedisCache#clear()}
+ *
+ * @author wiflish
+ */
+public class TenantCacheGenerationRedisDAO {
+
+    /**
+     * 租户缓存的代数
+     *
+     * KEY 格式：tenant_cache_generation:%s // 参数为租户编号，开启 hash tag 时为 {tenantId}
+     * VALUE 数据格式：HASH // field 为缓存名或 *，value 为代数
+     * 过期时间：不设置
+     */
+    private static final String TENANT_CACHE_GENERATION = "tenant_cache_generation:%s";
+
+    /**
+     * 租户级别的代数的 field
+     */
+    public static final String ALL_CACHES = "*";
+
+    /**
+     * 本地缓存的租户数量上限，避免租户数量增长时，内存无限增长
+     */
+    private static final int LOCAL_CACHE_SIZE = 10000;
+
+    private final StringRedisTemplate redisTemplate;
+
+    /**
+     * 代数的本地缓存，key 为租户编号
+     *
+     * 为空时，不使用本地缓存，每次都读取 Redis
+     */
+    private final Cache<Long, Map<String, Long>> localCache;
+
+    /**
+     * @param redisTemplate Redis 操作
+     * @param localCacheTtl 代数的本地缓存时间。其它节点清空缓存后，最多经过该时间后可见；为 0 时，不使用本地缓存
+     */
+    public TenantCacheGenerationRedisDAO(StringRedisTemplate redisTemplate, Duration localCacheTtl) {
+        this.redisTemplate = redisTemplate;
+        this.localCache = localCacheTtl != null && !localCacheTtl.isZero() && !localCacheTtl.isNegative()
+                ? CacheBuilder.newBuilder().maximumSize(LOCAL_CACHE_SIZE).expireAfterWrite(localCacheTtl).build()
+                : null;
+    }
+
+    /**
+     * 获得租户的指定缓存的代数
+     *
+     * @param tenantId 租户编号
+     * @param cacheName 缓存名
+     * @return 代数
+     */
+    public long getGeneration(Long tenantId, String cacheName) {
+        Map<String, Long> generations = getGenerations(tenantId);
+        return generations.getOrDefault(ALL_CACHES, 0L) + generations.getOrDefault(cacheName, 0L);
+    }
+
+    /**
+     * 递增租户的指定缓存的代数，即清空该租户的指定缓存
+     *
+     * @param tenantId 租户编号
+     * @param cacheName 缓存名，为 {@link #ALL_CACHES} 时清空该租户的所有缓存
+     */
+    public void incrementGeneration(Long tenantId, String cacheName) {
+        redisTemplate.opsForHash().increment(formatKey(tenantId), cacheName, 1L);
+        if (localCache != null) {
+            localCache.invalidate(tenantId);
+        }
+    }
+
+    /**
+     * 清空当前节点的代数的本地缓存，下次读取时重新读取 Redis
+     *
+     * 用于收到其它节点的清空消息时，让其它节点递增的代数立即可见
+     */
+    public void invalidateLocalCache() {
+        if (localCache != null) {
+            localCache.invalidateAll();
+        }
+    }
+
+    private Map<String, Long> getGenerations(Long tenantId) {
+        if (localCache == null) {
+            return loadGenerations(tenantId);
+        }
+        try {
+            return localCache.get(tenantId, () -> loadGenerations(tenantId));
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    private Map<String, Long> loadGenerations(Long tenantId) {
+        Map<Object, Object> entries = redisTemplate.opsForHash().entries(formatKey(tenantId));
+        if (entries.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        Map<String, Long> generations = new HashMap<>(entries.size());
+        entries.forEach((field, value) -> generations.put(String.valueOf(field), Long.valueOf(String.valueOf(value))));
+        return generations;
+    }
+
+    private static String formatKey(Long tenantId) {
+        return String.format(TENANT_CACHE_GENERATION, RedisKeyHashTags.format(tenantId));
+    }
+
+}
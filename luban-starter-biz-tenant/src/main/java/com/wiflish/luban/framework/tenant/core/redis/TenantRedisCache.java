@@ -0,0 +1,120 @@
+package com.wiflish.luban.framework.tenant.core.redis;
+
+import com.google.common.cache.Cache;
+import com.wiflish.luban.framework.redis.core.LocalCachedRedisCache;
+import com.wiflish.luban.framework.redis.core.RedisCacheInvalidator;
+import com.wiflish.luban.framework.redis.core.RedisKeyHashTags;
+import com.wiflish.luban.framework.tenant.core.context.TenantContextHolder;
+import com.wiflish.luban.framework.tenant.core.metrics.TenantMetricsRecorder;
+import lombok.Setter;
+import org.springframework.data.redis.cache.RedisCache;
+import org.springframework.data.redis.cache.RedisCacheConfiguration;
+import org.springframework.data.redis.cache.RedisCacheWriter;
+
+/**
+ * 多租户的 {@link RedisCache} 实现类
+ *
+ * 所有租户共享同一个 {@link RedisCache}，在生成 Redis Key 时拼接租户编号和代数，格式为 前缀 + tenantId + ":" + 代数 + ":" + key。
+ * 开启缓存级别的代数时，格式为 前缀 + 缓存代数 + ":" + tenantId + ":" + 代数 + ":" + key
+ * 清空缓存时，递增租户的代数，而不是 SCAN 删除。永不过期的缓存例外：旧代数的 Key 不会过期淘汰，所以仍然 SCAN 删除该租户的 Key
+ *
+ * 开启 {@link RedisKeyHashTags} 时，租户编号包装成 {tenantId}，同一个租户的 Key 落在 Redis Cluster 的同一个 slot
+ *
+ * 开启本地缓存时，本地缓存的 Key 同样包含租户编号和代数，租户之间相互隔离
+ *
+ * 升级说明：此前的 Key 格式为 前缀 + tenantId + ":" + key，不包含代数。升级后不再读取旧格式的 Key，它们成为孤儿 Key：
+ * 1. 有过期时间的缓存，旧 Key 过期后自动淘汰，无需处理
+ * 2. 永不过期的缓存，旧 Key 不会淘汰，需要在升级后清理一次：忽略租户调用 {@link #clear()}（SCAN 删除整个缓存），
+ *    或者按租户调用 {@link TenantRedisCacheManager#evictTenant(Long)}
+ *
+ * @author wiflish
+ */
+public class TenantRedisCache extends LocalCachedRedisCache {
+
+    private final TenantCacheGenerationRedisDAO tenantCacheGenerationRedisDAO;
+
+    /**
+     * 多租户的 Metrics 记录器，为空时不记录
+     */
+    @Setter
+    private TenantMetricsRecorder tenantMetricsRecorder;
+
+    public TenantRedisCache(String name, RedisCacheWriter cacheWriter, RedisCacheConfiguration cacheConfiguration,
+                            Cache<String, Object> localCache, RedisCacheInvalidator cacheInvalidator,
+                            TenantCacheGenerationRedisDAO tenantCacheGenerationRedisDAO) {
+        super(name, cacheWriter, cacheConfiguration, localCache, cacheInvalidator);
+        this.tenantCacheGenerationRedisDAO = tenantCacheGenerationRedisDAO;
+    }
+
+    @Override
+    protected String getKeyNamespace() {
+        String namespace = super.getKeyNamespace();
+        // 如果开启多租户，则 key 拼接租户编号和代数
+        Long tenantId = getTenantId();
+        if (tenantId == null) {
+            return namespace;
+        }
+        long generation = tenantCacheGenerationRedisDAO.getGeneration(tenantId, getName());
+        return namespace + RedisKeyHashTags.format(tenantId) + ":" + generation + ":";
+    }
+
+    @Override
+    protected Object lookup(Object key, String cacheKey) {
+        Object value = super.lookup(key, cacheKey);
+        if (tenantMetricsRecorder != null) {
+            tenantMetricsRecorder.recordCacheGet(getName(), value != null);
+        }
+        return value;
+    }
+
+    @Override
+    public void clear() {
+        // 如果开启多租户，则递增租户的代数，旧的 key 依赖过期时间淘汰
+        Long tenantId = getTenantId();
+        if (tenantId != null) {
+            if (isPersistent()) {
+                cleanTenant(tenantId);
+            } else {
+                tenantCacheGenerationRedisDAO.incrementGeneration(tenantId, getName());
+            }
+            clearTenantLocal();
+            return;
+        }
+        // 忽略租户时，清空所有租户的缓存：开启缓存级别的代数时递增代数，否则 SCAN 删除
+        super.clear();
+    }
+
+    /**
+     * SCAN 删除指定租户的 Key，包括所有代数的 Key
+     *
+     * @param tenantId 租户编号
+     */
+    void cleanTenant(Long tenantId) {
+        String pattern = withKeyPrefix(super.getKeyNamespace() + RedisKeyHashTags.format(tenantId) + ":*");
+        getCacheWriter().clean(getName(), serializeCacheKey(pattern));
+    }
+
+    /**
+     * 租户的缓存被清空后，清空当前节点的本地缓存、热点 Key 副本，并广播给其它节点
+     *
+     * 本地缓存无法按租户清空，所以全部清空
+     */
+    void clearTenantLocal() {
+        clearLocal();
+        publish(null);
+    }
+
+    /**
+     * 收到其它节点的清空消息时，同样清空代数的本地缓存，否则最多 cacheGenerationTtl 内仍然读取旧代数的 Key
+     */
+    @Override
+    public void clearLocal() {
+        super.clearLocal();
+        tenantCacheGenerationRedisDAO.invalidateLocalCache();
+    }
+
+    private static Long getTenantId() {
+        return TenantContextHolder.isIgnore() ? null : TenantContextHolder.getTenantId();
+    }
+
+}
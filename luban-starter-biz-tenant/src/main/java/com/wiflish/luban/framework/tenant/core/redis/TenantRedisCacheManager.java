@@ -1,9 +1,11 @@
 package com.wiflish.luban.framework.tenant.core.redis;
 
+import com.google.common.cache.Cache;
 import com.wiflish.luban.framework.redis.core.TimeoutRedisCacheManager;
-import com.wiflish.luban.framework.tenant.core.context.TenantContextHolder;
+import com.wiflish.luban.framework.tenant.core.metrics.TenantMetricsRecorder;
+import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.cache.Cache;
+import org.springframework.data.redis.cache.RedisCache;
 import org.springframework.data.redis.cache.RedisCacheConfiguration;
 import org.springframework.data.redis.cache.RedisCacheManager;
 import org.springframework.data.redis.cache.RedisCacheWriter;
@@ -11,28 +13,61 @@ import org.springframework.data.redis.cache.RedisCacheWriter;
 /**
  * 多租户的 {@link RedisCacheManager} 实现类
  *
- * 操作指定 name 的 {@link Cache} 时，自动拼接租户后缀，格式为 name + ":" + tenantId + 后缀
+ * 每个 name 只创建一个 {@link TenantRedisCache}，由所有租户共享，租户隔离在 {@link TenantRedisCache} 生成 Redis Key 时完成，
+ * 这样缓存的数量不会随着租户数量增长
  *
  * @author airhead
  */
 @Slf4j
 public class TenantRedisCacheManager extends TimeoutRedisCacheManager {
 
+    private final TenantCacheGenerationRedisDAO tenantCacheGenerationRedisDAO;
+
+    /**
+     * 多租户的 Metrics 记录器，为空时不记录
+     */
+    @Setter
+    private TenantMetricsRecorder tenantMetricsRecorder;
+
     public TenantRedisCacheManager(RedisCacheWriter cacheWriter,
-                                   RedisCacheConfiguration defaultCacheConfiguration) {
+                                   RedisCacheConfiguration defaultCacheConfiguration,
+                                   TenantCacheGenerationRedisDAO tenantCacheGenerationRedisDAO) {
         super(cacheWriter, defaultCacheConfiguration);
+        this.tenantCacheGenerationRedisDAO = tenantCacheGenerationRedisDAO;
     }
 
     @Override
-    public Cache getCache(String name) {
-        // 如果开启多租户，则 name 拼接租户后缀
-        if (!TenantContextHolder.isIgnore()
-            && TenantContextHolder.getTenantId() != null) {
-            name = name + ":" + TenantContextHolder.getTenantId();
-        }
+    protected RedisCache createRedisCache(String name, RedisCacheWriter cacheWriter, RedisCacheConfiguration cacheConfig,
+                                          Cache<String, Object> localCache) {
+        // 父类已解析自定义过期时间、本地缓存等配置
+        TenantRedisCache tenantCache = new TenantRedisCache(name, cacheWriter, cacheConfig, localCache,
+                getCacheInvalidator(), tenantCacheGenerationRedisDAO);
+        tenantCache.setTenantMetricsRecorder(tenantMetricsRecorder);
+        return tenantCache;
+    }
 
-        // 继续基于父方法
-        return super.getCache(name);
+    /**
+     * 清空指定租户的所有缓存
+     *
+     * 1. 递增租户的代数，无需 SCAN 整个 Keyspace；永不过期的缓存，仍然 SCAN 删除该租户的 Key
+     * 2. 清空当前节点的本地缓存，并广播给其它节点，其它节点同时清空代数的本地缓存。
+     *    未开启本地缓存的广播时，其它节点最多经过 cacheGenerationTtl 后可见
+     *
+     * 注意，只能处理当前节点已经创建的缓存，未创建的永不过期缓存，旧代数的 Key 需要手动删除
+     *
+     * @param tenantId 租户编号
+     */
+    public void evictTenant(Long tenantId) {
+        tenantCacheGenerationRedisDAO.incrementGeneration(tenantId, TenantCacheGenerationRedisDAO.ALL_CACHES);
+        for (String name : getCacheNames()) {
+            if (!(lookupCache(name) instanceof TenantRedisCache tenantCache)) {
+                continue;
+            }
+            if (tenantCache.isPersistent()) {
+                tenantCache.cleanTenant(tenantId);
+            }
+            tenantCache.clearTenantLocal();
+        }
     }
 
 }
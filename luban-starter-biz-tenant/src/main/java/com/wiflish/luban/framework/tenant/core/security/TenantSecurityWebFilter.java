@@ -1,6 +1,5 @@
 package com.wiflish.luban.framework.tenant.core.security;
 
-import cn.hutool.core.collection.CollUtil;
 import com.wiflish.luban.framework.common.exception.enums.GlobalErrorCodeConstants;
 import com.wiflish.luban.framework.common.pojo.CommonResult;
 import com.wiflish.luban.framework.common.util.servlet.ServletUtils;
@@ -12,12 +11,12 @@ import com.wiflish.luban.framework.tenant.core.service.TenantFrameworkService;
 import com.wiflish.luban.framework.web.config.WebProperties;
 import com.wiflish.luban.framework.web.core.filter.ApiRequestFilter;
 import com.wiflish.luban.framework.web.core.handler.GlobalExceptionHandler;
+import com.wiflish.luban.framework.web.core.matcher.UrlMatcher;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.util.AntPathMatcher;
 
 import java.io.IOException;
 import java.util.Objects;
@@ -27,15 +26,19 @@ import java.util.Objects;
  * 1. 如果是登陆的用户，校验是否有权限访问该租户，避免越权问题。
  * 2. 如果请求未带租户的编号，检查是否是忽略的 URL，否则也不允许访问。
  * 3. 校验租户是合法，例如说被禁用、到期
+ * 4. 记录校验通过的租户编号到请求属性中，见 {@link #getValidTenantId(HttpServletRequest)}
  *
  * @author wiflish
  */
 @Slf4j
 public class TenantSecurityWebFilter extends ApiRequestFilter {
 
-    private final TenantProperties tenantProperties;
+    private static final String REQUEST_ATTRIBUTE_VALID_TENANT_ID = "valid_tenant_id";
 
-    private final AntPathMatcher pathMatcher;
+    /**
+     * 需要忽略多租户的请求的匹配器，基于 {@link TenantProperties#getIgnoreUrls()} 编译
+     */
+    private final UrlMatcher ignoreUrlMatcher;
 
     private final GlobalExceptionHandler globalExceptionHandler;
     private final TenantFrameworkService tenantFrameworkService;
@@ -45,8 +48,7 @@ public class TenantSecurityWebFilter extends ApiRequestFilter {
                                    GlobalExceptionHandler globalExceptionHandler,
                                    TenantFrameworkService tenantFrameworkService) {
         super(webProperties);
-        this.tenantProperties = tenantProperties;
-        this.pathMatcher = new AntPathMatcher();
+        this.ignoreUrlMatcher = UrlMatcher.ofAntPatterns(tenantProperties.getIgnoreUrls());
         this.globalExceptionHandler = globalExceptionHandler;
         this.tenantFrameworkService = tenantFrameworkService;
     }
@@ -90,9 +92,13 @@ public class TenantSecurityWebFilter extends ApiRequestFilter {
                 ServletUtils.writeJSON(response, result);
                 return;
             }
+            request.setAttribute(REQUEST_ATTRIBUTE_VALID_TENANT_ID, tenantId);
         } else { // 如果是允许忽略租户的 URL，若未传递租户编号，则默认忽略租户编号，避免报错
             if (tenantId == null) {
                 TenantContextHolder.setIgnore(true);
+            } else if (user != null) {
+                // 登陆用户的租户编号，已经在 1. 中比对
+                request.setAttribute(REQUEST_ATTRIBUTE_VALID_TENANT_ID, tenantId);
             }
         }
 
@@ -100,18 +106,20 @@ public class TenantSecurityWebFilter extends ApiRequestFilter {
         chain.doFilter(request, response);
     }
 
+    /**
+     * 获得校验通过的租户编号。未校验、或者校验失败时，返回 null
+     *
+     * 和请求 Header 中的租户编号不同，不能被伪造，可以用于 Metrics 的 tenant 标签
+     *
+     * @param request 请求
+     * @return 租户编号
+     */
+    public static Long getValidTenantId(HttpServletRequest request) {
+        return (Long) request.getAttribute(REQUEST_ATTRIBUTE_VALID_TENANT_ID);
+    }
+
     private boolean isIgnoreUrl(HttpServletRequest request) {
-        // 快速匹配，保证性能
-        if (CollUtil.contains(tenantProperties.getIgnoreUrls(), request.getRequestURI())) {
-            return true;
-        }
-        // 逐个 Ant 路径匹配
-        for (String url : tenantProperties.getIgnoreUrls()) {
-            if (pathMatcher.match(url, request.getRequestURI())) {
-                return true;
-            }
-        }
-        return false;
+        return ignoreUrlMatcher.matches(request.getRequestURI());
     }
 
 }
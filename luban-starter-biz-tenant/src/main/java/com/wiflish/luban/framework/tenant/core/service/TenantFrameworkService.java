@@ -23,4 +23,12 @@ public interface TenantFrameworkService {
      */
     void validTenant(Long id);
 
+    /**
+     * 获得租户的独立数据源
+     *
+     * @param id 租户编号
+     * @return 数据源名；共享数据源的租户，返回 null
+     */
+    String getDataSource(Long id);
+
 }
@@ -10,6 +10,7 @@ import lombok.SneakyThrows;
 
 import java.time.Duration;
 import java.util.List;
+import java.util.Optional;
 
 /**
  * Tenant 框架 Service 实现类
@@ -27,7 +28,7 @@ public class TenantFrameworkServiceImpl implements TenantFrameworkService {
      * 针对 {@link #getTenantIds()} 的缓存
      */
     private final LoadingCache<Object, List<Long>> getTenantIdsCache = CacheUtils.buildAsyncReloadingCache(
-            Duration.ofMinutes(1L), // 过期时间 1 分钟
+            "tenant.getTenantIds", Duration.ofMinutes(1L), // 过期时间 1 分钟
             new CacheLoader<Object, List<Long>>() {
 
                 @Override
@@ -41,7 +42,7 @@ public class TenantFrameworkServiceImpl implements TenantFrameworkService {
      * 针对 {@link #validTenant(Long)} 的缓存
      */
     private final LoadingCache<Long, ServiceException> validTenantCache = CacheUtils.buildAsyncReloadingCache(
-            Duration.ofMinutes(1L), // 过期时间 1 分钟
+            "tenant.validTenant", Duration.ofMinutes(1L), // 过期时间 1 分钟
             new CacheLoader<Long, ServiceException>() {
 
                 @Override
@@ -56,6 +57,20 @@ public class TenantFrameworkServiceImpl implements TenantFrameworkService {
 
             });
 
+    /**
+     * 针对 {@link #getDataSource(Long)} 的缓存
+     */
+    private final LoadingCache<Long, Optional<String>> getDataSourceCache = CacheUtils.buildAsyncReloadingCache(
+            "tenant.getDataSource", Duration.ofMinutes(1L), // 过期时间 1 分钟
+            new CacheLoader<Long, Optional<String>>() {
+
+                @Override
+                public Optional<String> load(Long id) {
+                    return Optional.ofNullable(tenantApi.getTenantDataSource(id));
+                }
+
+            });
+
     @Override
     @SneakyThrows
     public List<Long> getTenantIds() {
@@ -70,4 +85,9 @@ public class TenantFrameworkServiceImpl implements TenantFrameworkService {
         }
     }
 
+    @Override
+    public String getDataSource(Long id) {
+        return getDataSourceCache.getUnchecked(id).orElse(null);
+    }
+
 }
@@ -0,0 +1,34 @@
+package com.wiflish.luban.framework.tenant.core.web;
+
+import com.wiflish.luban.framework.tenant.core.metrics.TenantMetricsRecorder;
+import com.wiflish.luban.framework.tenant.core.security.TenantSecurityWebFilter;
+import io.micrometer.common.KeyValue;
+import io.micrometer.common.KeyValues;
+import org.springframework.http.server.observation.DefaultServerRequestObservationConvention;
+import org.springframework.http.server.observation.ServerRequestObservationContext;
+
+/**
+ * 多租户的 HTTP Server 观测约定
+ *
+ * 在 http.server.requests 指标上，添加 tenant 标签。
+ * 注意，观测结束时 {@link TenantContextWebFilter} 已经清理了租户上下文，所以从请求属性中获得 {@link TenantSecurityWebFilter} 校验通过的租户编号。
+ * 不使用请求 Header 中的租户编号，避免伪造的租户编号占用 tenant 标签的名额
+ *
+ * @author wiflish
+ */
+public class TenantServerRequestObservationConvention extends DefaultServerRequestObservationConvention {
+
+    private final TenantMetricsRecorder tenantMetricsRecorder;
+
+    public TenantServerRequestObservationConvention(TenantMetricsRecorder tenantMetricsRecorder) {
+        this.tenantMetricsRecorder = tenantMetricsRecorder;
+    }
+
+    @Override
+    public KeyValues getLowCardinalityKeyValues(ServerRequestObservationContext context) {
+        Long tenantId = context.getCarrier() != null ? TenantSecurityWebFilter.getValidTenantId(context.getCarrier()) : null;
+        return super.getLowCardinalityKeyValues(context)
+                .and(KeyValue.of(TenantMetricsRecorder.TAG_TENANT, tenantMetricsRecorder.getTenantTag(tenantId)));
+    }
+
+}
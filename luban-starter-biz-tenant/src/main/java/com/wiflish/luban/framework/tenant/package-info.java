@@ -12,6 +12,8 @@
  *      2）Spring Security：
  *          TransmittableThreadLocalSecurityContextHolderStrategy
  *          和 MallSecurityAutoConfiguration#securityContextHolderMethodInvokingFactoryBean() 方法
+ *      3）大量使用虚拟线程时，可通过 luban.framework.context.backend 配置项切换成原生 ThreadLocal，
+ *          由 {@link com.wiflish.luban.framework.common.util.context.ContextThreadLocals#wrap(Runnable)} 显式传递
  *
  */
 package com.wiflish.luban.framework.tenant;
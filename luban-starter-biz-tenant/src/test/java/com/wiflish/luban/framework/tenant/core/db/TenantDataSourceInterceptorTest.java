@@ -0,0 +1,201 @@
+package com.wiflish.luban.framework.tenant.core.db;
+
+import com.baomidou.dynamic.datasource.DynamicRoutingDataSource;
+import com.baomidou.dynamic.datasource.toolkit.DynamicDataSourceContextHolder;
+import com.wiflish.luban.framework.tenant.config.TenantProperties;
+import com.wiflish.luban.framework.tenant.core.context.TenantContextHolder;
+import com.wiflish.luban.framework.tenant.core.service.TenantFrameworkService;
+import com.wiflish.luban.framework.test.core.ut.BaseMockitoUnitTest;
+import org.aopalliance.intercept.MethodInvocation;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * {@link TenantDataSourceInterceptor}、{@link TenantDatabaseInterceptor} 的单元测试
+ *
+ * 使用两个 H2 数据库，模拟共享数据源 master 和租户 2 的独立数据源 tenant_2
+ *
+ * @author wiflish
+ */
+public class TenantDataSourceInterceptorTest extends BaseMockitoUnitTest {
+
+    @InjectMocks
+    private TenantDataSourceInterceptor interceptor;
+
+    @Mock
+    private TenantFrameworkService tenantFrameworkService;
+
+    private DynamicRoutingDataSource dataSource;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        dataSource = new DynamicRoutingDataSource(Collections.emptyList());
+        dataSource.addDataSource("master", buildDataSource("master"));
+        dataSource.addDataSource("tenant_2", buildDataSource("tenant_2"));
+    }
+
+    @AfterEach
+    public void tearDown() {
+        TenantContextHolder.clear();
+        DynamicDataSourceContextHolder.clear();
+    }
+
+    @Test
+    public void testInvoke_shared() throws Throwable {
+        // 准备参数
+        TenantContextHolder.setTenantId(1L);
+
+        // 调用，并断言
+        assertEquals("master", interceptor.invoke(buildInvocation()));
+    }
+
+    @Test
+    public void testInvoke_dedicated() throws Throwable {
+        // 准备参数
+        TenantContextHolder.setTenantId(2L);
+        // mock 方法
+        when(tenantFrameworkService.getDataSource(eq(2L))).thenReturn("tenant_2");
+
+        // 调用，并断言
+        assertEquals("tenant_2", interceptor.invoke(buildInvocation()));
+        // 断言：调用完成后，恢复数据源
+        assertNull(DynamicDataSourceContextHolder.peek());
+    }
+
+    @Test
+    public void testInvoke_ignore() throws Throwable {
+        // 准备参数
+        TenantContextHolder.setTenantId(2L);
+        TenantContextHolder.setIgnore(true);
+
+        // 调用，并断言
+        assertEquals("master", interceptor.invoke(buildInvocation()));
+    }
+
+    @Test
+    public void testInvoke_specified() throws Throwable {
+        // 准备参数：通过 @DS 指定了数据源
+        TenantContextHolder.setTenantId(2L);
+        DynamicDataSourceContextHolder.push("master");
+
+        // 调用，并断言
+        assertEquals("master", interceptor.invoke(buildInvocation()));
+    }
+
+    @Test
+    public void testIgnoreTable_dedicated() {
+        // 准备参数：路由到租户 2 的独立数据源
+        TenantContextHolder.setTenantId(2L);
+        DynamicDataSourceContextHolder.push("tenant_2");
+        TenantDatabaseInterceptor databaseInterceptor = buildDatabaseInterceptor();
+        // mock 方法
+        when(tenantFrameworkService.getDataSource(eq(2L))).thenReturn("tenant_2");
+
+        // 调用，并断言：不拼接 tenant_id 条件
+        assertTrue(databaseInterceptor.ignoreTable("t_user"));
+    }
+
+    @Test
+    public void testIgnoreTable_specifiedShared() {
+        // 准备参数：租户 2 使用独立数据源，但是通过 @DS("master") 显式指定了共享数据源
+        TenantContextHolder.setTenantId(2L);
+        DynamicDataSourceContextHolder.push("master");
+        TenantDatabaseInterceptor databaseInterceptor = buildDatabaseInterceptor();
+        // mock 方法
+        when(tenantFrameworkService.getDataSource(eq(2L))).thenReturn("tenant_2");
+
+        // 调用，并断言：仍然拼接 tenant_id 条件
+        assertFalse(databaseInterceptor.ignoreTable("t_user"));
+    }
+
+    @Test
+    public void testIgnoreTable_oncePerStatement() {
+        // 准备参数
+        TenantContextHolder.setTenantId(2L);
+        DynamicDataSourceContextHolder.push("tenant_2");
+        TenantDatabaseInterceptor databaseInterceptor = buildDatabaseInterceptor();
+        // mock 方法
+        when(tenantFrameworkService.getDataSource(eq(2L))).thenReturn("tenant_2");
+
+        // 调用：一条 SQL 中，多个表
+        databaseInterceptor.beginStatement();
+        try {
+            assertTrue(databaseInterceptor.ignoreTable("t_user"));
+            assertTrue(databaseInterceptor.ignoreTable("t_role"));
+        } finally {
+            databaseInterceptor.endStatement();
+        }
+        // 断言：只计算一次
+        verify(tenantFrameworkService, times(1)).getDataSource(eq(2L));
+    }
+
+    @Test
+    public void testGetStatementKey() {
+        // 准备参数
+        TenantDatabaseInterceptor databaseInterceptor = buildDatabaseInterceptor();
+        TenantContextHolder.setTenantId(1L);
+        // mock 方法
+        when(tenantFrameworkService.getDataSource(eq(2L))).thenReturn("tenant_2");
+
+        // 调用，并断言：共享数据源，和租户编号相关
+        assertEquals(1L, databaseInterceptor.getStatementKey());
+        // 调用，并断言：租户 2 的独立数据源，忽略所有表，和租户无关
+        TenantContextHolder.setTenantId(2L);
+        DynamicDataSourceContextHolder.push("tenant_2");
+        Object dedicatedKey = databaseInterceptor.getStatementKey();
+        assertNotEquals(2L, dedicatedKey);
+        // 调用，并断言：全局忽略多租户，和独立数据源的 Key 相同
+        DynamicDataSourceContextHolder.clear();
+        TenantContextHolder.setIgnore(true);
+        assertEquals(dedicatedKey, databaseInterceptor.getStatementKey());
+    }
+
+    private TenantDatabaseInterceptor buildDatabaseInterceptor() {
+        TenantDatabaseInterceptor databaseInterceptor = new TenantDatabaseInterceptor(new TenantProperties());
+        databaseInterceptor.setTenantFrameworkService(tenantFrameworkService);
+        return databaseInterceptor;
+    }
+
+    /**
+     * 构建 MethodInvocation，执行时查询当前数据源的名字
+     */
+    private MethodInvocation buildInvocation() throws Throwable {
+        MethodInvocation invocation = mock(MethodInvocation.class);
+        when(invocation.proceed()).thenAnswer(invocationOnMock -> {
+            try (Connection connection = dataSource.getConnection();
+                 Statement statement = connection.createStatement();
+                 ResultSet resultSet = statement.executeQuery("SELECT name FROM data_source_name")) {
+                resultSet.next();
+                return resultSet.getString(1);
+            }
+        });
+        return invocation;
+    }
+
+    private static DataSource buildDataSource(String name) throws Exception {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1");
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE IF NOT EXISTS data_source_name (name VARCHAR(32))");
+            statement.execute("DELETE FROM data_source_name");
+            statement.execute("INSERT INTO data_source_name VALUES ('" + name + "')");
+        }
+        return dataSource;
+    }
+
+}
@@ -0,0 +1,64 @@
+package com.wiflish.luban.framework.tenant.core.job;
+
+import com.wiflish.luban.framework.tenant.core.context.TenantContextHolder;
+import com.wiflish.luban.framework.test.core.ut.BaseMockitoUnitTest;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * {@link TenantJobExecutor} 的单元测试
+ *
+ * @author wiflish
+ */
+public class TenantJobExecutorTest extends BaseMockitoUnitTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    private final TenantJobExecutor tenantJobExecutor = new TenantJobExecutor(2, Duration.ofMillis(200), registry);
+
+    @AfterEach
+    public void tearDown() {
+        tenantJobExecutor.shutdown();
+    }
+
+    @Test
+    public void testExecute() {
+        // 调用：租户 1 成功，租户 2 失败，租户 3 超时
+        List<TenantJobResult> results = tenantJobExecutor.execute("TestJob", Arrays.asList(1L, 2L, 3L), () -> {
+            Long tenantId = TenantContextHolder.getRequiredTenantId();
+            if (tenantId == 2L) {
+                throw new IllegalArgumentException("租户 2 失败");
+            }
+            if (tenantId == 3L) {
+                Thread.sleep(10000L);
+            }
+            return null;
+        });
+
+        // 断言：结果
+        assertEquals(3, results.size());
+        assertEquals(1L, results.get(0).getTenantId());
+        assertEquals(TenantJobResult.Status.SUCCESS, results.get(0).getStatus());
+        assertEquals(TenantJobResult.Status.FAILURE, results.get(1).getStatus());
+        assertTrue(results.get(1).getMessage().contains("租户 2 失败"));
+        assertEquals(TenantJobResult.Status.TIMEOUT, results.get(2).getStatus());
+        assertTrue(results.get(2).getCostMillis() < 10000L);
+        // 断言：Metrics
+        assertEquals(1, registry.get("luban.tenant.job.execute").tag("status", "success").timer().count());
+        assertEquals(1, registry.get("luban.tenant.job.execute").tag("status", "timeout").timer().count());
+        assertEquals(0, registry.get("luban.tenant.job.pending").gauge().value());
+    }
+
+    @Test
+    public void testConstructor_invalidParallelism() {
+        assertThrows(IllegalArgumentException.class, () -> new TenantJobExecutor(0, Duration.ZERO, null));
+    }
+
+}
@@ -0,0 +1,94 @@
+package com.wiflish.luban.framework.tenant.core.metrics;
+
+import com.wiflish.luban.framework.tenant.core.context.TenantContextHolder;
+import com.wiflish.luban.framework.test.core.ut.BaseMockitoUnitTest;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import static com.wiflish.luban.framework.tenant.core.metrics.TenantMetricsRecorder.*;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * {@link TenantMetricsRecorder} 的单元测试
+ *
+ * @author wiflish
+ */
+public class TenantMetricsRecorderTest extends BaseMockitoUnitTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    private final TenantMetricsRecorder recorder = new TenantMetricsRecorder(registry, 2);
+
+    @AfterEach
+    public void tearDown() {
+        TenantContextHolder.clear();
+    }
+
+    @Test
+    public void testGetTenantTag() {
+        // 调用，并断言：前 2 个租户拥有独立的标签值
+        assertEquals("1", recorder.getTenantTag(1L));
+        assertEquals("2", recorder.getTenantTag(2L));
+        // 调用，并断言：超过上限后，统一为 overflow
+        assertEquals(TAG_OVERFLOW, recorder.getTenantTag(3L));
+        assertEquals("1", recorder.getTenantTag(1L));
+        // 调用，并断言：没有租户
+        assertEquals(TAG_NONE, recorder.getTenantTag(null));
+    }
+
+    @Test
+    public void testRecordCacheGet() {
+        // 准备参数
+        for (long tenantId = 1; tenantId <= 10; tenantId++) {
+            TenantContextHolder.setTenantId(tenantId);
+            // 调用
+            recorder.recordCacheGet("user", true);
+        }
+
+        // 断言：时间序列的数量，不超过上限 + 1
+        assertEquals(3, registry.find("luban.tenant.cache.gets").counters().size());
+        assertEquals(8, registry.get("luban.tenant.cache.gets").tag(TAG_TENANT, TAG_OVERFLOW).counter().count());
+    }
+
+    @Test
+    public void testReadmit() {
+        // 准备参数：租户 1、2 先到先得，租户 3 访问频率最高，但是超过上限
+        recordCacheGet(1L, 1);
+        recordCacheGet(2L, 5);
+        recordCacheGet(3L, 10);
+        assertEquals(TAG_OVERFLOW, recorder.getTenantTag(3L));
+
+        // 调用
+        recorder.readmit();
+        // 断言：按照访问频率，重新选择租户 3、2
+        assertEquals("3", recorder.getTenantTag(3L));
+        assertEquals("2", recorder.getTenantTag(2L));
+        assertEquals(TAG_OVERFLOW, recorder.getTenantTag(1L));
+        // 断言：落选的租户 1 的 Meter 被移除
+        assertNull(registry.find("luban.tenant.cache.gets").tag(TAG_TENANT, "1").counter());
+        assertEquals(5, registry.get("luban.tenant.cache.gets").tag(TAG_TENANT, "2").counter().count());
+    }
+
+    @Test
+    public void testRecordCacheGet_meterCached() {
+        // 准备参数
+        TenantContextHolder.setTenantId(1L);
+
+        // 调用
+        recorder.recordCacheGet("user", true);
+        recorder.recordCacheGet("user", true);
+        // 断言：同一组标签，复用同一个 Meter
+        assertEquals(1, registry.find("luban.tenant.cache.gets").counters().size());
+        assertEquals(2, registry.get("luban.tenant.cache.gets").tag(TAG_TENANT, "1").counter().count());
+    }
+
+    private void recordCacheGet(Long tenantId, int times) {
+        TenantContextHolder.setTenantId(tenantId);
+        for (int i = 0; i < times; i++) {
+            recorder.recordCacheGet("user", true);
+        }
+    }
+
+}
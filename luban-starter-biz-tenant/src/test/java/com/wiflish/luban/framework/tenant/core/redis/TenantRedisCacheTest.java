@@ -0,0 +1,286 @@
+package com.wiflish.luban.framework.tenant.core.redis;
+
+import com.google.common.cache.CacheBuilder;
+import com.wiflish.luban.framework.redis.core.RedisCacheGenerationDAO;
+import com.wiflish.luban.framework.redis.core.RedisCacheInvalidator;
+import com.wiflish.luban.framework.redis.core.RedisKeyHashTags;
+import com.wiflish.luban.framework.tenant.core.context.TenantContextHolder;
+import com.wiflish.luban.framework.test.core.ut.BaseMockitoUnitTest;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.springframework.data.redis.cache.RedisCacheConfiguration;
+import org.springframework.data.redis.cache.RedisCacheWriter;
+import org.springframework.data.redis.connection.ClusterSlotHashUtil;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * {@link TenantRedisCache} 的单元测试
+ *
+ * @author wiflish
+ */
+public class TenantRedisCacheTest extends BaseMockitoUnitTest {
+
+    @Mock
+    private RedisCacheWriter cacheWriter;
+    @Mock
+    private TenantCacheGenerationRedisDAO tenantCacheGenerationRedisDAO;
+    @Mock
+    private RedisCacheInvalidator cacheInvalidator;
+    @Mock
+    private StringRedisTemplate redisTemplate;
+    @Mock
+    private RedisCacheGenerationDAO cacheGenerationDAO;
+
+    private RedisCacheConfiguration config;
+    private TenantRedisCache cache;
+
+    @BeforeEach
+    public void setUp() {
+        config = RedisCacheConfiguration.defaultCacheConfig()
+                .entryTtl(Duration.ofHours(1))
+                .computePrefixWith(cacheName -> cacheName + ":");
+        cache = new TenantRedisCache("user", cacheWriter, config, null, null, tenantCacheGenerationRedisDAO);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        TenantContextHolder.clear();
+        RedisKeyHashTags.init(null);
+    }
+
+    @Test
+    public void testPut_tenant() {
+        // 准备参数
+        TenantContextHolder.setTenantId(1L);
+        // mock 方法
+        when(tenantCacheGenerationRedisDAO.getGeneration(eq(1L), eq("user"))).thenReturn(2L);
+
+        // 调用
+        cache.put("100", "value");
+        // 断言
+        assertEquals("user:1:2:100", capturePutKey());
+    }
+
+    @Test
+    public void testPut_ignore() {
+        // 准备参数
+        TenantContextHolder.setTenantId(1L);
+        TenantContextHolder.setIgnore(true);
+
+        // 调用
+        cache.put("100", "value");
+        // 断言
+        assertEquals("user:100", capturePutKey());
+        verifyNoInteractions(tenantCacheGenerationRedisDAO);
+    }
+
+    @Test
+    public void testPut_hashTag() {
+        // 准备参数
+        RedisKeyHashTags.init(TenantContextHolder::getTenantId);
+        TenantContextHolder.setTenantId(1L);
+
+        // 调用
+        cache.put("100", "value");
+        // 断言：缓存、幂等等 Key，都落在同一个 slot
+        String cacheKey = capturePutKey();
+        assertEquals("user:{1}:0:100", cacheKey);
+        String idempotentKey = "idempotent:" + RedisKeyHashTags.tag("uuid");
+        assertEquals("idempotent:{1}:uuid", idempotentKey);
+        assertEquals(ClusterSlotHashUtil.calculateSlot(cacheKey), ClusterSlotHashUtil.calculateSlot(idempotentKey));
+        assertEquals(ClusterSlotHashUtil.calculateSlot(cacheKey),
+                ClusterSlotHashUtil.calculateSlot("lock4j:" + RedisKeyHashTags.tag("order")));
+    }
+
+    @Test
+    public void testClear_tenant() {
+        // 准备参数
+        TenantContextHolder.setTenantId(1L);
+
+        // 调用
+        cache.clear();
+        // 断言：递增代数，不 SCAN 删除
+        verify(tenantCacheGenerationRedisDAO).incrementGeneration(eq(1L), eq("user"));
+        verify(cacheWriter, never()).clean(any(), any());
+    }
+
+    @Test
+    public void testClear_tenantPublish() {
+        // 准备参数：未开启本地缓存，只有多租户的代数
+        TenantRedisCache generationCache = new TenantRedisCache("user", cacheWriter, config,
+                null, cacheInvalidator, tenantCacheGenerationRedisDAO);
+        TenantContextHolder.setTenantId(1L);
+
+        // 调用
+        generationCache.clear();
+        // 断言：广播清空消息，其它节点失效代数的本地缓存
+        verify(tenantCacheGenerationRedisDAO).incrementGeneration(eq(1L), eq("user"));
+        verify(cacheInvalidator).publish(eq("user"), isNull());
+    }
+
+    @Test
+    public void testClear_tenantPersistent() {
+        // 准备参数：永不过期
+        TenantRedisCache persistentCache = new TenantRedisCache("user", cacheWriter,
+                config.entryTtl(Duration.ZERO), null, null, tenantCacheGenerationRedisDAO);
+        TenantContextHolder.setTenantId(1L);
+
+        // 调用
+        persistentCache.clear();
+        // 断言：旧代数的 Key 不会过期，所以 SCAN 删除该租户所有代数的 Key
+        assertTrue(persistentCache.isPersistent());
+        verify(tenantCacheGenerationRedisDAO, never()).incrementGeneration(any(), any());
+        ArgumentCaptor<byte[]> patternCaptor = ArgumentCaptor.forClass(byte[].class);
+        verify(cacheWriter).clean(eq("user"), patternCaptor.capture());
+        assertEquals("user:1:*", new String(patternCaptor.getValue(), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testClearLocal() {
+        // 准备参数
+        TenantRedisCache localCachedCache = newLocalCachedCache();
+
+        // 调用：模拟收到其它节点的清空消息
+        localCachedCache.clearLocal();
+        // 断言：同时清空代数的本地缓存
+        verify(tenantCacheGenerationRedisDAO).invalidateLocalCache();
+    }
+
+    @Test
+    public void testGet_cacheKeyOnce() {
+        // 准备参数
+        TenantRedisCache localCachedCache = newLocalCachedCache();
+        TenantContextHolder.setTenantId(1L);
+
+        // 调用：未命中，加载并写入
+        assertEquals("value", localCachedCache.get("100", () -> "value"));
+        // 断言：读取、加载、写入，只计算一次 Redis Key
+        verify(tenantCacheGenerationRedisDAO, times(1)).getGeneration(eq(1L), eq("user"));
+        assertEquals("user:1:0:100", capturePutKey());
+    }
+
+    @Test
+    public void testEvictTenant() {
+        // 准备参数
+        TenantRedisCacheManager cacheManager = new TenantRedisCacheManager(cacheWriter, config,
+                tenantCacheGenerationRedisDAO);
+        cacheManager.setCacheInvalidator(cacheInvalidator);
+        assertInstanceOf(TenantRedisCache.class, cacheManager.getCache("user"));
+        assertFalse(((TenantRedisCache) cacheManager.getCache("user")).isPersistent());
+
+        // 调用
+        cacheManager.evictTenant(1L);
+        // 断言：递增租户级别的代数，并广播清空消息
+        verify(tenantCacheGenerationRedisDAO).incrementGeneration(eq(1L), eq(TenantCacheGenerationRedisDAO.ALL_CACHES));
+        verify(tenantCacheGenerationRedisDAO).invalidateLocalCache();
+        verify(cacheInvalidator).publish(eq("user"), isNull());
+        verify(cacheWriter, never()).clean(any(), any());
+    }
+
+    @Test
+    public void testGet_localCache() {
+        // 准备参数
+        TenantRedisCache localCachedCache = newLocalCachedCache();
+        TenantContextHolder.setTenantId(1L);
+
+        // 调用
+        localCachedCache.put("100", "value");
+        // 断言：广播失效消息
+        verify(cacheInvalidator).publish(eq("user"), eq("user:1:0:100"));
+        // 断言：命中本地缓存，不读取 Redis
+        assertEquals("value", localCachedCache.get("100", String.class));
+        verify(cacheWriter, never()).get(any(), any());
+
+        // 调用：切换租户
+        TenantContextHolder.setTenantId(2L);
+        // 断言：租户之间的本地缓存相互隔离
+        assertNull(localCachedCache.get("100"));
+        ArgumentCaptor<byte[]> keyCaptor = ArgumentCaptor.forClass(byte[].class);
+        verify(cacheWriter).get(eq("user"), keyCaptor.capture());
+        assertEquals("user:2:0:100", new String(keyCaptor.getValue(), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testGet_earlyRefresh() {
+        // 准备参数
+        TenantContextHolder.setTenantId(1L);
+        cache.setRedisTemplate(redisTemplate);
+        cache.setEarlyRefreshWindow(Duration.ofSeconds(1));
+        // mock 方法：命中缓存，且即将过期
+        when(cacheWriter.get(eq("user"), any())).thenReturn(serialize("old"));
+        when(redisTemplate.getExpire(eq("user:1:0:100"), eq(TimeUnit.MILLISECONDS))).thenReturn(0L);
+
+        // 调用
+        String value = cache.get("100", () -> "new");
+        // 断言：立即返回旧值，异步提前刷新，刷新线程携带租户上下文
+        assertEquals("old", value);
+        ArgumentCaptor<byte[]> keyCaptor = ArgumentCaptor.forClass(byte[].class);
+        verify(cacheWriter, timeout(5000)).put(eq("user"), keyCaptor.capture(), any(), any());
+        assertEquals("user:1:0:100", new String(keyCaptor.getValue(), StandardCharsets.UTF_8));
+        // 断言：首次查询的过期时间，不重复查询
+        verify(redisTemplate, times(1)).getExpire(eq("user:1:0:100"), eq(TimeUnit.MILLISECONDS));
+    }
+
+    private byte[] serialize(Object value) {
+        ByteBuffer buffer = config.getValueSerializationPair().write(value);
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.get(bytes);
+        return bytes;
+    }
+
+    private TenantRedisCache newLocalCachedCache() {
+        TenantRedisCache localCachedCache = new TenantRedisCache("user", cacheWriter, config,
+                CacheBuilder.newBuilder().maximumSize(100).build(), cacheInvalidator, tenantCacheGenerationRedisDAO);
+        verify(cacheInvalidator).register(same(localCachedCache));
+        return localCachedCache;
+    }
+
+    @Test
+    public void testPut_cacheGeneration() {
+        // 准备参数
+        TenantContextHolder.setTenantId(1L);
+        cache.setCacheGenerationDAO(cacheGenerationDAO);
+        // mock 方法
+        when(cacheGenerationDAO.getGeneration(eq("user"))).thenReturn(3L);
+        when(tenantCacheGenerationRedisDAO.getGeneration(eq(1L), eq("user"))).thenReturn(2L);
+
+        // 调用
+        cache.put("100", "value");
+        // 断言：缓存代数在租户之前
+        assertEquals("user:3:1:2:100", capturePutKey());
+    }
+
+    @Test
+    public void testClear_ignoreCacheGeneration() {
+        // 准备参数
+        TenantContextHolder.setIgnore(true);
+        cache.setCacheGenerationDAO(cacheGenerationDAO);
+
+        // 调用
+        cache.clear();
+        // 断言：递增缓存的代数，不 SCAN 删除
+        verify(cacheGenerationDAO).incrementGeneration(eq("user"));
+        verify(cacheWriter, never()).clean(any(), any());
+        verifyNoInteractions(tenantCacheGenerationRedisDAO);
+    }
+
+    private String capturePutKey() {
+        ArgumentCaptor<byte[]> keyCaptor = ArgumentCaptor.forClass(byte[].class);
+        verify(cacheWriter).put(eq("user"), keyCaptor.capture(), any(), any());
+        return new String(keyCaptor.getValue(), StandardCharsets.UTF_8);
+    }
+
+}
@@ -28,7 +28,7 @@ public class DictFrameworkUtils {
      * 针对 {@link #getDictDataLabel(String, String)} 的缓存
      */
     private static final LoadingCache<KeyValue<String, String>, DictDataRespDTO> GET_DICT_DATA_CACHE = CacheUtils.buildAsyncReloadingCache(
-            Duration.ofMinutes(1L), // 过期时间 1 分钟
+            "dict.getDictData", Duration.ofMinutes(1L), // 过期时间 1 分钟
             new CacheLoader<KeyValue<String, String>, DictDataRespDTO>() {
 
                 @Override
@@ -42,7 +42,7 @@ public class DictFrameworkUtils {
      * 针对 {@link #parseDictDataValue(String, String)} 的缓存
      */
     private static final LoadingCache<KeyValue<String, String>, DictDataRespDTO> PARSE_DICT_DATA_CACHE = CacheUtils.buildAsyncReloadingCache(
-            Duration.ofMinutes(1L), // 过期时间 1 分钟
+            "dict.parseDictData", Duration.ofMinutes(1L), // 过期时间 1 分钟
             new CacheLoader<KeyValue<String, String>, DictDataRespDTO>() {
 
                 @Override
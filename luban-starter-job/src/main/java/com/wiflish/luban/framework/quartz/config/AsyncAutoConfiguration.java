@@ -1,6 +1,6 @@
 package com.wiflish.luban.framework.quartz.config;
 
-import com.alibaba.ttl.TtlRunnable;
+import com.wiflish.luban.framework.common.util.context.ContextThreadLocals;
 import org.springframework.beans.BeansException;
 import org.springframework.beans.factory.config.BeanPostProcessor;
 import org.springframework.boot.autoconfigure.AutoConfiguration;
@@ -24,8 +24,8 @@ public class AsyncAutoConfiguration {
                 if (!(bean instanceof ThreadPoolTaskExecutor executor)) {
                     return bean;
                 }
-                // 修改提交的任务，接入 TransmittableThreadLocal
-                executor.setTaskDecorator(TtlRunnable::get);
+                // 修改提交的任务，传递上下文，默认基于 TransmittableThreadLocal
+                executor.setTaskDecorator(ContextThreadLocals::wrap);
                 return executor;
             }
 
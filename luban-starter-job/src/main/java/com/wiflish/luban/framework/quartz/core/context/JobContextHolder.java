@@ -0,0 +1,49 @@
+package com.wiflish.luban.framework.quartz.core.context;
+
+import com.wiflish.luban.framework.quartz.core.enums.JobDataKeyEnum;
+import org.quartz.JobExecutionContext;
+
+/**
+ * Job 执行的 Context 上下文
+ *
+ * 由 JobHandlerInvoker 在执行 JobHandler 期间设置，使 JobHandler 的 AOP 可以感知本次执行是否为重试
+ *
+ * @author wiflish
+ */
+public class JobContextHolder {
+
+    private static final ThreadLocal<JobExecutionContext> CONTEXT = new ThreadLocal<>();
+
+    public static void set(JobExecutionContext context) {
+        CONTEXT.set(context);
+    }
+
+    public static void clear() {
+        CONTEXT.remove();
+    }
+
+    /**
+     * 获得本次触发的编号，重试时保持不变
+     *
+     * @return 触发编号；如果不在 Job 执行中，则返回 null
+     */
+    public static String getFireInstanceId() {
+        JobExecutionContext context = CONTEXT.get();
+        return context != null ? context.getFireInstanceId() : null;
+    }
+
+    /**
+     * 判断本次执行失败后，是否还会重试
+     *
+     * @return 是否
+     */
+    public static boolean hasRemainingRetry() {
+        JobExecutionContext context = CONTEXT.get();
+        if (context == null) {
+            return false;
+        }
+        int retryCount = (Integer) context.getMergedJobDataMap().getOrDefault(JobDataKeyEnum.JOB_RETRY_COUNT.name(), 0);
+        return context.getRefireCount() < retryCount;
+    }
+
+}
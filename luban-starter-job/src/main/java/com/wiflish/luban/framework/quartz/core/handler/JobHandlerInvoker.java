@@ -3,6 +3,7 @@ package com.wiflish.luban.framework.quartz.core.handler;
 import cn.hutool.core.date.LocalDateTimeUtil;
 import cn.hutool.core.lang.Assert;
 import cn.hutool.core.thread.ThreadUtil;
+import com.wiflish.luban.framework.quartz.core.context.JobContextHolder;
 import com.wiflish.luban.framework.quartz.core.enums.JobDataKeyEnum;
 import com.wiflish.luban.framework.quartz.core.service.JobLogFrameworkService;
 import jakarta.annotation.Resource;
@@ -53,9 +54,12 @@ public class JobHandlerInvoker extends QuartzJobBean {
             // 记录 Job 日志（初始）
             jobLogId = jobLogFrameworkService.createJobLog(jobId, startTime, jobHandlerName, jobHandlerParam, refireCount + 1);
             // 执行任务
+            JobContextHolder.set(executionContext);
             data = this.executeInternal(jobHandlerName, jobHandlerParam);
         } catch (Throwable ex) {
             exception = ex;
+        } finally {
+            JobContextHolder.clear();
         }
 
         // 第三步，记录执行日志
@@ -1,5 +1,6 @@
 package com.wiflish.luban.framework.tracer.config;
 
+import com.wiflish.luban.framework.tracer.core.metrics.CacheUtilsMetricsBinder;
 import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.actuate.autoconfigure.metrics.MeterRegistryCustomizer;
@@ -24,4 +25,10 @@ public class MetricsAutoConfiguration {
         return registry -> registry.config().commonTags("application", applicationName);
     }
 
+    @Bean
+    @ConditionalOnClass(name = "com.google.common.cache.Cache")
+    public CacheUtilsMetricsBinder cacheUtilsMetricsBinder() {
+        return new CacheUtilsMetricsBinder();
+    }
+
 }
@@ -0,0 +1,23 @@
+package com.wiflish.luban.framework.tracer.core.metrics;
+
+import com.wiflish.luban.framework.common.util.cache.CacheUtils;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.GuavaCacheMetrics;
+
+/**
+ * {@link CacheUtils} 缓存的 Metrics 注册器
+ *
+ * 基于 {@link GuavaCacheMetrics}，注册每个有名字的缓存的命中率、加载耗时、加载失败（包括刷新失败）次数、大小等指标。
+ * 包括注册前、注册后创建的缓存
+ *
+ * @author wiflish
+ */
+public class CacheUtilsMetricsBinder implements MeterBinder {
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CacheUtils.setCacheListener((name, cache) -> GuavaCacheMetrics.monitor(registry, cache, name));
+    }
+
+}
@@ -0,0 +1,69 @@
+package com.wiflish.luban.framework.mybatis.core.handler;
+
+import com.baomidou.mybatisplus.extension.plugins.handler.TenantLineHandler;
+
+/**
+ * 按 SQL 语句计算的 {@link TenantLineHandler}
+ *
+ * 解析一条 SQL 时，{@link TenantLineHandler#ignoreTable(String)} 会按表调用多次。
+ * 拦截器在解析前后，调用 {@link #beginStatement()}、{@link #endStatement()}，实现类可以在其中计算和表无关的判断，整条 SQL 只计算一次
+ *
+ * @author wiflish
+ */
+public interface StatementTenantLineHandler extends TenantLineHandler {
+
+    /**
+     * 开始解析一条 SQL
+     */
+    void beginStatement();
+
+    /**
+     * 结束解析一条 SQL，需要在 finally 中调用
+     */
+    void endStatement();
+
+    /**
+     * 获得当前 SQL 拼接租户条件的 Key，在 {@link #beginStatement()} 之后调用
+     *
+     * 同一条 SQL，Key 相同时，拼接的租户条件（包括哪些表被忽略）也相同，从而可以缓存重写后的 SQL
+     *
+     * @return Key；为空时，表示无法确定，不缓存重写后的 SQL
+     */
+    default Object getStatementKey() {
+        return null;
+    }
+
+    /**
+     * 在 SQL 的解析范围内执行，handler 不是 {@link StatementTenantLineHandler} 时，直接执行
+     *
+     * @param handler TenantLineHandler 对象
+     * @param task 解析 SQL 的逻辑，可以抛出受检异常，例如 {@link java.sql.SQLException}
+     * @param <E> 异常类型
+     * @throws E 解析 SQL 的逻辑抛出的异常
+     */
+    static <E extends Exception> void runInStatement(TenantLineHandler handler, StatementTask<E> task) throws E {
+        if (!(handler instanceof StatementTenantLineHandler statementHandler)) {
+            task.run();
+            return;
+        }
+        statementHandler.beginStatement();
+        try {
+            task.run();
+        } finally {
+            statementHandler.endStatement();
+        }
+    }
+
+    /**
+     * 解析 SQL 的逻辑
+     *
+     * @param <E> 异常类型，不抛出受检异常时，推断为 RuntimeException
+     */
+    @FunctionalInterface
+    interface StatementTask<E extends Exception> {
+
+        void run() throws E;
+
+    }
+
+}
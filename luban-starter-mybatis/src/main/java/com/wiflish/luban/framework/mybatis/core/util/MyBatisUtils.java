@@ -54,6 +54,26 @@ public class MyBatisUtils {
         interceptor.setInterceptors(inners);
     }
 
+    /**
+     * 替换拦截器，新的拦截器使用原拦截器的位置
+     *
+     * 如果原拦截器不存在，则添加到首个
+     *
+     * @param interceptor 链
+     * @param oldInner    原拦截器
+     * @param newInner    新拦截器
+     */
+    public static void replaceInterceptor(MybatisPlusInterceptor interceptor, InnerInterceptor oldInner, InnerInterceptor newInner) {
+        List<InnerInterceptor> inners = new ArrayList<>(interceptor.getInterceptors());
+        int index = inners.indexOf(oldInner);
+        if (index >= 0) {
+            inners.set(index, newInner);
+        } else {
+            inners.add(0, newInner);
+        }
+        interceptor.setInterceptors(inners);
+    }
+
     /**
      * 获得 Table 对应的表名
      *
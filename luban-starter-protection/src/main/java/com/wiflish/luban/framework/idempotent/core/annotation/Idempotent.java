@@ -43,4 +43,12 @@ public @interface Idempotent {
      */
     String keyArg() default "";
 
+    /**
+     * 是否给 Key 拼接当前租户的 hash tag，默认为 false
+     *
+     * 开启多租户的 redis-hash-tag-enable 时，Key 格式为 {tenantId}:key，和该租户的其它 Key 落在 Redis Cluster 的同一个 slot。
+     * 注意，hash tag 来自当前上下文，忽略租户时不拼接，所以只用于总是在租户上下文中执行的方法，否则同一个请求可能得到不同的 Key
+     */
+    boolean hashTag() default false;
+
 }
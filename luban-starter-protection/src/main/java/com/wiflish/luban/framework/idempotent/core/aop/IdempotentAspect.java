@@ -6,6 +6,7 @@ import com.wiflish.luban.framework.common.util.collection.CollectionUtils;
 import com.wiflish.luban.framework.idempotent.core.annotation.Idempotent;
 import com.wiflish.luban.framework.idempotent.core.keyresolver.IdempotentKeyResolver;
 import com.wiflish.luban.framework.idempotent.core.redis.IdempotentRedisDAO;
+import com.wiflish.luban.framework.redis.core.RedisKeyHashTags;
 import lombok.extern.slf4j.Slf4j;
 import org.aspectj.lang.JoinPoint;
 import org.aspectj.lang.annotation.Aspect;
@@ -43,6 +44,9 @@ public class IdempotentAspect {
         Assert.notNull(keyResolver, "找不到对应的 IdempotentKeyResolver");
         // 解析 Key
         String key = keyResolver.resolver(joinPoint, idempotent);
+        if (idempotent.hashTag()) {
+            key = RedisKeyHashTags.tag(key);
+        }
 
         // 锁定 Key。
         boolean success = idempotentRedisDAO.setIfAbsent(key, idempotent.timeout(), idempotent.timeUnit());
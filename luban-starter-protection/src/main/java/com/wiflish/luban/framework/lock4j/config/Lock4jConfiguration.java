@@ -1,10 +1,15 @@
 package com.wiflish.luban.framework.lock4j.config;
 
+import com.baomidou.lock.DefaultLockKeyBuilder;
+import com.baomidou.lock.LockKeyBuilder;
 import com.baomidou.lock.spring.boot.autoconfigure.LockAutoConfiguration;
 import com.wiflish.luban.framework.lock4j.core.DefaultLockFailureStrategy;
+import com.wiflish.luban.framework.lock4j.core.HashTagLockKeyBuilder;
+import org.springframework.beans.factory.BeanFactory;
 import org.springframework.boot.autoconfigure.AutoConfiguration;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
 import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Primary;
 
 @AutoConfiguration(before = LockAutoConfiguration.class)
 @ConditionalOnClass(name = "com.baomidou.lock.annotation.Lock4j")
@@ -15,4 +20,21 @@ public class Lock4jConfiguration {
         return new DefaultLockFailureStrategy();
     }
 
+    /**
+     * 默认的 Key 生成器，和 lock4j 保持一致
+     */
+    @Bean
+    @Primary
+    public LockKeyBuilder lockKeyBuilder(BeanFactory beanFactory) {
+        return new DefaultLockKeyBuilder(beanFactory);
+    }
+
+    /**
+     * 拼接 hash tag 的 Key 生成器，通过 @Lock4j(keyBuilderStrategy = HashTagLockKeyBuilder.class) 使用
+     */
+    @Bean
+    public HashTagLockKeyBuilder hashTagLockKeyBuilder(BeanFactory beanFactory) {
+        return new HashTagLockKeyBuilder(beanFactory);
+    }
+
 }
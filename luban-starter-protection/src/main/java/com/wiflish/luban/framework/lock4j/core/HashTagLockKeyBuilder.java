@@ -0,0 +1,29 @@
+package com.wiflish.luban.framework.lock4j.core;
+
+import com.baomidou.lock.DefaultLockKeyBuilder;
+import com.wiflish.luban.framework.redis.core.RedisKeyHashTags;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.beans.factory.BeanFactory;
+
+/**
+ * 支持 Redis Cluster hash tag 的 {@link DefaultLockKeyBuilder} 实现类
+ *
+ * 开启 {@link RedisKeyHashTags} 时，锁的 Key 会拼接当前租户的 hash tag，和该租户的其它 Key 落在同一个 slot
+ *
+ * 默认不使用，锁的 Key 保持不变。需要按方法开启：@Lock4j(keyBuilderStrategy = HashTagLockKeyBuilder.class)
+ * 注意，hash tag 来自当前上下文，忽略租户时不拼接，所以只用于总是在租户上下文中执行的方法，否则同一把锁可能得到不同的 Key
+ *
+ * @author wiflish
+ */
+public class HashTagLockKeyBuilder extends DefaultLockKeyBuilder {
+
+    public HashTagLockKeyBuilder(BeanFactory beanFactory) {
+        super(beanFactory);
+    }
+
+    @Override
+    public String buildKey(MethodInvocation invocation, String[] definitionKeys) {
+        return RedisKeyHashTags.tag(super.buildKey(invocation, definitionKeys));
+    }
+
+}
@@ -10,7 +10,7 @@ public interface Lock4jRedisKeyConstants {
     /**
      * 分布式锁
      *
-     * KEY 格式：lock4j:%s // 参数来自 DefaultLockKeyBuilder 类
+     * KEY 格式：lock4j:%s // 参数来自 DefaultLockKeyBuilder 类，使用 HashTagLockKeyBuilder 时为 {tenantId}:key
      * VALUE 数据格式：HASH // RLock.class：Redisson 的 Lock 锁，使用 Hash 数据结构
      * 过期时间：不固定
      */
@@ -1,8 +1,14 @@
 package com.wiflish.luban.framework.redis.config;
 
 import cn.hutool.core.util.StrUtil;
+import com.wiflish.luban.framework.redis.core.RedisCacheGenerationDAO;
+import com.wiflish.luban.framework.redis.core.RedisCacheInvalidator;
+import com.wiflish.luban.framework.redis.core.RedisHotKeyDetector;
 import com.wiflish.luban.framework.redis.core.TimeoutRedisCacheManager;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.context.annotation.Bean;
@@ -13,6 +19,7 @@ import org.springframework.data.redis.cache.RedisCacheManager;
 import org.springframework.data.redis.cache.RedisCacheWriter;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.data.redis.serializer.RedisSerializationContext;
 import org.springframework.util.StringUtils;
 
@@ -24,7 +31,8 @@ import static com.wiflish.luban.framework.redis.config.RedisAutoConfiguration.bu
  * Cache 配置类，基于 Redis 实现
  */
 @AutoConfiguration
-@EnableConfigurationProperties({org.springframework.boot.autoconfigure.cache.CacheProperties.class, CacheProperties.class})
+@EnableConfigurationProperties({org.springframework.boot.autoconfigure.cache.CacheProperties.class, CacheProperties.class,
+        LubanRedisProperties.class})
 @EnableCaching
 public class CacheAutoConfiguration {
 
@@ -35,7 +43,8 @@ public class CacheAutoConfiguration {
      */
     @Bean
     @Primary
-    public RedisCacheConfiguration redisCacheConfiguration(org.springframework.boot.autoconfigure.cache.CacheProperties cacheProperties) {
+    public RedisCacheConfiguration redisCacheConfiguration(org.springframework.boot.autoconfigure.cache.CacheProperties cacheProperties,
+                                                           LubanRedisProperties redisProperties) {
         RedisCacheConfiguration config = RedisCacheConfiguration.defaultCacheConfig();
         // 设置使用 : 单冒号，而不是双 :: 冒号，避免 Redis Desktop Manager 多余空格
         // 详细可见 https://blog.csdn.net/chuixue24/article/details/103928965 博客
@@ -48,19 +57,19 @@ public class CacheAutoConfiguration {
             }
             return cacheName + StrUtil.COLON;
         });
-        // 设置使用 JSON 序列化方式
+        // 设置使用 JSON 或 Smile 序列化方式
         config = config.serializeValuesWith(
-                RedisSerializationContext.SerializationPair.fromSerializer(buildRedisSerializer()));
+                RedisSerializationContext.SerializationPair.fromSerializer(buildRedisSerializer(redisProperties)));
 
         // 设置 CacheProperties.Redis 的属性
-        org.springframework.boot.autoconfigure.cache.CacheProperties.Redis redisProperties = cacheProperties.getRedis();
-        if (redisProperties.getTimeToLive() != null) {
-            config = config.entryTtl(redisProperties.getTimeToLive());
+        org.springframework.boot.autoconfigure.cache.CacheProperties.Redis cacheRedisProperties = cacheProperties.getRedis();
+        if (cacheRedisProperties.getTimeToLive() != null) {
+            config = config.entryTtl(cacheRedisProperties.getTimeToLive());
         }
-        if (!redisProperties.isCacheNullValues()) {
+        if (!cacheRedisProperties.isCacheNullValues()) {
             config = config.disableCachingNullValues();
         }
-        if (!redisProperties.isUseKeyPrefix()) {
+        if (!cacheRedisProperties.isUseKeyPrefix()) {
             config = config.disableKeyPrefix();
         }
         return config;
@@ -69,13 +78,71 @@ public class CacheAutoConfiguration {
     @Bean
     public RedisCacheManager redisCacheManager(RedisTemplate<String, Object> redisTemplate,
                                                RedisCacheConfiguration redisCacheConfiguration,
-                                               CacheProperties cacheProperties) {
+                                               CacheProperties cacheProperties,
+                                               ObjectProvider<RedisCacheInvalidator> cacheInvalidatorProvider,
+                                               ObjectProvider<RedisCacheGenerationDAO> cacheGenerationDAOProvider,
+                                               ObjectProvider<RedisHotKeyDetector> hotKeyDetectorProvider) {
         // 创建 RedisCacheWriter 对象
         RedisConnectionFactory connectionFactory = Objects.requireNonNull(redisTemplate.getConnectionFactory());
         RedisCacheWriter cacheWriter = RedisCacheWriter.nonLockingRedisCacheWriter(connectionFactory,
                 BatchStrategies.scan(cacheProperties.getRedisScanBatchSize()));
         // 创建 TenantRedisCacheManager 对象
-        return new TimeoutRedisCacheManager(cacheWriter, redisCacheConfiguration);
+        TimeoutRedisCacheManager cacheManager = new TimeoutRedisCacheManager(cacheWriter, redisCacheConfiguration);
+        configureCacheManager(cacheManager, connectionFactory, cacheProperties,
+                cacheInvalidatorProvider.getIfAvailable(), cacheGenerationDAOProvider.getIfAvailable(),
+                hotKeyDetectorProvider.getIfAvailable());
+        return cacheManager;
+    }
+
+    /**
+     * 本地缓存（L1）的失效广播器，开启本地缓存、缓存代数或热点 Key 探测时创建
+     *
+     * 开启缓存代数时，用于广播清空消息，让其它节点重建代数的本地缓存；开启热点 Key 探测时，用于失效其它节点的本地副本
+     */
+    @Bean
+    @ConditionalOnExpression("${mall.cache.local-enable:false} || ${mall.cache.generation-enable:false}"
+            + " || ${luban.framework.redis.hot-key-enable:false}")
+    public RedisCacheInvalidator redisCacheInvalidator(RedisTemplate<String, Object> redisTemplate,
+                                                       CacheProperties cacheProperties) {
+        RedisConnectionFactory connectionFactory = Objects.requireNonNull(redisTemplate.getConnectionFactory());
+        return new RedisCacheInvalidator(connectionFactory, cacheProperties.getLocalInvalidationChannel());
+    }
+
+    /**
+     * 缓存代数的 DAO，开启缓存代数时创建
+     */
+    @Bean
+    @ConditionalOnProperty(prefix = "mall.cache", value = "generation-enable")
+    public RedisCacheGenerationDAO redisCacheGenerationDAO(RedisTemplate<String, Object> redisTemplate,
+                                                           CacheProperties cacheProperties) {
+        RedisConnectionFactory connectionFactory = Objects.requireNonNull(redisTemplate.getConnectionFactory());
+        return new RedisCacheGenerationDAO(new StringRedisTemplate(connectionFactory),
+                cacheProperties.getGenerationCacheTtl());
+    }
+
+    /**
+     * 设置 {@link TimeoutRedisCacheManager} 的本地缓存（L1）、防击穿、缓存代数等配置
+     *
+     * @param cacheManager 缓存管理器
+     * @param connectionFactory Redis 连接工厂，用于分布式租约、提前刷新
+     * @param cacheProperties 缓存配置
+     * @param cacheInvalidator 失效广播器，为空时不开启本地缓存、不广播缓存代数的变化
+     * @param cacheGenerationDAO 缓存代数的 DAO，为空时不开启缓存代数
+     * @param hotKeyDetector 热点 Key 探测器，为空时不开启
+     */
+    public static void configureCacheManager(TimeoutRedisCacheManager cacheManager,
+                                             RedisConnectionFactory connectionFactory,
+                                             CacheProperties cacheProperties,
+                                             RedisCacheInvalidator cacheInvalidator,
+                                             RedisCacheGenerationDAO cacheGenerationDAO,
+                                             RedisHotKeyDetector hotKeyDetector) {
+        cacheManager.setCacheInvalidator(cacheInvalidator);
+        cacheManager.setLocalEnable(Boolean.TRUE.equals(cacheProperties.getLocalEnable()));
+        cacheManager.setDefaultLocalTtl(cacheProperties.getLocalTtl());
+        cacheManager.setDefaultLocalMaximumSize(cacheProperties.getLocalMaximumSize());
+        cacheManager.setRedisTemplate(new StringRedisTemplate(connectionFactory));
+        cacheManager.setCacheGenerationDAO(cacheGenerationDAO);
+        cacheManager.setHotKeyDetector(hotKeyDetector);
     }
 
 }
@@ -4,6 +4,8 @@ import lombok.Data;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.validation.annotation.Validated;
 
+import java.time.Duration;
+
 /**
  * Cache 配置项
  *
@@ -24,4 +26,36 @@ public class CacheProperties {
      */
     private Integer redisScanBatchSize = REDIS_SCAN_BATCH_SIZE_DEFAULT;
 
+    /**
+     * 是否开启本地缓存（L1）
+     *
+     * 开启后，缓存名可以通过 "key#ttl,l1-ttl=30s,l1-size=500" 配置本地缓存，
+     * 节点之间通过 Redis Pub/Sub 广播失效消息
+     */
+    private Boolean localEnable = false;
+    /**
+     * 本地缓存的默认过期时间，为 0 时，只有配置了 l1-ttl 的缓存才使用本地缓存
+     */
+    private Duration localTtl = Duration.ZERO;
+    /**
+     * 本地缓存的默认最大数量
+     */
+    private Long localMaximumSize = 1000L;
+    /**
+     * 本地缓存失效消息的 Redis Channel
+     */
+    private String localInvalidationChannel = "luban:cache:invalidation";
+
+    /**
+     * 是否开启缓存代数
+     *
+     * 开启后，Redis Key 中带上缓存的代数，@CacheEvict(allEntries = true) 只递增代数，不 SCAN 删除，旧的 Key 依赖过期时间淘汰。
+     * 注意，开启后旧格式的 Key 不再被访问。永不过期的缓存，旧代数的 Key 不会淘汰，所以仍然 SCAN 删除
+     */
+    private Boolean generationEnable = false;
+    /**
+     * 缓存代数的本地缓存时间。其它节点清空缓存后，通过失效广播立即可见；广播失败时，最多经过该时间后可见
+     */
+    private Duration generationCacheTtl = Duration.ofSeconds(5);
+
 }
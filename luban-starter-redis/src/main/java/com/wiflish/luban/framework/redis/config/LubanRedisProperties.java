@@ -0,0 +1,77 @@
+package com.wiflish.luban.framework.redis.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+/**
+ * Redis 配置项
+ *
+ * @author wiflish
+ */
+@ConfigurationProperties(prefix = "luban.framework.redis")
+@Data
+public class LubanRedisProperties {
+
+    /**
+     * Value 的序列化方式，作用于 RedisTemplate 和 Spring Cache
+     *
+     * 无论使用哪种方式，都可以读取其它方式写入的 Value，所以可以滚动切换
+     */
+    private Serializer serializer = Serializer.JSON;
+
+    /**
+     * 压缩的阈值，序列化后的 Value 大于等于该值时，使用 GZIP 压缩
+     *
+     * 为空时，不压缩
+     */
+    private DataSize compressThreshold;
+
+    /**
+     * 是否开启热点 Key 探测
+     *
+     * 开启后，采样 RedisTemplate 和 Spring Cache 的 Key 访问频率，热点 Key 注册为 Metrics，
+     * Spring Cache 的热点 Key 保存在短期的本地副本中
+     */
+    private Boolean hotKeyEnable = false;
+    /**
+     * 热点 Key 的采样率，每 N 次访问记录一次
+     */
+    private Integer hotKeySampleRate = 10;
+    /**
+     * 热点 Key 的计数器数量，即最多跟踪的 Key 数量
+     */
+    private Integer hotKeyCapacity = 256;
+    /**
+     * 热点 Key 的统计窗口
+     */
+    private Duration hotKeyWindow = Duration.ofSeconds(10);
+    /**
+     * 热点 Key 的阈值，窗口内估算的访问次数达到该值时，成为热点 Key
+     */
+    private Long hotKeyThreshold = 1000L;
+    /**
+     * 热点 Key 本地副本的过期时间，为 0 时不使用本地副本
+     */
+    private Duration hotKeyReplicaTtl = Duration.ofSeconds(1);
+    /**
+     * 注册为 Metrics 的热点 Key 数量
+     */
+    private Integer hotKeyMetricsTopN = 10;
+
+    public enum Serializer {
+
+        /**
+         * JSON，可读性好，默认
+         */
+        JSON,
+        /**
+         * Smile，二进制的 JSON，体积更小、序列化更快
+         */
+        SMILE
+
+    }
+
+}
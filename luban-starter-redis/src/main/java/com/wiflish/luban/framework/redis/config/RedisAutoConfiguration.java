@@ -1,9 +1,18 @@
 package com.wiflish.luban.framework.redis.config;
 
 import cn.hutool.core.util.ReflectUtil;
+import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.wiflish.luban.framework.redis.core.CompactRedisSerializer;
+import com.wiflish.luban.framework.redis.core.HotKeyRedisTemplate;
+import com.wiflish.luban.framework.redis.core.RedisHotKeyDetector;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
 import org.springframework.data.redis.core.RedisTemplate;
@@ -13,26 +22,44 @@ import org.springframework.data.redis.serializer.RedisSerializer;
  * Redis 配置类
  */
 @AutoConfiguration
+@EnableConfigurationProperties(LubanRedisProperties.class)
 public class RedisAutoConfiguration {
 
     /**
-     * 创建 RedisTemplate Bean，使用 JSON 序列化方式
+     * 创建 RedisTemplate Bean，使用 {@link LubanRedisProperties#getSerializer()} 序列化方式
      */
     @Bean
-    public RedisTemplate<String, Object> redisTemplate(RedisConnectionFactory factory) {
-        // 创建 RedisTemplate 对象
-        RedisTemplate<String, Object> template = new RedisTemplate<>();
+    public RedisTemplate<String, Object> redisTemplate(RedisConnectionFactory factory, LubanRedisProperties redisProperties,
+                                                       ObjectProvider<RedisHotKeyDetector> hotKeyDetectorProvider) {
+        // 创建 RedisTemplate 对象，开启热点 Key 探测时，记录 Key 的访问频率
+        RedisHotKeyDetector hotKeyDetector = hotKeyDetectorProvider.getIfAvailable();
+        RedisTemplate<String, Object> template = hotKeyDetector != null
+                ? new HotKeyRedisTemplate(hotKeyDetector) : new RedisTemplate<>();
         // 设置 RedisConnection 工厂。😈 它就是实现多种 Java Redis 客户端接入的秘密工厂。感兴趣的胖友，可以自己去撸下。
         template.setConnectionFactory(factory);
         // 使用 String 序列化方式，序列化 KEY 。
         template.setKeySerializer(RedisSerializer.string());
         template.setHashKeySerializer(RedisSerializer.string());
-        // 使用 JSON 序列化方式（库是 Jackson ），序列化 VALUE 。
-        template.setValueSerializer(buildRedisSerializer());
-        template.setHashValueSerializer(buildRedisSerializer());
+        // 使用 JSON 或 Smile 序列化方式（库是 Jackson ），序列化 VALUE 。
+        RedisSerializer<?> serializer = buildRedisSerializer(redisProperties);
+        template.setValueSerializer(serializer);
+        template.setHashValueSerializer(serializer);
         return template;
     }
 
+    /**
+     * 热点 Key 探测器，开启热点 Key 探测时创建
+     */
+    @Bean
+    @ConditionalOnProperty(prefix = "luban.framework.redis", value = "hot-key-enable")
+    public RedisHotKeyDetector redisHotKeyDetector(LubanRedisProperties redisProperties,
+                                                   ObjectProvider<MeterRegistry> meterRegistryProvider) {
+        return new RedisHotKeyDetector(redisProperties.getHotKeySampleRate(), redisProperties.getHotKeyCapacity(),
+                redisProperties.getHotKeyWindow(), redisProperties.getHotKeyThreshold(),
+                redisProperties.getHotKeyReplicaTtl(), redisProperties.getHotKeyMetricsTopN(),
+                meterRegistryProvider.getIfAvailable(() -> Metrics.globalRegistry));
+    }
+
     /**
      * 创建 RedisTemplate Bean，使用 JSON 序列化方式
      */
@@ -57,7 +84,25 @@ public class RedisAutoConfiguration {
         // 解决 LocalDateTime 的序列化
         ObjectMapper objectMapper = (ObjectMapper) ReflectUtil.getFieldValue(json, "mapper");
         objectMapper.registerModules(new JavaTimeModule());
+        // 忽略未知的属性，避免 DTO 删除字段后，无法读取已缓存的 Value
+        objectMapper.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
         return json;
     }
 
+    /**
+     * 根据 {@link LubanRedisProperties} 创建 {@link CompactRedisSerializer}
+     *
+     * 使用 JSON 且不压缩时，写入的 Value 和 {@link #buildRedisSerializer()} 一致，同时可以读取 Smile、GZIP 格式的 Value
+     *
+     * @param redisProperties Redis 配置项
+     * @return RedisSerializer 对象
+     */
+    public static RedisSerializer<?> buildRedisSerializer(LubanRedisProperties redisProperties) {
+        ObjectMapper objectMapper = (ObjectMapper) ReflectUtil.getFieldValue(buildRedisSerializer(), "mapper");
+        int compressThreshold = redisProperties.getCompressThreshold() != null
+                ? (int) redisProperties.getCompressThreshold().toBytes() : 0;
+        return new CompactRedisSerializer(objectMapper,
+                redisProperties.getSerializer() == LubanRedisProperties.Serializer.SMILE, compressThreshold);
+    }
+
 }
@@ -0,0 +1,115 @@
+package com.wiflish.luban.framework.redis.core;
+
+import cn.hutool.core.util.ZipUtil;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.io.IOException;
+
+/**
+ * 紧凑的 {@link RedisSerializer} 实现类，支持 Smile 二进制格式和 GZIP 压缩
+ *
+ * 写入时：
+ * 1. 使用 Smile 或 JSON 序列化，两者共用同一个 ObjectMapper 的配置（类型信息、JavaTimeModule 等）
+ * 2. 序列化后的大小 >= {@link #compressThreshold} 时，使用 GZIP 压缩，压缩后没有变小则不压缩
+ *
+ * 读取时，根据头部的魔数识别格式，所以可以读取任意方式写入的 Value，兼容已有的 JSON 数据：
+ * 1. GZIP 魔数 0x1F 0x8B：先解压，再识别
+ * 2. Smile 魔数 ":)\n"：使用 Smile 的 ObjectMapper 反序列化，依赖它的默认类型信息还原具体的类
+ * 3. 其它：使用 JSON 反序列化
+ *
+ * 注意，Smile 和 JSON 一样，在 Value 中写入类的全名作为类型信息。
+ * 类被重命名或移动包后，已缓存的 Value 无法反序列化，需要清空相关的缓存，或者等待它们过期
+ *
+ * @author wiflish
+ */
+public class CompactRedisSerializer implements RedisSerializer<Object> {
+
+    private static final byte GZIP_MAGIC_0 = (byte) 0x1F;
+    private static final byte GZIP_MAGIC_1 = (byte) 0x8B;
+
+    private static final byte SMILE_MAGIC_0 = ':';
+    private static final byte SMILE_MAGIC_1 = ')';
+    private static final byte SMILE_MAGIC_2 = '\n';
+
+    private final RedisSerializer<Object> json;
+    /**
+     * Smile 的 ObjectMapper
+     *
+     * 不使用 {@link GenericJackson2JsonRedisSerializer} 包装：它读取 Object 类型时，按 JSON 文本解析类型信息，无法读取 Smile
+     */
+    private final ObjectMapper smileMapper;
+    /**
+     * 是否使用 Smile 写入
+     */
+    private final boolean writeSmile;
+    /**
+     * 压缩的阈值，单位：字节。小于等于 0 时，不压缩
+     */
+    private final int compressThreshold;
+
+    /**
+     * @param objectMapper JSON 的 ObjectMapper，Smile 基于它复制配置
+     * @param writeSmile 是否使用 Smile 写入
+     * @param compressThreshold 压缩的阈值，单位：字节。小于等于 0 时，不压缩
+     */
+    public CompactRedisSerializer(ObjectMapper objectMapper, boolean writeSmile, int compressThreshold) {
+        this.json = new GenericJackson2JsonRedisSerializer(objectMapper);
+        this.smileMapper = objectMapper.copyWith(new SmileFactory());
+        this.writeSmile = writeSmile;
+        this.compressThreshold = compressThreshold;
+    }
+
+    @Override
+    public byte[] serialize(Object value) throws SerializationException {
+        byte[] bytes = writeSmile ? serializeSmile(value) : json.serialize(value);
+        if (compressThreshold <= 0 || bytes == null || bytes.length < compressThreshold) {
+            return bytes;
+        }
+        byte[] compressed = ZipUtil.gzip(bytes);
+        return compressed.length < bytes.length ? compressed : bytes;
+    }
+
+    @Override
+    public Object deserialize(byte[] bytes) throws SerializationException {
+        if (bytes == null || bytes.length == 0) {
+            return null;
+        }
+        if (isGzip(bytes)) {
+            bytes = ZipUtil.unGzip(bytes);
+        }
+        return isSmile(bytes) ? deserializeSmile(bytes) : json.deserialize(bytes);
+    }
+
+    private byte[] serializeSmile(Object value) {
+        if (value == null) {
+            return new byte[0];
+        }
+        try {
+            return smileMapper.writeValueAsBytes(value);
+        } catch (IOException ex) {
+            throw new SerializationException("Could not write Smile: " + ex.getMessage(), ex);
+        }
+    }
+
+    private Object deserializeSmile(byte[] bytes) {
+        try {
+            return smileMapper.readValue(bytes, Object.class);
+        } catch (IOException ex) {
+            throw new SerializationException("Could not read Smile: " + ex.getMessage(), ex);
+        }
+    }
+
+    private static boolean isGzip(byte[] bytes) {
+        return bytes.length >= 2 && bytes[0] == GZIP_MAGIC_0 && bytes[1] == GZIP_MAGIC_1;
+    }
+
+    private static boolean isSmile(byte[] bytes) {
+        return bytes.length >= 3 && bytes[0] == SMILE_MAGIC_0 && bytes[1] == SMILE_MAGIC_1
+                && bytes[2] == SMILE_MAGIC_2;
+    }
+
+}
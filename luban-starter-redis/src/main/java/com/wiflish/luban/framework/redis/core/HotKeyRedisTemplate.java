@@ -0,0 +1,69 @@
+package com.wiflish.luban.framework.redis.core;
+
+import org.springframework.data.redis.core.HashOperations;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.util.Collection;
+
+/**
+ * 记录 Key 访问频率的 {@link RedisTemplate} 实现类，用于 {@link RedisHotKeyDetector} 探测热点 Key
+ *
+ * 只记录 {@link #opsForValue()}、{@link #opsForHash()} 的访问，不使用本地副本：
+ * RedisTemplate 还用于计数、锁等场景，读到旧值会导致错误
+ *
+ * @author wiflish
+ */
+public class HotKeyRedisTemplate extends RedisTemplate<String, Object> {
+
+    private final RedisHotKeyDetector hotKeyDetector;
+
+    private final ValueOperations<String, Object> valueOps;
+    private final HashOperations<String, Object, Object> hashOps;
+
+    public HotKeyRedisTemplate(RedisHotKeyDetector hotKeyDetector) {
+        this.hotKeyDetector = hotKeyDetector;
+        this.valueOps = recording(super.opsForValue(), ValueOperations.class);
+        this.hashOps = recording(super.opsForHash(), HashOperations.class);
+    }
+
+    @Override
+    public ValueOperations<String, Object> opsForValue() {
+        return valueOps;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <HK, HV> HashOperations<String, HK, HV> opsForHash() {
+        return (HashOperations<String, HK, HV>) (HashOperations<String, ?, ?>) hashOps;
+    }
+
+    /**
+     * 创建代理，调用方法时，记录第一个参数（即 Key）的访问
+     */
+    @SuppressWarnings("unchecked")
+    private <T> T recording(T target, Class<?> type) {
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) -> {
+            if (method.getDeclaringClass() != Object.class && args != null && args.length > 0) {
+                record(args[0]);
+            }
+            try {
+                return method.invoke(target, args);
+            } catch (InvocationTargetException ex) {
+                throw ex.getTargetException();
+            }
+        });
+    }
+
+    private void record(Object key) {
+        if (key instanceof String stringKey) {
+            hotKeyDetector.record(stringKey);
+        } else if (key instanceof Collection<?> keys) {
+            // multiGet 等批量操作
+            keys.stream().filter(String.class::isInstance).forEach(item -> hotKeyDetector.record((String) item));
+        }
+    }
+
+}
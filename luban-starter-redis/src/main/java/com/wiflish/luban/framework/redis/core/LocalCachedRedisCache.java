@@ -0,0 +1,182 @@
+package com.wiflish.luban.framework.redis.core;
+
+import com.google.common.cache.Cache;
+import org.springframework.data.redis.cache.RedisCache;
+import org.springframework.data.redis.cache.RedisCacheConfiguration;
+import org.springframework.data.redis.cache.RedisCacheWriter;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 两级缓存的 {@link RedisCache} 实现类：本地缓存（L1） + Redis（L2）
+ *
+ * 1. 读取时，优先读取本地缓存，未命中时读取 Redis，并写入本地缓存
+ * 2. put、evict、clear 时，先操作 Redis，再操作本地缓存，并通过 {@link RedisCacheInvalidator} 广播给其它节点
+ * 3. 开启缓存代数时，clear 无论是否开启本地缓存都会广播，其它节点收到后重建代数的本地缓存，立即读取新代数的 Key
+ * 4. 使用热点 Key 的本地副本时，put、evict、clear 无论是否开启本地缓存都会广播，其它节点收到后同时失效副本
+ *
+ * 同时继承 {@link SingleFlightRedisCache} 的防击穿能力
+ *
+ * 本地缓存的 Key 为完整的 Redis Key，所以子类重写 {@link #getKeyNamespace()} 时（例如说多租户），本地缓存同样隔离。
+ * 注意，本地缓存直接返回缓存的对象，调用方不要修改它
+ *
+ * @author wiflish
+ */
+public class LocalCachedRedisCache extends SingleFlightRedisCache {
+
+    /**
+     * 本地缓存，为空时表示不开启
+     */
+    private final Cache<String, Object> localCache;
+
+    private final RedisCacheInvalidator cacheInvalidator;
+
+    public LocalCachedRedisCache(String name, RedisCacheWriter cacheWriter, RedisCacheConfiguration cacheConfiguration,
+                                 Cache<String, Object> localCache, RedisCacheInvalidator cacheInvalidator) {
+        super(name, cacheWriter, cacheConfiguration);
+        this.localCache = localCache;
+        this.cacheInvalidator = cacheInvalidator;
+        // 未开启本地缓存时也注册，子类可能需要处理清空消息，例如说多租户失效代数的本地缓存
+        if (cacheInvalidator != null) {
+            cacheInvalidator.register(this);
+        }
+    }
+
+    public boolean isLocalCacheEnabled() {
+        return localCache != null;
+    }
+
+    @Override
+    protected Object lookup(Object key, String cacheKey) {
+        if (localCache == null) {
+            return super.lookup(key, cacheKey);
+        }
+        Object value = localCache.getIfPresent(cacheKey);
+        if (value != null) {
+            return value;
+        }
+        value = super.lookup(key, cacheKey);
+        if (value != null) {
+            localCache.put(cacheKey, value);
+        }
+        return value;
+    }
+
+    @Override
+    protected <K> Map<K, Object> multiGet(Map<K, String> cacheKeys) {
+        if (localCache == null) {
+            return super.multiGet(cacheKeys);
+        }
+        // 优先读取本地缓存，未命中的 Key 批量读取 Redis，并写入本地缓存
+        Map<K, Object> values = new HashMap<>();
+        Map<K, String> missKeys = new LinkedHashMap<>();
+        cacheKeys.forEach((key, cacheKey) -> {
+            Object value = localCache.getIfPresent(cacheKey);
+            if (value != null) {
+                values.put(key, value);
+            } else {
+                missKeys.put(key, cacheKey);
+            }
+        });
+        super.multiGet(missKeys).forEach((key, value) -> {
+            localCache.put(missKeys.get(key), value);
+            values.put(key, value);
+        });
+        return values;
+    }
+
+    @Override
+    protected void put(Object key, String cacheKey, Object value) {
+        super.put(key, cacheKey, value);
+        if (localCache != null) {
+            localCache.put(cacheKey, toStoreValue(value));
+        }
+        if (isPublishRequired()) {
+            publish(cacheKey);
+        }
+    }
+
+    @Override
+    public ValueWrapper putIfAbsent(Object key, Object value) {
+        ValueWrapper result = super.putIfAbsent(key, value);
+        if (isPublishRequired()) {
+            String cacheKey = createCacheKey(key);
+            evictLocal(cacheKey);
+            if (result == null) {
+                publish(cacheKey);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    protected void evict(Object key, String cacheKey) {
+        super.evict(key, cacheKey);
+        if (localCache != null) {
+            localCache.invalidate(cacheKey);
+        }
+        if (isPublishRequired()) {
+            publish(cacheKey);
+        }
+    }
+
+    @Override
+    public void clear() {
+        super.clear();
+        if (localCache != null) {
+            localCache.invalidateAll();
+        }
+        if (isPublishRequired() || getCacheGenerationDAO() != null) {
+            publish(null);
+        }
+    }
+
+    /**
+     * 失效当前节点的本地缓存、热点 Key 的本地副本，不广播
+     *
+     * @param cacheKey Redis Key
+     */
+    public void evictLocal(String cacheKey) {
+        if (localCache != null) {
+            localCache.invalidate(cacheKey);
+        }
+        evictReplica(cacheKey);
+    }
+
+    /**
+     * 清空当前节点的本地缓存、热点 Key 的本地副本，不广播
+     *
+     * 开启缓存代数时，同时重建代数的本地缓存，否则其它节点清空后，当前节点最多 cacheGenerationTtl 内仍然读取旧代数的 Key
+     */
+    public void clearLocal() {
+        if (localCache != null) {
+            localCache.invalidateAll();
+        }
+        clearReplicas();
+        RedisCacheGenerationDAO cacheGenerationDAO = getCacheGenerationDAO();
+        if (cacheGenerationDAO != null) {
+            cacheGenerationDAO.invalidateLocalCache();
+        }
+    }
+
+    /**
+     * 写入、删除时，是否需要广播：开启了本地缓存，或者使用热点 Key 的本地副本
+     */
+    private boolean isPublishRequired() {
+        return localCache != null || isReplicaEnabled();
+    }
+
+    /**
+     * 广播失效消息
+     *
+     * @param cacheKey Redis Key，为空时表示清空
+     */
+    protected void publish(String cacheKey) {
+        if (cacheInvalidator != null) {
+            cacheInvalidator.publish(getName(), cacheKey);
+        }
+    }
+
+}
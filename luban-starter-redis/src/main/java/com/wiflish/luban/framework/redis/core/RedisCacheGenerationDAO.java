@@ -0,0 +1,102 @@
+package com.wiflish.luban.framework.redis.core;
+
+import com.google.common.base.Suppliers;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * 缓存代数的 Redis DAO
+ *
+ * 每个缓存的 Key 中，会带上该缓存的代数。清空缓存时，只需要递增代数，旧代数的 Key 不再被访问，依赖过期时间自然淘汰，无需 SCAN 整个 Keyspace
+ *
+ * 注意：
+ * 1. 永不过期的缓存，旧代数的 Key 不会淘汰，所以不使用代数清空，见 {@link SingleFlightRedisCache#clear()}
+ * 2. 代数缓存在各个节点本地，某个节点递增后，其它节点通过 {@link RedisCacheInvalidator} 的清空消息调用 {@link #invalidateLocalCache()}；
+ *    广播失败时，其它节点最多 localCacheTtl 内仍然读写旧代数的 Key
+ *
+ * @author wiflish
+ */
+public class RedisCacheGenerationDAO {
+
+    /**
+     * 缓存的代数
+     *
+     * KEY 格式：cache_generation
+     * VALUE 数据格式：HASH // field 为缓存名，value 为代数
+     * 过期时间：不设置
+     */
+    private static final String CACHE_GENERATION = "cache_generation";
+
+    private final StringRedisTemplate redisTemplate;
+
+    /**
+     * 所有缓存的代数，缓存名的数量有限，所以整体缓存在本地
+     */
+    private volatile Supplier<Map<String, Long>> generations;
+
+    private final Duration localCacheTtl;
+
+    /**
+     * @param redisTemplate Redis 操作
+     * @param localCacheTtl 代数的本地缓存时间。其它节点清空缓存后，通过 {@link RedisCacheInvalidator} 广播立即可见，广播失败时，最多经过该时间后可见；为 0 时，不使用本地缓存
+     */
+    public RedisCacheGenerationDAO(StringRedisTemplate redisTemplate, Duration localCacheTtl) {
+        this.redisTemplate = redisTemplate;
+        this.localCacheTtl = localCacheTtl;
+        this.generations = buildGenerationsSupplier();
+    }
+
+    /**
+     * 获得缓存的代数
+     *
+     * @param cacheName 缓存名
+     * @return 代数
+     */
+    public long getGeneration(String cacheName) {
+        return generations.get().getOrDefault(cacheName, 0L);
+    }
+
+    /**
+     * 递增缓存的代数，即清空该缓存
+     *
+     * @param cacheName 缓存名
+     */
+    public void incrementGeneration(String cacheName) {
+        redisTemplate.opsForHash().increment(CACHE_GENERATION, cacheName, 1L);
+        // 重建本地缓存，当前节点立即可见
+        invalidateLocalCache();
+    }
+
+    /**
+     * 重建代数的本地缓存，下次读取时重新加载
+     *
+     * 其它节点递增代数后，通过 {@link RedisCacheInvalidator} 广播，收到消息的节点调用该方法，立即可见
+     */
+    public void invalidateLocalCache() {
+        generations = buildGenerationsSupplier();
+    }
+
+    private Supplier<Map<String, Long>> buildGenerationsSupplier() {
+        if (localCacheTtl == null || localCacheTtl.isZero() || localCacheTtl.isNegative()) {
+            return this::loadGenerations;
+        }
+        return Suppliers.memoizeWithExpiration(this::loadGenerations, localCacheTtl.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    private Map<String, Long> loadGenerations() {
+        Map<Object, Object> entries = redisTemplate.opsForHash().entries(CACHE_GENERATION);
+        if (entries.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        Map<String, Long> result = new HashMap<>(entries.size());
+        entries.forEach((field, value) -> result.put(String.valueOf(field), Long.valueOf(String.valueOf(value))));
+        return result;
+    }
+
+}
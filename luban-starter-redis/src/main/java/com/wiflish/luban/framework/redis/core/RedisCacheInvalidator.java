@@ -0,0 +1,149 @@
+package com.wiflish.luban.framework.redis.core;
+
+import cn.hutool.core.util.IdUtil;
+import cn.hutool.core.util.StrUtil;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 本地缓存（L1）的失效广播器
+ *
+ * 某个节点 put、evict、clear 缓存后，通过 Redis Pub/Sub 广播给其它节点，失效它们的本地缓存。
+ * 同时在 channel + {@link #KEY_FILTER_CHANNEL_SUFFIX} 上，广播 {@link RedisCacheKeyFilter} 新增的 Key，添加到其它节点的过滤器
+ *
+ * 使用独立的 {@link RedisMessageListenerContainer}，不依赖 MQ 组件
+ *
+ * @author wiflish
+ */
+@Slf4j
+public class RedisCacheInvalidator implements MessageListener, InitializingBean, DisposableBean {
+
+    /**
+     * 消息的分隔符：节点编号 + 缓存名 + Redis Key（为空时，表示清空）
+     */
+    private static final String SEPARATOR = "\n";
+
+    /**
+     * 布隆过滤器新增 Key 的 channel 后缀
+     */
+    public static final String KEY_FILTER_CHANNEL_SUFFIX = ":key-filter";
+
+    /**
+     * 当前节点的编号，用于忽略自己发出的消息
+     */
+    private final String nodeId = IdUtil.fastSimpleUUID();
+
+    private final RedisConnectionFactory connectionFactory;
+    private final StringRedisTemplate redisTemplate;
+    private final String channel;
+    private final String keyFilterChannel;
+
+    /**
+     * 注册的 {@link LocalCachedRedisCache}，key 为缓存名
+     */
+    private final Map<String, LocalCachedRedisCache> caches = new ConcurrentHashMap<>();
+    /**
+     * 注册的 {@link RedisCacheKeyFilter}，key 为缓存名
+     */
+    private final Map<String, RedisCacheKeyFilter> keyFilters = new ConcurrentHashMap<>();
+
+    private RedisMessageListenerContainer container;
+
+    public RedisCacheInvalidator(RedisConnectionFactory connectionFactory, String channel) {
+        this.connectionFactory = connectionFactory;
+        this.redisTemplate = new StringRedisTemplate(connectionFactory);
+        this.channel = channel;
+        this.keyFilterChannel = channel + KEY_FILTER_CHANNEL_SUFFIX;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        container.addMessageListener(this, List.of(new ChannelTopic(channel), new ChannelTopic(keyFilterChannel)));
+        container.afterPropertiesSet();
+        container.start();
+    }
+
+    @Override
+    public void destroy() throws Exception {
+        if (container != null) {
+            container.destroy();
+        }
+    }
+
+    public void register(LocalCachedRedisCache cache) {
+        caches.put(cache.getName(), cache);
+    }
+
+    public void registerKeyFilter(RedisCacheKeyFilter keyFilter) {
+        keyFilters.put(keyFilter.getCacheName(), keyFilter);
+    }
+
+    /**
+     * 广播失效消息
+     *
+     * @param cacheName 缓存名
+     * @param key Redis Key，为空时表示清空
+     */
+    public void publish(String cacheName, String key) {
+        try {
+            redisTemplate.convertAndSend(channel, nodeId + SEPARATOR + cacheName + SEPARATOR + StrUtil.nullToEmpty(key));
+        } catch (Exception ex) {
+            // 广播失败时，其它节点的本地缓存，依赖过期时间失效
+            log.error("[publish][缓存({}) Key({}) 广播失效消息失败]", cacheName, key, ex);
+        }
+    }
+
+    /**
+     * 广播布隆过滤器新增的 Key
+     *
+     * @param cacheName 缓存名
+     * @param key 缓存 Key
+     */
+    public void publishKeyFilterPut(String cacheName, String key) {
+        try {
+            redisTemplate.convertAndSend(keyFilterChannel, nodeId + SEPARATOR + cacheName + SEPARATOR + key);
+        } catch (Exception ex) {
+            // 广播失败时，其它节点在下次重建过滤器之前，仍然误判为不存在
+            log.error("[publishKeyFilterPut][缓存({}) Key({}) 广播新增消息失败]", cacheName, key, ex);
+        }
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String[] parts = new String(message.getBody(), StandardCharsets.UTF_8).split(SEPARATOR, 3);
+        if (parts.length != 3 || nodeId.equals(parts[0])) {
+            return;
+        }
+        if (keyFilterChannel.equals(new String(message.getChannel(), StandardCharsets.UTF_8))) {
+            RedisCacheKeyFilter keyFilter = keyFilters.get(parts[1]);
+            if (keyFilter != null) {
+                keyFilter.putLocal(parts[2]);
+            }
+            return;
+        }
+        LocalCachedRedisCache cache = caches.get(parts[1]);
+        if (cache == null) {
+            return;
+        }
+        if (parts[2].isEmpty()) {
+            cache.clearLocal();
+        } else {
+            cache.evictLocal(parts[2]);
+        }
+    }
+
+}
@@ -0,0 +1,158 @@
+package com.wiflish.luban.framework.redis.core;
+
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import com.google.common.hash.BloomFilter;
+import com.google.common.hash.Funnels;
+import com.wiflish.luban.framework.common.util.cache.CacheUtils;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.function.Supplier;
+
+/**
+ * 缓存 Key 的布隆过滤器，用于防止缓存穿透
+ *
+ * 一定不存在的 Key，直接返回 null，不访问 Redis 和数据库。Key 统一使用 {@link String#valueOf(Object)} 比较
+ *
+ * 过滤器基于 {@link #keysSupplier} 构建，每隔 rebuildInterval 在 {@link CacheUtils} 的刷新线程池中异步重建，重建期间继续使用旧的过滤器。
+ * 重建期间 {@link #put(Object)} 的 Key，在替换前补充到新的过滤器，避免被早于它的快照覆盖
+ *
+ * 注意，新增的数据在重建之前会被误判为不存在，所以新增时需要调用 {@link #put(Object)}。
+ * 每个节点各自持有过滤器，设置 {@link #cacheInvalidator} 时，新增的 Key 通过它广播给其它节点；
+ * 未设置时，其它节点在下次重建之前，仍然会误判为不存在，所以多节点部署时需要开启 {@link RedisCacheInvalidator}
+ *
+ * @author wiflish
+ */
+@Slf4j
+public class RedisCacheKeyFilter {
+
+    private static final String FILTER_KEY = "filter";
+
+    /**
+     * 预期数量的最小值，避免数据较少时，新增少量数据后误判率升高
+     */
+    private static final int MIN_EXPECTED_INSERTIONS = 1000;
+
+    @Getter
+    private final String cacheName;
+    private final Supplier<? extends Collection<?>> keysSupplier;
+    /**
+     * 误判率
+     */
+    private final double fpp;
+
+    /**
+     * 定期触发重建，值和 {@link #filter} 相同
+     */
+    private final LoadingCache<String, BloomFilter<String>> filterCache;
+
+    /**
+     * 当前的过滤器，首次构建之前为空
+     */
+    private volatile BloomFilter<String> filter;
+    /**
+     * 重建期间新增的 Key，不在重建时为空。读写需要持有 this 锁
+     */
+    private Set<String> rebuildingKeys;
+
+    /**
+     * 新增 Key 的广播器，为空时只添加到当前节点
+     */
+    @Setter
+    private volatile RedisCacheInvalidator cacheInvalidator;
+
+    /**
+     * @param cacheName 缓存名
+     * @param keysSupplier 所有存在的 Key，例如说从数据库查询所有编号
+     * @param rebuildInterval 重建的间隔
+     * @param fpp 误判率，例如说 0.01
+     */
+    public RedisCacheKeyFilter(String cacheName, Supplier<? extends Collection<?>> keysSupplier,
+                               Duration rebuildInterval, double fpp) {
+        this.cacheName = cacheName;
+        this.keysSupplier = keysSupplier;
+        this.fpp = fpp;
+        this.filterCache = CacheUtils.buildAsyncReloadingCache("redis.keyFilter." + cacheName, rebuildInterval,
+                CacheLoader.from(key -> build()));
+    }
+
+    /**
+     * 判断 Key 是否可能存在
+     *
+     * @param key 缓存 Key
+     * @return 是否可能存在。构建失败时，返回 true
+     */
+    public boolean mightContain(Object key) {
+        try {
+            // 触发定期重建；重建完成后，filterCache 替换值之前，filter 已经是新的过滤器
+            filterCache.getUnchecked(FILTER_KEY);
+            return filter.mightContain(String.valueOf(key));
+        } catch (Exception ex) {
+            log.error("[mightContain][Key({}) 构建布隆过滤器失败，不进行过滤]", key, ex);
+            return true;
+        }
+    }
+
+    /**
+     * 添加 Key，新增数据时调用，避免重建前被误判为不存在
+     *
+     * Key 此前不存在时，通过 {@link #cacheInvalidator} 广播给其它节点
+     *
+     * @param key 缓存 Key
+     */
+    public void put(Object key) {
+        String value = String.valueOf(key);
+        if (!putLocal(value)) {
+            return;
+        }
+        RedisCacheInvalidator invalidator = cacheInvalidator;
+        if (invalidator != null) {
+            invalidator.publishKeyFilterPut(cacheName, value);
+        }
+    }
+
+    /**
+     * 添加 Key 到当前节点的过滤器，收到其它节点的广播时调用
+     *
+     * @param key 缓存 Key
+     * @return 是否新增，即此前判断为不存在；尚未构建时，无法判断，返回 true
+     */
+    public synchronized boolean putLocal(String key) {
+        boolean added = filter == null || filter.put(key);
+        if (rebuildingKeys != null) {
+            added = rebuildingKeys.add(key) || added;
+        }
+        return added;
+    }
+
+    private BloomFilter<String> build() {
+        synchronized (this) {
+            rebuildingKeys = new HashSet<>();
+        }
+        try {
+            Collection<?> keys = keysSupplier.get();
+            // 预留 50% 的空间，给重建之前新增的 Key
+            BloomFilter<String> newFilter = BloomFilter.create(Funnels.stringFunnel(StandardCharsets.UTF_8),
+                    Math.max(keys.size() + keys.size() / 2, MIN_EXPECTED_INSERTIONS), fpp);
+            keys.forEach(key -> newFilter.put(String.valueOf(key)));
+            // 补充重建期间新增的 Key，再替换；期间的 put 被阻塞，不会丢失
+            synchronized (this) {
+                rebuildingKeys.forEach(newFilter::put);
+                filter = newFilter;
+            }
+            return newFilter;
+        } finally {
+            synchronized (this) {
+                rebuildingKeys = null;
+            }
+        }
+    }
+
+}
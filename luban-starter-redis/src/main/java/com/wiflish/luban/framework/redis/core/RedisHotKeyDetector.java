@@ -0,0 +1,300 @@
+package com.wiflish.luban.framework.redis.core;
+
+import cn.hutool.core.util.StrUtil;
+import cn.hutool.crypto.digest.DigestUtil;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.MultiGauge;
+import io.micrometer.core.instrument.Tags;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Redis 热点 Key 探测器
+ *
+ * 1. 采样：每 sampleRate 次访问记录一次，降低开销
+ * 2. 统计：基于 Space-Saving 算法，只保留 capacity 个计数器，内存固定。
+ *    计数器按 Key 的 hash 分成多个分段，每个分段独立加锁，避免所有访问竞争同一把锁
+ * 3. 窗口：由后台线程每个 window 切换一次，估算访问次数 >= threshold 的 Key 成为热点 Key，在下一个窗口内生效
+ * 4. 本地副本：热点 Key 的缓存值，保存在短期的本地副本中，减少对单个 Redis 分片的访问。
+ *    副本只用于 Spring Cache，其它节点修改后，通过 {@link RedisCacheInvalidator} 广播失效；广播失败时，最多经过 replicaTtl 后可见
+ * 5. Metrics：访问次数最多的 topN 个 Key，注册为 luban.redis.hot.keys 指标。
+ *    Key 可能包含手机号等敏感信息，所以 {@link #TAG_KEY} 标签使用 Key 的摘要，{@link #TAG_PREFIX} 标签使用 Key 的首段（一般为缓存名）；
+ *    摘要和原始 Key 的对应关系，见切换窗口时的 DEBUG 日志
+ *
+ * @author wiflish
+ */
+@Slf4j
+public class RedisHotKeyDetector implements DisposableBean {
+
+    public static final String METRIC_HOT_KEYS = "luban.redis.hot.keys";
+
+    public static final String TAG_KEY = "key";
+    public static final String TAG_PREFIX = "prefix";
+
+    /**
+     * Metrics 中 Key 首段的最大长度
+     */
+    private static final int TAG_PREFIX_MAX_LENGTH = 64;
+
+    /**
+     * 计数器的最大分段数
+     */
+    private static final int MAX_SHARDS = 16;
+
+    private final int sampleRate;
+    private final long threshold;
+    private final int metricsTopN;
+
+    /**
+     * 当前窗口的计数器分段
+     */
+    private final Shard[] shards;
+
+    /**
+     * 上一个窗口的热点 Key
+     */
+    private volatile Set<String> hotKeys = Collections.emptySet();
+
+    /**
+     * 热点 Key 的本地副本，key 为 Redis Key
+     */
+    private final Cache<String, Object> replicas;
+
+    /**
+     * 热点 Key 的 Metrics，为空时不记录
+     */
+    private final MultiGauge hotKeysGauge;
+
+    /**
+     * 切换窗口的调度器，window 为 0 时不创建，需要手动调用 {@link #rollWindow()}
+     */
+    private final ScheduledExecutorService scheduler;
+
+    /**
+     * @param sampleRate 采样率，每 sampleRate 次访问记录一次
+     * @param capacity 计数器的数量
+     * @param window 统计窗口，为 0 时不自动切换
+     * @param threshold 窗口内估算的访问次数达到该值时，成为热点 Key
+     * @param replicaTtl 本地副本的过期时间，为 0 时不使用本地副本
+     * @param metricsTopN 注册为 Metrics 的 Key 数量
+     * @param meterRegistry Metrics 注册器，为空时不记录
+     */
+    public RedisHotKeyDetector(int sampleRate, int capacity, Duration window, long threshold,
+                               Duration replicaTtl, int metricsTopN, MeterRegistry meterRegistry) {
+        this.sampleRate = Math.max(sampleRate, 1);
+        this.threshold = threshold;
+        this.metricsTopN = metricsTopN;
+        // 分段数为 2 的幂，且每个分段至少 1 个计数器
+        int shardCount = Math.min(MAX_SHARDS, Integer.highestOneBit(Math.max(capacity, 1)));
+        this.shards = new Shard[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            this.shards[i] = new Shard(Math.max(capacity / shardCount, 1));
+        }
+        this.replicas = replicaTtl != null && !replicaTtl.isZero() && !replicaTtl.isNegative()
+                ? CacheBuilder.newBuilder().maximumSize(capacity).expireAfterWrite(replicaTtl).build() : null;
+        this.hotKeysGauge = meterRegistry != null ? MultiGauge.builder(METRIC_HOT_KEYS)
+                .description("Redis 热点 Key 在上一个窗口内估算的访问次数").register(meterRegistry) : null;
+        this.scheduler = buildScheduler(window);
+    }
+
+    @Override
+    public void destroy() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    /**
+     * 记录 Key 的一次访问
+     *
+     * @param key Redis Key
+     * @return 是否为热点 Key
+     */
+    public boolean record(String key) {
+        if (sampleRate == 1 || ThreadLocalRandom.current().nextInt(sampleRate) == 0) {
+            getShard(key).increment(key);
+        }
+        return hotKeys.contains(key);
+    }
+
+    public boolean isHot(String key) {
+        return hotKeys.contains(key);
+    }
+
+    public Set<String> getHotKeys() {
+        return hotKeys;
+    }
+
+    /**
+     * 是否使用本地副本
+     *
+     * @return 是否使用
+     */
+    public boolean isReplicaEnabled() {
+        return replicas != null;
+    }
+
+    /**
+     * 读取热点 Key 的本地副本
+     *
+     * @param key Redis Key
+     * @return 副本，不存在时返回 null
+     */
+    public Object getReplica(String key) {
+        return replicas != null ? replicas.getIfPresent(key) : null;
+    }
+
+    public void putReplica(String key, Object value) {
+        if (replicas != null) {
+            replicas.put(key, value);
+        }
+    }
+
+    public void evictReplica(String key) {
+        if (replicas != null) {
+            replicas.invalidate(key);
+        }
+    }
+
+    public void clearReplicas() {
+        if (replicas != null) {
+            replicas.invalidateAll();
+        }
+    }
+
+    /**
+     * 切换窗口：根据当前窗口的计数，选出热点 Key，并清空计数
+     *
+     * 由调度器每个 window 调用一次；window 为 0 时，需要手动调用
+     */
+    public synchronized void rollWindow() {
+        Map<String, Long> counters = new HashMap<>();
+        for (Shard shard : shards) {
+            counters.putAll(shard.drain());
+        }
+        // 估算访问次数 = 采样次数 * 采样率
+        List<Map.Entry<String, Long>> sorted = counters.entrySet().stream()
+                .sorted(Map.Entry.<String, Long>comparingByValue().reversed()).toList();
+        Set<String> newHotKeys = sorted.stream().filter(entry -> entry.getValue() * sampleRate >= threshold)
+                .map(Map.Entry::getKey).collect(Collectors.toUnmodifiableSet());
+        if (!newHotKeys.isEmpty() && !newHotKeys.equals(hotKeys)) {
+            // Key 可能包含敏感信息，INFO 只打印摘要，原始 Key 打印在 DEBUG
+            log.info("[rollWindow][热点 Key 的摘要({})]", newHotKeys.stream()
+                    .map(RedisHotKeyDetector::digestKey).collect(Collectors.toSet()));
+            if (log.isDebugEnabled()) {
+                log.debug("[rollWindow][热点 Key({})]", newHotKeys.stream()
+                        .collect(Collectors.toMap(key -> key, RedisHotKeyDetector::digestKey)));
+            }
+        }
+        hotKeys = newHotKeys;
+        if (hotKeysGauge != null) {
+            List<MultiGauge.Row<?>> rows = sorted.stream().limit(metricsTopN)
+                    .<MultiGauge.Row<?>>map(entry -> MultiGauge.Row.of(
+                            Tags.of(TAG_KEY, digestKey(entry.getKey()), TAG_PREFIX, getKeyPrefix(entry.getKey())),
+                            entry.getValue() * sampleRate))
+                    .toList();
+            hotKeysGauge.register(rows, true);
+        }
+    }
+
+    /**
+     * 获得 Key 的摘要，用作 {@link #TAG_KEY} 标签
+     *
+     * @param key Redis Key
+     * @return 摘要
+     */
+    public static String digestKey(String key) {
+        return DigestUtil.md5Hex16(key);
+    }
+
+    private static String getKeyPrefix(String key) {
+        return StrUtil.sub(StrUtil.subBefore(key, ':', false), 0, TAG_PREFIX_MAX_LENGTH);
+    }
+
+    private Shard getShard(String key) {
+        int hash = key.hashCode();
+        return shards[(hash ^ (hash >>> 16)) & (shards.length - 1)];
+    }
+
+    private ScheduledExecutorService buildScheduler(Duration window) {
+        if (window == null || window.isZero() || window.isNegative()) {
+            return null;
+        }
+        ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "luban-redis-hot-key");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long windowMillis = window.toMillis();
+        executor.scheduleAtFixedRate(() -> {
+            // 捕获异常，避免后续的切换被取消
+            try {
+                rollWindow();
+            } catch (Exception ex) {
+                log.error("[rollWindow][切换热点 Key 的窗口失败]", ex);
+            }
+        }, windowMillis, windowMillis, TimeUnit.MILLISECONDS);
+        return executor;
+    }
+
+    /**
+     * 计数器的分段
+     */
+    private static final class Shard {
+
+        /**
+         * 计数器，key 为 Redis Key，value 为采样后的次数
+         */
+        private final Map<String, Long> counters = new HashMap<>();
+        private final int capacity;
+
+        private Shard(int capacity) {
+            this.capacity = capacity;
+        }
+
+        /**
+         * Space-Saving：计数器已满时，替换次数最少的 Key，新 Key 继承它的次数
+         */
+        private synchronized void increment(String key) {
+            Long count = counters.get(key);
+            if (count != null || counters.size() < capacity) {
+                counters.put(key, count != null ? count + 1 : 1L);
+                return;
+            }
+            Map.Entry<String, Long> min = null;
+            for (Map.Entry<String, Long> entry : counters.entrySet()) {
+                if (min == null || entry.getValue() < min.getValue()) {
+                    min = entry;
+                }
+            }
+            long minCount = min.getValue();
+            counters.remove(min.getKey());
+            counters.put(key, minCount + 1);
+        }
+
+        /**
+         * 取出当前窗口的计数，并清空
+         */
+        private synchronized Map<String, Long> drain() {
+            Map<String, Long> result = new HashMap<>(counters);
+            counters.clear();
+            return result;
+        }
+
+    }
+
+}
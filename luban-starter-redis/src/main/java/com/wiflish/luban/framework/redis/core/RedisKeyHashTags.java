@@ -0,0 +1,64 @@
+package com.wiflish.luban.framework.redis.core;
+
+import java.util.function.Supplier;
+
+/**
+ * Redis Cluster 的 hash tag 工具类
+ *
+ * Redis Cluster 只使用 Key 中第一个 {} 内的内容计算 slot，所以把租户编号包装成 {tenantId} 后，
+ * 同一个租户的 Key 都落在同一个 slot，可以使用 MGET、Pipeline、Lua 脚本等多 Key 操作
+ *
+ * 默认不开启，由多租户组件通过 {@link #init(Supplier)} 开启
+ *
+ * @author wiflish
+ */
+public class RedisKeyHashTags {
+
+    /**
+     * 当前上下文的 hash tag 的提供者，为空时表示不开启
+     */
+    private static volatile Supplier<Object> tagSupplier;
+
+    public static void init(Supplier<Object> tagSupplier) {
+        RedisKeyHashTags.tagSupplier = tagSupplier;
+    }
+
+    public static boolean isEnabled() {
+        return tagSupplier != null;
+    }
+
+    /**
+     * 包装成 hash tag，格式为 {tag}
+     *
+     * @param tag 标签，例如说租户编号
+     * @return hash tag
+     */
+    public static String wrap(Object tag) {
+        return "{" + tag + "}";
+    }
+
+    /**
+     * 格式化 Key 中的标签：开启时，包装成 hash tag；否则，原样返回
+     *
+     * @param tag 标签，例如说租户编号
+     * @return 标签
+     */
+    public static String format(Object tag) {
+        return isEnabled() ? wrap(tag) : String.valueOf(tag);
+    }
+
+    /**
+     * 给 Key 拼接当前上下文的 hash tag 前缀，格式为 {tag}:key
+     *
+     * 未开启，或者当前上下文没有标签（例如说忽略租户）时，原样返回
+     *
+     * @param key Key
+     * @return 拼接后的 Key
+     */
+    public static String tag(String key) {
+        Supplier<Object> supplier = tagSupplier;
+        Object tag = supplier != null ? supplier.get() : null;
+        return tag != null ? wrap(tag) + ":" + key : key;
+    }
+
+}
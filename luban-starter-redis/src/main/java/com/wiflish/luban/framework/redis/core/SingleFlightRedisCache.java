@@ -0,0 +1,647 @@
+package com.wiflish.luban.framework.redis.core;
+
+import cn.hutool.core.thread.ThreadUtil;
+import cn.hutool.core.util.IdUtil;
+import com.wiflish.luban.framework.common.util.cache.CacheUtils;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.Striped;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.support.NullValue;
+import org.springframework.cache.support.SimpleValueWrapper;
+import org.springframework.data.redis.cache.RedisCache;
+import org.springframework.data.redis.cache.RedisCacheConfiguration;
+import org.springframework.data.redis.cache.RedisCacheWriter;
+import org.springframework.data.redis.connection.RedisStringCommands;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.types.Expiration;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.function.Function;
+
+/**
+ * 防止缓存击穿、穿透的 {@link RedisCache} 实现类
+ *
+ * 防止击穿，作用于 {@link Cacheable#sync()} 为 true 的场景：
+ * 1. 单飞：同一个 Key 未命中时，当前节点只有一个线程加载，其它线程等待后读取缓存。
+ *    {@link RedisCache} 默认锁住整个缓存，这里按 Key 分段加锁
+ * 2. 分布式租约：设置 {@link #leaseTime} 时，多个节点之间只有获得租约的节点加载，
+ *    其它节点轮询缓存，租约到期仍未读到时，自己加载
+ * 3. 提前刷新：设置 {@link #earlyRefreshWindow} 时，命中缓存后按 XFetch 算法，
+ *    越接近过期，越大概率提前刷新，避免大量请求同时未命中。
+ *    刷新提交到 {@link CacheUtils#executeRefreshWithContext(Runnable)} 共享的有界线程池中异步执行，当前请求立即返回旧值；
+ *    线程池满时放弃本次刷新。刷新线程携带触发刷新的请求的上下文，多租户缓存依赖它拼接 Key
+ *
+ * 防止穿透：设置 {@link #keyFilter} 时，一定不存在的 Key 直接返回 null 值，不访问 Redis 和数据库
+ *
+ * 代数清空：设置 {@link #cacheGenerationDAO} 时，Key 中带上缓存的代数，清空时只递增代数，旧代数的 Key 依赖过期时间淘汰，不 SCAN 删除。
+ * 永不过期（{@link #isPersistent()}）的缓存例外，仍然 SCAN 删除。其它节点通过 {@link RedisCacheInvalidator} 广播重建代数的本地缓存
+ *
+ * 热点 Key：设置 {@link #hotKeyDetector} 时，读取 Redis 前记录访问频率，热点 Key 优先读取短期的本地副本。
+ * 写入时失效当前节点的副本，其它节点的副本由 {@link LocalCachedRedisCache} 广播失效
+ *
+ * 批量读取：{@link #getAll(Collection, Function)} 使用一次 MGET 读取，只批量加载未命中的 Key，再使用一次 Pipeline 写回
+ *
+ * 完整的 Redis Key 由 {@link #createCacheKey(Object)} 计算，其中的命名空间可能需要读取代数，所以每次读写只计算一次，
+ * 通过 {@link #lookup(Object, String)}、{@link #put(Object, String, Object)}、{@link #evict(Object, String)} 传递给子类
+ *
+ * @author wiflish
+ */
+@Slf4j
+public class SingleFlightRedisCache extends RedisCache {
+
+    private static final String LEASE_SUFFIX = ":lease";
+
+    /**
+     * 被 {@link #keyFilter} 过滤的 Key，返回的 null 值
+     */
+    private static final ValueWrapper REJECTED_VALUE = new SimpleValueWrapper(null);
+
+    /**
+     * 判断是否永不过期时，传给 TtlFunction 的 Key、值
+     */
+    private static final Object TTL_PROBE = new Object();
+
+    /**
+     * 等待租约时，轮询缓存的间隔
+     */
+    private static final long LEASE_POLL_INTERVAL_MILLIS = 50L;
+
+    /**
+     * 释放租约的脚本：只删除自己持有的租约
+     */
+    private static final RedisScript<Long> RELEASE_LEASE_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('del', KEYS[1]) else return 0 end",
+            Long.class);
+
+    /**
+     * 按 Key 分段的锁，实现当前节点的单飞
+     */
+    private final Striped<Lock> locks = Striped.lazyWeakLock(1024);
+
+    /**
+     * Key 的过期时间戳，用于提前刷新，避免每次命中都查询 PTTL
+     */
+    private final Cache<String, Long> expireAts = CacheBuilder.newBuilder().maximumSize(10000).build();
+    /**
+     * 正在异步刷新的 Key，避免同一个 Key 重复提交刷新任务
+     */
+    private final Set<String> refreshingKeys = ConcurrentHashMap.newKeySet();
+
+    /**
+     * 是否永不过期，见 {@link #isPersistent()}
+     */
+    private final boolean persistent;
+
+    /**
+     * 用于租约、查询过期时间，为空时不开启分布式租约和提前刷新
+     */
+    @Setter
+    private StringRedisTemplate redisTemplate;
+    /**
+     * 分布式租约的时长，为空时不开启
+     */
+    @Setter
+    private Duration leaseTime;
+    /**
+     * 提前刷新的窗口，约等于加载耗时，为空时不开启
+     */
+    @Setter
+    private Duration earlyRefreshWindow;
+    /**
+     * Key 的布隆过滤器，为空时不开启
+     */
+    @Setter
+    private volatile RedisCacheKeyFilter keyFilter;
+    /**
+     * 缓存代数的 DAO，为空时不开启，清空时 SCAN 删除
+     */
+    @Setter
+    @Getter(AccessLevel.PROTECTED)
+    private RedisCacheGenerationDAO cacheGenerationDAO;
+    /**
+     * 热点 Key 探测器，为空时不开启
+     */
+    @Setter
+    private RedisHotKeyDetector hotKeyDetector;
+
+    public SingleFlightRedisCache(String name, RedisCacheWriter cacheWriter,
+                                  RedisCacheConfiguration cacheConfiguration) {
+        super(name, cacheWriter, cacheConfiguration);
+        RedisCacheWriter.TtlFunction ttlFunction = cacheConfiguration.getTtlFunction();
+        this.persistent = isPersistent(ttlFunction.getTimeToLive(TTL_PROBE, TTL_PROBE))
+                || (cacheConfiguration.getAllowCacheNullValues()
+                && isPersistent(ttlFunction.getTimeToLive(TTL_PROBE, NullValue.INSTANCE)));
+    }
+
+    @Override
+    protected String createCacheKey(Object key) {
+        return withKeyPrefix(getKeyNamespace() + convertKey(key));
+    }
+
+    /**
+     * 拼接缓存名对应的前缀
+     *
+     * @param key 不包含前缀的 Key，也可以是 SCAN 的 pattern
+     * @return 完整的 Redis Key
+     */
+    protected String withKeyPrefix(String key) {
+        return getCacheConfiguration().usePrefix() ? getCacheConfiguration().getKeyPrefixFor(getName()) + key : key;
+    }
+
+    /**
+     * 是否永不过期，即值（允许缓存 null 值时，也包括 null 值）的过期时间为 0
+     *
+     * 永不过期的缓存，不能通过递增代数清空：旧代数的 Key 不会过期淘汰，会一直占用 Redis 内存，只能 SCAN 删除
+     *
+     * @return 是否永不过期
+     */
+    public boolean isPersistent() {
+        return persistent;
+    }
+
+    /**
+     * 获得 Key 的命名空间，拼接在前缀和 Key 之间，子类可以重写，例如说多租户
+     *
+     * @return 命名空间，为空字符串或以 ":" 结尾
+     */
+    protected String getKeyNamespace() {
+        return cacheGenerationDAO != null ? cacheGenerationDAO.getGeneration(getName()) + ":" : "";
+    }
+
+    @Override
+    protected final Object lookup(Object key) {
+        return lookup(key, createCacheKey(key));
+    }
+
+    /**
+     * 读取缓存
+     *
+     * @param key 缓存 Key
+     * @param cacheKey 完整的 Redis Key，即 {@link #createCacheKey(Object)} 的结果
+     * @return 存储值，未命中时返回 null
+     */
+    protected Object lookup(Object key, String cacheKey) {
+        if (hotKeyDetector == null) {
+            return lookupRedis(key, cacheKey);
+        }
+        // 热点 Key 优先读取本地副本，减少对单个 Redis 分片的访问
+        boolean hot = hotKeyDetector.record(cacheKey);
+        if (hot) {
+            Object value = hotKeyDetector.getReplica(cacheKey);
+            if (value != null) {
+                return value;
+            }
+        }
+        Object value = lookupRedis(key, cacheKey);
+        if (hot && value != null) {
+            hotKeyDetector.putReplica(cacheKey, value);
+        }
+        return value;
+    }
+
+    @Override
+    public final void evict(Object key) {
+        evict(key, createCacheKey(key));
+    }
+
+    /**
+     * 删除缓存
+     *
+     * @param key 缓存 Key
+     * @param cacheKey 完整的 Redis Key
+     */
+    protected void evict(Object key, String cacheKey) {
+        getCacheWriter().remove(getName(), serializeCacheKey(cacheKey));
+        evictReplica(cacheKey);
+    }
+
+    @Override
+    public void clear() {
+        clearReplicas();
+        if (cacheGenerationDAO == null) {
+            super.clear();
+            return;
+        }
+        // 开启代数时，递增缓存的代数，旧的 key 依赖过期时间淘汰
+        if (!persistent) {
+            cacheGenerationDAO.incrementGeneration(getName());
+            return;
+        }
+        // 永不过期的缓存，旧的 key 不会淘汰，所以 SCAN 删除所有代数的 key
+        getCacheWriter().clean(getName(), serializeCacheKey(withKeyPrefix("*")));
+    }
+
+    @Override
+    public ValueWrapper get(Object key) {
+        // 一定不存在的 Key，返回 null 值，视为命中，不调用被缓存的方法
+        if (isRejected(key)) {
+            return REJECTED_VALUE;
+        }
+        return super.get(key);
+    }
+
+    @Override
+    public <T> T get(Object key, Class<T> type) {
+        if (isRejected(key)) {
+            return null;
+        }
+        return super.get(key, type);
+    }
+
+    @Override
+    public final void put(Object key, Object value) {
+        put(key, createCacheKey(key), value);
+    }
+
+    /**
+     * 写入缓存
+     *
+     * @param key 缓存 Key
+     * @param cacheKey 完整的 Redis Key
+     * @param value 值
+     */
+    protected void put(Object key, String cacheKey, Object value) {
+        getCacheWriter().put(getName(), serializeCacheKey(cacheKey), serializeCacheValue(toStoreValue(value)),
+                getCacheConfiguration().getTtlFunction().getTimeToLive(key, value));
+        addToKeyFilter(key, value);
+        evictReplica(cacheKey);
+    }
+
+    @Override
+    public ValueWrapper putIfAbsent(Object key, Object value) {
+        ValueWrapper result = super.putIfAbsent(key, value);
+        addToKeyFilter(key, value);
+        evictReplica(createCacheKey(key));
+        return result;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        String cacheKey = createCacheKey(key);
+        ValueWrapper result = getWrapper(key, cacheKey);
+        if (result != null) {
+            refreshAhead(key, cacheKey, valueLoader);
+            return (T) result.get();
+        }
+
+        Lock lock = locks.get(cacheKey);
+        lock.lock();
+        try {
+            // 双重检查，其它线程可能已经加载
+            result = getWrapper(key, cacheKey);
+            if (result != null) {
+                return (T) result.get();
+            }
+            return loadWithLease(key, cacheKey, valueLoader);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 批量读取缓存，未命中的 Key 通过 loader 一次性加载，并写回缓存
+     *
+     * 1. 使用一次 MGET 读取，未设置 {@link #redisTemplate} 时，逐个读取
+     * 2. 写回时使用一次 Pipeline，每个 Key 按 TTL 配置（含抖动、null-ttl）设置过期时间
+     * 3. 允许缓存 null 值时，loader 未返回的 Key 缓存为 null 值，避免反复加载
+     *
+     * 注意，批量加载不经过单飞、租约
+     *
+     * @param keys 缓存 Key 集合
+     * @param loader 批量加载器，参数为未命中的 Key 集合，返回 Key 和值的映射
+     * @return Key 和值的映射，不包含值为 null 的 Key，顺序和 keys 一致
+     */
+    @SuppressWarnings("unchecked")
+    public <K, V> Map<K, V> getAll(Collection<K> keys, Function<Collection<K>, Map<K, V>> loader) {
+        Map<K, String> cacheKeys = new LinkedHashMap<>();
+        keys.stream().distinct().filter(key -> !isRejected(key)).forEach(key -> cacheKeys.put(key, createCacheKey(key)));
+        List<K> candidates = new ArrayList<>(cacheKeys.keySet());
+        // 1. 批量读取
+        Map<K, Object> values = multiGet(cacheKeys);
+        // 2. 批量加载未命中的 Key，并写回
+        List<K> missKeys = candidates.stream().filter(key -> !values.containsKey(key)).toList();
+        if (!missKeys.isEmpty()) {
+            Map<K, V> loaded = loader.apply(missKeys);
+            Map<K, Object> writes = new LinkedHashMap<>();
+            for (K key : missKeys) {
+                V value = loaded != null ? loaded.get(key) : null;
+                if (value != null || isAllowNullValues()) {
+                    writes.put(key, value);
+                    values.put(key, toStoreValue(value));
+                }
+            }
+            multiPut(writes, cacheKeys);
+        }
+
+        // 3. 按顺序返回，过滤 null 值
+        Map<K, V> result = new LinkedHashMap<>();
+        for (K key : candidates) {
+            Object value = fromStoreValue(values.get(key));
+            if (value != null) {
+                result.put(key, (V) value);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 批量读取，返回命中的 Key 和存储值（可能为 {@link org.springframework.cache.support.NullValue}）的映射
+     *
+     * @param cacheKeys 缓存 Key 和完整的 Redis Key 的映射
+     */
+    protected <K> Map<K, Object> multiGet(Map<K, String> cacheKeys) {
+        Map<K, Object> values = new HashMap<>();
+        if (cacheKeys.isEmpty()) {
+            return values;
+        }
+        if (redisTemplate == null) {
+            cacheKeys.forEach((key, cacheKey) -> {
+                Object value = lookup(key, cacheKey);
+                if (value != null) {
+                    values.put(key, value);
+                }
+            });
+            return values;
+        }
+        List<K> keys = new ArrayList<>(cacheKeys.keySet());
+        byte[][] binaryKeys = keys.stream().map(key -> serializeCacheKey(cacheKeys.get(key))).toArray(byte[][]::new);
+        List<byte[]> results = redisTemplate.execute(
+                (RedisCallback<List<byte[]>>) connection -> connection.stringCommands().mGet(binaryKeys));
+        if (results == null) {
+            return values;
+        }
+        for (int i = 0; i < keys.size() && i < results.size(); i++) {
+            byte[] result = results.get(i);
+            if (result != null) {
+                values.put(keys.get(i), deserializeCacheValue(result));
+            }
+        }
+        return values;
+    }
+
+    /**
+     * 批量写入，值为 null 时，写入 null 值
+     *
+     * @param values 缓存 Key 和值的映射
+     * @param cacheKeys 缓存 Key 和完整的 Redis Key 的映射
+     */
+    protected <K> void multiPut(Map<K, Object> values, Map<K, String> cacheKeys) {
+        if (values.isEmpty()) {
+            return;
+        }
+        if (redisTemplate == null) {
+            values.forEach((key, value) -> put(key, cacheKeys.get(key), value));
+            return;
+        }
+        // 在 Pipeline 之前计算 Key、值、过期时间
+        List<byte[]> binaryKeys = new ArrayList<>(values.size());
+        List<byte[]> cacheValues = new ArrayList<>(values.size());
+        List<Duration> ttls = new ArrayList<>(values.size());
+        values.forEach((key, value) -> {
+            binaryKeys.add(serializeCacheKey(cacheKeys.get(key)));
+            cacheValues.add(serializeCacheValue(toStoreValue(value)));
+            ttls.add(getCacheConfiguration().getTtlFunction().getTimeToLive(key, value));
+        });
+        redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            for (int i = 0; i < binaryKeys.size(); i++) {
+                Duration ttl = ttls.get(i);
+                if (ttl == null || ttl.isZero() || ttl.isNegative()) {
+                    connection.stringCommands().set(binaryKeys.get(i), cacheValues.get(i));
+                } else {
+                    connection.stringCommands().set(binaryKeys.get(i), cacheValues.get(i), Expiration.from(ttl),
+                            RedisStringCommands.SetOption.upsert());
+                }
+            }
+            return null;
+        });
+        values.forEach(this::addToKeyFilter);
+        values.keySet().forEach(key -> evictReplica(cacheKeys.get(key)));
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T loadWithLease(Object key, String cacheKey, Callable<T> valueLoader) {
+        if (redisTemplate == null || leaseTime == null) {
+            return load(key, cacheKey, valueLoader);
+        }
+        String leaseKey = cacheKey + LEASE_SUFFIX;
+        String token = IdUtil.fastSimpleUUID();
+        if (Boolean.TRUE.equals(redisTemplate.opsForValue().setIfAbsent(leaseKey, token, leaseTime))) {
+            try {
+                return load(key, cacheKey, valueLoader);
+            } finally {
+                releaseLease(leaseKey, token);
+            }
+        }
+        // 其它节点正在加载，轮询缓存
+        long deadline = System.currentTimeMillis() + leaseTime.toMillis();
+        while (System.currentTimeMillis() < deadline) {
+            ThreadUtil.sleep(LEASE_POLL_INTERVAL_MILLIS);
+            ValueWrapper result = getWrapper(key, cacheKey);
+            if (result != null) {
+                return (T) result.get();
+            }
+        }
+        // 租约到期仍未读到，可能是其它节点加载失败，自己加载
+        return load(key, cacheKey, valueLoader);
+    }
+
+    private <T> T load(Object key, String cacheKey, Callable<T> valueLoader) {
+        T value;
+        try {
+            value = valueLoader.call();
+        } catch (Exception ex) {
+            throw new ValueRetrievalException(key, valueLoader, ex);
+        }
+        put(key, cacheKey, value);
+        return value;
+    }
+
+    private void refreshAhead(Object key, String cacheKey, Callable<?> valueLoader) {
+        if (redisTemplate == null || earlyRefreshWindow == null) {
+            return;
+        }
+        try {
+            if (!shouldRefresh(cacheKey) || !refreshingKeys.add(cacheKey)) {
+                return;
+            }
+        } catch (Exception ex) {
+            log.warn("[refreshAhead][缓存({}) Key({}) 查询过期时间失败，继续使用旧值]", getName(), key, ex);
+            return;
+        }
+        // 异步刷新，当前请求继续使用旧值
+        try {
+            CacheUtils.executeRefreshWithContext(() -> {
+                try {
+                    doRefreshAhead(key, cacheKey, valueLoader);
+                } catch (Exception ex) {
+                    log.warn("[refreshAhead][缓存({}) Key({}) 提前刷新失败，继续使用旧值]", getName(), key, ex);
+                } finally {
+                    refreshingKeys.remove(cacheKey);
+                }
+            });
+        } catch (RejectedExecutionException ex) {
+            refreshingKeys.remove(cacheKey);
+            log.warn("[refreshAhead][缓存({}) Key({}) 刷新线程池已满，放弃本次提前刷新]", getName(), key);
+        }
+    }
+
+    /**
+     * 判断是否需要提前刷新
+     *
+     * 本地没有过期时间时，查询一次 PTTL 后直接判断；
+     * 本地已有过期时间时，它可能已经过时（其它节点已经刷新），所以判断需要刷新后，重新查询一次再判断
+     */
+    private boolean shouldRefresh(String cacheKey) {
+        Long expireAt = expireAts.getIfPresent(cacheKey);
+        if (expireAt == null) {
+            expireAt = queryExpireAt(cacheKey);
+            expireAts.put(cacheKey, expireAt);
+            return shouldRefresh(expireAt);
+        }
+        if (!shouldRefresh(expireAt)) {
+            return false;
+        }
+        expireAt = queryExpireAt(cacheKey);
+        expireAts.put(cacheKey, expireAt);
+        return shouldRefresh(expireAt);
+    }
+
+    private void doRefreshAhead(Object key, String cacheKey, Callable<?> valueLoader) {
+        // 只由一个线程、一个节点刷新，其它请求继续使用旧值
+        Lock lock = locks.get(cacheKey);
+        if (!lock.tryLock()) {
+            return;
+        }
+        try {
+            if (leaseTime == null) {
+                load(key, cacheKey, valueLoader);
+                expireAts.invalidate(cacheKey);
+                return;
+            }
+            String leaseKey = cacheKey + LEASE_SUFFIX;
+            String token = IdUtil.fastSimpleUUID();
+            if (!Boolean.TRUE.equals(redisTemplate.opsForValue().setIfAbsent(leaseKey, token, leaseTime))) {
+                return;
+            }
+            try {
+                load(key, cacheKey, valueLoader);
+                expireAts.invalidate(cacheKey);
+            } finally {
+                releaseLease(leaseKey, token);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 清空热点 Key 的本地副本
+     */
+    protected void clearReplicas() {
+        if (hotKeyDetector != null) {
+            hotKeyDetector.clearReplicas();
+        }
+    }
+
+    /**
+     * 失效热点 Key 的本地副本
+     *
+     * @param cacheKey Redis Key
+     */
+    protected void evictReplica(String cacheKey) {
+        if (hotKeyDetector != null) {
+            hotKeyDetector.evictReplica(cacheKey);
+        }
+    }
+
+    /**
+     * 是否使用热点 Key 的本地副本
+     *
+     * @return 是否使用
+     */
+    protected boolean isReplicaEnabled() {
+        return hotKeyDetector != null && hotKeyDetector.isReplicaEnabled();
+    }
+
+    /**
+     * 读取 Redis，等价于 {@link RedisCache#lookup(Object)}，但使用已经计算的 Redis Key
+     */
+    private Object lookupRedis(Object key, String cacheKey) {
+        byte[] binaryKey = serializeCacheKey(cacheKey);
+        byte[] value = getCacheConfiguration().isTimeToIdleEnabled()
+                ? getCacheWriter().get(getName(), binaryKey, getCacheConfiguration().getTtlFunction().getTimeToLive(key, null))
+                : getCacheWriter().get(getName(), binaryKey);
+        return value != null ? deserializeCacheValue(value) : null;
+    }
+
+    private ValueWrapper getWrapper(Object key, String cacheKey) {
+        // 一定不存在的 Key，返回 null 值，视为命中，不调用被缓存的方法
+        if (isRejected(key)) {
+            return REJECTED_VALUE;
+        }
+        return toValueWrapper(lookup(key, cacheKey));
+    }
+
+    private static boolean isPersistent(Duration ttl) {
+        return ttl == null || ttl.isZero() || ttl.isNegative();
+    }
+
+    private boolean isRejected(Object key) {
+        RedisCacheKeyFilter filter = keyFilter;
+        return filter != null && !filter.mightContain(key);
+    }
+
+    private void addToKeyFilter(Object key, Object value) {
+        RedisCacheKeyFilter filter = keyFilter;
+        if (filter != null && value != null) {
+            filter.put(key);
+        }
+    }
+
+    /**
+     * XFetch 算法：剩余时间 <= -window * ln(random) 时刷新，即刷新的概率为 e^(-剩余时间 / window)
+     */
+    private boolean shouldRefresh(long expireAt) {
+        long remaining = expireAt - System.currentTimeMillis();
+        return -earlyRefreshWindow.toMillis() * Math.log(ThreadLocalRandom.current().nextDouble()) >= remaining;
+    }
+
+    private long queryExpireAt(String cacheKey) {
+        Long ttl = redisTemplate.getExpire(cacheKey, TimeUnit.MILLISECONDS);
+        // 小于 0 时，表示永不过期或不存在，不提前刷新
+        return ttl != null && ttl >= 0 ? System.currentTimeMillis() + ttl : Long.MAX_VALUE;
+    }
+
+    private void releaseLease(String leaseKey, String token) {
+        try {
+            redisTemplate.execute(RELEASE_LEASE_SCRIPT, Collections.singletonList(leaseKey), token);
+        } catch (Exception ex) {
+            // 释放失败时，依赖租约的过期时间
+            log.error("[releaseLease][租约({}) 释放失败]", leaseKey, ex);
+        }
+    }
+
+}
@@ -2,50 +2,262 @@ package com.wiflish.luban.framework.redis.core;
 
 import cn.hutool.core.util.NumberUtil;
 import cn.hutool.core.util.StrUtil;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.support.NullValue;
 import org.springframework.data.redis.cache.RedisCache;
 import org.springframework.data.redis.cache.RedisCacheConfiguration;
 import org.springframework.data.redis.cache.RedisCacheManager;
 import org.springframework.data.redis.cache.RedisCacheWriter;
+import org.springframework.data.redis.core.StringRedisTemplate;
 
 import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
 
 /**
- * 支持自定义过期时间的 {@link RedisCacheManager} 实现类
+ * 支持自定义过期时间、本地缓存的 {@link RedisCacheManager} 实现类
  *
  * 在 {@link Cacheable#cacheNames()} 格式为 "key#ttl" 时，# 后面的 ttl 为过期时间。
  * 单位为最后一个字母（支持的单位有：d 天，h 小时，m 分钟，s 秒），默认单位为 s 秒
  *
+ * 开启本地缓存（设置了 {@link #cacheInvalidator}，且 {@link #localEnable} 为 true）时，ttl 后面可以使用 "," 追加本地缓存（L1）的配置，
+ * 例如说 "key#1h,l1-ttl=30s,l1-size=500"，ttl 为空时使用默认过期时间，例如说 "key#,l1-ttl=30s"：
+ * 1. l1-ttl：本地缓存的过期时间，格式同 ttl，为 0 时不使用本地缓存
+ * 2. l1-size：本地缓存的最大数量
+ *
+ * 同样使用 "," 追加防止缓存雪崩、击穿的配置，例如说 "key#1h,jitter=5m,lease=3s,early-refresh=1s"：
+ * 1. jitter：过期时间的随机抖动，实际过期时间为 ttl + [0, jitter]，避免同时写入的 Key 同时过期
+ * 2. lease：分布式租约的时长，未命中时多个节点之间只有一个节点加载，见 {@link SingleFlightRedisCache}
+ * 3. early-refresh：提前刷新的窗口，越接近过期，越大概率提前刷新，见 {@link SingleFlightRedisCache}
+ * lease、early-refresh 需要 {@link Cacheable#sync()} 为 true，且设置了 {@link #redisTemplate}
+ *
+ * 防止缓存穿透：
+ * 1. null-ttl：缓存 null 值的过期时间，例如说 "key#1h,null-ttl=30s"。即使全局关闭了 null 值缓存，该缓存也会缓存 null 值
+ * 2. 通过 {@link #registerKeyFilter(String, RedisCacheKeyFilter)} 注册布隆过滤器，一定不存在的 Key 不访问 Redis 和数据库
+ *
  * @author wiflish
  */
+@Slf4j
 public class TimeoutRedisCacheManager extends RedisCacheManager {
 
     private static final String SPLIT = "#";
 
+    private static final String OPTION_SPLIT = ",";
+    private static final String OPTION_L1_TTL = "l1-ttl";
+    private static final String OPTION_L1_SIZE = "l1-size";
+    private static final String OPTION_JITTER = "jitter";
+    private static final String OPTION_LEASE = "lease";
+    private static final String OPTION_EARLY_REFRESH = "early-refresh";
+    private static final String OPTION_NULL_TTL = "null-ttl";
+
+    private final RedisCacheWriter cacheWriter;
+
+    /**
+     * 本地缓存的失效广播器，为空时不开启本地缓存
+     *
+     * 开启缓存代数时，同样用于广播清空消息，让其它节点重建代数的本地缓存
+     */
+    @Setter
+    private RedisCacheInvalidator cacheInvalidator;
+    /**
+     * 是否开启本地缓存。为 false 时，即使设置了 {@link #cacheInvalidator}，也不使用本地缓存
+     */
+    @Setter
+    private boolean localEnable = true;
+    /**
+     * 本地缓存的默认过期时间，为 0 时，只有配置了 l1-ttl 的缓存才使用本地缓存
+     */
+    @Setter
+    private Duration defaultLocalTtl = Duration.ZERO;
+    /**
+     * 本地缓存的默认最大数量
+     */
+    @Setter
+    private long defaultLocalMaximumSize = 1000L;
+
+    /**
+     * 用于分布式租约、提前刷新，为空时不开启
+     */
+    @Setter
+    private StringRedisTemplate redisTemplate;
+
+    /**
+     * 缓存代数的 DAO，为空时清空缓存使用 SCAN 删除
+     */
+    @Setter
+    private RedisCacheGenerationDAO cacheGenerationDAO;
+
+    /**
+     * 热点 Key 探测器，为空时不开启
+     */
+    @Setter
+    private RedisHotKeyDetector hotKeyDetector;
+
+    /**
+     * Key 的布隆过滤器，key 为缓存名
+     */
+    private final Map<String, RedisCacheKeyFilter> keyFilters = new ConcurrentHashMap<>();
+
     public TimeoutRedisCacheManager(RedisCacheWriter cacheWriter, RedisCacheConfiguration defaultCacheConfiguration) {
         super(cacheWriter, defaultCacheConfiguration);
+        this.cacheWriter = cacheWriter;
     }
 
     @Override
     protected RedisCache createRedisCache(String name, RedisCacheConfiguration cacheConfig) {
-        if (StrUtil.isEmpty(name)) {
-            return super.createRedisCache(name, cacheConfig);
-        }
         // 如果使用 # 分隔，大小不为 2，则说明不使用自定义过期时间
-        String[] names = StrUtil.splitToArray(name, SPLIT);
+        String[] names = StrUtil.isEmpty(name) ? new String[0] : StrUtil.splitToArray(name, SPLIT);
         if (names.length != 2) {
-            return super.createRedisCache(name, cacheConfig);
+            return createRedisCache(name, cacheWriter, cacheConfig,
+                    buildLocalCache(defaultLocalTtl, defaultLocalMaximumSize));
         }
 
+        // 移除 # 后面的 : 以及后面的内容，避免影响解析
+        names[1] = StrUtil.subBefore(names[1], StrUtil.COLON, false);
+        List<String> options = StrUtil.split(names[1], OPTION_SPLIT, true, false);
+        String ttl = options.isEmpty() ? null : options.get(0);
         // 核心：通过修改 cacheConfig 的过期时间，实现自定义过期时间
-        if (cacheConfig != null) {
-            // 移除 # 后面的 : 以及后面的内容，避免影响解析
-            names[1] = StrUtil.subBefore(names[1], StrUtil.COLON, false);
+        if (cacheConfig != null && StrUtil.isNotEmpty(ttl)) {
             // 解析时间
-            Duration duration = parseDuration(names[1]);
+            Duration duration = parseDuration(ttl);
             cacheConfig = cacheConfig.entryTtl(duration);
         }
-        return super.createRedisCache(name, cacheConfig);
+        // 解析本地缓存、防止缓存雪崩和击穿的配置
+        Duration localTtl = defaultLocalTtl;
+        long localMaximumSize = defaultLocalMaximumSize;
+        Duration leaseTime = null;
+        Duration earlyRefreshWindow = null;
+        for (String option : options.subList(Math.min(1, options.size()), options.size())) {
+            String key = StrUtil.subBefore(option, "=", false);
+            String value = StrUtil.subAfter(option, "=", false);
+            if (OPTION_L1_TTL.equals(key)) {
+                localTtl = parseDuration(value);
+            } else if (OPTION_L1_SIZE.equals(key)) {
+                localMaximumSize = Long.parseLong(value);
+            } else if (OPTION_JITTER.equals(key) && cacheConfig != null) {
+                cacheConfig = cacheConfig.entryTtl(buildJitterTtlFunction(cacheConfig.getTtlFunction(),
+                        parseDuration(value)));
+            } else if (OPTION_LEASE.equals(key)) {
+                leaseTime = parseDuration(value);
+            } else if (OPTION_EARLY_REFRESH.equals(key)) {
+                earlyRefreshWindow = parseDuration(value);
+            } else if (OPTION_NULL_TTL.equals(key) && cacheConfig != null) {
+                cacheConfig = enableCachingNullValues(cacheConfig).entryTtl(
+                        buildNullTtlFunction(cacheConfig.getTtlFunction(), parseDuration(value)));
+            }
+        }
+        RedisCache cache = createRedisCache(name, cacheWriter, cacheConfig,
+                buildLocalCache(localTtl, localMaximumSize));
+        if (cache instanceof SingleFlightRedisCache singleFlightCache) {
+            singleFlightCache.setRedisTemplate(redisTemplate);
+            singleFlightCache.setLeaseTime(leaseTime);
+            singleFlightCache.setEarlyRefreshWindow(earlyRefreshWindow);
+            singleFlightCache.setKeyFilter(keyFilters.get(name));
+            singleFlightCache.setCacheGenerationDAO(cacheGenerationDAO);
+            singleFlightCache.setHotKeyDetector(hotKeyDetector);
+        }
+        return cache;
+    }
+
+    /**
+     * 注册缓存 Key 的布隆过滤器
+     *
+     * 开启 {@link #cacheInvalidator} 时，过滤器新增的 Key 通过它广播给其它节点
+     *
+     * @param cacheName 缓存名，和 {@link Cacheable#cacheNames()} 一致，需要和过滤器的缓存名相同
+     * @param keyFilter 布隆过滤器
+     */
+    public void registerKeyFilter(String cacheName, RedisCacheKeyFilter keyFilter) {
+        keyFilters.put(cacheName, keyFilter);
+        // 广播新增的 Key，否则其它节点在重建之前，误判为不存在
+        if (cacheInvalidator != null) {
+            keyFilter.setCacheInvalidator(cacheInvalidator);
+            cacheInvalidator.registerKeyFilter(keyFilter);
+        } else {
+            log.warn("[registerKeyFilter][缓存({}) 未开启 RedisCacheInvalidator，新增的 Key 在重建之前只对当前节点可见]", cacheName);
+        }
+        // 缓存已经创建时，直接设置
+        if (lookupCache(cacheName) instanceof SingleFlightRedisCache singleFlightCache) {
+            singleFlightCache.setKeyFilter(keyFilter);
+        }
+    }
+
+    /**
+     * 创建 {@link RedisCache} 对象，子类可以重写，例如说多租户
+     *
+     * @param name 缓存名
+     * @param cacheWriter RedisCacheWriter 对象
+     * @param cacheConfig 缓存配置
+     * @param localCache 本地缓存，为空时表示不开启
+     * @return RedisCache 对象
+     */
+    protected RedisCache createRedisCache(String name, RedisCacheWriter cacheWriter, RedisCacheConfiguration cacheConfig,
+                                          Cache<String, Object> localCache) {
+        return new LocalCachedRedisCache(name, cacheWriter, cacheConfig, localCache, cacheInvalidator);
+    }
+
+    protected RedisCacheInvalidator getCacheInvalidator() {
+        return cacheInvalidator;
+    }
+
+    private Cache<String, Object> buildLocalCache(Duration ttl, long maximumSize) {
+        if (!localEnable || cacheInvalidator == null || ttl == null || ttl.isZero() || ttl.isNegative() || maximumSize <= 0) {
+            return null;
+        }
+        return CacheBuilder.newBuilder().expireAfterWrite(ttl).maximumSize(maximumSize).build();
+    }
+
+    /**
+     * null 值使用 nullTtl 作为过期时间，其它值使用原过期时间
+     */
+    private static RedisCacheWriter.TtlFunction buildNullTtlFunction(RedisCacheWriter.TtlFunction ttlFunction,
+                                                                     Duration nullTtl) {
+        return (key, value) -> value == null || value instanceof NullValue
+                ? nullTtl : ttlFunction.getTimeToLive(key, value);
+    }
+
+    /**
+     * 复制 {@link RedisCacheConfiguration}，并开启 null 值缓存
+     *
+     * {@link RedisCacheConfiguration} 只提供了关闭的方法，所以需要复制
+     */
+    private static RedisCacheConfiguration enableCachingNullValues(RedisCacheConfiguration cacheConfig) {
+        if (cacheConfig.getAllowCacheNullValues()) {
+            return cacheConfig;
+        }
+        RedisCacheConfiguration config = RedisCacheConfiguration.defaultCacheConfig()
+                .entryTtl(cacheConfig.getTtlFunction())
+                .computePrefixWith(cacheConfig::getKeyPrefixFor)
+                .serializeKeysWith(cacheConfig.getKeySerializationPair())
+                .serializeValuesWith(cacheConfig.getValueSerializationPair())
+                .withConversionService(cacheConfig.getConversionService());
+        if (!cacheConfig.usePrefix()) {
+            config = config.disableKeyPrefix();
+        }
+        if (cacheConfig.isTimeToIdleEnabled()) {
+            config = config.enableTimeToIdle();
+        }
+        return config;
+    }
+
+    /**
+     * 在原过期时间的基础上，增加 [0, jitter] 的随机抖动。永不过期时，不抖动
+     */
+    private static RedisCacheWriter.TtlFunction buildJitterTtlFunction(RedisCacheWriter.TtlFunction ttlFunction,
+                                                                       Duration jitter) {
+        return (key, value) -> {
+            Duration ttl = ttlFunction.getTimeToLive(key, value);
+            if (ttl.isZero() || ttl.isNegative()) {
+                return ttl;
+            }
+            return ttl.plusMillis(ThreadLocalRandom.current().nextLong(jitter.toMillis() + 1));
+        };
     }
 
     /**
@@ -0,0 +1,120 @@
+package com.wiflish.luban.framework.redis.core;
+
+import cn.hutool.core.util.ReflectUtil;
+import cn.hutool.core.util.StrUtil;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.wiflish.luban.framework.redis.config.RedisAutoConfiguration;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * {@link CompactRedisSerializer} 的单元测试
+ *
+ * @author wiflish
+ */
+public class CompactRedisSerializerTest {
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class UserDTO {
+
+        private Long id;
+        private String name;
+        private LocalDateTime createTime;
+
+    }
+
+    private final UserDTO user = new UserDTO(1L, "芋艿", LocalDateTime.of(2024, 1, 1, 12, 30));
+
+    @Test
+    public void testSerialize_smile() {
+        // 准备参数
+        CompactRedisSerializer serializer = new CompactRedisSerializer(buildObjectMapper(), true, 0);
+
+        // 调用
+        byte[] bytes = serializer.serialize(user);
+        // 断言：Smile 魔数
+        assertArrayEquals(new byte[]{':', ')', '\n'}, new byte[]{bytes[0], bytes[1], bytes[2]});
+        assertEquals(user, serializer.deserialize(bytes));
+    }
+
+    @Test
+    public void testSerialize_gzip() {
+        // 准备参数
+        CompactRedisSerializer serializer = new CompactRedisSerializer(buildObjectMapper(), false, 128);
+        UserDTO bigUser = new UserDTO(2L, StrUtil.repeat("芋道源码", 100), user.getCreateTime());
+
+        // 调用
+        byte[] bytes = serializer.serialize(bigUser);
+        // 断言：超过阈值，GZIP 压缩
+        assertEquals((byte) 0x1F, bytes[0]);
+        assertEquals((byte) 0x8B, bytes[1]);
+        assertEquals(bigUser, serializer.deserialize(bytes));
+    }
+
+    @Test
+    public void testSerialize_smileGzip() {
+        // 准备参数
+        CompactRedisSerializer serializer = new CompactRedisSerializer(buildObjectMapper(), true, 128);
+        UserDTO bigUser = new UserDTO(2L, StrUtil.repeat("芋道源码", 100), user.getCreateTime());
+
+        // 调用
+        byte[] bytes = serializer.serialize(bigUser);
+        // 断言：先 Smile，再 GZIP 压缩
+        assertEquals((byte) 0x1F, bytes[0]);
+        assertEquals((byte) 0x8B, bytes[1]);
+        assertEquals(bigUser, serializer.deserialize(bytes));
+    }
+
+    @Test
+    public void testSerialize_belowThreshold() {
+        // 准备参数
+        CompactRedisSerializer serializer = new CompactRedisSerializer(buildObjectMapper(), false, 1024);
+
+        // 调用
+        byte[] bytes = serializer.serialize(user);
+        // 断言：未超过阈值，不压缩，和原有的 JSON 一致
+        assertArrayEquals(legacySerializer().serialize(user), bytes);
+        assertEquals(user, serializer.deserialize(bytes));
+    }
+
+    @Test
+    public void testDeserialize_legacyJson() {
+        // 准备参数：原有的 JSON 格式写入
+        byte[] bytes = legacySerializer().serialize(user);
+        // 准备参数：切换为 Smile + 压缩
+        CompactRedisSerializer serializer = new CompactRedisSerializer(buildObjectMapper(), true, 1);
+
+        // 调用，并断言：兼容读取
+        assertEquals(user, serializer.deserialize(bytes));
+    }
+
+    @Test
+    public void testSerialize_null() {
+        // 准备参数
+        CompactRedisSerializer serializer = new CompactRedisSerializer(buildObjectMapper(), true, 1);
+
+        // 调用，并断言
+        assertEquals(0, serializer.serialize(null).length);
+        assertNull(serializer.deserialize(null));
+        assertNull(serializer.deserialize(new byte[0]));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static RedisSerializer<Object> legacySerializer() {
+        return (RedisSerializer<Object>) RedisAutoConfiguration.buildRedisSerializer();
+    }
+
+    private static ObjectMapper buildObjectMapper() {
+        return (ObjectMapper) ReflectUtil.getFieldValue(RedisAutoConfiguration.buildRedisSerializer(), "mapper");
+    }
+
+}
@@ -0,0 +1,153 @@
+package com.wiflish.luban.framework.redis.core;
+
+import com.google.common.cache.CacheBuilder;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.cache.RedisCacheConfiguration;
+import org.springframework.data.redis.cache.RedisCacheWriter;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * {@link LocalCachedRedisCache} 的单元测试
+ *
+ * @author wiflish
+ */
+@ExtendWith(MockitoExtension.class)
+public class LocalCachedRedisCacheTest {
+
+    @Mock
+    private RedisCacheWriter cacheWriter;
+    @Mock
+    private RedisCacheInvalidator cacheInvalidator;
+    @Mock
+    private RedisCacheGenerationDAO cacheGenerationDAO;
+
+    private RedisCacheConfiguration config;
+    private LocalCachedRedisCache cache;
+
+    @BeforeEach
+    public void setUp() {
+        config = RedisCacheConfiguration.defaultCacheConfig()
+                .entryTtl(Duration.ofHours(1))
+                .computePrefixWith(cacheName -> cacheName + ":");
+        cache = new LocalCachedRedisCache("user", cacheWriter, config,
+                CacheBuilder.newBuilder().maximumSize(100).build(), cacheInvalidator);
+    }
+
+    @Test
+    public void testRegister() {
+        // 断言：创建时注册到广播器
+        verify(cacheInvalidator).register(same(cache));
+        assertTrue(cache.isLocalCacheEnabled());
+    }
+
+    @Test
+    public void testGet_localCache() {
+        // 调用
+        cache.put("100", "value");
+        // 断言：广播失效消息
+        verify(cacheInvalidator).publish(eq("user"), eq("user:100"));
+        // 断言：命中本地缓存，不读取 Redis
+        assertEquals("value", cache.get("100", String.class));
+        verify(cacheWriter, never()).get(any(), any());
+    }
+
+    @Test
+    public void testGet_cacheKeyOnce() {
+        // 准备参数
+        cache.setCacheGenerationDAO(cacheGenerationDAO);
+        // mock 方法
+        when(cacheGenerationDAO.getGeneration(eq("user"))).thenReturn(3L);
+
+        // 调用：未命中，加载并写入
+        assertEquals("value", cache.get("100", () -> "value"));
+        // 断言：读取、加载、写入，只计算一次 Redis Key
+        verify(cacheGenerationDAO, times(1)).getGeneration(eq("user"));
+        ArgumentCaptor<byte[]> keyCaptor = ArgumentCaptor.forClass(byte[].class);
+        verify(cacheWriter).put(eq("user"), keyCaptor.capture(), any(), any());
+        assertEquals("user:3:100", new String(keyCaptor.getValue(), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testEvictLocal() {
+        // 准备参数
+        cache.put("100", "value");
+
+        // 调用：模拟收到其它节点的失效消息
+        cache.evictLocal("user:100");
+        // 断言：重新读取 Redis
+        cache.get("100");
+        verify(cacheWriter).get(eq("user"), any());
+    }
+
+    @Test
+    public void testClearLocal_cacheGeneration() {
+        // 准备参数
+        cache.setCacheGenerationDAO(cacheGenerationDAO);
+
+        // 调用：模拟收到其它节点的清空消息
+        cache.clearLocal();
+        // 断言：同时重建缓存代数的本地缓存
+        verify(cacheGenerationDAO).invalidateLocalCache();
+    }
+
+    @Test
+    public void testClear_cacheGenerationPublish() {
+        // 准备参数：未开启本地缓存，但是开启缓存代数
+        LocalCachedRedisCache generationCache = new LocalCachedRedisCache("user", cacheWriter, config,
+                null, cacheInvalidator);
+        generationCache.setCacheGenerationDAO(cacheGenerationDAO);
+
+        // 调用
+        generationCache.clear();
+        // 断言：仍然广播清空消息，其它节点重建代数的本地缓存
+        verify(cacheGenerationDAO).incrementGeneration(eq("user"));
+        verify(cacheInvalidator).publish(eq("user"), isNull());
+    }
+
+    @Test
+    public void testEvictLocal_hotKeyReplica() {
+        // 准备参数：未开启本地缓存，只使用热点 Key 的本地副本
+        LocalCachedRedisCache replicaCache = new LocalCachedRedisCache("user", cacheWriter, config,
+                null, cacheInvalidator);
+        RedisHotKeyDetector hotKeyDetector = new RedisHotKeyDetector(1, 16, Duration.ZERO, 1,
+                Duration.ofMinutes(1), 10, null);
+        replicaCache.setHotKeyDetector(hotKeyDetector);
+        // mock 方法
+        when(cacheWriter.get(eq("user"), any())).thenReturn(serialize("value"));
+        replicaCache.get("100");
+        hotKeyDetector.rollWindow();
+        replicaCache.get("100");
+
+        // 调用：写入时，广播失效消息
+        replicaCache.put("100", "value2");
+        verify(cacheInvalidator).publish(eq("user"), eq("user:100"));
+        // 调用：模拟收到其它节点的失效消息
+        hotKeyDetector.putReplica("user:100", "value");
+        replicaCache.evictLocal("user:100");
+        // 断言：副本失效，重新读取 Redis
+        assertNull(hotKeyDetector.getReplica("user:100"));
+        replicaCache.get("100");
+        verify(cacheWriter, times(3)).get(eq("user"), any());
+    }
+
+    private byte[] serialize(Object value) {
+        ByteBuffer buffer = config.getValueSerializationPair().write(value);
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.get(bytes);
+        return bytes;
+    }
+
+}
@@ -0,0 +1,93 @@
+package com.wiflish.luban.framework.redis.core;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.core.HashOperations;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.time.Duration;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * {@link RedisCacheGenerationDAO} 的单元测试
+ *
+ * @author wiflish
+ */
+@ExtendWith(MockitoExtension.class)
+public class RedisCacheGenerationDAOTest {
+
+    @Mock
+    private StringRedisTemplate redisTemplate;
+    @Mock
+    private HashOperations<String, Object, Object> hashOperations;
+
+    @BeforeEach
+    public void setUp() {
+        when(redisTemplate.opsForHash()).thenReturn(hashOperations);
+    }
+
+    @Test
+    public void testGetGeneration() {
+        // 准备参数
+        RedisCacheGenerationDAO cacheGenerationDAO = new RedisCacheGenerationDAO(redisTemplate, Duration.ofMinutes(1));
+        // mock 方法
+        when(hashOperations.entries(eq("cache_generation"))).thenReturn(Map.of("user", "3"));
+
+        // 调用，并断言
+        assertEquals(3L, cacheGenerationDAO.getGeneration("user"));
+        assertEquals(0L, cacheGenerationDAO.getGeneration("dict"));
+        // 断言：缓存在本地，只读取 1 次 Redis
+        verify(hashOperations, times(1)).entries(eq("cache_generation"));
+    }
+
+    @Test
+    public void testGetGeneration_noLocalCache() {
+        // 准备参数
+        RedisCacheGenerationDAO cacheGenerationDAO = new RedisCacheGenerationDAO(redisTemplate, Duration.ZERO);
+        // mock 方法
+        when(hashOperations.entries(eq("cache_generation"))).thenReturn(Map.of("user", "3"));
+
+        // 调用
+        cacheGenerationDAO.getGeneration("user");
+        cacheGenerationDAO.getGeneration("user");
+        // 断言：每次读取 Redis
+        verify(hashOperations, times(2)).entries(eq("cache_generation"));
+    }
+
+    @Test
+    public void testIncrementGeneration() {
+        // 准备参数
+        RedisCacheGenerationDAO cacheGenerationDAO = new RedisCacheGenerationDAO(redisTemplate, Duration.ofMinutes(1));
+        // mock 方法
+        when(hashOperations.entries(eq("cache_generation"))).thenReturn(Map.of("user", "3"), Map.of("user", "4"));
+        assertEquals(3L, cacheGenerationDAO.getGeneration("user"));
+
+        // 调用
+        cacheGenerationDAO.incrementGeneration("user");
+        // 断言：递增后，当前节点立即可见
+        verify(hashOperations).increment(eq("cache_generation"), eq("user"), eq(1L));
+        assertEquals(4L, cacheGenerationDAO.getGeneration("user"));
+    }
+
+    @Test
+    public void testInvalidateLocalCache() {
+        // 准备参数
+        RedisCacheGenerationDAO cacheGenerationDAO = new RedisCacheGenerationDAO(redisTemplate, Duration.ofMinutes(1));
+        // mock 方法
+        when(hashOperations.entries(eq("cache_generation"))).thenReturn(Map.of("user", "3"), Map.of("user", "4"));
+        assertEquals(3L, cacheGenerationDAO.getGeneration("user"));
+
+        // 调用：模拟收到其它节点的清空消息
+        cacheGenerationDAO.invalidateLocalCache();
+        // 断言：重新读取 Redis
+        assertEquals(4L, cacheGenerationDAO.getGeneration("user"));
+    }
+
+}
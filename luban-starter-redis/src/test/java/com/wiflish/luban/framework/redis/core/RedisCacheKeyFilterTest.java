@@ -0,0 +1,111 @@
+package com.wiflish.luban.framework.redis.core;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * {@link RedisCacheKeyFilter} 的单元测试
+ *
+ * @author wiflish
+ */
+public class RedisCacheKeyFilterTest {
+
+    private final RedisCacheInvalidator cacheInvalidator = mock(RedisCacheInvalidator.class);
+
+    @Test
+    public void testMightContain() {
+        // 准备参数
+        RedisCacheKeyFilter keyFilter = new RedisCacheKeyFilter("user", () -> List.of(1L, 2L),
+                Duration.ofMinutes(1), 0.001);
+
+        // 调用，并断言
+        assertTrue(keyFilter.mightContain(1L));
+        assertTrue(keyFilter.mightContain("2"));
+        assertFalse(keyFilter.mightContain(100L));
+    }
+
+    @Test
+    public void testMightContain_buildError() {
+        // 准备参数
+        RedisCacheKeyFilter keyFilter = new RedisCacheKeyFilter("user", () -> {
+            throw new IllegalStateException("数据库异常");
+        }, Duration.ofMinutes(1), 0.001);
+
+        // 调用，并断言：构建失败时不过滤
+        assertTrue(keyFilter.mightContain(100L));
+    }
+
+    @Test
+    public void testPut() {
+        // 准备参数
+        RedisCacheKeyFilter keyFilter = new RedisCacheKeyFilter("user", () -> List.of(1L),
+                Duration.ofMinutes(1), 0.001);
+        keyFilter.setCacheInvalidator(cacheInvalidator);
+        assertFalse(keyFilter.mightContain(100L));
+
+        // 调用
+        keyFilter.put(100L);
+        keyFilter.put(100L);
+        // 断言：只广播 1 次新增的 Key
+        assertTrue(keyFilter.mightContain(100L));
+        verify(cacheInvalidator).publishKeyFilterPut(eq("user"), eq("100"));
+    }
+
+    @Test
+    public void testPut_existing() {
+        // 准备参数
+        RedisCacheKeyFilter keyFilter = new RedisCacheKeyFilter("user", () -> List.of(1L),
+                Duration.ofMinutes(1), 0.001);
+        keyFilter.setCacheInvalidator(cacheInvalidator);
+        assertTrue(keyFilter.mightContain(1L));
+
+        // 调用
+        keyFilter.put(1L);
+        // 断言：已经存在的 Key，不广播
+        verify(cacheInvalidator, never()).publishKeyFilterPut(any(), any());
+    }
+
+    @Test
+    public void testPut_duringRebuild() {
+        // 准备参数：构建期间，其它线程新增 Key，但是快照中不包含它
+        AtomicReference<RedisCacheKeyFilter> keyFilterRef = new AtomicReference<>();
+        RedisCacheKeyFilter keyFilter = new RedisCacheKeyFilter("user", () -> {
+            keyFilterRef.get().put(100L);
+            return List.of(1L);
+        }, Duration.ofMinutes(1), 0.001);
+        keyFilterRef.set(keyFilter);
+
+        // 调用，并断言：新增的 Key 补充到新的过滤器
+        assertTrue(keyFilter.mightContain(100L));
+        assertTrue(keyFilter.mightContain(1L));
+    }
+
+    @Test
+    public void testOnMessage_keyFilter() {
+        // 准备参数
+        RedisCacheInvalidator invalidator = new RedisCacheInvalidator(mock(RedisConnectionFactory.class), "cache");
+        RedisCacheKeyFilter keyFilter = new RedisCacheKeyFilter("user", () -> List.of(1L),
+                Duration.ofMinutes(1), 0.001);
+        invalidator.registerKeyFilter(keyFilter);
+        assertFalse(keyFilter.mightContain(100L));
+
+        // 调用：模拟收到其它节点的新增消息
+        invalidator.onMessage(new DefaultMessage(
+                ("cache" + RedisCacheInvalidator.KEY_FILTER_CHANNEL_SUFFIX).getBytes(StandardCharsets.UTF_8),
+                "node\nuser\n100".getBytes(StandardCharsets.UTF_8)), null);
+        // 断言
+        assertTrue(keyFilter.mightContain(100L));
+    }
+
+}
@@ -0,0 +1,112 @@
+package com.wiflish.luban.framework.redis.core;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * {@link RedisHotKeyDetector} 的单元测试
+ *
+ * @author wiflish
+ */
+public class RedisHotKeyDetectorTest {
+
+    @Test
+    public void testRollWindow() {
+        // 准备参数：不采样，访问 2 次即成为热点 Key
+        RedisHotKeyDetector detector = new RedisHotKeyDetector(1, 16, Duration.ZERO, 2,
+                Duration.ZERO, 10, null);
+
+        // 调用
+        assertFalse(detector.record("user:1"));
+        detector.record("user:1");
+        detector.record("user:2");
+        detector.rollWindow();
+        // 断言：在下一个窗口内生效
+        assertEquals(Set.of("user:1"), detector.getHotKeys());
+        assertTrue(detector.record("user:1"));
+
+        // 调用：下一个窗口访问不足
+        detector.rollWindow();
+        // 断言
+        assertFalse(detector.isHot("user:1"));
+    }
+
+    @Test
+    public void testRollWindow_capacity() {
+        // 准备参数：只有 1 个计数器
+        RedisHotKeyDetector detector = new RedisHotKeyDetector(1, 1, Duration.ZERO, 3,
+                Duration.ZERO, 10, null);
+
+        // 调用：user:2 替换 user:1，继承它的次数
+        detector.record("user:1");
+        detector.record("user:1");
+        detector.record("user:2");
+        detector.rollWindow();
+        // 断言
+        assertEquals(Set.of("user:2"), detector.getHotKeys());
+    }
+
+    @Test
+    public void testRollWindow_metrics() {
+        // 准备参数
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        RedisHotKeyDetector detector = new RedisHotKeyDetector(1, 16, Duration.ZERO, 1,
+                Duration.ZERO, 1, meterRegistry);
+
+        // 调用
+        detector.record("user:1:0:100");
+        detector.record("user:1:0:100");
+        detector.record("dict:1");
+        detector.rollWindow();
+        // 断言：只注册 topN 个 Key，标签为 Key 的摘要和首段
+        assertEquals(1, meterRegistry.get(RedisHotKeyDetector.METRIC_HOT_KEYS).gauges().size());
+        assertEquals(2D, meterRegistry.get(RedisHotKeyDetector.METRIC_HOT_KEYS)
+                .tag(RedisHotKeyDetector.TAG_KEY, RedisHotKeyDetector.digestKey("user:1:0:100"))
+                .tag(RedisHotKeyDetector.TAG_PREFIX, "user").gauge().value());
+    }
+
+    @Test
+    public void testReplica() {
+        // 准备参数
+        RedisHotKeyDetector detector = new RedisHotKeyDetector(1, 16, Duration.ZERO, 1,
+                Duration.ofMinutes(1), 10, null);
+        assertTrue(detector.isReplicaEnabled());
+
+        // 调用，并断言
+        detector.putReplica("user:1", "value");
+        assertEquals("value", detector.getReplica("user:1"));
+        detector.evictReplica("user:1");
+        assertNull(detector.getReplica("user:1"));
+        detector.putReplica("user:1", "value");
+        detector.clearReplicas();
+        assertNull(detector.getReplica("user:1"));
+    }
+
+    @Test
+    public void testReplica_disabled() {
+        // 准备参数
+        RedisHotKeyDetector detector = new RedisHotKeyDetector(1, 16, Duration.ZERO, 1,
+                Duration.ZERO, 10, null);
+
+        // 调用，并断言
+        assertFalse(detector.isReplicaEnabled());
+        detector.putReplica("user:1", "value");
+        assertNull(detector.getReplica("user:1"));
+    }
+
+    @Test
+    public void testDigestKey() {
+        // 调用
+        String digest = RedisHotKeyDetector.digestKey("user:13800138000");
+        // 断言：固定长度，不包含原始 Key
+        assertEquals(16, digest.length());
+        assertFalse(digest.contains("13800138000"));
+        assertEquals(digest, RedisHotKeyDetector.digestKey("user:13800138000"));
+    }
+
+}
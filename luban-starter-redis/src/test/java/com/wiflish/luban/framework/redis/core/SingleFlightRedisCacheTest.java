@@ -0,0 +1,230 @@
+package com.wiflish.luban.framework.redis.core;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.Cache;
+import org.springframework.data.redis.cache.RedisCacheConfiguration;
+import org.springframework.data.redis.cache.RedisCacheWriter;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * {@link SingleFlightRedisCache} 的单元测试
+ *
+ * @author wiflish
+ */
+@ExtendWith(MockitoExtension.class)
+public class SingleFlightRedisCacheTest {
+
+    @Mock
+    private RedisCacheWriter cacheWriter;
+    @Mock
+    private StringRedisTemplate redisTemplate;
+    @Mock
+    private ValueOperations<String, String> valueOperations;
+    @Mock
+    private RedisCacheKeyFilter keyFilter;
+    @Mock
+    private RedisCacheGenerationDAO cacheGenerationDAO;
+
+    private RedisCacheConfiguration config;
+    private SingleFlightRedisCache cache;
+
+    @BeforeEach
+    public void setUp() {
+        config = RedisCacheConfiguration.defaultCacheConfig()
+                .entryTtl(Duration.ofHours(1))
+                .computePrefixWith(cacheName -> cacheName + ":");
+        cache = new SingleFlightRedisCache("user", cacheWriter, config);
+    }
+
+    @Test
+    public void testGet_lease() {
+        // 准备参数
+        cache.setRedisTemplate(redisTemplate);
+        cache.setLeaseTime(Duration.ofSeconds(3));
+        // mock 方法
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(valueOperations.setIfAbsent(eq("user:100:lease"), any(), eq(Duration.ofSeconds(3))))
+                .thenReturn(true);
+
+        // 调用
+        String value = cache.get("100", () -> "value");
+        // 断言：获得租约后加载，并释放租约
+        assertEquals("value", value);
+        assertEquals("user:100", capturePutKey());
+        verify(redisTemplate).execute(any(RedisScript.class), eq(Collections.singletonList("user:100:lease")),
+                any());
+    }
+
+    @Test
+    public void testGet_earlyRefresh() {
+        // 准备参数
+        cache.setRedisTemplate(redisTemplate);
+        cache.setEarlyRefreshWindow(Duration.ofSeconds(1));
+        // mock 方法：命中缓存，且即将过期
+        when(cacheWriter.get(eq("user"), any())).thenReturn(serialize("old"));
+        when(redisTemplate.getExpire(eq("user:100"), eq(TimeUnit.MILLISECONDS))).thenReturn(0L);
+
+        // 调用
+        String value = cache.get("100", () -> "new");
+        // 断言：立即返回旧值，异步提前刷新
+        assertEquals("old", value);
+        ArgumentCaptor<byte[]> keyCaptor = ArgumentCaptor.forClass(byte[].class);
+        verify(cacheWriter, timeout(5000)).put(eq("user"), keyCaptor.capture(), any(), any());
+        assertEquals("user:100", new String(keyCaptor.getValue(), StandardCharsets.UTF_8));
+        // 断言：首次查询的过期时间，不重复查询
+        verify(redisTemplate, times(1)).getExpire(eq("user:100"), eq(TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void testGet_keyFilter() {
+        // 准备参数
+        cache.setKeyFilter(keyFilter);
+        // mock 方法
+        when(keyFilter.mightContain(eq("100"))).thenReturn(false);
+
+        // 调用
+        Cache.ValueWrapper result = cache.get("100");
+        // 断言：一定不存在的 Key，返回 null 值，不访问 Redis
+        assertNotNull(result);
+        assertNull(result.get());
+        verifyNoInteractions(cacheWriter);
+    }
+
+    @Test
+    public void testPut_keyFilter() {
+        // 准备参数
+        cache.setKeyFilter(keyFilter);
+
+        // 调用
+        cache.put("100", "value");
+        // 断言：新增的 Key 加入布隆过滤器
+        verify(keyFilter).put(eq("100"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testGetAll() {
+        // 准备参数
+        cache.setRedisTemplate(redisTemplate);
+        // mock 方法：MGET 命中 1，未命中 2
+        when(redisTemplate.execute(any(RedisCallback.class))).thenReturn(Arrays.asList(serialize("a"), null));
+
+        // 调用
+        Map<String, String> result = cache.getAll(Arrays.asList("1", "2"), keys -> {
+            assertEquals(Collections.singletonList("2"), keys);
+            return Collections.singletonMap("2", "b");
+        });
+        // 断言：按顺序返回
+        assertEquals(Arrays.asList("1", "2"), new ArrayList<>(result.keySet()));
+        assertEquals("a", result.get("1"));
+        assertEquals("b", result.get("2"));
+        // 断言：一次 MGET，一次 Pipeline 写回
+        verify(redisTemplate).execute(any(RedisCallback.class));
+        verify(redisTemplate).executePipelined(any(RedisCallback.class));
+        verifyNoInteractions(cacheWriter);
+    }
+
+    @Test
+    public void testGet_hotKey() {
+        // 准备参数：不采样，不自动切换窗口，访问 1 次即成为热点 Key
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        RedisHotKeyDetector hotKeyDetector = new RedisHotKeyDetector(1, 16, Duration.ZERO, 1,
+                Duration.ofMinutes(1), 10, meterRegistry);
+        cache.setHotKeyDetector(hotKeyDetector);
+        // mock 方法
+        when(cacheWriter.get(eq("user"), any())).thenReturn(serialize("value"));
+
+        // 调用：第 1 次不是热点 Key；切换窗口后，第 2 次成为热点 Key 并写入本地副本，第 3 次读取本地副本
+        assertEquals("value", cache.get("100", String.class));
+        hotKeyDetector.rollWindow();
+        assertEquals("value", cache.get("100", String.class));
+        assertEquals("value", cache.get("100", String.class));
+        // 断言：只读取了 2 次 Redis
+        verify(cacheWriter, times(2)).get(eq("user"), any());
+
+        // 调用：修改后，失效本地副本
+        cache.put("100", "value2");
+        cache.get("100", String.class);
+        // 断言
+        verify(cacheWriter, times(3)).get(eq("user"), any());
+    }
+
+    @Test
+    public void testPut_cacheGeneration() {
+        // 准备参数
+        cache.setCacheGenerationDAO(cacheGenerationDAO);
+        // mock 方法
+        when(cacheGenerationDAO.getGeneration(eq("user"))).thenReturn(3L);
+
+        // 调用
+        cache.put("100", "value");
+        // 断言：Key 带上缓存的代数
+        assertEquals("user:3:100", capturePutKey());
+    }
+
+    @Test
+    public void testClear_cacheGeneration() {
+        // 准备参数
+        cache.setCacheGenerationDAO(cacheGenerationDAO);
+
+        // 调用
+        cache.clear();
+        // 断言：递增缓存的代数，不 SCAN 删除
+        verify(cacheGenerationDAO).incrementGeneration(eq("user"));
+        verify(cacheWriter, never()).clean(any(), any());
+    }
+
+    @Test
+    public void testClear_cacheGenerationPersistent() {
+        // 准备参数：永不过期
+        SingleFlightRedisCache persistentCache = new SingleFlightRedisCache("user", cacheWriter,
+                config.entryTtl(Duration.ZERO));
+        persistentCache.setCacheGenerationDAO(cacheGenerationDAO);
+
+        // 调用
+        persistentCache.clear();
+        // 断言：不递增代数，SCAN 删除所有代数的 Key
+        assertTrue(persistentCache.isPersistent());
+        verify(cacheGenerationDAO, never()).incrementGeneration(any());
+        ArgumentCaptor<byte[]> patternCaptor = ArgumentCaptor.forClass(byte[].class);
+        verify(cacheWriter).clean(eq("user"), patternCaptor.capture());
+        assertEquals("user:*", new String(patternCaptor.getValue(), StandardCharsets.UTF_8));
+    }
+
+    private byte[] serialize(Object value) {
+        ByteBuffer buffer = config.getValueSerializationPair().write(value);
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.get(bytes);
+        return bytes;
+    }
+
+    private String capturePutKey() {
+        ArgumentCaptor<byte[]> keyCaptor = ArgumentCaptor.forClass(byte[].class);
+        verify(cacheWriter).put(eq("user"), keyCaptor.capture(), any(), any());
+        return new String(keyCaptor.getValue(), StandardCharsets.UTF_8);
+    }
+
+}
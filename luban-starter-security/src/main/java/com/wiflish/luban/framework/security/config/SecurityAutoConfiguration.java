@@ -1,26 +1,44 @@
 package com.wiflish.luban.framework.security.config;
 
+import cn.hutool.core.lang.Assert;
 import com.wiflish.luban.framework.security.core.aop.PreAuthenticatedAspect;
 import com.wiflish.luban.framework.security.core.context.TransmittableThreadLocalSecurityContextHolderStrategy;
 import com.wiflish.luban.framework.security.core.filter.TokenAuthenticationFilter;
 import com.wiflish.luban.framework.security.core.handler.AccessDeniedHandlerImpl;
 import com.wiflish.luban.framework.security.core.handler.AuthenticationEntryPointImpl;
+import com.wiflish.luban.framework.security.core.permission.PermissionRefreshConsumer;
+import com.wiflish.luban.framework.security.core.permission.PermissionRefreshProducer;
+import com.wiflish.luban.framework.security.core.permission.UserPermissionCache;
 import com.wiflish.luban.framework.security.core.service.SecurityFrameworkService;
 import com.wiflish.luban.framework.security.core.service.SecurityFrameworkServiceImpl;
+import com.wiflish.luban.framework.security.core.token.AccessTokenCheckCache;
+import com.wiflish.luban.framework.security.core.token.AccessTokenDenylistRedisDAO;
+import com.wiflish.luban.framework.security.core.token.AccessTokenRevokeConsumer;
+import com.wiflish.luban.framework.security.core.token.AccessTokenRevokeProducer;
+import com.wiflish.luban.framework.security.core.token.SignedAccessTokenCodec;
+import com.wiflish.luban.framework.mq.redis.core.RedisMQTemplate;
 import com.wiflish.luban.framework.web.core.handler.GlobalExceptionHandler;
 import com.wiflish.luban.framework.common.api.oauth2.OAuth2TokenApi;
 import com.wiflish.luban.framework.common.api.permission.PermissionApi;
 import jakarta.annotation.Resource;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.config.MethodInvokingFactoryBean;
 import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.AuthenticationEntryPoint;
 import org.springframework.security.web.access.AccessDeniedHandler;
 
+import java.nio.charset.StandardCharsets;
+
 /**
  * Spring Security 自动配置类，主要用于相关组件的配置
  *
@@ -29,10 +47,15 @@ import org.springframework.security.web.access.AccessDeniedHandler;
  *
  * @author wiflish
  */
-@AutoConfiguration
+@AutoConfiguration(beforeName = "com.wiflish.luban.framework.mq.redis.config.RedisMQConsumerAutoConfiguration") // 需要保证 AccessTokenRevokeConsumer、PermissionRefreshConsumer 先创建，才能创建 RedisMessageListenerContainer
 @EnableConfigurationProperties(SecurityProperties.class)
 public class SecurityAutoConfiguration {
 
+    /**
+     * HS256 密钥的最小长度，单位：字节
+     */
+    private static final int HS256_MIN_KEY_LENGTH = 32;
+
     @Resource
     private SecurityProperties securityProperties;
 
@@ -76,13 +99,118 @@ public class SecurityAutoConfiguration {
      */
     @Bean
     public TokenAuthenticationFilter authenticationTokenFilter(GlobalExceptionHandler globalExceptionHandler,
-                                                               OAuth2TokenApi oauth2TokenApi) {
-        return new TokenAuthenticationFilter(securityProperties, globalExceptionHandler, oauth2TokenApi);
+                                                               OAuth2TokenApi oauth2TokenApi,
+                                                               ObjectProvider<AccessTokenCheckCache> accessTokenCheckCache,
+                                                               ObjectProvider<SignedAccessTokenCodec> signedAccessTokenCodec) {
+        TokenAuthenticationFilter filter = new TokenAuthenticationFilter(securityProperties, globalExceptionHandler, oauth2TokenApi);
+        filter.setAccessTokenCheckCache(accessTokenCheckCache.getIfAvailable());
+        filter.setSignedAccessTokenCodec(signedAccessTokenCodec.getIfAvailable());
+        return filter;
+    }
+
+    /**
+     * 访问令牌校验结果的本地缓存 Bean
+     */
+    @Bean
+    @ConditionalOnProperty(prefix = "luban.framework.security", value = "token-cache-enable")
+    public AccessTokenCheckCache accessTokenCheckCache(OAuth2TokenApi oauth2TokenApi) {
+        return new AccessTokenCheckCache(oauth2TokenApi, securityProperties.getTokenCacheSize(),
+                securityProperties.getTokenCacheTtl(), securityProperties.getTokenCacheRejectTtl());
+    }
+
+    /**
+     * 自包含访问令牌的编解码器 Bean
+     */
+    @Bean
+    @ConditionalOnProperty(prefix = "luban.framework.security", value = "signed-token-enable")
+    public SignedAccessTokenCodec signedAccessTokenCodec() {
+        Assert.notEmpty(securityProperties.getSignedTokenKey(), "开启自包含访问令牌时，signed-token-key 不能为空");
+        // HS256 的密钥不能短于哈希的输出长度，即 32 字节，参见 RFC 7518 的 3.2 小节
+        if (securityProperties.getSignedTokenAlgorithm() == SignedAccessTokenCodec.Algorithm.HS256) {
+            Assert.isTrue(securityProperties.getSignedTokenKey().getBytes(StandardCharsets.UTF_8).length >= HS256_MIN_KEY_LENGTH,
+                    "HS256 的 signed-token-key 不能少于 {} 字节", HS256_MIN_KEY_LENGTH);
+        }
+        return new SignedAccessTokenCodec(securityProperties.getSignedTokenAlgorithm(), securityProperties.getSignedTokenKey(),
+                securityProperties.getSignedTokenPrivateKey(), securityProperties.getSignedTokenMaxTtl());
     }
 
     @Bean("ss") // 使用 Spring Security 的缩写，方便使用
-    public SecurityFrameworkService securityFrameworkService(PermissionApi permissionApi) {
-        return new SecurityFrameworkServiceImpl(permissionApi);
+    public SecurityFrameworkService securityFrameworkService(PermissionApi permissionApi,
+                                                             ObjectProvider<UserPermissionCache> userPermissionCache) {
+        SecurityFrameworkServiceImpl service = new SecurityFrameworkServiceImpl(permissionApi);
+        service.setUserPermissionCache(userPermissionCache.getIfAvailable());
+        return service;
+    }
+
+    /**
+     * 用户权限位图的本地缓存 Bean
+     */
+    @Bean
+    @ConditionalOnProperty(prefix = "luban.framework.security", value = "permission-cache-enable")
+    public UserPermissionCache userPermissionCache() {
+        return new UserPermissionCache(securityProperties.getPermissionCacheSize(), securityProperties.getPermissionCacheTtl());
+    }
+
+    /**
+     * 基于 Redis Pub/Sub 广播失效 {@link AccessTokenCheckCache}、吊销 {@link SignedAccessTokenCodec} 的配置
+     */
+    @Configuration(proxyBeanMethods = false)
+    @ConditionalOnClass(name = "com.wiflish.luban.framework.mq.redis.core.RedisMQTemplate")
+    @ConditionalOnExpression("${luban.framework.security.token-cache-enable:false} || ${luban.framework.security.signed-token-enable:false}")
+    public static class AccessTokenRevokeConfiguration {
+
+        @Bean
+        public AccessTokenRevokeProducer accessTokenRevokeProducer(RedisMQTemplate redisMQTemplate,
+                                                                   ObjectProvider<SignedAccessTokenCodec> signedAccessTokenCodec,
+                                                                   ObjectProvider<AccessTokenDenylistRedisDAO> accessTokenDenylistRedisDAO) {
+            AccessTokenRevokeProducer producer = new AccessTokenRevokeProducer(redisMQTemplate);
+            producer.setSignedAccessTokenCodec(signedAccessTokenCodec.getIfAvailable());
+            producer.setAccessTokenDenylistRedisDAO(accessTokenDenylistRedisDAO.getIfAvailable());
+            return producer;
+        }
+
+        /**
+         * 吊销列表的 Redis DAO Bean，开启自包含访问令牌时创建
+         *
+         * 创建时加载已持久化的吊销记录。吊销时先写入 Redis 再广播，所以加载后、订阅前被吊销的令牌，只存在于极短的启动窗口
+         */
+        @Bean
+        @ConditionalOnProperty(prefix = "luban.framework.security", value = "signed-token-enable")
+        public AccessTokenDenylistRedisDAO accessTokenDenylistRedisDAO(StringRedisTemplate stringRedisTemplate,
+                                                                       SignedAccessTokenCodec signedAccessTokenCodec,
+                                                                       SecurityProperties securityProperties) {
+            AccessTokenDenylistRedisDAO dao = new AccessTokenDenylistRedisDAO(stringRedisTemplate,
+                    securityProperties.getSignedTokenMaxTtl());
+            dao.load(signedAccessTokenCodec.getDenylist());
+            return dao;
+        }
+
+        @Bean
+        public AccessTokenRevokeConsumer accessTokenRevokeConsumer(ObjectProvider<AccessTokenCheckCache> accessTokenCheckCache,
+                                                                   ObjectProvider<SignedAccessTokenCodec> signedAccessTokenCodec) {
+            return new AccessTokenRevokeConsumer(accessTokenCheckCache.getIfAvailable(), signedAccessTokenCodec.getIfAvailable());
+        }
+
+    }
+
+    /**
+     * 基于 Redis Pub/Sub 广播失效 {@link UserPermissionCache} 的配置
+     */
+    @Configuration(proxyBeanMethods = false)
+    @ConditionalOnClass(name = "com.wiflish.luban.framework.mq.redis.core.RedisMQTemplate")
+    @ConditionalOnProperty(prefix = "luban.framework.security", value = "permission-cache-enable")
+    public static class PermissionRefreshConfiguration {
+
+        @Bean
+        public PermissionRefreshProducer permissionRefreshProducer(RedisMQTemplate redisMQTemplate) {
+            return new PermissionRefreshProducer(redisMQTemplate);
+        }
+
+        @Bean
+        public PermissionRefreshConsumer permissionRefreshConsumer(UserPermissionCache userPermissionCache) {
+            return new PermissionRefreshConsumer(userPermissionCache);
+        }
+
     }
 
     /**
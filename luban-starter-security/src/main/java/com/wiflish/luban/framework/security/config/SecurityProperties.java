@@ -1,11 +1,13 @@
 package com.wiflish.luban.framework.security.config;
 
+import com.wiflish.luban.framework.security.core.token.SignedAccessTokenCodec;
 import jakarta.validation.constraints.NotEmpty;
 import jakarta.validation.constraints.NotNull;
 import lombok.Data;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.validation.annotation.Validated;
 
+import java.time.Duration;
 import java.util.Collections;
 import java.util.List;
 
@@ -48,4 +50,76 @@ public class SecurityProperties {
      * PasswordEncoder 加密复杂度，越高开销越大
      */
     private Integer passwordEncoderLength = 4;
+
+    /**
+     * 访问令牌校验结果的本地缓存的开关
+     *
+     * 开启后，登出、刷新令牌时，需要通过 AccessTokenRevokeProducer 广播失效各节点的缓存
+     */
+    @NotNull(message = "访问令牌缓存的开关不能为空")
+    private Boolean tokenCacheEnable = false;
+    /**
+     * 访问令牌校验结果的缓存数量
+     */
+    @NotNull(message = "访问令牌缓存的数量不能为空")
+    private Long tokenCacheSize = 10000L;
+    /**
+     * 访问令牌校验通过的缓存时间，同时不超过访问令牌的过期时间
+     */
+    @NotNull(message = "访问令牌缓存的时间不能为空")
+    private Duration tokenCacheTtl = Duration.ofMinutes(1);
+    /**
+     * 访问令牌校验不通过的缓存时间
+     */
+    @NotNull(message = "访问令牌拒绝的缓存时间不能为空")
+    private Duration tokenCacheRejectTtl = Duration.ofSeconds(5);
+
+    /**
+     * 自包含访问令牌的开关
+     *
+     * 开启后，以 SignedAccessTokenCodec#PREFIX 开头的访问令牌，在本地校验签名，无需调用 OAuth2TokenApi
+     */
+    @NotNull(message = "自包含访问令牌的开关不能为空")
+    private Boolean signedTokenEnable = false;
+    /**
+     * 自包含访问令牌的签名算法
+     */
+    @NotNull(message = "自包含访问令牌的签名算法不能为空")
+    private SignedAccessTokenCodec.Algorithm signedTokenAlgorithm = SignedAccessTokenCodec.Algorithm.HS256;
+    /**
+     * 自包含访问令牌的密钥
+     *
+     * HS256 时，为 HMAC 密钥，不能少于 32 字节；ED25519 时，为 Base64 编码的 X.509 公钥
+     */
+    private String signedTokenKey;
+    /**
+     * 自包含访问令牌的 Ed25519 私钥，Base64 编码的 PKCS#8 格式
+     *
+     * 只有签发令牌的服务需要配置
+     */
+    private String signedTokenPrivateKey;
+    /**
+     * 自包含访问令牌的最大有效期，同时也是吊销记录在本地和 Redis 中的保留时间
+     */
+    @NotNull(message = "自包含访问令牌的最大有效期不能为空")
+    private Duration signedTokenMaxTtl = Duration.ofHours(2);
+
+    /**
+     * 用户权限位图的本地缓存的开关
+     *
+     * 需要 PermissionApi 实现 getUserPermission 方法；开启后，角色、菜单变更时，需要通过 PermissionRefreshProducer 广播失效各节点的缓存
+     */
+    @NotNull(message = "权限缓存的开关不能为空")
+    private Boolean permissionCacheEnable = false;
+    /**
+     * 用户权限位图的缓存数量
+     */
+    @NotNull(message = "权限缓存的数量不能为空")
+    private Long permissionCacheSize = 10000L;
+    /**
+     * 用户权限位图的缓存时间
+     */
+    @NotNull(message = "权限缓存的时间不能为空")
+    private Duration permissionCacheTtl = Duration.ofMinutes(1);
+
 }
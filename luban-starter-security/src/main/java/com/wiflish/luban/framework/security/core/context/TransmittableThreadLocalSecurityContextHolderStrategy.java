@@ -1,6 +1,6 @@
 package com.wiflish.luban.framework.security.core.context;
 
-import com.alibaba.ttl.TransmittableThreadLocal;
+import com.wiflish.luban.framework.common.util.context.ContextThreadLocals;
 import org.springframework.security.core.context.SecurityContext;
 import org.springframework.security.core.context.SecurityContextHolderStrategy;
 import org.springframework.security.core.context.SecurityContextImpl;
@@ -10,14 +10,16 @@ import org.springframework.util.Assert;
  * 基于 TransmittableThreadLocal 实现的 Security Context 持有者策略
  * 目的是，避免 @Async 等异步执行时，原生 ThreadLocal 的丢失问题
  *
+ * 也可以通过 {@link ContextThreadLocals#BACKEND_KEY} 切换成原生 ThreadLocal，此时通过 {@link ContextThreadLocals#wrap(Runnable)} 传递
+ *
  * @author wiflish
  */
 public class TransmittableThreadLocalSecurityContextHolderStrategy implements SecurityContextHolderStrategy {
 
     /**
-     * 使用 TransmittableThreadLocal 作为上下文
+     * 默认使用 TransmittableThreadLocal 作为上下文
      */
-    private static final ThreadLocal<SecurityContext> CONTEXT_HOLDER = new TransmittableThreadLocal<>();
+    private static final ThreadLocal<SecurityContext> CONTEXT_HOLDER = ContextThreadLocals.create();
 
     @Override
     public void clearContext() {
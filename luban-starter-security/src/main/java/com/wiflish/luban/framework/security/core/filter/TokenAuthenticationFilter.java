@@ -16,7 +16,10 @@ import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
+import com.wiflish.luban.framework.security.core.token.AccessTokenCheckCache;
+import com.wiflish.luban.framework.security.core.token.SignedAccessTokenCodec;
 import lombok.RequiredArgsConstructor;
+import lombok.Setter;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.web.filter.OncePerRequestFilter;
 
@@ -37,6 +40,17 @@ public class TokenAuthenticationFilter extends OncePerRequestFilter {
 
     private final OAuth2TokenApi oauth2TokenApi;
 
+    /**
+     * 访问令牌校验结果的本地缓存，为空时不开启
+     */
+    @Setter
+    private AccessTokenCheckCache accessTokenCheckCache;
+    /**
+     * 自包含访问令牌的编解码器，为空时不开启
+     */
+    @Setter
+    private SignedAccessTokenCodec signedAccessTokenCodec;
+
     @Override
     @SuppressWarnings("NullableProblems")
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
@@ -70,7 +84,7 @@ public class TokenAuthenticationFilter extends OncePerRequestFilter {
 
     private LoginUser buildLoginUserByToken(String token, Integer userType) {
         try {
-            OAuth2AccessTokenCheckRespDTO accessToken = oauth2TokenApi.checkAccessToken(token);
+            OAuth2AccessTokenCheckRespDTO accessToken = checkAccessToken(token);
             if (accessToken == null) {
                 return null;
             }
@@ -95,6 +109,19 @@ public class TokenAuthenticationFilter extends OncePerRequestFilter {
         }
     }
 
+    private OAuth2AccessTokenCheckRespDTO checkAccessToken(String token) {
+        // 情况一：自包含访问令牌，本地校验签名
+        if (signedAccessTokenCodec != null && SignedAccessTokenCodec.isSigned(token)) {
+            return signedAccessTokenCodec.checkAccessToken(token);
+        }
+        // 情况二：开启本地缓存
+        if (accessTokenCheckCache != null) {
+            return accessTokenCheckCache.checkAccessToken(token);
+        }
+        // 情况三：远程校验
+        return oauth2TokenApi.checkAccessToken(token);
+    }
+
     /**
      * 模拟登录用户，方便日常开发调试
      *
@@ -0,0 +1,79 @@
+package com.wiflish.luban.framework.security.core.permission;
+
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 权限、角色标识的字典
+ *
+ * 将每个标识驻留为一个递增的下标，使用户的权限可以编译成 {@link BitSet} 位图。
+ * 下标只增不减，已编译的位图始终有效；标识来源于菜单、角色的配置，数量是有界的。
+ *
+ * @author wiflish
+ */
+public class PermissionDictionary {
+
+    private final Map<String, Integer> indexes = new ConcurrentHashMap<>();
+    private final AtomicInteger sequence = new AtomicInteger();
+
+    /**
+     * 驻留标识，获得其下标
+     *
+     * @param value 标识
+     * @return 下标
+     */
+    public int intern(String value) {
+        return indexes.computeIfAbsent(value, key -> sequence.getAndIncrement());
+    }
+
+    /**
+     * 获得标识的下标
+     *
+     * @param value 标识
+     * @return 下标；如果未驻留，则返回 -1
+     */
+    public int indexOf(String value) {
+        Integer index = indexes.get(value);
+        return index != null ? index : -1;
+    }
+
+    /**
+     * 将标识数组编译成位图
+     *
+     * @param values 标识数组
+     * @return 位图
+     */
+    public BitSet compile(Collection<String> values) {
+        BitSet bitSet = new BitSet();
+        if (values != null) {
+            values.forEach(value -> bitSet.set(intern(value)));
+        }
+        return bitSet;
+    }
+
+    /**
+     * 判断位图是否包含任一标识
+     *
+     * @param bitSet 位图
+     * @param values 标识数组
+     * @return 是否包含
+     */
+    public boolean containsAny(BitSet bitSet, String... values) {
+        for (String value : values) {
+            int index = indexOf(value);
+            // 未驻留的标识，不可能被任何用户拥有
+            if (index >= 0 && bitSet.get(index)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public int size() {
+        return indexes.size();
+    }
+
+}
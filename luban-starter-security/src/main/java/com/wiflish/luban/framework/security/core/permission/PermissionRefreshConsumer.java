@@ -0,0 +1,24 @@
+package com.wiflish.luban.framework.security.core.permission;
+
+import com.wiflish.luban.framework.mq.redis.core.pubsub.AbstractRedisChannelMessageListener;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * {@link PermissionRefreshMessage} 广播消息的消费者，失效本地的 {@link UserPermissionCache}
+ *
+ * @author wiflish
+ */
+@RequiredArgsConstructor
+@Slf4j
+public class PermissionRefreshConsumer extends AbstractRedisChannelMessageListener<PermissionRefreshMessage> {
+
+    private final UserPermissionCache userPermissionCache;
+
+    @Override
+    public void onMessage(PermissionRefreshMessage message) {
+        log.info("[onMessage][租户({}) 用户({}) 版本({}) 刷新权限]", message.getTenantId(), message.getUserId(), message.getVersion());
+        userPermissionCache.invalidate(message.getTenantId(), message.getUserId(), message.getVersion());
+    }
+
+}
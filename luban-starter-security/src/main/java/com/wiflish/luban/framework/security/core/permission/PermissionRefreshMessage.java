@@ -0,0 +1,35 @@
+package com.wiflish.luban.framework.security.core.permission;
+
+import com.wiflish.luban.framework.mq.redis.core.pubsub.AbstractRedisChannelMessage;
+import lombok.Data;
+
+/**
+ * 用户权限刷新的广播消息
+ *
+ * 在用户的角色、角色的菜单变更时发送，用于失效各节点的 {@link UserPermissionCache}
+ *
+ * @author wiflish
+ */
+@Data
+public class PermissionRefreshMessage extends AbstractRedisChannelMessage {
+
+    /**
+     * 租户编号
+     *
+     * 为空时，表示不限制租户
+     */
+    private Long tenantId;
+    /**
+     * 用户编号
+     *
+     * 为空时，表示租户下的所有用户
+     */
+    private Long userId;
+    /**
+     * 权限版本号
+     *
+     * 为空时，表示不限制版本号；否则，只失效低于该版本号的缓存，避免乱序的消息失效较新的缓存
+     */
+    private Long version;
+
+}
@@ -0,0 +1,45 @@
+package com.wiflish.luban.framework.security.core.permission;
+
+import com.wiflish.luban.framework.mq.redis.core.RedisMQTemplate;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * {@link PermissionRefreshMessage} 广播消息的生产者
+ *
+ * 业务在用户的角色、角色的菜单变更后，调用该类广播刷新，使各节点的 {@link UserPermissionCache} 失效
+ *
+ * @author wiflish
+ */
+@RequiredArgsConstructor
+public class PermissionRefreshProducer {
+
+    private final RedisMQTemplate redisMQTemplate;
+
+    /**
+     * 刷新指定用户的权限
+     *
+     * @param tenantId 租户编号
+     * @param userId 用户编号
+     * @param version 变更后的权限版本号
+     */
+    public void sendRefreshMessage(Long tenantId, Long userId, Long version) {
+        redisMQTemplate.send(new PermissionRefreshMessage().setTenantId(tenantId).setUserId(userId).setVersion(version));
+    }
+
+    /**
+     * 刷新指定租户下所有用户的权限，例如说角色的菜单变更
+     *
+     * @param tenantId 租户编号
+     */
+    public void sendRefreshMessage(Long tenantId) {
+        sendRefreshMessage(tenantId, null, null);
+    }
+
+    /**
+     * 刷新所有用户的权限，例如说菜单的权限标识变更
+     */
+    public void sendRefreshMessage() {
+        sendRefreshMessage(null, null, null);
+    }
+
+}
@@ -0,0 +1,64 @@
+package com.wiflish.luban.framework.security.core.permission;
+
+import cn.hutool.core.util.ArrayUtil;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.BitSet;
+
+/**
+ * 用户的权限位图，基于 {@link PermissionDictionary} 编译，不可变
+ *
+ * @author wiflish
+ */
+@Getter
+@AllArgsConstructor
+public class UserPermissionBitSet {
+
+    private final PermissionDictionary dictionary;
+
+    /**
+     * 权限版本号，允许为空
+     */
+    private final Long version;
+    /**
+     * 是否超级管理员
+     */
+    private final boolean superAdmin;
+    /**
+     * 权限标识的位图
+     */
+    private final BitSet permissions;
+    /**
+     * 角色标识的位图
+     */
+    private final BitSet roles;
+
+    /**
+     * 判断是否有权限，任一一个即可
+     *
+     * @param permissions 权限
+     * @return 是否
+     */
+    public boolean hasAnyPermissions(String... permissions) {
+        // 和 PermissionApi 保持一致：未指定权限、超级管理员，直接通过
+        if (ArrayUtil.isEmpty(permissions) || superAdmin) {
+            return true;
+        }
+        return dictionary.containsAny(this.permissions, permissions);
+    }
+
+    /**
+     * 判断是否有角色，任一一个即可
+     *
+     * @param roles 角色数组
+     * @return 是否
+     */
+    public boolean hasAnyRoles(String... roles) {
+        if (ArrayUtil.isEmpty(roles)) {
+            return true;
+        }
+        return dictionary.containsAny(this.roles, roles);
+    }
+
+}
@@ -0,0 +1,116 @@
+package com.wiflish.luban.framework.security.core.permission;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.wiflish.luban.framework.common.api.permission.PermissionApi;
+import com.wiflish.luban.framework.common.api.permission.dto.UserPermissionRespDTO;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.time.Duration;
+import java.util.BitSet;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * 用户权限位图的本地缓存
+ *
+ * 以「租户编号 + 用户编号」作为 Key，缓存编译后的 {@link UserPermissionBitSet}，
+ * 使 @PreAuthorize 的每次鉴权，只需要几次位运算，无需调用 {@link PermissionApi}。
+ *
+ * 失效方式：
+ * 1. 写入超过 expireAfterWrite 时间后失效，保证读取到过期数据的时间是有界的
+ * 2. 用户的角色、角色的菜单变更时，通过 {@link PermissionRefreshMessage} 广播版本号，失效各节点低于该版本号的缓存
+ *
+ * {@link PermissionApi#getUserPermission(Long)} 返回 null（不支持）时，缓存 {@link #NOT_SUPPORTED} 空标记，避免每次鉴权都调用它
+ *
+ * @author wiflish
+ */
+public class UserPermissionCache {
+
+    /**
+     * 不支持的空标记，版本号为空，所以会被任意的版本号失效
+     */
+    private static final UserPermissionBitSet NOT_SUPPORTED = new UserPermissionBitSet(null, null, false,
+            new BitSet(), new BitSet());
+
+    private final PermissionDictionary dictionary = new PermissionDictionary();
+
+    private final Cache<CacheKey, UserPermissionBitSet> cache;
+
+    /**
+     * 失效的次数
+     *
+     * 加载期间如果发生失效，则不写入缓存，避免缓存加载到的旧数据
+     */
+    private final AtomicLong invalidateCount = new AtomicLong();
+
+    public UserPermissionCache(long maximumSize, Duration expireAfterWrite) {
+        this.cache = CacheBuilder.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireAfterWrite)
+                .build();
+    }
+
+    /**
+     * 获得用户的权限位图，如果未缓存则加载
+     *
+     * @param tenantId 租户编号，允许为空
+     * @param userId 用户编号
+     * @param loader 用户权限的加载器
+     * @return 用户的权限位图；如果加载器返回 null，则返回 null
+     */
+    public UserPermissionBitSet get(Long tenantId, Long userId, Supplier<UserPermissionRespDTO> loader) {
+        CacheKey key = new CacheKey(tenantId, userId);
+        UserPermissionBitSet bitSet = cache.getIfPresent(key);
+        if (bitSet != null) {
+            return bitSet != NOT_SUPPORTED ? bitSet : null;
+        }
+        // 加载，并编译成位图
+        long count = invalidateCount.get();
+        UserPermissionRespDTO userPermission = loader.get();
+        bitSet = userPermission != null ? new UserPermissionBitSet(dictionary, userPermission.getVersion(),
+                Boolean.TRUE.equals(userPermission.getSuperAdmin()),
+                dictionary.compile(userPermission.getPermissions()), dictionary.compile(userPermission.getRoles()))
+                : NOT_SUPPORTED;
+        if (count == invalidateCount.get()) {
+            cache.put(key, bitSet);
+        }
+        return bitSet != NOT_SUPPORTED ? bitSet : null;
+    }
+
+    /**
+     * 失效缓存
+     *
+     * @param tenantId 租户编号。为空时，不限制租户
+     * @param userId 用户编号。为空时，失效租户下的所有用户
+     * @param version 权限版本号。为空时，不限制版本号；否则，只失效低于该版本号的缓存
+     */
+    public void invalidate(Long tenantId, Long userId, Long version) {
+        invalidateCount.incrementAndGet();
+        // 情况一：全部失效
+        if (tenantId == null && userId == null && version == null) {
+            cache.invalidateAll();
+            return;
+        }
+        // 情况二：按照租户、用户、版本号失效
+        cache.asMap().entrySet().removeIf(entry -> (tenantId == null || Objects.equals(tenantId, entry.getKey().getTenantId()))
+                && (userId == null || Objects.equals(userId, entry.getKey().getUserId()))
+                && (version == null || entry.getValue().getVersion() == null || entry.getValue().getVersion() < version));
+    }
+
+    public long size() {
+        return cache.size();
+    }
+
+    @Data
+    @AllArgsConstructor
+    private static class CacheKey {
+
+        private Long tenantId;
+        private Long userId;
+
+    }
+
+}
@@ -2,9 +2,12 @@ package com.wiflish.luban.framework.security.core.service;
 
 import cn.hutool.core.collection.CollUtil;
 import com.wiflish.luban.framework.security.core.LoginUser;
+import com.wiflish.luban.framework.security.core.permission.UserPermissionBitSet;
+import com.wiflish.luban.framework.security.core.permission.UserPermissionCache;
 import com.wiflish.luban.framework.security.core.util.SecurityFrameworkUtils;
 import com.wiflish.luban.framework.common.api.permission.PermissionApi;
-import lombok.AllArgsConstructor;
+import lombok.RequiredArgsConstructor;
+import lombok.Setter;
 
 import java.util.Arrays;
 
@@ -15,11 +18,17 @@ import static com.wiflish.luban.framework.security.core.util.SecurityFrameworkUt
  *
  * @author wiflish
  */
-@AllArgsConstructor
+@RequiredArgsConstructor
 public class SecurityFrameworkServiceImpl implements SecurityFrameworkService {
 
     private final PermissionApi permissionApi;
 
+    /**
+     * 用户权限位图的本地缓存，为空时不开启
+     */
+    @Setter
+    private UserPermissionCache userPermissionCache;
+
     @Override
     public boolean hasPermission(String permission) {
         return hasAnyPermissions(permission);
@@ -27,6 +36,10 @@ public class SecurityFrameworkServiceImpl implements SecurityFrameworkService {
 
     @Override
     public boolean hasAnyPermissions(String... permissions) {
+        UserPermissionBitSet userPermission = getUserPermission();
+        if (userPermission != null) {
+            return userPermission.hasAnyPermissions(permissions);
+        }
         return permissionApi.hasAnyPermissions(getLoginUserId(), permissions);
     }
 
@@ -37,6 +50,10 @@ public class SecurityFrameworkServiceImpl implements SecurityFrameworkService {
 
     @Override
     public boolean hasAnyRoles(String... roles) {
+        UserPermissionBitSet userPermission = getUserPermission();
+        if (userPermission != null) {
+            return userPermission.hasAnyRoles(roles);
+        }
         return permissionApi.hasAnyRoles(getLoginUserId(), roles);
     }
 
@@ -54,4 +71,21 @@ public class SecurityFrameworkServiceImpl implements SecurityFrameworkService {
         return CollUtil.containsAny(user.getScopes(), Arrays.asList(scope));
     }
 
+    /**
+     * 获得登录用户的权限位图
+     *
+     * @return 权限位图；如果未开启缓存、未登录、{@link PermissionApi#getUserPermission(Long)} 不支持，则返回 null
+     */
+    private UserPermissionBitSet getUserPermission() {
+        if (userPermissionCache == null) {
+            return null;
+        }
+        LoginUser user = SecurityFrameworkUtils.getLoginUser();
+        if (user == null) {
+            return null;
+        }
+        return userPermissionCache.get(user.getTenantId(), user.getId(),
+                () -> permissionApi.getUserPermission(user.getId()));
+    }
+
 }
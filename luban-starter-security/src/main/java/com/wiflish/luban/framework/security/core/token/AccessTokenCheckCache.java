@@ -0,0 +1,161 @@
+package com.wiflish.luban.framework.security.core.token;
+
+import cn.hutool.core.date.LocalDateTimeUtil;
+import com.google.common.base.Throwables;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.ExecutionError;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import com.wiflish.luban.framework.common.api.oauth2.OAuth2TokenApi;
+import com.wiflish.luban.framework.common.api.oauth2.dto.OAuth2AccessTokenCheckRespDTO;
+import com.wiflish.luban.framework.common.exception.ServiceException;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * 访问令牌校验结果的本地缓存
+ *
+ * 避免每个请求都调用 {@link OAuth2TokenApi#checkAccessToken(String)} 远程校验访问令牌：
+ * 1. 每个访问令牌的缓存时间，不超过 ttl，也不超过访问令牌的过期时间
+ * 2. 同一访问令牌的并发校验，只调用一次 {@link OAuth2TokenApi}
+ * 3. 校验不通过的访问令牌，短暂缓存 rejectTtl 时间
+ * 4. 登出、刷新令牌时，通过 {@link AccessTokenRevokeMessage} 广播，失效各节点的缓存
+ *
+ * @author wiflish
+ */
+public class AccessTokenCheckCache {
+
+    private final OAuth2TokenApi oauth2TokenApi;
+
+    /**
+     * 校验通过的缓存时间
+     */
+    private final long ttlMillis;
+    /**
+     * 校验不通过的缓存时间
+     */
+    private final long rejectTtlMillis;
+
+    private final Cache<String, CacheEntry> cache;
+
+    public AccessTokenCheckCache(OAuth2TokenApi oauth2TokenApi, long maximumSize, Duration ttl, Duration rejectTtl) {
+        this.oauth2TokenApi = oauth2TokenApi;
+        this.ttlMillis = ttl.toMillis();
+        this.rejectTtlMillis = rejectTtl.toMillis();
+        this.cache = CacheBuilder.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttl) // 兜底，每个缓存项的实际过期时间，见 CacheEntry#expireTime
+                .build();
+    }
+
+    /**
+     * 校验访问令牌，和 {@link OAuth2TokenApi#checkAccessToken(String)} 的语义一致
+     *
+     * @param accessToken 访问令牌
+     * @return 访问令牌的信息
+     * @throws ServiceException 校验不通过时
+     */
+    public OAuth2AccessTokenCheckRespDTO checkAccessToken(String accessToken) {
+        // 如果已过期，则移除后重新校验
+        CacheEntry entry = cache.getIfPresent(accessToken);
+        if (entry != null && entry.isExpired()) {
+            cache.asMap().remove(accessToken, entry);
+        }
+        // 注意，刚加载的缓存项，即使已过期（访问令牌的过期时间已过），也直接使用，避免再次远程校验
+        entry = getEntry(accessToken);
+        if (entry.getException() != null) {
+            // 每次抛出新的异常，避免多个线程共享同一个异常实例（堆栈、addSuppressed 等会互相影响）
+            ServiceException exception = entry.getException();
+            throw new ServiceException(exception.getCode(), exception.getMessage(), exception.getMsgParams());
+        }
+        return entry.getAccessToken();
+    }
+
+    private CacheEntry getEntry(String accessToken) {
+        try {
+            // Guava Cache 保证同一 key 并发加载时，只有一个线程进行加载，其它线程等待
+            return cache.get(accessToken, () -> load(accessToken));
+        } catch (ExecutionException | UncheckedExecutionException | ExecutionError ex) {
+            Throwables.throwIfUnchecked(ex.getCause());
+            throw new IllegalStateException(ex.getCause());
+        }
+    }
+
+    private CacheEntry load(String accessToken) {
+        long now = System.currentTimeMillis();
+        try {
+            OAuth2AccessTokenCheckRespDTO checkResp = oauth2TokenApi.checkAccessToken(accessToken);
+            if (checkResp == null) {
+                return new CacheEntry(null, null, now + rejectTtlMillis);
+            }
+            // 不超过访问令牌的过期时间
+            long expireTime = now + ttlMillis;
+            if (checkResp.getExpiresTime() != null) {
+                expireTime = Math.min(expireTime, LocalDateTimeUtil.toEpochMilli(checkResp.getExpiresTime()));
+            }
+            return new CacheEntry(checkResp, null, expireTime);
+        } catch (ServiceException ex) {
+            return new CacheEntry(null, ex, now + rejectTtlMillis);
+        }
+    }
+
+    /**
+     * 失效指定访问令牌的缓存
+     *
+     * @param accessToken 访问令牌
+     */
+    public void invalidate(String accessToken) {
+        cache.invalidate(accessToken);
+    }
+
+    /**
+     * 失效指定用户的所有访问令牌的缓存
+     *
+     * @param userId 用户编号
+     * @param userType 用户类型，为空时不限制
+     */
+    public void invalidateUser(Long userId, Integer userType) {
+        cache.asMap().values().removeIf(entry -> entry.getAccessToken() != null
+                && Objects.equals(entry.getAccessToken().getUserId(), userId)
+                && (userType == null || Objects.equals(entry.getAccessToken().getUserType(), userType)));
+    }
+
+    /**
+     * 失效所有缓存
+     */
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    public long size() {
+        return cache.size();
+    }
+
+    @Getter
+    @AllArgsConstructor
+    private static class CacheEntry {
+
+        /**
+         * 访问令牌的信息，校验不通过时为空
+         */
+        private final OAuth2AccessTokenCheckRespDTO accessToken;
+        /**
+         * 校验不通过的异常
+         */
+        private final ServiceException exception;
+        /**
+         * 过期时间，单位：毫秒
+         */
+        private final long expireTime;
+
+        public boolean isExpired() {
+            return System.currentTimeMillis() >= expireTime;
+        }
+
+    }
+
+}
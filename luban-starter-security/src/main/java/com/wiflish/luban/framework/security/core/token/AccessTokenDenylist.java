@@ -0,0 +1,103 @@
+package com.wiflish.luban.framework.security.core.token;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+import java.time.Duration;
+
+/**
+ * 自包含访问令牌的本地吊销列表
+ *
+ * 自包含访问令牌在本地校验，无法通过删除服务端的令牌记录进行吊销，所以需要在各节点记录：
+ * 1. 被吊销的令牌编号，按照令牌编号吊销单个令牌
+ * 2. 用户的吊销时间，签发时间不晚于该时间的令牌均被吊销，用于登出所有终端、禁用用户
+ *
+ * 令牌的有效期不超过 maxTtl，所以记录在写入 maxTtl 后即可移除，吊销列表的大小是有界的。
+ * 记录同时持久化在 Redis 中，节点启动时通过 {@link AccessTokenDenylistRedisDAO#load(AccessTokenDenylist)} 加载。
+ *
+ * @author wiflish
+ */
+public class AccessTokenDenylist {
+
+    /**
+     * 被吊销的令牌编号
+     *
+     * key：令牌编号
+     * value：令牌的过期时间，单位：毫秒
+     */
+    private final Cache<String, Long> tokenIds;
+    /**
+     * 用户的吊销时间
+     *
+     * key：用户类型 + 用户编号
+     * value：吊销时间，单位：毫秒
+     */
+    private final Cache<String, Long> userRevokeTimes;
+
+    public AccessTokenDenylist(Duration maxTtl) {
+        this.tokenIds = CacheBuilder.newBuilder().expireAfterWrite(maxTtl).build();
+        this.userRevokeTimes = CacheBuilder.newBuilder().expireAfterWrite(maxTtl).build();
+    }
+
+    /**
+     * 吊销令牌
+     *
+     * @param tokenId 令牌编号
+     * @param expireTime 令牌的过期时间，单位：毫秒
+     */
+    public void revokeToken(String tokenId, long expireTime) {
+        // 已过期的令牌，无需记录
+        if (expireTime > System.currentTimeMillis()) {
+            tokenIds.put(tokenId, expireTime);
+        }
+    }
+
+    /**
+     * 吊销用户在当前时间及之前签发的所有令牌
+     *
+     * @param userId 用户编号
+     * @param userType 用户类型
+     */
+    public void revokeUser(Long userId, Integer userType) {
+        revokeUser(userId, userType, System.currentTimeMillis());
+    }
+
+    /**
+     * 吊销用户在吊销时间及之前签发的所有令牌
+     *
+     * 广播消息、启动加载的顺序不确定，所以只保留更晚的吊销时间
+     *
+     * @param userId 用户编号
+     * @param userType 用户类型
+     * @param revokeTime 吊销时间，单位：毫秒
+     */
+    public void revokeUser(Long userId, Integer userType, long revokeTime) {
+        userRevokeTimes.asMap().merge(buildUserKey(userId, userType), revokeTime, Math::max);
+    }
+
+    /**
+     * 判断令牌是否被吊销
+     *
+     * @param tokenId 令牌编号
+     * @param userId 用户编号
+     * @param userType 用户类型
+     * @param issueTime 令牌的签发时间，单位：毫秒
+     * @return 是否被吊销
+     */
+    public boolean isRevoked(String tokenId, Long userId, Integer userType, long issueTime) {
+        if (tokenIds.getIfPresent(tokenId) != null) {
+            return true;
+        }
+        Long revokeTime = userRevokeTimes.getIfPresent(buildUserKey(userId, userType));
+        return revokeTime != null && issueTime <= revokeTime;
+    }
+
+    public long size() {
+        return tokenIds.size() + userRevokeTimes.size();
+    }
+
+    private static String buildUserKey(Long userId, Integer userType) {
+        return userType + ":" + userId;
+    }
+
+}
@@ -0,0 +1,97 @@
+package com.wiflish.luban.framework.security.core.token;
+
+import cn.hutool.core.util.StrUtil;
+import lombok.AllArgsConstructor;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+
+import java.time.Duration;
+import java.util.Set;
+
+/**
+ * {@link AccessTokenDenylist} 的 Redis DAO
+ *
+ * 吊销时先写入 Redis，再广播 {@link AccessTokenRevokeMessage}；节点启动时，从 Redis 加载到本地的吊销列表，
+ * 避免新启动的节点，在 maxTtl 内接受启动前被吊销的令牌
+ *
+ * @author wiflish
+ */
+@AllArgsConstructor
+public class AccessTokenDenylistRedisDAO {
+
+    /**
+     * 被吊销的令牌编号
+     *
+     * KEY 格式：access_token_denylist:token
+     * VALUE 数据格式：ZSET，member 为令牌编号，score 为令牌的过期时间（毫秒）
+     * 过期时间：最后一次吊销后的 maxTtl
+     */
+    private static final String TOKEN_KEY = "access_token_denylist:token";
+    /**
+     * 用户的吊销时间
+     *
+     * KEY 格式：access_token_denylist:user
+     * VALUE 数据格式：ZSET，member 为 用户类型:用户编号，score 为吊销时间（毫秒）
+     * 过期时间：最后一次吊销后的 maxTtl
+     */
+    private static final String USER_KEY = "access_token_denylist:user";
+
+    private final StringRedisTemplate redisTemplate;
+    /**
+     * 令牌的最大有效期，即吊销记录的保留时间
+     */
+    private final Duration maxTtl;
+
+    /**
+     * 记录被吊销的令牌
+     *
+     * @param tokenId 令牌编号
+     * @param expireTime 令牌的过期时间，单位：毫秒
+     */
+    public void addToken(String tokenId, long expireTime) {
+        long now = System.currentTimeMillis();
+        if (expireTime <= now) {
+            return;
+        }
+        redisTemplate.opsForZSet().add(TOKEN_KEY, tokenId, expireTime);
+        // 移除已过期的令牌，保证 ZSET 是有界的
+        redisTemplate.opsForZSet().removeRangeByScore(TOKEN_KEY, 0, now);
+        redisTemplate.expire(TOKEN_KEY, maxTtl);
+    }
+
+    /**
+     * 记录用户的吊销时间
+     *
+     * @param userId 用户编号
+     * @param userType 用户类型
+     * @param revokeTime 吊销时间，单位：毫秒
+     */
+    public void addUser(Long userId, Integer userType, long revokeTime) {
+        redisTemplate.opsForZSet().add(USER_KEY, userType + StrUtil.COLON + userId, revokeTime);
+        // 移除超过 maxTtl 的记录，此前签发的令牌均已过期
+        redisTemplate.opsForZSet().removeRangeByScore(USER_KEY, 0, System.currentTimeMillis() - maxTtl.toMillis());
+        redisTemplate.expire(USER_KEY, maxTtl);
+    }
+
+    /**
+     * 加载仍然有效的吊销记录，到本地的吊销列表
+     *
+     * @param denylist 本地的吊销列表
+     */
+    public void load(AccessTokenDenylist denylist) {
+        long now = System.currentTimeMillis();
+        Set<ZSetOperations.TypedTuple<String>> tokens = redisTemplate.opsForZSet()
+                .rangeByScoreWithScores(TOKEN_KEY, now, Double.MAX_VALUE);
+        if (tokens != null) {
+            tokens.forEach(token -> denylist.revokeToken(token.getValue(), token.getScore().longValue()));
+        }
+        Set<ZSetOperations.TypedTuple<String>> users = redisTemplate.opsForZSet()
+                .rangeByScoreWithScores(USER_KEY, now - maxTtl.toMillis(), Double.MAX_VALUE);
+        if (users != null) {
+            users.forEach(user -> denylist.revokeUser(Long.valueOf(StrUtil.subAfter(user.getValue(), StrUtil.COLON, false)),
+                    Integer.valueOf(StrUtil.subBefore(user.getValue(), StrUtil.COLON, false)),
+                    user.getScore().longValue()));
+        }
+    }
+
+}
@@ -0,0 +1,45 @@
+package com.wiflish.luban.framework.security.core.token;
+
+import com.wiflish.luban.framework.mq.redis.core.pubsub.AbstractRedisChannelMessageListener;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * {@link AccessTokenRevokeMessage} 广播消息的消费者，失效本地的 {@link AccessTokenCheckCache}，
+ * 并记录到 {@link SignedAccessTokenCodec} 的吊销列表
+ *
+ * @author wiflish
+ */
+@RequiredArgsConstructor
+public class AccessTokenRevokeConsumer extends AbstractRedisChannelMessageListener<AccessTokenRevokeMessage> {
+
+    /**
+     * 访问令牌校验结果的本地缓存，允许为空
+     */
+    private final AccessTokenCheckCache accessTokenCheckCache;
+    /**
+     * 自包含访问令牌的编解码器，允许为空
+     */
+    private final SignedAccessTokenCodec signedAccessTokenCodec;
+
+    @Override
+    public void onMessage(AccessTokenRevokeMessage message) {
+        if (message.getAccessToken() != null) {
+            if (accessTokenCheckCache != null) {
+                accessTokenCheckCache.invalidate(message.getAccessToken());
+            }
+            if (signedAccessTokenCodec != null && SignedAccessTokenCodec.isSigned(message.getAccessToken())) {
+                signedAccessTokenCodec.revoke(message.getAccessToken());
+            }
+        }
+        if (message.getUserId() != null) {
+            if (accessTokenCheckCache != null) {
+                accessTokenCheckCache.invalidateUser(message.getUserId(), message.getUserType());
+            }
+            if (signedAccessTokenCodec != null) {
+                signedAccessTokenCodec.getDenylist().revokeUser(message.getUserId(), message.getUserType(),
+                        message.getRevokeTime() != null ? message.getRevokeTime() : System.currentTimeMillis());
+            }
+        }
+    }
+
+}
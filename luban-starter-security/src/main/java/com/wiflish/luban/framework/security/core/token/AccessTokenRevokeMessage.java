@@ -0,0 +1,37 @@
+package com.wiflish.luban.framework.security.core.token;
+
+import com.wiflish.luban.framework.mq.redis.core.pubsub.AbstractRedisChannelMessage;
+import lombok.Data;
+
+/**
+ * 访问令牌失效的广播消息
+ *
+ * 在登出、刷新令牌时发送，用于失效各节点的 {@link AccessTokenCheckCache}
+ *
+ * @author wiflish
+ */
+@Data
+public class AccessTokenRevokeMessage extends AbstractRedisChannelMessage {
+
+    /**
+     * 访问令牌
+     *
+     * 为空时，按照用户失效
+     */
+    private String accessToken;
+    /**
+     * 用户编号
+     */
+    private Long userId;
+    /**
+     * 用户类型
+     */
+    private Integer userType;
+    /**
+     * 吊销时间，单位：毫秒
+     *
+     * 按照用户失效时设置，使各节点使用同一个吊销时间，而不是各自收到消息的时间
+     */
+    private Long revokeTime;
+
+}
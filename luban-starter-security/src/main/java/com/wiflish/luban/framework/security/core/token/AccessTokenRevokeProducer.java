@@ -0,0 +1,62 @@
+package com.wiflish.luban.framework.security.core.token;
+
+import com.wiflish.luban.framework.mq.redis.core.RedisMQTemplate;
+import lombok.RequiredArgsConstructor;
+import lombok.Setter;
+
+/**
+ * {@link AccessTokenRevokeMessage} 广播消息的生产者
+ *
+ * 业务在登出、刷新令牌后，调用该类广播，使各节点的 {@link AccessTokenCheckCache} 失效、{@link SignedAccessTokenCodec} 吊销。
+ * 开启自包含访问令牌时，广播前先通过 {@link AccessTokenDenylistRedisDAO} 持久化，供之后启动的节点加载
+ *
+ * @author wiflish
+ */
+@RequiredArgsConstructor
+public class AccessTokenRevokeProducer {
+
+    private final RedisMQTemplate redisMQTemplate;
+
+    /**
+     * 自包含访问令牌的编解码器，允许为空
+     */
+    @Setter
+    private SignedAccessTokenCodec signedAccessTokenCodec;
+    /**
+     * 吊销列表的 Redis DAO，允许为空
+     */
+    @Setter
+    private AccessTokenDenylistRedisDAO accessTokenDenylistRedisDAO;
+
+    /**
+     * 失效指定访问令牌
+     *
+     * @param accessToken 访问令牌
+     */
+    public void sendRevokeMessage(String accessToken) {
+        if (accessTokenDenylistRedisDAO != null && signedAccessTokenCodec != null
+                && SignedAccessTokenCodec.isSigned(accessToken)) {
+            SignedAccessTokenCodec.Payload payload = signedAccessTokenCodec.parse(accessToken);
+            if (payload != null) {
+                accessTokenDenylistRedisDAO.addToken(payload.getJti(), payload.getExp());
+            }
+        }
+        redisMQTemplate.send(new AccessTokenRevokeMessage().setAccessToken(accessToken));
+    }
+
+    /**
+     * 失效指定用户的所有访问令牌
+     *
+     * @param userId 用户编号
+     * @param userType 用户类型
+     */
+    public void sendRevokeMessage(Long userId, Integer userType) {
+        long revokeTime = System.currentTimeMillis();
+        if (accessTokenDenylistRedisDAO != null) {
+            accessTokenDenylistRedisDAO.addUser(userId, userType, revokeTime);
+        }
+        redisMQTemplate.send(new AccessTokenRevokeMessage().setUserId(userId).setUserType(userType)
+                .setRevokeTime(revokeTime));
+    }
+
+}
@@ -0,0 +1,296 @@
+package com.wiflish.luban.framework.security.core.token;
+
+import cn.hutool.core.lang.Assert;
+import cn.hutool.core.util.IdUtil;
+import cn.hutool.core.util.StrUtil;
+import com.wiflish.luban.framework.common.api.oauth2.dto.OAuth2AccessTokenCheckRespDTO;
+import com.wiflish.luban.framework.common.exception.ServiceException;
+import com.wiflish.luban.framework.common.util.json.JsonUtils;
+import lombok.Data;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.SneakyThrows;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.*;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.security.spec.X509EncodedKeySpec;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Base64;
+import java.util.List;
+
+import static com.wiflish.luban.framework.common.exception.enums.GlobalErrorCodeConstants.UNAUTHORIZED;
+
+/**
+ * 自包含访问令牌的编解码器
+ *
+ * 令牌携带用户编号、用户类型、租户编号、授权范围、过期时间，使用本地配置的密钥签名，
+ * 使 TokenAuthenticationFilter 无需调用 OAuth2TokenApi 即可校验令牌，吊销则由 {@link AccessTokenDenylist} 处理。
+ *
+ * 令牌格式为 {@link #PREFIX} + Base64URL(载荷 JSON) + "." + Base64URL(签名)，签名范围为 "." 之前的内容。
+ * 以 {@link #PREFIX} 开头，从而和 OAuth2TokenApi 签发的不透明令牌区分开。
+ *
+ * @author wiflish
+ */
+public class SignedAccessTokenCodec {
+
+    /**
+     * 令牌的前缀
+     */
+    public static final String PREFIX = "luban.";
+
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    private final Algorithm algorithm;
+    /**
+     * HMAC 的密钥
+     */
+    private final SecretKeySpec secretKey;
+    /**
+     * Ed25519 的私钥，用于签发；只校验令牌的节点，无需配置
+     */
+    private final PrivateKey privateKey;
+    /**
+     * Ed25519 的公钥，用于校验
+     */
+    private final PublicKey publicKey;
+    /**
+     * HMAC 不是线程安全的，每个线程一个
+     */
+    private final ThreadLocal<Mac> macs;
+
+    /**
+     * 令牌的最大有效期，超过的令牌视为无效，保证 {@link AccessTokenDenylist} 是有界的
+     */
+    private final long maxTtlMillis;
+
+    @Getter
+    private final AccessTokenDenylist denylist;
+
+    /**
+     * 创建编解码器
+     *
+     * @param algorithm 签名算法
+     * @param key HMAC 时，为密钥；Ed25519 时，为 Base64 编码的 X.509 公钥
+     * @param privateKey Ed25519 时，为 Base64 编码的 PKCS#8 私钥，允许为空
+     * @param maxTtl 令牌的最大有效期
+     */
+    @SneakyThrows
+    public SignedAccessTokenCodec(Algorithm algorithm, String key, String privateKey, Duration maxTtl) {
+        this.algorithm = algorithm;
+        this.maxTtlMillis = maxTtl.toMillis();
+        this.denylist = new AccessTokenDenylist(maxTtl);
+        if (algorithm == Algorithm.HS256) {
+            this.secretKey = new SecretKeySpec(key.getBytes(StandardCharsets.UTF_8), algorithm.getJcaName());
+            this.privateKey = null;
+            this.publicKey = null;
+            this.macs = ThreadLocal.withInitial(this::createMac);
+        } else {
+            KeyFactory keyFactory = KeyFactory.getInstance(algorithm.getJcaName());
+            this.secretKey = null;
+            this.publicKey = keyFactory.generatePublic(new X509EncodedKeySpec(Base64.getDecoder().decode(key)));
+            this.privateKey = StrUtil.isNotEmpty(privateKey)
+                    ? keyFactory.generatePrivate(new PKCS8EncodedKeySpec(Base64.getDecoder().decode(privateKey))) : null;
+            this.macs = null;
+        }
+    }
+
+    /**
+     * 判断是否为自包含访问令牌
+     *
+     * @param token 访问令牌
+     * @return 是否
+     */
+    public static boolean isSigned(String token) {
+        return token.startsWith(PREFIX);
+    }
+
+    /**
+     * 签发访问令牌
+     *
+     * @param accessToken 访问令牌的信息，其中 expiresTime 过期时间必须设置
+     * @return 访问令牌
+     */
+    public String encode(OAuth2AccessTokenCheckRespDTO accessToken) {
+        Assert.notNull(accessToken.getExpiresTime(), "访问令牌的过期时间不能为空");
+        long now = System.currentTimeMillis();
+        Payload payload = new Payload().setJti(IdUtil.fastSimpleUUID())
+                .setUid(accessToken.getUserId()).setUt(accessToken.getUserType()).setTid(accessToken.getTenantId())
+                .setScp(accessToken.getScopes()).setIat(now).setExp(toEpochMilli(accessToken.getExpiresTime()));
+        String content = PREFIX + ENCODER.encodeToString(JsonUtils.toJsonByte(payload));
+        return content + "." + ENCODER.encodeToString(sign(content.getBytes(StandardCharsets.US_ASCII)));
+    }
+
+    /**
+     * 校验访问令牌，和 OAuth2TokenApi#checkAccessToken 的语义一致
+     *
+     * @param token 访问令牌
+     * @return 访问令牌的信息
+     * @throws ServiceException 签名错误、已过期、已吊销时
+     */
+    public OAuth2AccessTokenCheckRespDTO checkAccessToken(String token) {
+        Payload payload = verify(token);
+        if (denylist.isRevoked(payload.getJti(), payload.getUid(), payload.getUt(), payload.getIat())) {
+            throw new ServiceException(UNAUTHORIZED.getCode(), "访问令牌已吊销");
+        }
+        return new OAuth2AccessTokenCheckRespDTO().setUserId(payload.getUid()).setUserType(payload.getUt())
+                .setTenantId(payload.getTid()).setScopes(payload.getScp())
+                .setExpiresTime(LocalDateTime.ofInstant(Instant.ofEpochMilli(payload.getExp()), ZoneId.systemDefault()));
+    }
+
+    /**
+     * 吊销访问令牌，记录到本地的 {@link AccessTokenDenylist}
+     *
+     * @param token 访问令牌；如果无效，则忽略
+     */
+    public void revoke(String token) {
+        Payload payload = parse(token);
+        if (payload != null) {
+            denylist.revokeToken(payload.getJti(), payload.getExp());
+        }
+    }
+
+    /**
+     * 校验并解析访问令牌的载荷，不判断是否被吊销
+     *
+     * @param token 访问令牌
+     * @return 载荷；如果令牌无效，则返回 null
+     */
+    public Payload parse(String token) {
+        try {
+            return verify(token);
+        } catch (ServiceException ex) {
+            return null;
+        }
+    }
+
+    private Payload verify(String token) {
+        int index = token.lastIndexOf('.');
+        if (!isSigned(token) || index <= PREFIX.length()) {
+            throw new ServiceException(UNAUTHORIZED.getCode(), "访问令牌格式不正确");
+        }
+        // 校验签名
+        Payload payload;
+        try {
+            byte[] content = token.substring(0, index).getBytes(StandardCharsets.US_ASCII);
+            byte[] signature = DECODER.decode(token.substring(index + 1));
+            if (!verify(content, signature)) {
+                throw new ServiceException(UNAUTHORIZED.getCode(), "访问令牌签名不正确");
+            }
+            payload = JsonUtils.parseObject(DECODER.decode(token.substring(PREFIX.length(), index)), Payload.class);
+        } catch (ServiceException ex) {
+            throw ex;
+        } catch (RuntimeException ex) { // Base64 解码、JSON 解析失败
+            throw new ServiceException(UNAUTHORIZED.getCode(), "访问令牌格式不正确");
+        }
+        // 校验有效期
+        long now = System.currentTimeMillis();
+        if (payload == null || payload.getExp() == null || payload.getIat() == null
+                || now >= payload.getExp() || payload.getExp() - payload.getIat() > maxTtlMillis) {
+            throw new ServiceException(UNAUTHORIZED.getCode(), "访问令牌已过期");
+        }
+        return payload;
+    }
+
+    @SneakyThrows
+    private byte[] sign(byte[] content) {
+        if (algorithm == Algorithm.HS256) {
+            return macs.get().doFinal(content);
+        }
+        if (privateKey == null) {
+            throw new IllegalStateException("未配置 Ed25519 私钥，无法签发访问令牌");
+        }
+        Signature signature = Signature.getInstance(algorithm.getJcaName());
+        signature.initSign(privateKey);
+        signature.update(content);
+        return signature.sign();
+    }
+
+    @SneakyThrows
+    private boolean verify(byte[] content, byte[] signature) {
+        if (algorithm == Algorithm.HS256) {
+            // 使用常量时间比较，避免时序攻击
+            return MessageDigest.isEqual(macs.get().doFinal(content), signature);
+        }
+        Signature verifier = Signature.getInstance(algorithm.getJcaName());
+        verifier.initVerify(publicKey);
+        verifier.update(content);
+        try {
+            return verifier.verify(signature);
+        } catch (SignatureException ex) {
+            return false;
+        }
+    }
+
+    @SneakyThrows
+    private Mac createMac() {
+        Mac mac = Mac.getInstance(algorithm.getJcaName());
+        mac.init(secretKey);
+        return mac;
+    }
+
+    private static Long toEpochMilli(LocalDateTime time) {
+        return time != null ? time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli() : null;
+    }
+
+    /**
+     * 签名算法
+     */
+    @Getter
+    @RequiredArgsConstructor
+    public enum Algorithm {
+
+        HS256("HmacSHA256"),
+        ED25519("Ed25519");
+
+        /**
+         * JCA 的算法名
+         */
+        private final String jcaName;
+
+    }
+
+    /**
+     * 令牌的载荷，字段名参考 JWT 保持简短
+     */
+    @Data
+    public static class Payload {
+
+        /**
+         * 令牌编号
+         */
+        private String jti;
+        /**
+         * 用户编号
+         */
+        private Long uid;
+        /**
+         * 用户类型
+         */
+        private Integer ut;
+        /**
+         * 租户编号
+         */
+        private Long tid;
+        /**
+         * 授权范围
+         */
+        private List<String> scp;
+        /**
+         * 签发时间，单位：毫秒
+         */
+        private Long iat;
+        /**
+         * 过期时间，单位：毫秒
+         */
+        private Long exp;
+
+    }
+
+}
@@ -0,0 +1,108 @@
+package com.wiflish.luban.framework.security.core.permission;
+
+import com.wiflish.luban.framework.common.api.permission.dto.UserPermissionRespDTO;
+import com.wiflish.luban.framework.test.core.ut.BaseMockitoUnitTest;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static com.wiflish.luban.framework.common.util.collection.SetUtils.asSet;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * {@link UserPermissionCache} 的单元测试
+ *
+ * @author wiflish
+ */
+public class UserPermissionCacheTest extends BaseMockitoUnitTest {
+
+    private final UserPermissionCache userPermissionCache = new UserPermissionCache(100, Duration.ofMinutes(1));
+
+    @Test
+    public void testGet() {
+        // 准备参数
+        AtomicInteger loadCount = new AtomicInteger();
+        Supplier<UserPermissionRespDTO> loader = () -> {
+            loadCount.incrementAndGet();
+            return buildUserPermission(1L);
+        };
+
+        // 调用，2 次
+        UserPermissionBitSet bitSet = userPermissionCache.get(1L, 100L, loader);
+        assertSame(bitSet, userPermissionCache.get(1L, 100L, loader));
+        // 断言：只加载 1 次
+        assertEquals(1, loadCount.get());
+        // 断言：权限
+        assertTrue(bitSet.hasAnyPermissions("system:user:query"));
+        assertTrue(bitSet.hasAnyPermissions("system:role:query", "system:user:create"));
+        assertFalse(bitSet.hasAnyPermissions("system:role:query"));
+        assertFalse(bitSet.hasAnyPermissions("system:not:exists"));
+        assertTrue(bitSet.hasAnyPermissions());
+        // 断言：角色
+        assertTrue(bitSet.hasAnyRoles("common"));
+        assertFalse(bitSet.hasAnyRoles("super_admin"));
+    }
+
+    @Test
+    public void testGet_superAdmin() {
+        // 准备参数
+        UserPermissionRespDTO userPermission = buildUserPermission(1L).setSuperAdmin(true);
+
+        // 调用
+        UserPermissionBitSet bitSet = userPermissionCache.get(1L, 100L, () -> userPermission);
+        // 断言
+        assertTrue(bitSet.hasAnyPermissions("system:role:query"));
+    }
+
+    @Test
+    public void testGet_notSupported() {
+        // 准备参数
+        AtomicInteger loadCount = new AtomicInteger();
+        Supplier<UserPermissionRespDTO> loader = () -> {
+            loadCount.incrementAndGet();
+            return null;
+        };
+
+        // 调用，2 次
+        assertNull(userPermissionCache.get(1L, 100L, loader));
+        assertNull(userPermissionCache.get(1L, 100L, loader));
+        // 断言：缓存空标记，只加载 1 次
+        assertEquals(1, loadCount.get());
+        assertEquals(1, userPermissionCache.size());
+
+        // 调用：任意版本号的失效
+        userPermissionCache.invalidate(1L, 100L, 1L);
+        // 断言：空标记被失效，重新加载
+        assertEquals(0, userPermissionCache.size());
+        assertNotNull(userPermissionCache.get(1L, 100L, () -> buildUserPermission(1L)));
+    }
+
+    @Test
+    public void testInvalidate_version() {
+        // 准备参数
+        userPermissionCache.get(1L, 100L, () -> buildUserPermission(2L));
+        userPermissionCache.get(1L, 200L, () -> buildUserPermission(3L));
+        userPermissionCache.get(2L, 100L, () -> buildUserPermission(1L));
+
+        // 调用：失效租户 1 下，版本号低于 3 的缓存
+        userPermissionCache.invalidate(1L, null, 3L);
+        // 断言
+        assertEquals(2, userPermissionCache.size());
+        assertNotNull(userPermissionCache.get(1L, 200L, () -> null));
+        assertNull(userPermissionCache.get(1L, 100L, () -> null));
+
+        // 调用：全部失效
+        userPermissionCache.invalidate(null, null, null);
+        // 断言
+        assertEquals(0, userPermissionCache.size());
+    }
+
+    private static UserPermissionRespDTO buildUserPermission(Long version) {
+        return new UserPermissionRespDTO().setVersion(version)
+                .setPermissions(asSet("system:user:query", "system:user:create"))
+                .setRoles(asSet("common"));
+    }
+
+}
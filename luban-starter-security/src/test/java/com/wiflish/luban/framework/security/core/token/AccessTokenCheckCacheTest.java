@@ -0,0 +1,97 @@
+package com.wiflish.luban.framework.security.core.token;
+
+import com.wiflish.luban.framework.common.api.oauth2.OAuth2TokenApi;
+import com.wiflish.luban.framework.common.api.oauth2.dto.OAuth2AccessTokenCheckRespDTO;
+import com.wiflish.luban.framework.common.exception.ServiceException;
+import com.wiflish.luban.framework.test.core.ut.BaseMockitoUnitTest;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * {@link AccessTokenCheckCache} 的单元测试
+ *
+ * @author wiflish
+ */
+public class AccessTokenCheckCacheTest extends BaseMockitoUnitTest {
+
+    @Mock
+    private OAuth2TokenApi oauth2TokenApi;
+
+    private AccessTokenCheckCache accessTokenCheckCache;
+
+    @BeforeEach
+    public void setUp() {
+        accessTokenCheckCache = new AccessTokenCheckCache(oauth2TokenApi, 100,
+                Duration.ofMinutes(1), Duration.ofMinutes(1));
+    }
+
+    @Test
+    public void testCheckAccessToken_cache() {
+        // mock 方法
+        OAuth2AccessTokenCheckRespDTO checkResp = new OAuth2AccessTokenCheckRespDTO().setUserId(1L).setUserType(2);
+        when(oauth2TokenApi.checkAccessToken(eq("token"))).thenReturn(checkResp);
+
+        // 调用，2 次
+        assertSame(checkResp, accessTokenCheckCache.checkAccessToken("token"));
+        assertSame(checkResp, accessTokenCheckCache.checkAccessToken("token"));
+        // 断言：只远程校验 1 次
+        verify(oauth2TokenApi, times(1)).checkAccessToken(eq("token"));
+    }
+
+    @Test
+    public void testCheckAccessToken_expiresTime() {
+        // mock 方法：访问令牌已过期
+        OAuth2AccessTokenCheckRespDTO checkResp = new OAuth2AccessTokenCheckRespDTO().setUserId(1L)
+                .setExpiresTime(LocalDateTime.now().minusSeconds(1));
+        when(oauth2TokenApi.checkAccessToken(eq("token"))).thenReturn(checkResp);
+
+        // 调用，2 次
+        accessTokenCheckCache.checkAccessToken("token");
+        accessTokenCheckCache.checkAccessToken("token");
+        // 断言：缓存时间不超过访问令牌的过期时间，每次都远程校验，并且每次只校验 1 次
+        verify(oauth2TokenApi, times(2)).checkAccessToken(eq("token"));
+    }
+
+    @Test
+    public void testCheckAccessToken_reject() {
+        // mock 方法
+        ServiceException exception = new ServiceException(401, "访问令牌不存在");
+        when(oauth2TokenApi.checkAccessToken(eq("token"))).thenThrow(exception);
+
+        // 调用，并断言：2 次都抛出相同错误码的异常，但不是同一个实例
+        ServiceException exception01 = assertThrows(ServiceException.class, () -> accessTokenCheckCache.checkAccessToken("token"));
+        ServiceException exception02 = assertThrows(ServiceException.class, () -> accessTokenCheckCache.checkAccessToken("token"));
+        assertEquals(exception.getCode(), exception01.getCode());
+        assertEquals(exception.getMessage(), exception02.getMessage());
+        assertNotSame(exception01, exception02);
+        // 断言：只远程校验 1 次
+        verify(oauth2TokenApi, times(1)).checkAccessToken(eq("token"));
+    }
+
+    @Test
+    public void testInvalidateUser() {
+        // mock 方法
+        when(oauth2TokenApi.checkAccessToken(eq("token01")))
+                .thenReturn(new OAuth2AccessTokenCheckRespDTO().setUserId(1L).setUserType(2));
+        when(oauth2TokenApi.checkAccessToken(eq("token02")))
+                .thenReturn(new OAuth2AccessTokenCheckRespDTO().setUserId(2L).setUserType(2));
+        accessTokenCheckCache.checkAccessToken("token01");
+        accessTokenCheckCache.checkAccessToken("token02");
+
+        // 调用
+        accessTokenCheckCache.invalidateUser(1L, 2);
+        // 断言
+        assertEquals(1, accessTokenCheckCache.size());
+        accessTokenCheckCache.checkAccessToken("token01");
+        verify(oauth2TokenApi, times(2)).checkAccessToken(eq("token01"));
+        verify(oauth2TokenApi, times(1)).checkAccessToken(eq("token02"));
+    }
+
+}
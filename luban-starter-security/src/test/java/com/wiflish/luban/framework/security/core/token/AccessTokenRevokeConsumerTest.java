@@ -0,0 +1,167 @@
+package com.wiflish.luban.framework.security.core.token;
+
+import com.github.fppt.jedismock.RedisServer;
+import com.wiflish.luban.framework.common.api.oauth2.OAuth2TokenApi;
+import com.wiflish.luban.framework.common.api.oauth2.dto.OAuth2AccessTokenCheckRespDTO;
+import com.wiflish.luban.framework.common.exception.ServiceException;
+import com.wiflish.luban.framework.mq.redis.core.RedisMQTemplate;
+import com.wiflish.luban.framework.test.core.ut.BaseMockitoUnitTest;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.jedis.JedisConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * {@link AccessTokenRevokeProducer}、{@link AccessTokenRevokeConsumer} 的单元测试
+ *
+ * 基于内嵌的 jedis-mock Redis，模拟两个节点：节点 A 广播失效消息，节点 B 的 {@link AccessTokenCheckCache} 被失效
+ *
+ * @author wiflish
+ */
+public class AccessTokenRevokeConsumerTest extends BaseMockitoUnitTest {
+
+    /**
+     * 等待广播消息的最长时间
+     */
+    private static final long WAIT_TIMEOUT_MILLIS = 5000L;
+
+    @Mock
+    private OAuth2TokenApi oauth2TokenApi;
+
+    private RedisServer redisServer;
+    private JedisConnectionFactory connectionFactory;
+    private RedisMessageListenerContainer container;
+
+    /**
+     * 节点 A 的生产者
+     */
+    private AccessTokenRevokeProducer producer;
+    /**
+     * 节点 B 的本地缓存
+     */
+    private AccessTokenCheckCache accessTokenCheckCache;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        redisServer = RedisServer.newRedisServer().start();
+        connectionFactory = new JedisConnectionFactory(
+                new RedisStandaloneConfiguration(redisServer.getHost(), redisServer.getBindPort()));
+        connectionFactory.afterPropertiesSet();
+        connectionFactory.start();
+        RedisMQTemplate redisMQTemplate = new RedisMQTemplate(new StringRedisTemplate(connectionFactory));
+        // 节点 A
+        producer = new AccessTokenRevokeProducer(redisMQTemplate);
+        // 节点 B
+        accessTokenCheckCache = new AccessTokenCheckCache(oauth2TokenApi, 100,
+                Duration.ofMinutes(1), Duration.ofMinutes(1));
+        AccessTokenRevokeConsumer consumer = new AccessTokenRevokeConsumer(accessTokenCheckCache, null);
+        consumer.setRedisMQTemplate(redisMQTemplate);
+        container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        container.addMessageListener(consumer, new ChannelTopic(consumer.getChannel()));
+        container.afterPropertiesSet();
+        container.start();
+    }
+
+    @AfterEach
+    public void tearDown() throws Exception {
+        container.destroy();
+        connectionFactory.destroy();
+        redisServer.stop();
+    }
+
+    @Test
+    public void testSendRevokeMessage_accessToken() throws InterruptedException {
+        // mock 方法
+        when(oauth2TokenApi.checkAccessToken(eq("token01")))
+                .thenReturn(new OAuth2AccessTokenCheckRespDTO().setUserId(1L).setUserType(2));
+        when(oauth2TokenApi.checkAccessToken(eq("token02")))
+                .thenReturn(new OAuth2AccessTokenCheckRespDTO().setUserId(2L).setUserType(2));
+        accessTokenCheckCache.checkAccessToken("token01");
+        accessTokenCheckCache.checkAccessToken("token02");
+
+        // 调用：节点 A 广播
+        producer.sendRevokeMessage("token01");
+        // 断言：节点 B 失效 token01，重新远程校验
+        waitForSize(1);
+        accessTokenCheckCache.checkAccessToken("token01");
+        accessTokenCheckCache.checkAccessToken("token02");
+        verify(oauth2TokenApi, times(2)).checkAccessToken(eq("token01"));
+        verify(oauth2TokenApi, times(1)).checkAccessToken(eq("token02"));
+    }
+
+    @Test
+    public void testSendRevokeMessage_user() throws InterruptedException {
+        // mock 方法
+        when(oauth2TokenApi.checkAccessToken(eq("token01")))
+                .thenReturn(new OAuth2AccessTokenCheckRespDTO().setUserId(1L).setUserType(2));
+        when(oauth2TokenApi.checkAccessToken(eq("token02")))
+                .thenReturn(new OAuth2AccessTokenCheckRespDTO().setUserId(2L).setUserType(2));
+        accessTokenCheckCache.checkAccessToken("token01");
+        accessTokenCheckCache.checkAccessToken("token02");
+
+        // 调用：节点 A 广播
+        producer.sendRevokeMessage(2L, 2);
+        // 断言：节点 B 失效用户 2 的 token02
+        waitForSize(1);
+        accessTokenCheckCache.checkAccessToken("token02");
+        verify(oauth2TokenApi, times(2)).checkAccessToken(eq("token02"));
+    }
+
+    @Test
+    public void testSendRevokeMessage_signedTokenPersisted() {
+        // 准备参数：节点 A 开启自包含访问令牌，吊销时持久化到 Redis
+        SignedAccessTokenCodec codec = buildSignedAccessTokenCodec();
+        AccessTokenDenylistRedisDAO denylistRedisDAO = new AccessTokenDenylistRedisDAO(
+                new StringRedisTemplate(connectionFactory), Duration.ofHours(2));
+        producer.setSignedAccessTokenCodec(codec);
+        producer.setAccessTokenDenylistRedisDAO(denylistRedisDAO);
+        String token01 = codec.encode(buildAccessToken(1L));
+        String token02 = codec.encode(buildAccessToken(2L));
+
+        // 调用：节点 A 吊销 token01、用户 2
+        producer.sendRevokeMessage(token01);
+        producer.sendRevokeMessage(2L, 2);
+        // 调用：之后启动的节点 C，从 Redis 加载
+        SignedAccessTokenCodec newCodec = buildSignedAccessTokenCodec();
+        denylistRedisDAO.load(newCodec.getDenylist());
+        // 断言：节点 C 拒绝已吊销的令牌
+        assertEquals(2, newCodec.getDenylist().size());
+        assertThrows(ServiceException.class, () -> newCodec.checkAccessToken(token01));
+        assertThrows(ServiceException.class, () -> newCodec.checkAccessToken(token02));
+        assertEquals(3L, newCodec.checkAccessToken(codec.encode(buildAccessToken(3L))).getUserId());
+    }
+
+    private static SignedAccessTokenCodec buildSignedAccessTokenCodec() {
+        return new SignedAccessTokenCodec(SignedAccessTokenCodec.Algorithm.HS256,
+                "luban-test-secret-of-at-least-32-bytes", null, Duration.ofHours(2));
+    }
+
+    private static OAuth2AccessTokenCheckRespDTO buildAccessToken(Long userId) {
+        return new OAuth2AccessTokenCheckRespDTO().setUserId(userId).setUserType(2)
+                .setExpiresTime(LocalDateTime.now().plusMinutes(30));
+    }
+
+    private void waitForSize(long size) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + WAIT_TIMEOUT_MILLIS;
+        while (accessTokenCheckCache.size() != size && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(size, accessTokenCheckCache.size());
+    }
+
+}
@@ -0,0 +1,106 @@
+package com.wiflish.luban.framework.security.core.token;
+
+import com.wiflish.luban.framework.common.api.oauth2.dto.OAuth2AccessTokenCheckRespDTO;
+import com.wiflish.luban.framework.common.exception.ServiceException;
+import com.wiflish.luban.framework.security.core.token.SignedAccessTokenCodec.Algorithm;
+import com.wiflish.luban.framework.test.core.ut.BaseMockitoUnitTest;
+import org.junit.jupiter.api.Test;
+
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+import static java.util.Collections.singletonList;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * {@link SignedAccessTokenCodec} 的单元测试
+ *
+ * @author wiflish
+ */
+public class SignedAccessTokenCodecTest extends BaseMockitoUnitTest {
+
+    private final SignedAccessTokenCodec codec = new SignedAccessTokenCodec(Algorithm.HS256,
+            "luban-test-secret-of-at-least-32-bytes", null, Duration.ofHours(2));
+
+    @Test
+    public void testCheckAccessToken_hs256() {
+        // 准备参数
+        String token = codec.encode(buildAccessToken(LocalDateTime.now().plusMinutes(30)));
+
+        // 调用
+        OAuth2AccessTokenCheckRespDTO accessToken = codec.checkAccessToken(token);
+        // 断言
+        assertTrue(SignedAccessTokenCodec.isSigned(token));
+        assertEquals(1L, accessToken.getUserId());
+        assertEquals(2, accessToken.getUserType());
+        assertEquals(3L, accessToken.getTenantId());
+        assertEquals(singletonList("user.read"), accessToken.getScopes());
+    }
+
+    @Test
+    public void testCheckAccessToken_ed25519() throws Exception {
+        // 准备参数
+        KeyPair keyPair = KeyPairGenerator.getInstance("Ed25519").generateKeyPair();
+        String publicKey = Base64.getEncoder().encodeToString(keyPair.getPublic().getEncoded());
+        String privateKey = Base64.getEncoder().encodeToString(keyPair.getPrivate().getEncoded());
+        SignedAccessTokenCodec issuer = new SignedAccessTokenCodec(Algorithm.ED25519, publicKey, privateKey, Duration.ofHours(2));
+        SignedAccessTokenCodec verifier = new SignedAccessTokenCodec(Algorithm.ED25519, publicKey, null, Duration.ofHours(2));
+        String token = issuer.encode(buildAccessToken(LocalDateTime.now().plusMinutes(30)));
+
+        // 调用
+        OAuth2AccessTokenCheckRespDTO accessToken = verifier.checkAccessToken(token);
+        // 断言
+        assertEquals(1L, accessToken.getUserId());
+        assertThrows(IllegalStateException.class, () -> verifier.encode(buildAccessToken(LocalDateTime.now().plusMinutes(30))));
+    }
+
+    @Test
+    public void testCheckAccessToken_tampered() {
+        // 准备参数
+        String token = codec.encode(buildAccessToken(LocalDateTime.now().plusMinutes(30)));
+        SignedAccessTokenCodec otherCodec = new SignedAccessTokenCodec(Algorithm.HS256, "other-secret", null, Duration.ofHours(2));
+
+        // 调用，并断言
+        assertThrows(ServiceException.class, () -> otherCodec.checkAccessToken(token));
+        assertThrows(ServiceException.class, () -> codec.checkAccessToken(token.substring(0, token.length() - 2)));
+        assertThrows(ServiceException.class, () -> codec.checkAccessToken("luban.not-a-token"));
+    }
+
+    @Test
+    public void testCheckAccessToken_expired() {
+        // 准备参数
+        String expiredToken = codec.encode(buildAccessToken(LocalDateTime.now().minusSeconds(1)));
+        String tooLongToken = codec.encode(buildAccessToken(LocalDateTime.now().plusHours(3)));
+
+        // 调用，并断言
+        assertThrows(ServiceException.class, () -> codec.checkAccessToken(expiredToken));
+        assertThrows(ServiceException.class, () -> codec.checkAccessToken(tooLongToken));
+    }
+
+    @Test
+    public void testRevoke() {
+        // 准备参数
+        String token01 = codec.encode(buildAccessToken(LocalDateTime.now().plusMinutes(30)));
+        String token02 = codec.encode(buildAccessToken(LocalDateTime.now().plusMinutes(30)));
+
+        // 调用：吊销令牌
+        codec.revoke(token01);
+        // 断言
+        assertThrows(ServiceException.class, () -> codec.checkAccessToken(token01));
+        assertNotNull(codec.checkAccessToken(token02));
+
+        // 调用：吊销用户
+        codec.getDenylist().revokeUser(1L, 2);
+        // 断言
+        assertThrows(ServiceException.class, () -> codec.checkAccessToken(token02));
+    }
+
+    private static OAuth2AccessTokenCheckRespDTO buildAccessToken(LocalDateTime expiresTime) {
+        return new OAuth2AccessTokenCheckRespDTO().setUserId(1L).setUserType(2).setTenantId(3L)
+                .setScopes(singletonList("user.read")).setExpiresTime(expiresTime);
+    }
+
+}
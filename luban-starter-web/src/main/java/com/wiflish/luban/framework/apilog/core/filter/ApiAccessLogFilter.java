@@ -12,6 +12,7 @@ import com.wiflish.luban.framework.common.util.monitor.TracerUtils;
 import com.wiflish.luban.framework.common.util.servlet.ServletUtils;
 import com.wiflish.luban.framework.web.config.WebProperties;
 import com.wiflish.luban.framework.web.core.filter.ApiRequestFilter;
+import com.wiflish.luban.framework.web.core.matcher.UrlMatcher;
 import com.wiflish.luban.framework.web.core.util.WebFrameworkUtils;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
@@ -23,6 +24,7 @@ import org.dromara.hutool.json.JSONObject;
 import java.io.IOException;
 import java.time.LocalDateTime;
 import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
 import java.util.Map;
 
 import static com.wiflish.luban.framework.common.util.json.JsonUtils.toJsonString;
@@ -39,25 +41,37 @@ public class ApiAccessLogFilter extends ApiRequestFilter {
 
     private final ApiAccessLogFrameworkService apiAccessLogFrameworkService;
 
+    /**
+     * 需要记录的 URL 的匹配器，URL 包含任一配置值即匹配
+     */
+    private final UrlMatcher includeUrlMatcher;
+    /**
+     * 不记录的 URL 的匹配器，URL 包含任一配置值即匹配
+     */
+    private final UrlMatcher excludeUrlMatcher;
+
     public ApiAccessLogFilter(WebProperties webProperties, String applicationName, ApiAccessLogFrameworkService apiAccessLogFrameworkService) {
         super(webProperties);
         this.applicationName = applicationName;
         this.apiAccessLogFrameworkService = apiAccessLogFrameworkService;
+        this.includeUrlMatcher = UrlMatcher.builder()
+                .contains(Arrays.asList(apiAccessLogFrameworkService.getIncludeUrlPrefixs())).build();
+        this.excludeUrlMatcher = UrlMatcher.builder()
+                .contains(Arrays.asList(apiAccessLogFrameworkService.getExcludeUrls())).build();
     }
 
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
             throws ServletException, IOException {
         //需要记录的url白名单.
-        String[] includeUrlPrefixs = apiAccessLogFrameworkService.getIncludeUrlPrefixs();
-        if (!StrUtil.containsAny(request.getRequestURI(), includeUrlPrefixs)) {
+        String requestUri = request.getRequestURI();
+        if (!includeUrlMatcher.matches(requestUri)) {
             filterChain.doFilter(request, response);
             return;
         }
 
         //不记录指定的请求日志.
-        String[] excludes = apiAccessLogFrameworkService.getExcludeUrls();
-        if (StrUtil.containsAny(request.getRequestURI(), excludes)) {
+        if (excludeUrlMatcher.matches(requestUri)) {
             filterChain.doFilter(request, response);
             return;
         }
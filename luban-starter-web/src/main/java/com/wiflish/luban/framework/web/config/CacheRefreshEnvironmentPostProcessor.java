@@ -0,0 +1,33 @@
+package com.wiflish.luban.framework.web.config;
+
+import com.wiflish.luban.framework.common.util.cache.CacheUtils;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.env.EnvironmentPostProcessor;
+import org.springframework.core.env.ConfigurableEnvironment;
+
+/**
+ * 根据 {@link CacheUtils#REFRESH_THREADS_KEY} 等配置项，设置 {@link CacheUtils} 的刷新线程池
+ *
+ * 在 Environment 准备好后、首次创建缓存之前执行，保证 application.yaml 中的配置生效
+ *
+ * @author wiflish
+ */
+public class CacheRefreshEnvironmentPostProcessor implements EnvironmentPostProcessor {
+
+    @Override
+    public void postProcessEnvironment(ConfigurableEnvironment environment, SpringApplication application) {
+        if (!environment.containsProperty(CacheUtils.REFRESH_THREADS_KEY)
+                && !environment.containsProperty(CacheUtils.REFRESH_QUEUE_CAPACITY_KEY)
+                && !environment.containsProperty(CacheUtils.REFRESH_VIRTUAL_KEY)) {
+            return;
+        }
+        CacheUtils.setRefreshExecutorConfig(
+                environment.getProperty(CacheUtils.REFRESH_THREADS_KEY, Integer.class,
+                        CacheUtils.getRefreshThreads()),
+                environment.getProperty(CacheUtils.REFRESH_QUEUE_CAPACITY_KEY, Integer.class,
+                        CacheUtils.getRefreshQueueCapacity()),
+                environment.getProperty(CacheUtils.REFRESH_VIRTUAL_KEY, Boolean.class,
+                        CacheUtils.isRefreshVirtual()));
+    }
+
+}
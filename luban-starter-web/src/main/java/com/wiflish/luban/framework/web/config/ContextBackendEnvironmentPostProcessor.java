@@ -0,0 +1,26 @@
+package com.wiflish.luban.framework.web.config;
+
+import com.wiflish.luban.framework.common.util.context.ContextThreadLocals;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.env.EnvironmentPostProcessor;
+import org.springframework.core.env.ConfigurableEnvironment;
+
+/**
+ * 根据 {@link ContextThreadLocals#BACKEND_KEY} 配置项，设置上下文的后端
+ *
+ * 在 Environment 准备好后、上下文 Holder 类加载之前执行，保证 application.yaml 中的配置生效
+ *
+ * @author wiflish
+ */
+public class ContextBackendEnvironmentPostProcessor implements EnvironmentPostProcessor {
+
+    @Override
+    public void postProcessEnvironment(ConfigurableEnvironment environment, SpringApplication application) {
+        String backend = environment.getProperty(ContextThreadLocals.BACKEND_KEY);
+        if (backend == null) {
+            return;
+        }
+        ContextThreadLocals.setBackend(ContextThreadLocals.Backend.of(backend));
+    }
+
+}
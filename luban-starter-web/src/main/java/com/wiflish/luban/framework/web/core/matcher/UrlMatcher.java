@@ -0,0 +1,294 @@
+package com.wiflish.luban.framework.web.core.matcher;
+
+import cn.hutool.core.util.StrUtil;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import org.springframework.util.AntPathMatcher;
+
+import java.util.*;
+
+/**
+ * 编译后的 URL 匹配器，供框架的各个 Filter 在每个请求上使用
+ *
+ * 在创建时，将配置的规则编译成以下几类，按照代价从低到高匹配：
+ * 1. 精确匹配：不包含通配符的 Ant 规则，使用 HashSet
+ * 2. 前缀匹配：形如 /admin-api/system/** 的 Ant 规则，以及 {@link Builder#prefixes(Collection)} 前缀规则，使用字符前缀树
+ * 3. 包含匹配：{@link Builder#contains(Collection)} 规则，URL 包含任一值即匹配，和 StrUtil.containsAny 一致
+ * 4. 其它 Ant 规则：使用 {@link AntPathMatcher} 逐个匹配，并使用有界的缓存，记录 URL 的匹配结果
+ *
+ * Ant 规则的匹配结果，和 {@link AntPathMatcher#match(String, String)} 逐个匹配一致：
+ * AntPathMatcher 会忽略空的路径段，所以 1、2 两类在匹配前，会将规则和 URL 中连续的 / 合并成一个，例如 //a、/a//b。
+ * 前缀、包含规则按照原始的 URL 匹配，不做合并。
+ *
+ * @author wiflish
+ */
+public class UrlMatcher {
+
+    /**
+     * 匹配结果缓存的默认数量
+     */
+    public static final int DEFAULT_CACHE_SIZE = 1024;
+
+    private static final UrlMatcher EMPTY = new Builder().build();
+
+    private final Set<String> exactUrls;
+    /**
+     * Ant 规则 xxx/** 的前缀树，按照合并 / 后的 URL 匹配
+     */
+    private final PrefixNode antPrefixRoot;
+    /**
+     * 前缀规则的前缀树，按照原始的 URL 匹配
+     */
+    private final PrefixNode prefixRoot;
+    private final List<String> containsValues;
+    private final List<String> antPatterns;
+
+    private final AntPathMatcher pathMatcher = new AntPathMatcher();
+    /**
+     * {@link #antPatterns} 的匹配结果缓存，为空时不缓存
+     */
+    private final Cache<String, Boolean> cache;
+
+    private UrlMatcher(Set<String> exactUrls, PrefixNode antPrefixRoot, PrefixNode prefixRoot,
+                       List<String> containsValues, List<String> antPatterns, int cacheSize) {
+        this.exactUrls = exactUrls;
+        this.antPrefixRoot = antPrefixRoot;
+        this.prefixRoot = prefixRoot;
+        this.containsValues = containsValues;
+        this.antPatterns = antPatterns;
+        this.cache = cacheSize > 0 && !antPatterns.isEmpty()
+                ? CacheBuilder.newBuilder().maximumSize(cacheSize).build() : null;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * 基于 Ant 规则，创建匹配器
+     *
+     * @param patterns Ant 规则
+     * @return 匹配器
+     */
+    public static UrlMatcher ofAntPatterns(Collection<String> patterns) {
+        return builder().antPatterns(patterns).build();
+    }
+
+    public static UrlMatcher empty() {
+        return EMPTY;
+    }
+
+    /**
+     * 判断 URL 是否匹配任一规则
+     *
+     * @param url URL
+     * @return 是否匹配
+     */
+    public boolean matches(String url) {
+        if (url == null) {
+            return false;
+        }
+        // 1. 精确匹配
+        String normalizedUrl = normalize(url);
+        if (exactUrls.contains(normalizedUrl)) {
+            return true;
+        }
+        // 2. 前缀匹配
+        if (antPrefixRoot.matches(normalizedUrl) || prefixRoot.matches(url)) {
+            return true;
+        }
+        // 3. 包含匹配
+        for (String value : containsValues) {
+            if (url.contains(value)) {
+                return true;
+            }
+        }
+        // 4. 其它 Ant 规则
+        if (antPatterns.isEmpty()) {
+            return false;
+        }
+        if (cache == null) {
+            return matchAntPatterns(url);
+        }
+        Boolean result = cache.getIfPresent(url);
+        if (result == null) {
+            result = matchAntPatterns(url);
+            cache.put(url, result);
+        }
+        return result;
+    }
+
+    private boolean matchAntPatterns(String url) {
+        for (String pattern : antPatterns) {
+            if (pathMatcher.match(pattern, url)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public boolean isEmpty() {
+        return exactUrls.isEmpty() && antPrefixRoot.isEmpty() && prefixRoot.isEmpty()
+                && containsValues.isEmpty() && antPatterns.isEmpty();
+    }
+
+    /**
+     * 将连续的 / 合并成一个，和 {@link AntPathMatcher} 忽略空的路径段保持一致
+     */
+    private static String normalize(String url) {
+        if (!url.contains("//")) {
+            return url;
+        }
+        StringBuilder builder = new StringBuilder(url.length());
+        for (int i = 0; i < url.length(); i++) {
+            char c = url.charAt(i);
+            if (c != '/' || builder.isEmpty() || builder.charAt(builder.length() - 1) != '/') {
+                builder.append(c);
+            }
+        }
+        return builder.toString();
+    }
+
+    /**
+     * 字符前缀树的节点
+     */
+    private static class PrefixNode {
+
+        private final Map<Character, PrefixNode> children = new HashMap<>();
+        /**
+         * Ant 规则 xxx/** 的结尾：剩余的 URL 为空、或者以 / 开头时匹配
+         */
+        private boolean antEnd;
+        /**
+         * 前缀规则的结尾：剩余任意的 URL 均匹配
+         */
+        private boolean prefixEnd;
+
+        private void add(String prefix, boolean ant) {
+            PrefixNode node = this;
+            for (int i = 0; i < prefix.length(); i++) {
+                node = node.children.computeIfAbsent(prefix.charAt(i), key -> new PrefixNode());
+            }
+            if (ant) {
+                node.antEnd = true;
+            } else {
+                node.prefixEnd = true;
+            }
+        }
+
+        private boolean matches(String url) {
+            PrefixNode node = this;
+            for (int i = 0; ; i++) {
+                if (node.prefixEnd || (node.antEnd && (i == url.length() || url.charAt(i) == '/'))) {
+                    return true;
+                }
+                if (i == url.length()) {
+                    return false;
+                }
+                node = node.children.get(url.charAt(i));
+                if (node == null) {
+                    return false;
+                }
+            }
+        }
+
+        private boolean isEmpty() {
+            return children.isEmpty() && !antEnd && !prefixEnd;
+        }
+
+    }
+
+    /**
+     * {@link UrlMatcher} 的构建器
+     */
+    public static class Builder {
+
+        private final Set<String> exactUrls = new HashSet<>();
+        private final PrefixNode antPrefixRoot = new PrefixNode();
+        private final PrefixNode prefixRoot = new PrefixNode();
+        private final List<String> containsValues = new ArrayList<>();
+        private final List<String> antPatterns = new ArrayList<>();
+        private int cacheSize = DEFAULT_CACHE_SIZE;
+
+        /**
+         * 添加 Ant 规则
+         *
+         * @param patterns Ant 规则
+         * @return this
+         */
+        public Builder antPatterns(Collection<String> patterns) {
+            if (patterns == null) {
+                return this;
+            }
+            for (String pattern : patterns) {
+                if (StrUtil.isEmpty(pattern)) {
+                    continue;
+                }
+                // 情况一：不包含通配符，精确匹配
+                if (!hasWildcard(pattern)) {
+                    exactUrls.add(normalize(pattern));
+                    continue;
+                }
+                // 情况二：xxx/** 且 xxx 不包含通配符，前缀匹配
+                if (pattern.endsWith("/**")) {
+                    String prefix = pattern.substring(0, pattern.length() - 3);
+                    if (!hasWildcard(prefix)) {
+                        antPrefixRoot.add(normalize(prefix), true);
+                        continue;
+                    }
+                }
+                // 情况三：其它规则
+                antPatterns.add(pattern);
+            }
+            return this;
+        }
+
+        /**
+         * 添加前缀规则，URL 以任一前缀开头即匹配
+         *
+         * @param prefixes 前缀
+         * @return this
+         */
+        public Builder prefixes(Collection<String> prefixes) {
+            if (prefixes != null) {
+                prefixes.stream().filter(StrUtil::isNotEmpty).forEach(prefix -> prefixRoot.add(prefix, false));
+            }
+            return this;
+        }
+
+        /**
+         * 添加包含规则，URL 包含任一值即匹配
+         *
+         * @param values 值
+         * @return this
+         */
+        public Builder contains(Collection<String> values) {
+            if (values != null) {
+                values.stream().filter(StrUtil::isNotEmpty).forEach(containsValues::add);
+            }
+            return this;
+        }
+
+        /**
+         * 设置 Ant 规则匹配结果缓存的数量，为 0 时不缓存
+         *
+         * @param cacheSize 数量
+         * @return this
+         */
+        public Builder cacheSize(int cacheSize) {
+            this.cacheSize = cacheSize;
+            return this;
+        }
+
+        public UrlMatcher build() {
+            return new UrlMatcher(new HashSet<>(exactUrls), antPrefixRoot, prefixRoot,
+                    new ArrayList<>(containsValues), new ArrayList<>(antPatterns), cacheSize);
+        }
+
+        private static boolean hasWildcard(String pattern) {
+            return pattern.indexOf('*') >= 0 || pattern.indexOf('?') >= 0 || pattern.indexOf('{') >= 0;
+        }
+
+    }
+
+}
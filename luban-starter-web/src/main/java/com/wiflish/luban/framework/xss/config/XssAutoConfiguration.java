@@ -15,7 +15,6 @@ import org.springframework.boot.autoconfigure.jackson.Jackson2ObjectMapperBuilde
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.boot.web.servlet.FilterRegistrationBean;
 import org.springframework.context.annotation.Bean;
-import org.springframework.util.PathMatcher;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
 @AutoConfiguration
@@ -44,10 +43,9 @@ public class XssAutoConfiguration implements WebMvcConfigurer {
     @ConditionalOnBean(ObjectMapper.class)
     @ConditionalOnProperty(value = "luban.framework.xss.enable", havingValue = "true")
     public Jackson2ObjectMapperBuilderCustomizer xssJacksonCustomizer(XssProperties properties,
-                                                                      PathMatcher pathMatcher,
                                                                       XssCleaner xssCleaner) {
         // 在反序列化时进行 xss 过滤，可以替换使用 XssStringJsonSerializer，在序列化时进行处理
-        return builder -> builder.deserializerByType(String.class, new XssStringJsonDeserializer(properties, pathMatcher, xssCleaner));
+        return builder -> builder.deserializerByType(String.class, new XssStringJsonDeserializer(properties, xssCleaner));
     }
 
     /**
@@ -55,8 +53,8 @@ public class XssAutoConfiguration implements WebMvcConfigurer {
      */
     @Bean
     @ConditionalOnBean(XssCleaner.class)
-    public FilterRegistrationBean<XssFilter> xssFilter(XssProperties properties, PathMatcher pathMatcher, XssCleaner xssCleaner) {
-        return WebAutoConfiguration.createFilterBean(new XssFilter(properties, pathMatcher, xssCleaner), WebFilterOrderEnum.XSS_FILTER);
+    public FilterRegistrationBean<XssFilter> xssFilter(XssProperties properties, XssCleaner xssCleaner) {
+        return WebAutoConfiguration.createFilterBean(new XssFilter(properties, xssCleaner), WebFilterOrderEnum.XSS_FILTER);
     }
 
 }
@@ -1,13 +1,12 @@
 package com.wiflish.luban.framework.xss.core.filter;
 
 import com.wiflish.luban.framework.xss.config.XssProperties;
+import com.wiflish.luban.framework.web.core.matcher.UrlMatcher;
 import com.wiflish.luban.framework.xss.core.clean.XssCleaner;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
-import lombok.AllArgsConstructor;
-import org.springframework.util.PathMatcher;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
@@ -17,7 +16,6 @@ import java.io.IOException;
  *
  * @author wiflish
  */
-@AllArgsConstructor
 public class XssFilter extends OncePerRequestFilter {
 
     /**
@@ -25,12 +23,18 @@ public class XssFilter extends OncePerRequestFilter {
      */
     private final XssProperties properties;
     /**
-     * 路径匹配器
+     * 排除的 URL 的匹配器，基于 {@link XssProperties#getExcludeUrls()} 编译
      */
-    private final PathMatcher pathMatcher;
+    private final UrlMatcher excludeUrlMatcher;
 
     private final XssCleaner xssCleaner;
 
+    public XssFilter(XssProperties properties, XssCleaner xssCleaner) {
+        this.properties = properties;
+        this.excludeUrlMatcher = UrlMatcher.ofAntPatterns(properties.getExcludeUrls());
+        this.xssCleaner = xssCleaner;
+    }
+
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
             throws IOException, ServletException {
@@ -45,8 +49,7 @@ public class XssFilter extends OncePerRequestFilter {
         }
 
         // 如果匹配到无需过滤，则不过滤
-        String uri = request.getRequestURI();
-        return properties.getExcludeUrls().stream().anyMatch(excludeUrl -> pathMatcher.match(excludeUrl, uri));
+        return excludeUrlMatcher.matches(request.getRequestURI());
     }
 
 }
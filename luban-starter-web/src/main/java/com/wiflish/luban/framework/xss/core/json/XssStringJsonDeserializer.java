@@ -5,12 +5,11 @@ import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.DeserializationContext;
 import com.fasterxml.jackson.databind.deser.std.StringDeserializer;
 import com.wiflish.luban.framework.common.util.servlet.ServletUtils;
+import com.wiflish.luban.framework.web.core.matcher.UrlMatcher;
 import com.wiflish.luban.framework.xss.config.XssProperties;
 import com.wiflish.luban.framework.xss.core.clean.XssCleaner;
 import jakarta.servlet.http.HttpServletRequest;
-import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.util.PathMatcher;
 
 import java.io.IOException;
 
@@ -21,27 +20,26 @@ import java.io.IOException;
  * @author Hccake
  */
 @Slf4j
-@AllArgsConstructor
 public class XssStringJsonDeserializer extends StringDeserializer {
 
     /**
-     * 属性
+     * 排除的 URL 的匹配器，基于 {@link XssProperties#getExcludeUrls()} 编译
      */
-    private final XssProperties properties;
-    /**
-     * 路径匹配器
-     */
-    private final PathMatcher pathMatcher;
+    private final UrlMatcher excludeUrlMatcher;
 
     private final XssCleaner xssCleaner;
 
+    public XssStringJsonDeserializer(XssProperties properties, XssCleaner xssCleaner) {
+        this.excludeUrlMatcher = UrlMatcher.ofAntPatterns(properties.getExcludeUrls());
+        this.xssCleaner = xssCleaner;
+    }
+
     @Override
     public String deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
         // 1. 白名单 URL 的处理
         HttpServletRequest request = ServletUtils.getRequest();
         if (request != null) {
-            String uri = ServletUtils.getRequest().getRequestURI();
-            if (properties.getExcludeUrls().stream().anyMatch(excludeUrl -> pathMatcher.match(excludeUrl, uri))) {
+            if (excludeUrlMatcher.matches(request.getRequestURI())) {
                 return p.getText();
             }
         }
@@ -0,0 +1,114 @@
+package com.wiflish.luban.framework.web.core.matcher;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.util.AntPathMatcher;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static java.util.Collections.singletonList;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * {@link UrlMatcher} 的单元测试
+ */
+public class UrlMatcherTest {
+
+    @Test
+    public void testMatches_antPatterns() {
+        // 准备参数
+        UrlMatcher matcher = UrlMatcher.ofAntPatterns(Arrays.asList(
+                "/admin-api/system/captcha/get", "/app-api/**", "/admin-api/pay/notify/*", "/admin-api/**/export"));
+
+        // 调用，并断言：精确匹配
+        assertTrue(matcher.matches("/admin-api/system/captcha/get"));
+        assertFalse(matcher.matches("/admin-api/system/captcha/get/"));
+        // 调用，并断言：前缀匹配
+        assertTrue(matcher.matches("/app-api"));
+        assertTrue(matcher.matches("/app-api/member/user/get"));
+        assertFalse(matcher.matches("/app-apix/member"));
+        // 调用，并断言：其它 Ant 规则
+        assertTrue(matcher.matches("/admin-api/pay/notify/order"));
+        assertFalse(matcher.matches("/admin-api/pay/notify/order/1"));
+        assertTrue(matcher.matches("/admin-api/system/user/export"));
+        assertFalse(matcher.matches("/admin-api/system/user/get"));
+        assertFalse(matcher.matches(null));
+    }
+
+    @Test
+    public void testMatches_prefixes() {
+        // 准备参数
+        UrlMatcher matcher = UrlMatcher.builder().prefixes(Arrays.asList("/admin-api/", "/app-api/trade")).build();
+
+        // 调用，并断言
+        assertTrue(matcher.matches("/admin-api/system/user/get"));
+        assertTrue(matcher.matches("/app-api/trade-order/get"));
+        assertFalse(matcher.matches("/admin-api"));
+        assertFalse(matcher.matches("/rpc-api/system/user/get"));
+        assertTrue(UrlMatcher.empty().isEmpty());
+        assertFalse(UrlMatcher.empty().matches("/admin-api/"));
+    }
+
+    @Test
+    public void testMatches_contains() {
+        // 准备参数
+        UrlMatcher matcher = UrlMatcher.builder().contains(Arrays.asList("/captcha/", "health")).build();
+
+        // 调用，并断言：和 StrUtil.containsAny 一致，不要求是前缀
+        assertTrue(matcher.matches("/admin-api/system/captcha/get"));
+        assertTrue(matcher.matches("/actuator/health"));
+        assertFalse(matcher.matches("/admin-api/system/captcha"));
+        assertFalse(matcher.matches("/admin-api/system/user/get"));
+    }
+
+    @Test
+    public void testMatches_duplicateSlash() {
+        // 准备参数
+        List<String> patterns = Arrays.asList("/a", "/a/b", "/app-api/**", "/admin-api//user/get");
+        UrlMatcher matcher = UrlMatcher.ofAntPatterns(patterns);
+        AntPathMatcher pathMatcher = new AntPathMatcher();
+
+        // 调用，并断言：和 AntPathMatcher 一样，忽略空的路径段
+        for (String url : Arrays.asList("//a", "/a//b", "/a/b/", "//app-api/member", "/app-api//member",
+                "/admin-api/user/get", "/admin-api//user//get", "/a/c")) {
+            boolean expected = patterns.stream().anyMatch(pattern -> pathMatcher.match(pattern, url));
+            assertEquals(expected, matcher.matches(url), url);
+        }
+        // 调用，并断言：前缀规则按照原始的 URL 匹配
+        assertFalse(UrlMatcher.builder().prefixes(singletonList("/admin-api/")).build().matches("//admin-api/user"));
+    }
+
+    /**
+     * 几百个规则时，和 {@link AntPathMatcher} 逐个匹配的结果保持一致
+     */
+    @Test
+    public void testMatches_sameAsAntPathMatcher() {
+        // 准备参数
+        List<String> patterns = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            patterns.add("/admin-api/module" + i + "/get");
+            patterns.add("/admin-api/module" + i + "/open/**");
+            patterns.add("/admin-api/module" + i + "/*/page");
+        }
+        UrlMatcher matcher = UrlMatcher.builder().antPatterns(patterns).cacheSize(16).build();
+        AntPathMatcher pathMatcher = new AntPathMatcher();
+        List<String> urls = new ArrayList<>();
+        for (int i = 0; i < 120; i += 7) {
+            urls.addAll(Arrays.asList("/admin-api/module" + i + "/get", "/admin-api/module" + i + "/get/1",
+                    "/admin-api/module" + i + "/open", "/admin-api/module" + i + "/open/a/b",
+                    "/admin-api/module" + i + "/opener", "/admin-api/module" + i + "/user/page",
+                    "/admin-api/module" + i + "/user/list"));
+        }
+
+        // 调用 2 轮，第 2 轮命中缓存，并断言
+        for (int round = 0; round < 2; round++) {
+            for (String url : urls) {
+                boolean expected = patterns.stream().anyMatch(pattern -> pathMatcher.match(pattern, url));
+                assertEquals(expected, matcher.matches(url), url);
+            }
+        }
+        assertFalse(UrlMatcher.ofAntPatterns(singletonList("/admin-api/module1/*/page")).matches("/admin-api/module1/page"));
+    }
+
+}